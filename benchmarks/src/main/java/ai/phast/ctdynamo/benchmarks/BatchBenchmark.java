@@ -0,0 +1,67 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.Key;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building batch requests (and decoding batch responses) against a client that answers instantly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    @Param({"25", "100"})
+    public int batchSize;
+
+    private NestedBatchDynamoTable table;
+
+    private List<Key<String, String>> keys;
+
+    private List<NestedBatch> items;
+
+    @Setup
+    public void setUp() {
+        var encoded = new NestedBatchDynamoTable(new StubDynamoDbClient(Map.of(), 0, 0), Fixtures.TABLE_NAME)
+                          .encode(Fixtures.nestedBatch(1, 10));
+        table = new NestedBatchDynamoTable(new StubDynamoDbClient(encoded, 0, 0), Fixtures.TABLE_NAME);
+        keys = Fixtures.nestedKeys(batchSize);
+        items = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; ++i) {
+            items.add(Fixtures.nestedBatch(i, 10));
+        }
+    }
+
+    @Benchmark
+    public List<NestedBatch> getBatchByKey() {
+        return table.getBatchByKey(keys);
+    }
+
+    @Benchmark
+    public void putBatch() {
+        table.putBatch(items);
+    }
+
+    @Benchmark
+    public void deleteBatchByKey() {
+        table.deleteBatchByKey(keys);
+    }
+}
@@ -0,0 +1,127 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode throughput of the generated table classes. Run with "-prof gc" to see allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    /** Number of entries in the nested list of the LogBatch style item */
+    @Param({"10", "100"})
+    public int numEntries;
+
+    private NestedBatchDynamoTable nestedTable;
+
+    private WideItemDynamoTable wideTable;
+
+    private PrimitiveItemDynamoTable primitiveTable;
+
+    private NestedBatch nestedItem;
+
+    private Map<String, AttributeValue> nestedMap;
+
+    private WideItem wideItem;
+
+    private Map<String, AttributeValue> wideMap;
+
+    private PrimitiveItem primitiveItem;
+
+    private Map<String, AttributeValue> primitiveMap;
+
+    private PackedEntryDynamoCodec packedCodec;
+
+    private List<PackedEntry> packedEntries;
+
+    private AttributeValue packedValue;
+
+    private LazyBatchDynamoTable lazyTable;
+
+    @Setup
+    public void setUp() {
+        var client = new StubDynamoDbClient(Map.of(), 0, 0);
+        nestedTable = new NestedBatchDynamoTable(client, Fixtures.TABLE_NAME);
+        wideTable = new WideItemDynamoTable(client, Fixtures.TABLE_NAME);
+        primitiveTable = new PrimitiveItemDynamoTable(client, Fixtures.TABLE_NAME);
+        nestedItem = Fixtures.nestedBatch(1, numEntries);
+        nestedMap = nestedTable.encode(nestedItem);
+        wideItem = Fixtures.wideItem(1);
+        wideMap = wideTable.encode(wideItem);
+        primitiveItem = Fixtures.primitiveItem(1);
+        primitiveMap = primitiveTable.encode(primitiveItem);
+        packedCodec = new PackedEntryDynamoCodec();
+        packedEntries = Fixtures.packedEntries(1, numEntries);
+        packedValue = packedCodec.encodePacked(packedEntries);
+        lazyTable = new LazyBatchDynamoTable(client, Fixtures.TABLE_NAME);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> encodeNested() {
+        return nestedTable.encode(nestedItem);
+    }
+
+    @Benchmark
+    public NestedBatch decodeNested() {
+        return nestedTable.decode(nestedMap);
+    }
+
+    /** Decodes the same map as decodeNested, but only reads two attributes and one entry; compare against that */
+    @Benchmark
+    public String decodeLazy() {
+        var batch = lazyTable.decode(nestedMap);
+        return batch.getOwner() + batch.getTtl() + batch.getEntries().get(0).getMessage();
+    }
+
+    /** The same entries as encodeNested, packed into one binary attribute; compare against that */
+    @Benchmark
+    public AttributeValue encodePacked() {
+        return packedCodec.encodePacked(packedEntries);
+    }
+
+    @Benchmark
+    public List<PackedEntry> decodePacked() {
+        return packedCodec.decodePacked(packedValue, ArrayList::new);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> encodeWide() {
+        return wideTable.encode(wideItem);
+    }
+
+    @Benchmark
+    public WideItem decodeWide() {
+        return wideTable.decode(wideMap);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> encodePrimitive() {
+        return primitiveTable.encode(primitiveItem);
+    }
+
+    @Benchmark
+    public PrimitiveItem decodePrimitive() {
+        return primitiveTable.decode(primitiveMap);
+    }
+}
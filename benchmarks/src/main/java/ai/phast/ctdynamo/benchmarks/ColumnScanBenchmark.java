@@ -0,0 +1,75 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summing one number attribute over a multi-page scan of items with nested lists, by decoding every item against
+ * reading the attribute into columns. The stub client ignores the projection, so this measures only the decoding, not
+ * the smaller responses that the projection brings from Dynamo itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColumnScanBenchmark {
+
+    private static final int NUM_PAGES = 10;
+
+    @Param({"25", "100"})
+    public int pageSize;
+
+    private NestedBatchDynamoTable table;
+
+    private long expected;
+
+    @Setup
+    public void setUp() {
+        var batch = Fixtures.nestedBatch(1, 10);
+        var encoded = new NestedBatchDynamoTable(new StubDynamoDbClient(Map.of(), 0, 0), Fixtures.TABLE_NAME).encode(batch);
+        table = new NestedBatchDynamoTable(new StubDynamoDbClient(encoded, NUM_PAGES, pageSize), Fixtures.TABLE_NAME);
+        expected = batch.getTtl() * NUM_PAGES * pageSize;
+    }
+
+    @Benchmark
+    public long scanItems() {
+        var total = 0L;
+        for (var item : table.scan().invoke()) {
+            total += item.getTtl();
+        }
+        return check(total);
+    }
+
+    @Benchmark
+    public long scanColumns() {
+        var total = 0L;
+        for (var page : table.scan().invokeColumns(NestedBatchDynamoTable.TTL_COLUMN)) {
+            var ttl = page.get(NestedBatchDynamoTable.TTL_COLUMN);
+            for (int row = 0; row < page.size(); ++row) {
+                total += ttl[row];
+            }
+        }
+        return check(total);
+    }
+
+    private long check(long total) {
+        if (total != expected) {
+            throw new IllegalStateException("Expected a total of " + expected + ", got " + total);
+        }
+        return total;
+    }
+}
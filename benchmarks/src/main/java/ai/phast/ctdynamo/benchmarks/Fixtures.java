@@ -0,0 +1,117 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.Key;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the items used by the benchmarks. Everything is deterministic, so runs of different versions see the same
+ * data.
+ */
+final class Fixtures {
+
+    static final String TABLE_NAME = "benchmark";
+
+    private Fixtures() {
+    }
+
+    static NestedBatch nestedBatch(int index, int numEntries) {
+        var batch = new NestedBatch();
+        batch.setStream("WEBAPP:prod:instance-" + (index % 16));
+        batch.setBatchId(String.format("%012d", index));
+        batch.setOwner("owner-" + (index % 7));
+        batch.setTtl(1_600_000_000L + index);
+        var entries = new ArrayList<NestedEntry>(numEntries);
+        for (int i = 0; i < numEntries; ++i) {
+            var entry = new NestedEntry();
+            entry.setTimestamp(1_600_000_000_000L + index * 1000L + i);
+            entry.setLevel(Level.values()[i % Level.values().length]);
+            entry.setMessage("Request " + i + " of batch " + index + " completed in " + (i * 37 % 1000) + "ms");
+            entry.setTags(List.of("service", "region-" + (i % 3)));
+            entries.add(entry);
+        }
+        batch.setEntries(entries);
+        return batch;
+    }
+
+    static List<PackedEntry> packedEntries(int index, int numEntries) {
+        var entries = new ArrayList<PackedEntry>(numEntries);
+        for (var nested : nestedBatch(index, numEntries).getEntries()) {
+            var entry = new PackedEntry();
+            entry.setTimestamp(nested.getTimestamp());
+            entry.setLevel(nested.getLevel());
+            entry.setMessage(nested.getMessage());
+            entry.setTags(nested.getTags());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    static WideItem wideItem(int index) {
+        var item = new WideItem();
+        item.setId("wide-" + index);
+        item.setText1("alpha " + index);
+        item.setText2("bravo " + index);
+        item.setText3("charlie " + index);
+        item.setText4("delta " + index);
+        item.setText5("echo " + index);
+        item.setText6("foxtrot " + index);
+        item.setText7("golf " + index);
+        item.setText8("hotel " + index);
+        item.setText9("india " + index);
+        item.setText10("juliet " + index);
+        item.setText11("kilo " + index);
+        item.setText12("lima " + index);
+        item.setNumber1(index);
+        item.setNumber2(index * 3L);
+        item.setNumber3(index * 7L);
+        item.setNumber4(index * 11L);
+        item.setNumber5(index * 13L);
+        item.setNumber6(index * 17L);
+        item.setNumber7(index * 19L);
+        item.setNumber8(index * 23L);
+        item.setAmount1(index / 3.0);
+        item.setAmount2(index / 7.0);
+        item.setAmount3(index / 11.0);
+        item.setAmount4(index / 13.0);
+        item.setLevel1(Level.DEBUG);
+        item.setLevel2(Level.INFO);
+        item.setLevel3(Level.WARN);
+        item.setLevel4(Level.ERROR);
+        return item;
+    }
+
+    static PrimitiveItem primitiveItem(int index) {
+        var item = new PrimitiveItem();
+        item.setId("primitive-" + index);
+        item.setCount(index % 100);
+        item.setTotal(index * 1_000_003L);
+        item.setAverage(index / 17.0);
+        item.setRatio(index / 19.0f);
+        item.setBucket((short)(index % 1000));
+        item.setFlags((byte)(index % 8));
+        item.setActive(index % 2 == 0);
+        item.setBoxedCount(index % 10);
+        item.setBoxedTotal((long)index);
+        item.setBoxedActive(index % 3 == 0);
+        return item;
+    }
+
+    static LookupItem lookupItem(int index) {
+        var item = new LookupItem();
+        item.setAccountId(100_000L + index);
+        item.setSequence(index * 31L);
+        item.setStatus("open");
+        return item;
+    }
+
+    static List<Key<String, String>> nestedKeys(int count) {
+        var keys = new ArrayList<Key<String, String>>(count);
+        for (int i = 0; i < count; ++i) {
+            var batch = nestedBatch(i, 0);
+            keys.add(new Key<>(batch.getStream(), batch.getBatchId()));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,8 @@
+package ai.phast.ctdynamo.benchmarks;
+
+/**
+ * A low cardinality enum, like the priority of a log message.
+ */
+public enum Level {
+    DEBUG, INFO, WARN, ERROR
+}
@@ -0,0 +1,44 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import ai.phast.ctdynamo.annotations.DynamoSortKey;
+
+/**
+ * A small item with primitive partition and sort keys, for point lookups.
+ */
+@DynamoItem
+public class LookupItem {
+
+    private long accountId;
+
+    private long sequence;
+
+    private String status;
+
+    @DynamoPartitionKey
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(long value) {
+        accountId = value;
+    }
+
+    @DynamoSortKey
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long value) {
+        sequence = value;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String value) {
+        status = value;
+    }
+}
@@ -0,0 +1,66 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import ai.phast.ctdynamo.annotations.DynamoSortKey;
+
+import java.util.List;
+
+/**
+ * An item with a list of nested items, shaped like the LogBatch example.
+ */
+@DynamoItem
+public class NestedBatch {
+
+    private String stream;
+
+    private String batchId;
+
+    private String owner;
+
+    private long ttl;
+
+    private List<NestedEntry> entries;
+
+    @DynamoPartitionKey
+    public String getStream() {
+        return stream;
+    }
+
+    public void setStream(String value) {
+        stream = value;
+    }
+
+    @DynamoSortKey
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String value) {
+        batchId = value;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String value) {
+        owner = value;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long value) {
+        ttl = value;
+    }
+
+    public List<NestedEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<NestedEntry> value) {
+        entries = value;
+    }
+}
@@ -0,0 +1,52 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.annotations.DynamoItem;
+
+import java.util.List;
+
+/**
+ * One entry of a {@link NestedBatch}, shaped like a log entry.
+ */
+@DynamoItem(DynamoItem.Output.CODEC)
+public class NestedEntry {
+
+    private long timestamp;
+
+    private Level level;
+
+    private String message;
+
+    private List<String> tags;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long value) {
+        timestamp = value;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level value) {
+        level = value;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String value) {
+        message = value;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> value) {
+        tags = value;
+    }
+}
@@ -0,0 +1,56 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of iterating a multi-page scan through {@code IterableResult}, including decoding each item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PagingBenchmark {
+
+    private static final int NUM_PAGES = 10;
+
+    @Param({"25", "100"})
+    public int pageSize;
+
+    private PrimitiveItemDynamoTable table;
+
+    @Setup
+    public void setUp() {
+        var encoded = new PrimitiveItemDynamoTable(new StubDynamoDbClient(Map.of(), 0, 0), Fixtures.TABLE_NAME)
+                          .encode(Fixtures.primitiveItem(1));
+        table = new PrimitiveItemDynamoTable(new StubDynamoDbClient(encoded, NUM_PAGES, pageSize), Fixtures.TABLE_NAME);
+    }
+
+    @Benchmark
+    public int scanAllPages(Blackhole blackhole) {
+        var count = 0;
+        for (var item : table.scan().invoke()) {
+            blackhole.consume(item);
+            ++count;
+        }
+        if (count != NUM_PAGES * pageSize) {
+            throw new IllegalStateException("Expected " + NUM_PAGES * pageSize + " items, got " + count);
+        }
+        return count;
+    }
+}
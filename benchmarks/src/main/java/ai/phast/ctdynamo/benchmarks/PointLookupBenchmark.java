@@ -0,0 +1,81 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.HotKeySampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gets and deletes of single items by key, against {@link StubDynamoDbClient}, so that what is measured is the work
+ * done to build each request and decode its response. Run with "-prof gc" to see allocation per lookup.
+ * <p>With a {@link HotKeySampler} attached, every request asks for its consumed capacity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointLookupBenchmark {
+
+    @Param({"false", "true"})
+    public boolean sampled;
+
+    private LookupItemDynamoTable table;
+
+    private Long boxedAccountId;
+
+    private Long boxedSequence;
+
+    private long accountId;
+
+    private long sequence;
+
+    private LookupItemDynamoTable.CompactKey compactKey;
+
+    @Setup
+    public void setUp() {
+        var item = Fixtures.lookupItem(7);
+        var encoded = new LookupItemDynamoTable(new StubDynamoDbClient(Map.of(), 0, 0), Fixtures.TABLE_NAME).encode(item);
+        table = new LookupItemDynamoTable(new StubDynamoDbClient(encoded, 0, 0), Fixtures.TABLE_NAME);
+        if (sampled) {
+            table.setHotKeySampler(new HotKeySampler(16, 0.01, Long.MAX_VALUE));
+        }
+        accountId = item.getAccountId();
+        sequence = item.getSequence();
+        boxedAccountId = accountId;
+        boxedSequence = sequence;
+        compactKey = table.getCompactKey(item);
+    }
+
+    @Benchmark
+    public LookupItem getItemBoxed() {
+        return table.getItem(boxedAccountId, boxedSequence);
+    }
+
+    @Benchmark
+    public LookupItem getItemPrimitive() {
+        return table.getItem(accountId, sequence);
+    }
+
+    @Benchmark
+    public LookupItem getItemCompactKey() {
+        return table.getItem(compactKey);
+    }
+
+    @Benchmark
+    public LookupItem deleteItem() {
+        return table.deleteItem(accountId, sequence);
+    }
+}
@@ -0,0 +1,122 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+
+/**
+ * An item made almost entirely of primitives and boxed primitives.
+ */
+@DynamoItem
+public class PrimitiveItem {
+
+    private String id;
+
+    private int count;
+
+    private long total;
+
+    private double average;
+
+    private float ratio;
+
+    private short bucket;
+
+    private byte flags;
+
+    private boolean active;
+
+    private Integer boxedCount;
+
+    private Long boxedTotal;
+
+    private Boolean boxedActive;
+
+    @DynamoPartitionKey
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String value) {
+        id = value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int value) {
+        count = value;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long value) {
+        total = value;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public void setAverage(double value) {
+        average = value;
+    }
+
+    public float getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(float value) {
+        ratio = value;
+    }
+
+    public short getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(short value) {
+        bucket = value;
+    }
+
+    public byte getFlags() {
+        return flags;
+    }
+
+    public void setFlags(byte value) {
+        flags = value;
+    }
+
+    public boolean getActive() {
+        return active;
+    }
+
+    public void setActive(boolean value) {
+        active = value;
+    }
+
+    public Integer getBoxedCount() {
+        return boxedCount;
+    }
+
+    public void setBoxedCount(Integer value) {
+        boxedCount = value;
+    }
+
+    public Long getBoxedTotal() {
+        return boxedTotal;
+    }
+
+    public void setBoxedTotal(Long value) {
+        boxedTotal = value;
+    }
+
+    public Boolean getBoxedActive() {
+        return boxedActive;
+    }
+
+    public void setBoxedActive(Boolean value) {
+        boxedActive = value;
+    }
+}
@@ -0,0 +1,66 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An aggregation over a multi-page scan of items with nested lists, decoding a new item for each result against
+ * refilling one item with {@code forEachReusing}. Run with "-prof gc" to see allocation per scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReusingScanBenchmark {
+
+    private static final int NUM_PAGES = 10;
+
+    @Param({"25", "100"})
+    public int pageSize;
+
+    private NestedBatchDynamoTable table;
+
+    @Setup
+    public void setUp() {
+        var encoded = new NestedBatchDynamoTable(new StubDynamoDbClient(Map.of(), 0, 0), Fixtures.TABLE_NAME)
+                          .encode(Fixtures.nestedBatch(1, 10));
+        table = new NestedBatchDynamoTable(new StubDynamoDbClient(encoded, NUM_PAGES, pageSize), Fixtures.TABLE_NAME);
+    }
+
+    @Benchmark
+    public long scanNew() {
+        var total = 0L;
+        for (var item : table.scan().invoke()) {
+            total += item.getEntries().size();
+        }
+        return check(total);
+    }
+
+    @Benchmark
+    public long scanReusing() {
+        var total = new long[1];
+        table.scan().invoke().forEachReusing(NestedBatch::new, item -> total[0] += item.getEntries().size());
+        return check(total[0]);
+    }
+
+    private long check(long total) {
+        if (total != 10L * NUM_PAGES * pageSize) {
+            throw new IllegalStateException("Expected " + 10L * NUM_PAGES * pageSize + " entries, got " + total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,88 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.StreamingReads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A one page scan through a real SDK client, with the page served by {@link StubHttpClient}. Compares the SDK's own
+ * unmarshalling followed by decoding against {@link StreamingReads}. Run with "-prof gc" to see allocation per scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingReadsBenchmark {
+
+    @Param({"25", "100"})
+    public int pageSize;
+
+    private NestedBatchDynamoTable sdkTable;
+
+    private NestedBatchDynamoTable streamingTable;
+
+    @Setup
+    public void setUp() {
+        var encoder = new NestedBatchDynamoTable(new StubDynamoDbClient(Map.of(), 0, 0), Fixtures.TABLE_NAME);
+        var items = new ArrayList<Map<String, AttributeValue>>(pageSize);
+        for (int i = 0; i < pageSize; ++i) {
+            items.add(encoder.encode(Fixtures.nestedBatch(i, 10)));
+        }
+        var httpClient = new StubHttpClient(items);
+        var credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret"));
+        sdkTable = new NestedBatchDynamoTable(DynamoDbClient.builder()
+                                                  .region(Region.US_EAST_1)
+                                                  .credentialsProvider(credentials)
+                                                  .httpClient(httpClient)
+                                                  .build(), Fixtures.TABLE_NAME);
+        streamingTable = new NestedBatchDynamoTable(DynamoDbClient.builder()
+                                                        .region(Region.US_EAST_1)
+                                                        .credentialsProvider(credentials)
+                                                        .httpClient(httpClient)
+                                                        .overrideConfiguration(config -> config.addExecutionInterceptor(new StreamingReads()))
+                                                        .build(), Fixtures.TABLE_NAME);
+    }
+
+    @Benchmark
+    public int scanSdk(Blackhole blackhole) {
+        return scan(sdkTable, blackhole);
+    }
+
+    @Benchmark
+    public int scanStreaming(Blackhole blackhole) {
+        return scan(streamingTable, blackhole);
+    }
+
+    private int scan(NestedBatchDynamoTable table, Blackhole blackhole) {
+        var count = 0;
+        for (var item : table.scan().invoke()) {
+            blackhole.consume(item);
+            ++count;
+        }
+        if (count != pageSize) {
+            throw new IllegalStateException("Expected " + pageSize + " items, got " + count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,70 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.StreamingWrites;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch puts through a real SDK client, with requests answered by {@link StubHttpClient}. Compares the SDK's own
+ * request marshalling against {@link StreamingWrites}. Run with "-prof gc" to see allocation per batch.
+ * <p>Installing the interceptor anywhere changes how every table writes, so each way of writing has its own fork
+ * rather than its own benchmark method.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingWritesBenchmark {
+
+    @Param({"25", "100"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private NestedBatchDynamoTable table;
+
+    private List<NestedBatch> items;
+
+    @Setup
+    public void setUp() {
+        var httpClient = new StubHttpClient();
+        var credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret"));
+        var builder = DynamoDbClient.builder()
+                          .region(Region.US_EAST_1)
+                          .credentialsProvider(credentials)
+                          .httpClient(httpClient);
+        if (streaming) {
+            builder.overrideConfiguration(config -> config.addExecutionInterceptor(new StreamingWrites()));
+        }
+        table = new NestedBatchDynamoTable(builder.build(), Fixtures.TABLE_NAME);
+        items = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; ++i) {
+            items.add(Fixtures.nestedBatch(i, 10));
+        }
+    }
+
+    @Benchmark
+    public void putBatch() {
+        table.putBatch(items);
+    }
+}
@@ -0,0 +1,105 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A client that answers instantly with canned data, so that benchmarks measure ctdynamo rather than the network.
+ * Every read returns copies of one item; scans return a fixed number of pages.
+ */
+final class StubDynamoDbClient implements DynamoDbClient {
+
+    private static final BatchWriteItemResponse EMPTY_BATCH_WRITE_RESPONSE = BatchWriteItemResponse.builder().build();
+
+    private static final PutItemResponse EMPTY_PUT_RESPONSE = PutItemResponse.builder().build();
+
+    private static final DeleteItemResponse EMPTY_DELETE_RESPONSE = DeleteItemResponse.builder().build();
+
+    private final GetItemResponse getResponse;
+
+    private final List<Map<String, AttributeValue>> batchItems;
+
+    private final List<ScanResponse> scanPages;
+
+    /**
+     * Build the client.
+     * @param item The item returned by every read
+     * @param numPages The number of pages returned by a scan
+     * @param pageSize The number of items on each page of a scan
+     */
+    StubDynamoDbClient(Map<String, AttributeValue> item, int numPages, int pageSize) {
+        getResponse = GetItemResponse.builder().item(item).build();
+        batchItems = Collections.nCopies(100, item);
+        scanPages = new ArrayList<>(numPages);
+        for (int page = 0; page < numPages; ++page) {
+            var builder = ScanResponse.builder()
+                              .items(Collections.nCopies(pageSize, item))
+                              .count(pageSize)
+                              .scannedCount(pageSize);
+            if (page + 1 < numPages) {
+                builder.lastEvaluatedKey(Map.of("page", AttributeValue.builder().n(Integer.toString(page + 1)).build()));
+            }
+            scanPages.add(builder.build());
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        return getResponse;
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        return EMPTY_PUT_RESPONSE;
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        return EMPTY_DELETE_RESPONSE;
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        var entry = request.requestItems().entrySet().iterator().next();
+        return BatchGetItemResponse.builder()
+                   .responses(Map.of(entry.getKey(), batchItems.subList(0, entry.getValue().keys().size())))
+                   .build();
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        return EMPTY_BATCH_WRITE_RESPONSE;
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        var start = request.exclusiveStartKey();
+        return scanPages.get(request.hasExclusiveStartKey() ? Integer.parseInt(start.get("page").n()) : 0);
+    }
+}
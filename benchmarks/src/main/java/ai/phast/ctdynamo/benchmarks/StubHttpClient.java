@@ -0,0 +1,103 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.JsonAttributeValues;
+import com.fasterxml.jackson.core.JsonFactory;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An HTTP client that answers every request with one canned response, so that benchmarks can measure the whole SDK
+ * request and response path (JSON writing and parsing included) without a network. Request bodies are read and thrown
+ * away, as a real client would read them to send them.
+ */
+final class StubHttpClient implements SdkHttpClient {
+
+    private final byte[] body;
+
+    private final String crc32;
+
+    /** Request bodies are read into this. Threads may share it, since nothing looks at what is in it. */
+    private final byte[] discard = new byte[8192];
+
+    /**
+     * Build a client that answers with an empty object, which is a successful response to any write.
+     */
+    StubHttpClient() {
+        this("{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Build a client that answers with a scan page.
+     * @param items The items on the scan page
+     */
+    StubHttpClient(List<Map<String, AttributeValue>> items) {
+        this(scanPage(items));
+    }
+
+    private StubHttpClient(byte[] body) {
+        this.body = body;
+        var crc = new CRC32();
+        crc.update(body);
+        crc32 = Long.toString(crc.getValue());
+    }
+
+    @Override
+    public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+        return new ExecutableHttpRequest() {
+            @Override
+            public HttpExecuteResponse call() throws IOException {
+                if (request.contentStreamProvider().isPresent()) {
+                    try (var content = request.contentStreamProvider().get().newStream()) {
+                        while (content.read(discard) >= 0) {
+                            // Nothing to do with the bytes
+                        }
+                    }
+                }
+                return HttpExecuteResponse.builder()
+                           .response(SdkHttpResponse.builder().statusCode(200).putHeader("x-amz-crc32", crc32).build())
+                           .responseBody(AbortableInputStream.create(new ByteArrayInputStream(body)))
+                           .build();
+            }
+
+            @Override
+            public void abort() {
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static byte[] scanPage(List<Map<String, AttributeValue>> items) {
+        var out = new ByteArrayOutputStream();
+        try (var generator = new JsonFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("Count", items.size());
+            generator.writeNumberField("ScannedCount", items.size());
+            generator.writeArrayFieldStart("Items");
+            for (var item : items) {
+                JsonAttributeValues.writeItem(generator, item);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,302 @@
+package ai.phast.ctdynamo.benchmarks;
+
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+
+/**
+ * An item with many top level attributes, to show costs that grow with the number of attributes.
+ */
+@DynamoItem
+public class WideItem {
+
+    private String id;
+
+    private String text1;
+
+    private String text2;
+
+    private String text3;
+
+    private String text4;
+
+    private String text5;
+
+    private String text6;
+
+    private String text7;
+
+    private String text8;
+
+    private String text9;
+
+    private String text10;
+
+    private String text11;
+
+    private String text12;
+
+    private long number1;
+
+    private long number2;
+
+    private long number3;
+
+    private long number4;
+
+    private long number5;
+
+    private long number6;
+
+    private long number7;
+
+    private long number8;
+
+    private double amount1;
+
+    private double amount2;
+
+    private double amount3;
+
+    private double amount4;
+
+    private Level level1;
+
+    private Level level2;
+
+    private Level level3;
+
+    private Level level4;
+
+    @DynamoPartitionKey
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String value) {
+        id = value;
+    }
+
+    public String getText1() {
+        return text1;
+    }
+
+    public void setText1(String value) {
+        text1 = value;
+    }
+
+    public String getText2() {
+        return text2;
+    }
+
+    public void setText2(String value) {
+        text2 = value;
+    }
+
+    public String getText3() {
+        return text3;
+    }
+
+    public void setText3(String value) {
+        text3 = value;
+    }
+
+    public String getText4() {
+        return text4;
+    }
+
+    public void setText4(String value) {
+        text4 = value;
+    }
+
+    public String getText5() {
+        return text5;
+    }
+
+    public void setText5(String value) {
+        text5 = value;
+    }
+
+    public String getText6() {
+        return text6;
+    }
+
+    public void setText6(String value) {
+        text6 = value;
+    }
+
+    public String getText7() {
+        return text7;
+    }
+
+    public void setText7(String value) {
+        text7 = value;
+    }
+
+    public String getText8() {
+        return text8;
+    }
+
+    public void setText8(String value) {
+        text8 = value;
+    }
+
+    public String getText9() {
+        return text9;
+    }
+
+    public void setText9(String value) {
+        text9 = value;
+    }
+
+    public String getText10() {
+        return text10;
+    }
+
+    public void setText10(String value) {
+        text10 = value;
+    }
+
+    public String getText11() {
+        return text11;
+    }
+
+    public void setText11(String value) {
+        text11 = value;
+    }
+
+    public String getText12() {
+        return text12;
+    }
+
+    public void setText12(String value) {
+        text12 = value;
+    }
+
+    public long getNumber1() {
+        return number1;
+    }
+
+    public void setNumber1(long value) {
+        number1 = value;
+    }
+
+    public long getNumber2() {
+        return number2;
+    }
+
+    public void setNumber2(long value) {
+        number2 = value;
+    }
+
+    public long getNumber3() {
+        return number3;
+    }
+
+    public void setNumber3(long value) {
+        number3 = value;
+    }
+
+    public long getNumber4() {
+        return number4;
+    }
+
+    public void setNumber4(long value) {
+        number4 = value;
+    }
+
+    public long getNumber5() {
+        return number5;
+    }
+
+    public void setNumber5(long value) {
+        number5 = value;
+    }
+
+    public long getNumber6() {
+        return number6;
+    }
+
+    public void setNumber6(long value) {
+        number6 = value;
+    }
+
+    public long getNumber7() {
+        return number7;
+    }
+
+    public void setNumber7(long value) {
+        number7 = value;
+    }
+
+    public long getNumber8() {
+        return number8;
+    }
+
+    public void setNumber8(long value) {
+        number8 = value;
+    }
+
+    public double getAmount1() {
+        return amount1;
+    }
+
+    public void setAmount1(double value) {
+        amount1 = value;
+    }
+
+    public double getAmount2() {
+        return amount2;
+    }
+
+    public void setAmount2(double value) {
+        amount2 = value;
+    }
+
+    public double getAmount3() {
+        return amount3;
+    }
+
+    public void setAmount3(double value) {
+        amount3 = value;
+    }
+
+    public double getAmount4() {
+        return amount4;
+    }
+
+    public void setAmount4(double value) {
+        amount4 = value;
+    }
+
+    public Level getLevel1() {
+        return level1;
+    }
+
+    public void setLevel1(Level value) {
+        level1 = value;
+    }
+
+    public Level getLevel2() {
+        return level2;
+    }
+
+    public void setLevel2(Level value) {
+        level2 = value;
+    }
+
+    public Level getLevel3() {
+        return level3;
+    }
+
+    public void setLevel3(Level value) {
+        level3 = value;
+    }
+
+    public Level getLevel4() {
+        return level4;
+    }
+
+    public void setLevel4(Level value) {
+        level4 = value;
+    }
+}
@@ -7,6 +7,7 @@ import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
 import ai.phast.ctdynamo.annotations.DynamoSecondaryPartitionKey;
 import ai.phast.ctdynamo.annotations.DynamoSecondarySortKey;
 import ai.phast.ctdynamo.annotations.DynamoSortKey;
+import ai.phast.ctdynamo.codecs.InstantIsoCodec;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -117,7 +118,7 @@ public class LogBatch {
      * Get the first date of log from log entries.
      * @return the date of first message as a time instant.
      */
-    @DynamoSortKey(value=DATE_OF_FIRST_MESSAGE_ATTRIBUTE, codec=InstantCodec.class)
+    @DynamoSortKey(value=DATE_OF_FIRST_MESSAGE_ATTRIBUTE, codec=InstantIsoCodec.class, writeOnly=true)
     @DynamoSecondarySortKey(CASE_ID_INDEX)
     public Instant getDateOfFirstMessage() {
         if (logEntries == null) {
@@ -130,15 +131,11 @@ public class LogBatch {
         }
     }
 
-    public void setDateOfFirstMessage(Instant value) {
-        // Do nothing
-    }
-
     /**
      * Get the log with priority of "ERROR".
      * @return the value of error. It's non-null when any entry from batch has priority ERROR.
      */
-    @DynamoAttribute(ERROR_ATTRIBUTE)
+    @DynamoAttribute(value=ERROR_ATTRIBUTE, writeOnly=true)
     @JsonIgnore
     public String getError() {
         if (logEntries == null) {
@@ -147,8 +144,4 @@ public class LogBatch {
             return logEntries.stream().anyMatch(entry -> entry.getPriority() == Priority.ERROR) ? "ERROR" : null;
         }
     }
-
-    public void setError(String value) {
-        // Do nothing
-    }
 }
@@ -3,6 +3,7 @@ package ai.phast.ctdynamo.examples;
 import ai.phast.ctdynamo.annotations.DynamoAttribute;
 import ai.phast.ctdynamo.annotations.DynamoItem;
 import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import ai.phast.ctdynamo.codecs.InstantIsoCodec;
 
 import java.time.Instant;
 import java.util.List;
@@ -37,7 +38,7 @@ public class LogBatch2 {
         this.batchNum = batchNum;
     }
 
-    @DynamoAttribute(codec = InstantCodec.class)
+    @DynamoAttribute(codec = InstantIsoCodec.class)
     public Instant getDate() {
         return date;
     }
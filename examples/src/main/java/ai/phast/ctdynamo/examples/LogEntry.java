@@ -2,6 +2,7 @@ package ai.phast.ctdynamo.examples;
 
 import ai.phast.ctdynamo.annotations.DynamoAttribute;
 import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.codecs.InstantIsoCodec;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
@@ -21,7 +22,7 @@ import lombok.ToString;
 public class LogEntry {
 
     /** The date when the message was produced. */
-    @DynamoAttribute(codec = InstantCodec.class)
+    @DynamoAttribute(codec = InstantIsoCodec.class)
     private Instant date;
 
     /** The priority of message. */
@@ -0,0 +1,42 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import ai.phast.ctdynamo.annotations.DynamoSortKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A small item with a string partition key and a numeric sort key, used by the tests.
+ */
+@Setter
+@Getter
+@EqualsAndHashCode
+@ToString
+@DynamoItem
+public class Account {
+
+    @DynamoPartitionKey
+    private String owner;
+
+    @DynamoSortKey
+    private long sequence;
+
+    @DynamoAttribute
+    private String status;
+
+    @DynamoAttribute
+    private long balance;
+
+    public static Account of(String owner, long sequence, String status, long balance) {
+        var result = new Account();
+        result.setOwner(owner);
+        result.setSequence(sequence);
+        result.setStatus(status);
+        result.setBalance(balance);
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.CapacityScope;
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregationTest {
+
+    private AccountDynamoTable table;
+
+    @BeforeEach
+    void setUp() {
+        var dynamo = new InMemoryDynamoDb();
+        table = TestTables.accounts(dynamo);
+        var accounts = new ArrayList<Account>();
+        for (int owner = 0; owner < 20; ++owner) {
+            for (int sequence = 0; sequence < 5; ++sequence) {
+                accounts.add(Account.of("owner" + owner, sequence, sequence % 2 == 0 ? "open" : "closed", owner));
+            }
+        }
+        table.putBatch(accounts);
+    }
+
+    @Test
+    void scanAggregatesEverySegment() {
+        var total = table.aggregateScan(4, Collectors.summingLong(Account::getBalance)).join();
+        // Owners 0 to 19, with five accounts each
+        assertEquals(5 * 190L, total);
+    }
+
+    @Test
+    void queryAggregatesEveryPartition() {
+        var count = table.aggregateQuery(List.of("owner1", "owner2", "owner3"), 2, Collectors.counting()).join();
+        assertEquals(15L, count);
+    }
+
+    @Test
+    void workersChargeTheCallersScope() {
+        try (var scope = CapacityScope.open()) {
+            table.aggregateScan(4, Collectors.counting()).join();
+            assertTrue(scope.getCapacity().getTotalRead() > 0);
+        }
+    }
+
+    @Test
+    void rejectedWorkersFailTheResult() throws Exception {
+        var started = new ArrayList<Thread>();
+        Executor oneThread = task -> {
+            if (!started.isEmpty()) {
+                throw new RejectedExecutionException("full");
+            }
+            var thread = new Thread(task);
+            started.add(thread);
+            thread.start();
+        };
+        var result = table.aggregateScan(4, Collectors.counting(), oneThread);
+        var error = assertThrows(CompletionException.class, result::join);
+        assertTrue(error.getCause() instanceof RejectedExecutionException, error.toString());
+        // The worker that did start gives up rather than running forever
+        started.get(0).join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(started.get(0).isAlive());
+    }
+}
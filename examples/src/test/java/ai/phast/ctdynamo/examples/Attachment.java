@@ -0,0 +1,39 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An item with binary attributes of each type, with and without zero copy, used by the tests.
+ */
+@Setter
+@Getter
+@ToString
+@DynamoItem
+public class Attachment {
+
+    @DynamoPartitionKey
+    private String id;
+
+    @DynamoAttribute
+    private byte[] data;
+
+    @DynamoAttribute(zeroCopy = true)
+    private byte[] sharedData;
+
+    @DynamoAttribute
+    private ByteBuffer buffer;
+
+    @DynamoAttribute(zeroCopy = true)
+    private ByteBuffer sharedBuffer;
+
+    @DynamoAttribute
+    private SdkBytes bytes;
+}
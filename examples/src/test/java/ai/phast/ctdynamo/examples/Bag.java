@@ -0,0 +1,38 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Set;
+
+/**
+ * An item with an attribute of each kind of native Dynamo set, used by the tests.
+ */
+@Setter
+@Getter
+@DynamoItem
+public class Bag {
+
+    @DynamoPartitionKey
+    private String id;
+
+    @DynamoAttribute
+    private Set<String> tags;
+
+    @DynamoAttribute
+    private Set<Integer> counts;
+
+    @DynamoAttribute
+    private Set<byte[]> blobs;
+
+    @DynamoAttribute
+    private Set<BigDecimal> amounts;
+
+    @DynamoAttribute
+    private Set<BigInteger> totals;
+}
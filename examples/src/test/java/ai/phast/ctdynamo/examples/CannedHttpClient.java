@@ -0,0 +1,143 @@
+package ai.phast.ctdynamo.examples;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An HTTP client that answers each request with the next canned response and keeps the bodies it was sent, so that
+ * tests can see exactly what goes over the wire without a real Dynamo.
+ */
+final class CannedHttpClient implements SdkHttpClient {
+
+    private final Deque<Response> responses = new ArrayDeque<>();
+
+    private final List<String> bodies = new ArrayList<>();
+
+    /**
+     * Build a client that sends its requests here.
+     * @param interceptors The interceptors to install
+     * @return The client
+     */
+    DynamoDbClient client(ExecutionInterceptor... interceptors) {
+        return DynamoDbClient.builder()
+                   .httpClient(this)
+                   .region(Region.US_EAST_1)
+                   .endpointOverride(URI.create("http://localhost:8000"))
+                   .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                   .overrideConfiguration(config -> {
+                       for (var interceptor : interceptors) {
+                           config.addExecutionInterceptor(interceptor);
+                       }
+                   })
+                   .build();
+    }
+
+    /**
+     * Queue a successful response. Requests made when nothing is queued get an empty object.
+     * @param json The body
+     */
+    void respond(String json) {
+        responses.add(new Response(200, json));
+    }
+
+    /**
+     * Queue a successful response whose checksum header does not match its body.
+     * @param json The body
+     */
+    void respondCorrupted(String json) {
+        var response = new Response(200, json);
+        response.crc32 = response.crc32 ^ 1;
+        responses.add(response);
+    }
+
+    /**
+     * Queue a failure that the SDK does not retry.
+     * @param type The error type, such as {@code ValidationException}
+     */
+    void fail(String type) {
+        responses.add(new Response(400, "{\"__type\":\"com.amazonaws.dynamodb.v20120810#" + type + "\",\"message\":\"canned\"}"));
+    }
+
+    /**
+     * @return The bodies of the requests sent so far, oldest first
+     */
+    List<String> getBodies() {
+        return bodies;
+    }
+
+    @Override
+    public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+        return new ExecutableHttpRequest() {
+            @Override
+            public HttpExecuteResponse call() {
+                var content = request.contentStreamProvider().map(provider -> {
+                    try (var stream = provider.newStream()) {
+                        return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).orElse("");
+                Response response;
+                synchronized (CannedHttpClient.this) {
+                    bodies.add(content);
+                    response = responses.isEmpty() ? new Response(200, "{}") : responses.remove();
+                }
+                var bytes = response.body.getBytes(StandardCharsets.UTF_8);
+                return HttpExecuteResponse.builder()
+                           .response(SdkHttpResponse.builder()
+                                         .statusCode(response.status)
+                                         .putHeader("Content-Type", "application/x-amz-json-1.0")
+                                         .putHeader("Content-Length", Integer.toString(bytes.length))
+                                         .putHeader("x-amz-crc32", Long.toString(response.crc32))
+                                         .build())
+                           .responseBody(AbortableInputStream.create(new ByteArrayInputStream(bytes)))
+                           .build();
+            }
+
+            @Override
+            public void abort() {
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static final class Response {
+
+        private final int status;
+
+        private final String body;
+
+        private long crc32;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+            var checksum = new CRC32();
+            checksum.update(body.getBytes(StandardCharsets.UTF_8));
+            crc32 = checksum.getValue();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.CapacityScope;
+import ai.phast.ctdynamo.HotKeySampler;
+import ai.phast.ctdynamo.Key;
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class CapacityTrackingTest {
+
+    private InMemoryDynamoDb dynamo;
+
+    private AccountDynamoTable table;
+
+    @BeforeEach
+    void setUp() {
+        dynamo = new InMemoryDynamoDb();
+        table = TestTables.accounts(dynamo);
+    }
+
+    @Test
+    void scopeCollectsEveryPointOperation() {
+        try (var scope = CapacityScope.open()) {
+            table.putItem(Account.of("alice", 1, "open", 10));
+            table.getItem("alice", 1L);
+            table.deleteItem("alice", 1L);
+            // Eventually consistent reads of a small item cost half a unit, writes of a small item one unit each
+            assertEquals(0.5, scope.getCapacity().getTotalRead());
+            assertEquals(2.0, scope.getCapacity().getTotalWrite());
+        }
+    }
+
+    @Test
+    void scopeCollectsAsyncOperations() {
+        var asyncTable = new AccountDynamoTable(dynamo.asyncClient(), TestTables.ACCOUNTS);
+        try (var scope = CapacityScope.open()) {
+            asyncTable.putItemAsync(Account.of("bob", 1, "open", 10)).join();
+            asyncTable.getItemAsync("bob", 1L).join();
+            asyncTable.deleteItemAsync("bob", 1L).join();
+            assertEquals(0.5, scope.getCapacity().getTotalRead());
+            assertEquals(2.0, scope.getCapacity().getTotalWrite());
+        }
+    }
+
+    @Test
+    void scopeCollectsBatches() {
+        var accounts = List.of(Account.of("carol", 1, "open", 1), Account.of("carol", 2, "open", 2),
+            Account.of("carol", 3, "closed", 3));
+        try (var scope = CapacityScope.open()) {
+            table.putBatch(accounts);
+            assertEquals(3.0, scope.getCapacity().getTotalWrite());
+            assertEquals(3, table.getBatchByKey(List.of(new Key<>("carol", 1L), new Key<>("carol", 2L), new Key<>("carol", 3L))).size());
+            assertEquals(1.5, scope.getCapacity().getTotalRead());
+            table.deleteBatchByItem(accounts);
+            assertEquals(6.0, scope.getCapacity().getTotalWrite());
+        }
+    }
+
+    @Test
+    void nestedScopesBothCollect() {
+        try (var outer = CapacityScope.open()) {
+            table.putItem(Account.of("dave", 1, "open", 10));
+            try (var inner = CapacityScope.open()) {
+                table.putItem(Account.of("dave", 2, "open", 10));
+                assertEquals(1.0, inner.getCapacity().getTotalWrite());
+            }
+            assertEquals(2.0, outer.getCapacity().getTotalWrite());
+        }
+    }
+
+    @Test
+    void extendedResultsCarryCapacityWithoutScope() {
+        table.putItem(Account.of("erin", 1, "open", 10));
+        var result = table.getItemExtended("erin", 1L, true);
+        assertEquals("open", result.getItem().getStatus());
+        assertNotNull(result.getCapacity());
+        assertEquals(1.0, result.getCapacity().getTotalRead());
+    }
+
+    @Test
+    void samplerSeesPointOperationsWithoutScope() {
+        var sampler = new HotKeySampler(8);
+        table.setHotKeySampler(sampler);
+        table.putItem(Account.of("frank", 1, "open", 10));
+        table.getItem("frank", 1L);
+        table.getItem("frank", 1L);
+        var top = sampler.getTopKeys(1);
+        assertEquals(1, top.size());
+        assertEquals(3, top.get(0).getCount());
+    }
+}
@@ -0,0 +1,112 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.Column;
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnResultTest {
+
+    private InMemoryDynamoDb dynamo;
+
+    private AccountDynamoTable table;
+
+    @BeforeEach
+    void setUp() {
+        dynamo = new InMemoryDynamoDb();
+        table = TestTables.accounts(dynamo);
+        var accounts = new ArrayList<Account>();
+        for (int sequence = 0; sequence < 7; ++sequence) {
+            // Sequences 0 and 5 have no status
+            var status = sequence % 5 == 0 ? null : sequence % 2 == 0 ? "open" : "closed";
+            accounts.add(Account.of("alice", sequence, status, sequence * 100));
+        }
+        table.putBatch(accounts);
+    }
+
+    @Test
+    void dictionaryCodesAreStableAcrossPages() {
+        var codes = new ArrayList<Integer>();
+        List<String> dictionary = null;
+        for (var page : table.query("alice").pageSize(2).invokeColumns(AccountDynamoTable.STATUS_COLUMN)) {
+            var status = page.get(AccountDynamoTable.STATUS_COLUMN);
+            for (int row = 0; row < page.size(); ++row) {
+                codes.add(status[row]);
+            }
+            dictionary = page.getDictionary(AccountDynamoTable.STATUS_COLUMN);
+        }
+        // closed was seen first, on the first page, and keeps its code on later pages
+        assertEquals(List.of("closed", "open"), dictionary);
+        assertEquals(List.of(-1, 0, 1, 0, 1, -1, 1), codes);
+    }
+
+    @Test
+    void missingValuesAreTrackedPerRow() {
+        var rows = 0;
+        for (var page : table.query("alice").invokeColumns(AccountDynamoTable.STATUS_COLUMN, AccountDynamoTable.BALANCE_COLUMN)) {
+            for (int row = 0; row < page.size(); ++row) {
+                var sequence = rows++;
+                assertEquals(sequence % 5 == 0, page.isMissing(AccountDynamoTable.STATUS_COLUMN, row));
+                assertFalse(page.isMissing(AccountDynamoTable.BALANCE_COLUMN, row));
+                assertEquals(sequence * 100L, page.get(AccountDynamoTable.BALANCE_COLUMN)[row]);
+            }
+        }
+        assertEquals(7, rows);
+    }
+
+    @Test
+    void intColumnsRejectFractionsAndOverflow() {
+        var samples = TestTables.samples(dynamo);
+        samples.putItem(Sample.of(1L << 40, 1, 1.5));
+        var fractions = samples.scan().invokeColumns(Column.ints("value")).iterator();
+        assertThrows(NumberFormatException.class, fractions::next);
+        var overflow = samples.scan().invokeColumns(Column.ints("sensor")).iterator();
+        assertThrows(NumberFormatException.class, overflow::next);
+        // The same attributes read fine into columns that can hold them
+        for (var page : samples.scan().invokeColumns(Column.longs("sensor"), Column.doubles("value"))) {
+            assertEquals(1L << 40, page.get(Column.longs("sensor"))[0]);
+            assertEquals(1.5, page.get(Column.doubles("value"))[0]);
+        }
+    }
+
+    @Test
+    void arraysAreReusedBetweenPages() {
+        var pages = new ArrayList<Object>();
+        var arrays = new ArrayList<long[]>();
+        var sizes = new ArrayList<Integer>();
+        for (var page : table.query("alice").pageSize(3).invokeColumns(AccountDynamoTable.BALANCE_COLUMN)) {
+            pages.add(page);
+            arrays.add(page.get(AccountDynamoTable.BALANCE_COLUMN));
+            sizes.add(page.size());
+        }
+        assertEquals(List.of(3, 3, 1), sizes);
+        assertSame(pages.get(0), pages.get(2));
+        assertSame(arrays.get(0), arrays.get(1));
+        assertSame(arrays.get(0), arrays.get(2));
+    }
+
+    @Test
+    void reservedWordsAreProjectedByName() {
+        var http = new CannedHttpClient();
+        var canned = new AccountDynamoTable(http.client(), TestTables.ACCOUNTS);
+        http.respond("{\"Count\":1,\"Items\":[{\"status\":{\"S\":\"open\"}}],\"ScannedCount\":1}");
+        var statuses = new ArrayList<String>();
+        for (var page : canned.query("alice").invokeColumns(AccountDynamoTable.STATUS_COLUMN)) {
+            statuses.add(page.getDictionary(AccountDynamoTable.STATUS_COLUMN).get(page.get(AccountDynamoTable.STATUS_COLUMN)[0]));
+        }
+        assertEquals(List.of("open"), statuses);
+        // STATUS is a reserved word, so it must only appear through an expression attribute name
+        var body = http.getBodies().get(0);
+        assertTrue(body.contains("\"ProjectionExpression\":\"#c0\""), body);
+        assertTrue(body.contains("\"#c0\":\"status\""), body);
+    }
+}
@@ -0,0 +1,83 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.Key;
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CompactKeyTest {
+
+    private AccountDynamoTable accounts;
+
+    private SampleDynamoTable samples;
+
+    @BeforeEach
+    void setUp() {
+        var dynamo = new InMemoryDynamoDb();
+        accounts = TestTables.accounts(dynamo);
+        samples = TestTables.samples(dynamo);
+    }
+
+    @Test
+    void compactKeysHashAndCompareLikeKeys() {
+        for (var sequence : new long[] { 0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, 1L << 40 }) {
+            var compact = new AccountDynamoTable.CompactKey("alice", sequence);
+            var key = new Key<>("alice", sequence);
+            assertEquals(key, compact.toKey());
+            assertEquals(key.hashCode(), compact.hashCode());
+            assertEquals(new AccountDynamoTable.CompactKey("alice", sequence), compact);
+            assertNotEquals(new AccountDynamoTable.CompactKey("bob", sequence), compact);
+        }
+        for (var minute : new int[] { 0, -5, Integer.MAX_VALUE }) {
+            var compact = new SampleDynamoTable.CompactKey(-7L, minute);
+            assertEquals(new Key<>(-7L, minute), compact.toKey());
+            assertEquals(new Key<>(-7L, minute).hashCode(), compact.hashCode());
+        }
+        assertNotEquals(new SampleDynamoTable.CompactKey(1, 2), new SampleDynamoTable.CompactKey(2, 1));
+    }
+
+    @Test
+    void compactKeysComeFromItems() {
+        var account = Account.of("alice", 3, "open", 10);
+        assertEquals(new AccountDynamoTable.CompactKey("alice", 3), accounts.getCompactKey(account));
+        assertEquals(new Key<>("alice", 3L), accounts.getCompactKey(account).toKey());
+    }
+
+    @Test
+    void primitiveOverloadsGetAndDelete() {
+        var account = Account.of("alice", 3, "open", 10);
+        accounts.putItem(account);
+        assertEquals(account, accounts.getItem("alice", 3));
+        assertEquals(account, accounts.getItem(accounts.getCompactKey(account)));
+        assertNull(accounts.getItem("alice", 4));
+
+        var sample = Sample.of(42, 7, 1.5);
+        samples.putItem(sample);
+        assertEquals(sample, samples.getItem(42, 7));
+        assertEquals(sample, samples.getItemAsync(42, 7).join());
+        assertEquals(sample, samples.getItemAsync(new SampleDynamoTable.CompactKey(42, 7)).join());
+
+        accounts.deleteItem("alice", 3);
+        assertNull(accounts.getItem("alice", 3));
+        samples.deleteItem(new SampleDynamoTable.CompactKey(42, 7));
+        assertNull(samples.getItem(42, 7));
+    }
+
+    @Test
+    void primitivePartitionQueries() {
+        samples.putBatch(List.of(Sample.of(1, 1, 0.5), Sample.of(1, 2, 0.25), Sample.of(2, 1, 9)));
+        var items = new ArrayList<Sample>();
+        samples.query(1).invoke().forEach(items::add);
+        assertEquals(List.of(Sample.of(1, 1, 0.5), Sample.of(1, 2, 0.25)), items);
+        items.clear();
+        samples.query(1).sortAbove(2, true).invoke().forEach(items::add);
+        assertEquals(List.of(Sample.of(1, 2, 0.25)), items);
+    }
+}
@@ -0,0 +1,416 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.BlobStore;
+import ai.phast.ctdynamo.BlobStores;
+import ai.phast.ctdynamo.FileBlobStore;
+import ai.phast.ctdynamo.Lazy;
+import ai.phast.ctdynamo.LazyList;
+import ai.phast.ctdynamo.Offloading;
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodingTest {
+
+    private final InMemoryDynamoDb dynamo = new InMemoryDynamoDb();
+
+    @Test
+    void typesWithTheSameSimpleNameKeepTheirOwnEncoding() {
+        var table = new ParcelDynamoTable(dynamo.client(), "parcels");
+        var parcel = new Parcel();
+        parcel.setId("p1");
+        parcel.setCarrierKind(Parcel.Carrier.Kind.AIR);
+        parcel.setSenderKind(Parcel.Sender.Kind.BUSINESS);
+        parcel.setCarrierHistory(List.of(Parcel.Carrier.Kind.GROUND, Parcel.Carrier.Kind.AIR));
+        parcel.setSenderHistory(List.of(Parcel.Sender.Kind.PERSON));
+        var encoded = table.encode(parcel);
+        assertEquals("AIR", encoded.get("carrierKind").s());
+        assertEquals("BUSINESS", encoded.get("senderKind").s());
+        assertEquals(parcel, table.decode(encoded));
+    }
+
+    @Test
+    void writeOnlyAttributesAreWrittenButNotRead() {
+        var table = new ReadingDynamoTable(dynamo.client(), "readings");
+        var reading = new Reading("roof", 1000, 20);
+        var encoded = table.encode(reading);
+        assertEquals("68.0", encoded.get("fahrenheit").n());
+        // A stale derived value in the item does not matter, since it is never read
+        encoded.put("fahrenheit", AttributeValue.builder().n("0").build());
+        assertEquals(reading, table.decode(encoded));
+    }
+
+    @Test
+    void decodeIntoRefillsListsAndClearsMissingOnes() {
+        var table = new ShelfDynamoTable(dynamo.client(), "shelves");
+        var first = new Shelf();
+        first.setId("s1");
+        first.setBooks(List.of("a", "b"));
+        first.setLabels(List.of("x"));
+        first.setNotes(List.of("n1", "n2"));
+        var second = new Shelf();
+        second.setId("s2");
+        second.setLabels(List.of("y", "z"));
+        second.setNotes(List.of("n3"));
+
+        var reuse = new Shelf();
+        reuse.setBooks(new ArrayList<>());
+        var books = reuse.getBooks();
+        assertSame(reuse, table.decodeInto(table.encode(first), reuse));
+        assertSame(books, reuse.getBooks());
+        assertEquals(List.of("a", "b"), reuse.getBooks());
+        assertEquals(List.of("x"), reuse.getLabels());
+        assertEquals(List.of("n1", "n2"), reuse.getNotes());
+
+        // The second shelf has no books, so the list is dropped rather than left empty
+        table.decodeInto(table.encode(second), reuse);
+        assertEquals("s2", reuse.getId());
+        assertNull(reuse.getBooks());
+        assertEquals(List.of("y", "z"), reuse.getLabels());
+        assertEquals(List.of("n3"), reuse.getNotes());
+    }
+
+    @Test
+    void internedAttributesShareOneInstance() {
+        var table = new SightingDynamoTable(dynamo.client(), "sightings");
+        var first = new Sighting();
+        first.setId("a");
+        first.setSpecies(new String("heron"));
+        first.setNote(new String("by the pond"));
+        var second = new Sighting();
+        second.setId("b");
+        second.setSpecies(new String("heron"));
+        second.setNote(new String("by the pond"));
+        var decodedFirst = table.decode(table.encode(first));
+        var decodedSecond = table.decode(table.encode(second));
+        assertEquals("heron", decodedSecond.getSpecies());
+        assertSame(decodedFirst.getSpecies(), decodedSecond.getSpecies());
+        // Attributes not marked intern get their own copy
+        assertNotSame(decodedFirst.getNote(), decodedSecond.getNote());
+    }
+
+    @Test
+    void nativeSetsRoundTrip() {
+        var table = new BagDynamoTable(dynamo.client(), "bags");
+        var bag = new Bag();
+        bag.setId("b1");
+        bag.setTags(Set.of("red", "blue"));
+        bag.setCounts(Set.of(1, -2, 300));
+        bag.setBlobs(Set.of(new byte[] { 1, 2 }, new byte[0]));
+        var encoded = table.encode(bag);
+        assertEquals(2, encoded.get("tags").ss().size());
+        assertEquals(3, encoded.get("counts").ns().size());
+        assertEquals(2, encoded.get("blobs").bs().size());
+        var decoded = table.decode(encoded);
+        assertEquals(bag.getTags(), decoded.getTags());
+        assertEquals(bag.getCounts(), decoded.getCounts());
+        assertEquals(2, decoded.getBlobs().size());
+    }
+
+    @Test
+    void binarySetsCollapseEqualArrays() {
+        var table = new BagDynamoTable(dynamo.client(), "bags");
+        var bag = new Bag();
+        bag.setId("b1");
+        // Two different arrays with the same bytes are both in the set, but Dynamo would reject them as duplicates
+        var blobs = new LinkedHashSet<byte[]>(List.of(new byte[] { 7, 8 }, new byte[] { 9 }, new byte[] { 7, 8 }));
+        assertEquals(3, blobs.size());
+        bag.setBlobs(blobs);
+        var encoded = table.encode(bag).get("blobs").bs();
+        assertEquals(2, encoded.size());
+        assertArrayEquals(new byte[] { 7, 8 }, encoded.get(0).asByteArray());
+        assertArrayEquals(new byte[] { 9 }, encoded.get(1).asByteArray());
+        var decoded = table.decode(table.encode(bag)).getBlobs();
+        assertEquals(2, decoded.size());
+        assertEquals(1, decoded.stream().filter(blob -> Arrays.equals(blob, new byte[] { 9 })).count());
+    }
+
+    @Test
+    void decimalSetsCollapseEqualNumbers() {
+        var table = new BagDynamoTable(dynamo.client(), "bags");
+        var bag = new Bag();
+        bag.setId("b1");
+        // Equal by compareTo but not by equals, so the set holds all three
+        bag.setAmounts(Set.of(new BigDecimal("1.5"), new BigDecimal("1.50"), new BigDecimal("1.500"), new BigDecimal("1E+21")));
+        bag.setTotals(Set.of(BigInteger.ONE, BigInteger.TEN.pow(30)));
+        var encoded = table.encode(bag);
+        assertEquals(Set.of("1.5", "1000000000000000000000"), new HashSet<>(encoded.get("amounts").ns()));
+        assertEquals(Set.of("1", "1000000000000000000000000000000"), new HashSet<>(encoded.get("totals").ns()));
+        var decoded = table.decode(encoded);
+        assertEquals(Set.of(new BigDecimal("1.5"), new BigDecimal("1000000000000000000000")), decoded.getAmounts());
+        assertEquals(bag.getTotals(), decoded.getTotals());
+    }
+
+    @Test
+    void emptySetsRoundTripAsEmptyLists() {
+        var table = new BagDynamoTable(dynamo.client(), "bags");
+        var bag = new Bag();
+        bag.setId("b1");
+        bag.setBlobs(Set.of());
+        // Dynamo has no empty sets, so an empty set is written as an empty list
+        var encoded = table.encode(bag);
+        assertEquals(List.of(), encoded.get("blobs").l());
+        assertEquals(Set.of(), table.decode(encoded).getBlobs());
+        assertNull(table.decode(encoded).getTags());
+    }
+
+    @Test
+    void byteArraysAreCopiedUnlessZeroCopy() {
+        var table = new AttachmentDynamoTable(dynamo.client(), "attachments");
+        var attachment = new Attachment();
+        attachment.setId("a1");
+        attachment.setData(new byte[] { 1, 2, 3 });
+        attachment.setSharedData(new byte[] { 4, 5, 6 });
+        var encoded = table.encode(attachment);
+        attachment.getData()[0] = 9;
+        attachment.getSharedData()[0] = 9;
+        assertArrayEquals(new byte[] { 1, 2, 3 }, encoded.get("data").b().asByteArray());
+        assertArrayEquals(new byte[] { 9, 5, 6 }, encoded.get("sharedData").b().asByteArray());
+
+        var decoded = table.decode(encoded);
+        assertArrayEquals(new byte[] { 1, 2, 3 }, decoded.getData());
+        assertNotSame(encoded.get("data").b().asByteArrayUnsafe(), decoded.getData());
+        assertSame(encoded.get("sharedData").b().asByteArrayUnsafe(), decoded.getSharedData());
+    }
+
+    @Test
+    void byteBuffersShareOnlyWholeArrays() {
+        var table = new AttachmentDynamoTable(dynamo.client(), "attachments");
+        var whole = new byte[] { 1, 2, 3 };
+        var backing = new byte[] { 0, 0, 7, 8, 9, 0 };
+        var attachment = new Attachment();
+        attachment.setId("a1");
+        attachment.setSharedBuffer(ByteBuffer.wrap(whole));
+        // A buffer with a position that is not zero
+        attachment.setBuffer(ByteBuffer.wrap(backing, 2, 3));
+        var encoded = table.encode(attachment);
+        assertSame(whole, encoded.get("sharedBuffer").b().asByteArrayUnsafe());
+        assertArrayEquals(new byte[] { 7, 8, 9 }, encoded.get("buffer").b().asByteArray());
+        assertEquals(2, attachment.getBuffer().position());
+
+        // A slice, whose array offset is not zero, is copied even with zero copy
+        attachment.setSharedBuffer(ByteBuffer.wrap(backing, 2, 3).slice());
+        encoded = table.encode(attachment);
+        backing[2] = 1;
+        assertArrayEquals(new byte[] { 7, 8, 9 }, encoded.get("sharedBuffer").b().asByteArray());
+        assertEquals(0, attachment.getSharedBuffer().position());
+    }
+
+    @Test
+    void decodedBinaryAttributesCannotChangeTheAttributeValue() {
+        var table = new AttachmentDynamoTable(dynamo.client(), "attachments");
+        var attachment = new Attachment();
+        attachment.setId("a1");
+        attachment.setBuffer(ByteBuffer.wrap(new byte[] { 1, 2 }));
+        attachment.setSharedBuffer(ByteBuffer.wrap(new byte[] { 3, 4 }));
+        attachment.setBytes(SdkBytes.fromByteArray(new byte[] { 5, 6 }));
+        var encoded = table.encode(attachment);
+        var decoded = table.decode(encoded);
+        assertTrue(decoded.getBuffer().isReadOnly());
+        assertTrue(decoded.getSharedBuffer().isReadOnly());
+        assertThrows(ReadOnlyBufferException.class, () -> decoded.getBuffer().put(0, (byte)9));
+        assertEquals(ByteBuffer.wrap(new byte[] { 1, 2 }), decoded.getBuffer());
+        assertEquals(ByteBuffer.wrap(new byte[] { 3, 4 }), decoded.getSharedBuffer());
+        assertSame(encoded.get("bytes").b(), decoded.getBytes());
+        assertNull(decoded.getData());
+    }
+
+    @Test
+    void compressedLazyAttributesRoundTrip() {
+        var table = new ManuscriptDynamoTable(dynamo.client(), "manuscripts");
+        var manuscript = manuscript("m1", "It was a dark and stormy night. ".repeat(20));
+        var encoded = table.encode(manuscript);
+        assertTrue(encoded.get("text").b().asByteArray().length < 100);
+        var decoded = table.decode(encoded);
+        assertFalse(decoded.getText().isLoaded());
+        assertEquals(manuscript, decoded);
+        assertTrue(decoded.getText().isLoaded());
+    }
+
+    @Test
+    void untouchedLazyAttributesAreWrittenBackAsRead() {
+        var table = new ManuscriptDynamoTable(dynamo.client(), "manuscripts");
+        var encoded = table.encode(manuscript("m1", "Call me Ishmael. ".repeat(20)));
+        var decoded = table.decode(encoded);
+        decoded.setTitle("Moby Dick");
+        var reencoded = table.encode(decoded);
+        assertSame(encoded.get("text"), reencoded.get("text"));
+        assertFalse(decoded.getText().isLoaded());
+        assertEquals("Moby Dick", reencoded.get("title").s());
+    }
+
+    @Test
+    void lazyNullsFollowTheTablesNullPolicy() {
+        var table = new ManuscriptDynamoTable(dynamo.client(), "manuscripts");
+        var manuscript = manuscript("m1", null);
+        assertFalse(table.encode(manuscript).containsKey("text"));
+        manuscript.setText(null);
+        assertFalse(table.encode(manuscript).containsKey("text"));
+    }
+
+    @Test
+    void bigAttributesAreOffloadedAndFetchedWhenUsed(@TempDir Path directory) {
+        var files = new FileBlobStore(directory);
+        var fetches = new AtomicInteger();
+        BlobStores.register(Manuscript.BLOB_STORE, new BlobStore() {
+            @Override
+            public String put(byte[] data) {
+                return files.put(data);
+            }
+
+            @Override
+            public byte[] get(String key) {
+                fetches.incrementAndGet();
+                return files.get(key);
+            }
+
+            @Override
+            public void delete(String key) {
+                files.delete(key);
+            }
+        });
+        try {
+            var table = new ManuscriptDynamoTable(dynamo.client(), "manuscripts");
+            // Random digits barely compress, so the compressed appendix is still big enough to offload
+            var random = new Random(1);
+            var appendix = new StringBuilder();
+            for (int i = 0; i < 1000; ++i) {
+                appendix.append(random.nextInt(10));
+            }
+            var manuscript = manuscript("m1", "short");
+            manuscript.setAppendix(Lazy.of(appendix.toString()));
+            var encoded = table.encode(manuscript);
+            assertTrue(Offloading.isPointer(encoded.get("appendix")));
+            assertTrue(encoded.get("appendix").b().asByteArray().length < 64);
+
+            var decoded = table.decode(encoded);
+            assertEquals(0, fetches.get());
+            // Writing back an untouched pointer stores nothing new
+            assertSame(encoded.get("appendix"), table.encode(decoded).get("appendix"));
+            assertEquals(appendix.toString(), decoded.getAppendix().get());
+            assertEquals(1, fetches.get());
+
+            // Small values stay in the item
+            manuscript.setAppendix(Lazy.of("see page 4"));
+            var small = table.encode(manuscript).get("appendix");
+            assertFalse(Offloading.isPointer(small));
+            assertEquals("see page 4", table.decode(table.encode(manuscript)).getAppendix().get());
+            assertEquals(1, fetches.get());
+        } finally {
+            BlobStores.unregister(Manuscript.BLOB_STORE);
+        }
+    }
+
+    @Test
+    void lazyGettersDecodeOnFirstCall() {
+        var table = new NotebookDynamoTable(dynamo.client(), "notebooks");
+        var map = new HashMap<>(table.encode(notebook()));
+        var decoded = table.decode(map);
+        // Nothing has been read yet, so a change to the raw attribute shows through
+        map.put("title", AttributeValue.builder().s("Sketches").build());
+        assertEquals("Sketches", decoded.getTitle());
+        // Once read, the value stays put
+        map.put("title", AttributeValue.builder().s("Recipes").build());
+        assertEquals("Sketches", decoded.getTitle());
+        assertEquals("n1", decoded.getId());
+    }
+
+    @Test
+    void lazySettersWinOverTheRawValue() {
+        var table = new NotebookDynamoTable(dynamo.client(), "notebooks");
+        var decoded = table.decode(table.encode(notebook()));
+        decoded.setTitle("Sketches");
+        assertEquals("Sketches", decoded.getTitle());
+        decoded.setNotes(null);
+        assertNull(decoded.getNotes());
+        var encoded = table.encode(decoded);
+        assertEquals("Sketches", encoded.get("title").s());
+        assertFalse(encoded.containsKey("notes"));
+    }
+
+    @Test
+    void lazyItemsWriteBackUntouchedAttributesAsRead() {
+        var table = new NotebookDynamoTable(dynamo.client(), "notebooks");
+        var encoded = table.encode(notebook());
+        var decoded = table.decode(encoded);
+        assertEquals("Journal", decoded.getTitle());
+        decoded.setOwner("bob");
+        var reencoded = table.encode(decoded);
+        assertSame(encoded.get("notes"), reencoded.get("notes"));
+        // Touched attributes are encoded again from their values
+        assertNotSame(encoded.get("title"), reencoded.get("title"));
+        assertEquals(encoded.get("title"), reencoded.get("title"));
+        assertEquals("bob", reencoded.get("owner").s());
+        assertEquals(notebook().getNotes(), table.decode(reencoded).getNotes());
+    }
+
+    @Test
+    void lazyListsDecodeElementsWhenRead() {
+        var table = new NotebookDynamoTable(dynamo.client(), "notebooks");
+        var decoded = table.decode(table.encode(notebook()));
+        assertTrue(decoded.getNotes() instanceof LazyList);
+        var notes = (LazyList<Note>)decoded.getNotes();
+        assertEquals(3, notes.size());
+        assertFalse(notes.isDecoded(0));
+        assertEquals(Note.of(2, "second"), notes.get(1));
+        assertTrue(notes.isDecoded(1));
+        assertFalse(notes.isDecoded(0));
+
+        // Replacing an element leaves the others alone
+        assertEquals(Note.of(1, "first"), decoded.getNotes().set(0, Note.of(10, "tenth")));
+        assertFalse(notes.isDecoded(2));
+        // Adding and removing decode everything
+        decoded.getNotes().add(Note.of(4, "fourth"));
+        assertTrue(notes.isDecoded(2));
+        assertEquals(Note.of(2, "second"), decoded.getNotes().remove(1));
+        assertEquals(List.of(Note.of(10, "tenth"), Note.of(3, "third"), Note.of(4, "fourth")), decoded.getNotes());
+        assertEquals(decoded.getNotes(), table.decode(table.encode(decoded)).getNotes());
+
+        decoded.getNotes().clear();
+        assertTrue(decoded.getNotes().isEmpty());
+        assertEquals(List.of(), table.encode(decoded).get("notes").l());
+    }
+
+    private static Notebook notebook() {
+        var result = new Notebook();
+        result.setId("n1");
+        result.setTitle("Journal");
+        result.setOwner("alice");
+        result.setNotes(List.of(Note.of(1, "first"), Note.of(2, "second"), Note.of(3, "third")));
+        return result;
+    }
+
+    private static Manuscript manuscript(String id, String text) {
+        var result = new Manuscript();
+        result.setId(id);
+        result.setTitle("Untitled");
+        result.setText(Lazy.of(text));
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.HotKeySampler;
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IndexTest {
+
+    @Test
+    void tableReturnsTheSameIndexEveryTime() {
+        var table = new LogBatchDynamoTable(new InMemoryDynamoDb().client(), "logs");
+        assertSame(table.getIndex("caseId", String.class, Instant.class), table.getIndex("caseId", String.class, Instant.class));
+    }
+
+    @Test
+    void indexKeepsItsOwnSampler() {
+        var table = new LogBatchDynamoTable(new InMemoryDynamoDb().client(), "logs");
+        var sampler = new HotKeySampler(10);
+        table.getIndex("caseId", String.class, Instant.class).setHotKeySampler(sampler);
+        assertSame(sampler, table.getIndex("caseId", String.class, Instant.class).getHotKeySampler());
+        assertNull(table.getHotKeySampler());
+    }
+}
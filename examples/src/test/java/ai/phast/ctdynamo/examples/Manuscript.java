@@ -0,0 +1,36 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.Lazy;
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * An item with big attributes that are compressed, offloaded, and decoded lazily, used by the tests.
+ */
+@Setter
+@Getter
+@EqualsAndHashCode
+@ToString
+@DynamoItem
+public class Manuscript {
+
+    /** The blob store that holds big appendices */
+    public static final String BLOB_STORE = "manuscripts";
+
+    @DynamoPartitionKey
+    private String id;
+
+    @DynamoAttribute
+    private String title;
+
+    @DynamoAttribute(compress = true, compressAbove = 64)
+    private Lazy<String> text;
+
+    @DynamoAttribute(compress = true, compressAbove = 64, offloadAbove = 256, blobStore = Manuscript.BLOB_STORE)
+    private Lazy<String> appendix;
+}
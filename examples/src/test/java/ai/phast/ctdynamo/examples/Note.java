@@ -0,0 +1,32 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A nested item held in a list by {@link Notebook}, used by the tests.
+ */
+@Setter
+@Getter
+@EqualsAndHashCode
+@ToString
+@DynamoItem(DynamoItem.Output.CODEC)
+public class Note {
+
+    @DynamoAttribute
+    private int number;
+
+    @DynamoAttribute
+    private String text;
+
+    public static Note of(int number, String text) {
+        var result = new Note();
+        result.setNumber(number);
+        result.setText(text);
+        return result;
+    }
+}
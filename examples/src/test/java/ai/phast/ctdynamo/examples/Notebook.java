@@ -0,0 +1,64 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * An item that is decoded lazily, with a list of nested items, used by the tests. The generated subclass overrides the
+ * getters and setters, so they are written out rather than left to Lombok, which runs too late for the processor to
+ * see them.
+ */
+@EqualsAndHashCode
+@ToString
+@DynamoItem(lazy = true)
+public class Notebook {
+
+    private String id;
+
+    private String title;
+
+    private String owner;
+
+    private List<Note> notes;
+
+    @DynamoPartitionKey
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String value) {
+        id = value;
+    }
+
+    @DynamoAttribute
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String value) {
+        title = value;
+    }
+
+    @DynamoAttribute
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String value) {
+        owner = value;
+    }
+
+    @DynamoAttribute
+    public List<Note> getNotes() {
+        return notes;
+    }
+
+    public void setNotes(List<Note> value) {
+        notes = value;
+    }
+}
@@ -0,0 +1,72 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.Packed;
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedCollectionTest {
+
+    private final RouteDynamoTable table = new RouteDynamoTable(new InMemoryDynamoDb().client(), "routes");
+
+    private static Stop stop(long sequence) {
+        var result = new Stop();
+        result.setSequence(sequence);
+        result.setCount((int)sequence * 3);
+        result.setWeight(sequence + 0.25);
+        result.setDelivered(sequence % 2 == 0);
+        result.setName("stop " + sequence);
+        result.setPriority(Priority.values()[(int)(sequence % 3)]);
+        result.setSignature(new byte[] { (byte)sequence, 0, -1 });
+        result.setArrival(Instant.ofEpochSecond(1_600_000_000L + sequence));
+        return result;
+    }
+
+    @Test
+    void collectionsRoundTripPacked() {
+        var route = new Route();
+        route.setId("r1");
+        route.setStops(List.of(stop(1), stop(2), stop(-3)));
+        route.setDepots(Set.of(stop(10), stop(11)));
+        var encoded = table.encode(route);
+        assertTrue(Packed.isPacked(encoded.get("stops")));
+        assertTrue(Packed.isPacked(encoded.get("depots")));
+        assertEquals(route, table.decode(encoded));
+    }
+
+    @Test
+    void nullAttributesRoundTrip() {
+        var empty = new Stop();
+        var route = new Route();
+        route.setId("r1");
+        route.setStops(List.of(empty, stop(4)));
+        assertEquals(route, table.decode(table.encode(route)));
+        assertEquals(empty, table.decode(table.encode(route)).getStops().get(0));
+    }
+
+    @Test
+    void emptyCollectionsRoundTrip() {
+        var route = new Route();
+        route.setId("r1");
+        route.setStops(List.of());
+        assertEquals(List.of(), table.decode(table.encode(route)).getStops());
+    }
+
+    @Test
+    void nullItemsAreRejected() {
+        var route = new Route();
+        route.setId("r1");
+        route.setStops(new ArrayList<>(Arrays.asList(stop(1), null)));
+        var e = assertThrows(NullPointerException.class, () -> table.encode(route));
+        assertEquals("Packed collections of Stop cannot hold null items", e.getMessage());
+    }
+}
@@ -0,0 +1,45 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * An item with attributes of two different types that share a simple name, used by the tests.
+ */
+@Setter
+@Getter
+@EqualsAndHashCode
+@ToString
+@DynamoItem
+public class Parcel {
+
+    public static final class Carrier {
+        public enum Kind { GROUND, AIR }
+    }
+
+    public static final class Sender {
+        public enum Kind { PERSON, BUSINESS }
+    }
+
+    @DynamoPartitionKey
+    private String id;
+
+    @DynamoAttribute
+    private Carrier.Kind carrierKind;
+
+    @DynamoAttribute
+    private Sender.Kind senderKind;
+
+    @DynamoAttribute
+    private List<Carrier.Kind> carrierHistory;
+
+    @DynamoAttribute
+    private List<Sender.Kind> senderHistory;
+}
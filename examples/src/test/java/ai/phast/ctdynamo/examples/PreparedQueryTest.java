@@ -0,0 +1,100 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.ColumnPage;
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PreparedQueryTest {
+
+    private AccountDynamoTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = TestTables.accounts(new InMemoryDynamoDb());
+        var accounts = new ArrayList<Account>();
+        for (int sequence = 0; sequence < 10; ++sequence) {
+            accounts.add(Account.of("alice", sequence, "open", sequence * 10));
+        }
+        accounts.add(Account.of("bob", 0, "open", 5));
+        table.putBatch(accounts);
+    }
+
+    @Test
+    void runsBindTheirOwnKeys() {
+        var query = table.prepareQuery().sortBetween();
+        assertEquals(List.of(2L, 3L, 4L), sequences(query.invoke("alice", 2L, 4L)));
+        assertEquals(List.of(0L), sequences(query.invoke("bob", 0L, 9L)));
+        assertEquals(List.of(7L, 8L), sequences(query.invoke("alice", 7L, 8L)));
+    }
+
+    @Test
+    void shapeMethodsLeaveTheOriginalAlone() {
+        var all = table.prepareQuery();
+        var recent = all.scanForward(false).limit(2);
+        assertEquals(10, sequences(all.invoke("alice")).size());
+        assertEquals(List.of(9L, 8L), sequences(recent.invoke("alice")));
+    }
+
+    @Test
+    void limitedRunsResumeFromTheirExclusiveStart() {
+        var query = table.prepareQuery().sortAbove(true).limit(4);
+        var first = query.invoke("alice", 3L);
+        assertEquals(List.of(3L, 4L, 5L, 6L), sequences(first));
+        var second = query.invokeFrom(first.getExclusiveStart(), "alice", 3L);
+        assertEquals(List.of(7L, 8L, 9L), sequences(second));
+        assertNull(second.getExclusiveStart());
+    }
+
+    @Test
+    void resumingPartWayThroughAPage() {
+        var query = table.prepareQuery().limit(3).pageSize(2);
+        var first = query.invoke("alice");
+        assertEquals(List.of(0L, 1L, 2L), sequences(first));
+        assertEquals(List.of(3L, 4L, 5L), sequences(query.invokeFrom(first.getExclusiveStart(), "alice")));
+    }
+
+    @Test
+    void columnRunsResumeFromTheirExclusiveStart() {
+        var query = table.prepareQuery().limit(5).columns(AccountDynamoTable.SEQUENCE_COLUMN, AccountDynamoTable.BALANCE_COLUMN);
+        var first = query.invokeColumns("alice");
+        assertEquals(100L, totalBalance(first));
+        var second = query.invokeColumnsFrom(first.getExclusiveStart(), "alice");
+        assertEquals(350L, totalBalance(second));
+        // The second run filled its limit exactly, so Dynamo cannot tell it was the end
+        assertEquals(0L, totalBalance(query.invokeColumnsFrom(second.getExclusiveStart(), "alice")));
+    }
+
+    @Test
+    void runsMustMatchThePreparedShape() {
+        var between = table.prepareQuery().sortBetween();
+        assertThrows(IllegalArgumentException.class, () -> between.invoke("alice", 1L));
+        assertThrows(IllegalArgumentException.class, () -> between.invokeFrom(null, "alice"));
+        assertThrows(IllegalArgumentException.class, () -> between.invokeColumnsFrom(null, "alice", 1L, 2L));
+        assertThrows(IllegalArgumentException.class, () -> between.sortPrefix());
+    }
+
+    private static List<Long> sequences(Iterable<Account> result) {
+        var sequences = new ArrayList<Long>();
+        result.forEach(account -> sequences.add(account.getSequence()));
+        return sequences;
+    }
+
+    private static long totalBalance(Iterable<ColumnPage> result) {
+        long total = 0;
+        for (var page : result) {
+            var balance = page.get(AccountDynamoTable.BALANCE_COLUMN);
+            for (int row = 0; row < page.size(); ++row) {
+                total += balance[row];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,40 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import ai.phast.ctdynamo.annotations.DynamoSortKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An immutable item built through its constructor, with a derived attribute that is written but never read back,
+ * used by the tests.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@DynamoItem
+public class Reading {
+
+    @DynamoPartitionKey
+    private final String sensor;
+
+    @DynamoSortKey
+    private final long time;
+
+    @DynamoAttribute
+    private final double celsius;
+
+    public Reading(String sensor, long time, double celsius) {
+        this.sensor = sensor;
+        this.time = time;
+        this.celsius = celsius;
+    }
+
+    @DynamoAttribute(writeOnly = true)
+    public double getFahrenheit() {
+        return celsius * 9 / 5 + 32;
+    }
+}
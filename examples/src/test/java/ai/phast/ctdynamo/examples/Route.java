@@ -0,0 +1,32 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An item holding collections of packed items, used by the tests.
+ */
+@Setter
+@Getter
+@EqualsAndHashCode
+@ToString
+@DynamoItem
+public class Route {
+
+    @DynamoPartitionKey
+    private String id;
+
+    @DynamoAttribute
+    private List<Stop> stops;
+
+    @DynamoAttribute
+    private Set<Stop> depots;
+}
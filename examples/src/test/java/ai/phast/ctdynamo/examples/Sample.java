@@ -0,0 +1,38 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import ai.phast.ctdynamo.annotations.DynamoSortKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A sensor reading with primitive keys, used by the tests of the unboxed key overloads.
+ */
+@Setter
+@Getter
+@EqualsAndHashCode
+@ToString
+@DynamoItem
+public class Sample {
+
+    @DynamoPartitionKey
+    private long sensor;
+
+    @DynamoSortKey
+    private int minute;
+
+    @DynamoAttribute
+    private double value;
+
+    public static Sample of(long sensor, int minute, double value) {
+        var result = new Sample();
+        result.setSensor(sensor);
+        result.setMinute(minute);
+        result.setValue(value);
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampleScanTest {
+
+    private InMemoryDynamoDb dynamo;
+
+    private AccountDynamoTable table;
+
+    @BeforeEach
+    void setUp() {
+        dynamo = new InMemoryDynamoDb();
+        table = TestTables.accounts(dynamo);
+    }
+
+    private void fill() {
+        var accounts = new ArrayList<Account>();
+        for (int owner = 0; owner < 20; ++owner) {
+            for (int sequence = 0; sequence < 5; ++sequence) {
+                accounts.add(Account.of("owner" + owner, sequence, sequence % 2 == 0 ? "open" : "closed", owner));
+            }
+        }
+        table.putBatch(accounts);
+    }
+
+    @Test
+    void samplingEverySegmentIsExact() {
+        fill();
+        var count = table.sampleScan(8, 8).estimateCount(account -> account.getStatus().equals("open")).join();
+        assertEquals(60.0, count.getValue(), 1e-9);
+        assertEquals(0.0, count.getStandardError(), 1e-9);
+        assertEquals(100, count.getItemsRead());
+        var mean = table.sampleScan(8, 8).estimateMean(Account::getBalance).join();
+        assertEquals(9.5, mean.getValue(), 1e-9);
+    }
+
+    @Test
+    void workersReadingSeveralSegmentsKeepThemApart() {
+        fill();
+        // Two workers share eight segments, and the estimate must still see all eight
+        var sum = table.sampleScan(8, 8).parallelism(2).estimateSum(Account::getBalance).join();
+        assertEquals(5 * 190.0, sum.getValue(), 1e-9);
+        assertEquals(0.0, sum.getStandardError(), 1e-9);
+        assertEquals(8, sum.getSampledSegments());
+    }
+
+    @Test
+    void partialSamplesStayWithinTheirInterval() {
+        fill();
+        var count = table.sampleScan(16, 8).random(new Random(1)).estimateCount(account -> true).join();
+        assertTrue(count.getItemsRead() <= 100);
+        assertTrue(count.getLow() <= count.getValue() && count.getValue() <= count.getHigh(), count.toString());
+    }
+
+    @Test
+    void emptySamplesEstimateZero() {
+        var mean = table.sampleScan(4, 2).estimateMean(Account::getBalance).join();
+        assertEquals(0.0, mean.getValue());
+        assertEquals(0, mean.getItemsRead());
+        var count = table.sampleScan(4, 2).pagesPerSegment(1, 10).itemCount(0).estimateCount(account -> true).join();
+        assertEquals(0.0, count.getValue());
+    }
+
+    @Test
+    void partlyReadCountsNeedTheItemCount() {
+        assertThrows(IllegalStateException.class,
+            () -> table.sampleScan(4, 2).pagesPerSegment(1, 10).estimateCount(account -> true));
+    }
+}
@@ -0,0 +1,46 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An item with lists behind different kinds of getters, used by the tests of decoding into an existing item.
+ */
+@Setter
+@Getter
+@DynamoItem
+public class Shelf {
+
+    @DynamoPartitionKey
+    private String id;
+
+    @DynamoAttribute
+    private List<String> books;
+
+    private List<String> labels;
+
+    private List<String> notes;
+
+    /**
+     * @return A view of the labels that cannot be changed
+     */
+    @DynamoAttribute
+    public List<String> getLabels() {
+        return labels == null ? null : Collections.unmodifiableList(labels);
+    }
+
+    /**
+     * @return A copy of the notes
+     */
+    @DynamoAttribute
+    public List<String> getNotes() {
+        return notes == null ? null : new ArrayList<>(notes);
+    }
+}
@@ -0,0 +1,25 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * An item with an interned attribute, used by the tests.
+ */
+@Setter
+@Getter
+@DynamoItem
+public class Sighting {
+
+    @DynamoPartitionKey
+    private String id;
+
+    @DynamoAttribute(intern = true)
+    private String species;
+
+    @DynamoAttribute
+    private String note;
+}
@@ -0,0 +1,45 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoItem;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * A nested item written packed, with an attribute of each packed type, used by the tests.
+ */
+@Setter
+@Getter
+@EqualsAndHashCode
+@ToString
+@DynamoItem(value = DynamoItem.Output.CODEC, packed = true)
+public class Stop {
+
+    @DynamoAttribute
+    private long sequence;
+
+    @DynamoAttribute
+    private Integer count;
+
+    @DynamoAttribute
+    private double weight;
+
+    @DynamoAttribute
+    private Boolean delivered;
+
+    @DynamoAttribute
+    private String name;
+
+    @DynamoAttribute
+    private Priority priority;
+
+    @DynamoAttribute
+    private byte[] signature;
+
+    @DynamoAttribute
+    private Instant arrival;
+}
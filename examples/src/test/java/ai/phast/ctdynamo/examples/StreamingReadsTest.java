@@ -0,0 +1,84 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.Key;
+import ai.phast.ctdynamo.StreamingReads;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.Crc32MismatchException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingReadsTest {
+
+    private static final String ALICE_1 = "{\"owner\":{\"S\":\"alice\"},\"sequence\":{\"N\":\"1\"},\"status\":{\"S\":\"open\"},\"balance\":{\"N\":\"10\"}}";
+
+    private static final String ALICE_2 = "{\"owner\":{\"S\":\"alice\"},\"sequence\":{\"N\":\"2\"},\"status\":{\"S\":\"closed\"},\"balance\":{\"N\":\"-3\"}}";
+
+    private static final String ALICE_3 = "{\"balance\":{\"N\":\"0\"},\"sequence\":{\"N\":\"3\"},\"owner\":{\"S\":\"alice\"}}";
+
+    private CannedHttpClient http;
+
+    private AccountDynamoTable table;
+
+    @BeforeEach
+    void setUp() {
+        http = new CannedHttpClient();
+        table = new AccountDynamoTable(http.client(new StreamingReads()), TestTables.ACCOUNTS);
+    }
+
+    @Test
+    void queryDecodesItemsFromTheResponse() {
+        http.respond("{\"Count\":2,\"Items\":[" + ALICE_1 + "," + ALICE_2 + "],\"ScannedCount\":2}");
+        var result = table.query("alice").invoke();
+        var items = new ArrayList<Account>();
+        result.forEach(items::add);
+        assertEquals(List.of(Account.of("alice", 1, "open", 10), Account.of("alice", 2, "closed", -3)), items);
+        assertEquals(2, result.getNumItemsScanned());
+    }
+
+    @Test
+    void queryFollowsLastEvaluatedKey() {
+        http.respond("{\"Count\":2,\"Items\":[" + ALICE_1 + "," + ALICE_2 + "],"
+                         + "\"LastEvaluatedKey\":{\"owner\":{\"S\":\"alice\"},\"sequence\":{\"N\":\"2\"}},\"ScannedCount\":2}");
+        http.respond("{\"Count\":1,\"Items\":[" + ALICE_3 + "],\"ScannedCount\":1}");
+        var items = new ArrayList<Account>();
+        table.query("alice").invoke().forEach(items::add);
+        assertEquals(List.of(Account.of("alice", 1, "open", 10), Account.of("alice", 2, "closed", -3),
+            Account.of("alice", 3, null, 0)), items);
+        var second = http.getBodies().get(1);
+        assertTrue(second.contains("\"ExclusiveStartKey\":{"), second);
+    }
+
+    @Test
+    void batchGetDecodesOurTable() {
+        http.respond("{\"Responses\":{\"other\":[{\"id\":{\"S\":\"x\"}}],\"accounts\":[" + ALICE_2 + "]},\"UnprocessedKeys\":{}}");
+        var items = table.getBatchByKey(List.of(new Key<>("alice", 2L)));
+        assertEquals(List.of(Account.of("alice", 2, "closed", -3)), items);
+    }
+
+    @Test
+    void clientsWithoutTheInterceptorReadThroughTheSdk() {
+        var plain = new CannedHttpClient();
+        var plainTable = new AccountDynamoTable(plain.client(), TestTables.ACCOUNTS);
+        plain.respond("{\"Count\":1,\"Items\":[" + ALICE_1 + "],\"ScannedCount\":1}");
+        var items = new ArrayList<Account>();
+        plainTable.query("alice").invoke().forEach(items::add);
+        assertEquals(List.of(Account.of("alice", 1, "open", 10)), items);
+    }
+
+    @Test
+    void corruptedResponsesAreRejected() {
+        // The SDK retries checksum failures, so every attempt gets a corrupted response
+        for (var i = 0; i < 20; i++) {
+            http.respondCorrupted("{\"Count\":1,\"Items\":[" + ALICE_1 + "],\"ScannedCount\":1}");
+        }
+        var error = assertThrows(CompletionException.class, () -> table.query("alice").invoke().iterator().hasNext());
+        assertTrue(error.getCause() instanceof Crc32MismatchException, error.toString());
+    }
+}
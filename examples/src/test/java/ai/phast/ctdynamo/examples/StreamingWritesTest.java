@@ -0,0 +1,96 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.CapacityScope;
+import ai.phast.ctdynamo.StreamingWrites;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingWritesTest {
+
+    private CannedHttpClient http;
+
+    /** The requests as the SDK saw them, before any body was written */
+    private final List<SdkRequest> requests = new ArrayList<>();
+
+    private final ExecutionInterceptor recorder = new ExecutionInterceptor() {
+        @Override
+        public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+            requests.add(context.request());
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        http = new CannedHttpClient();
+        requests.clear();
+    }
+
+    @Test
+    void putWritesTheWholeItemWhileTheSdkSeesOnlyTheKey() {
+        var table = new AccountDynamoTable(http.client(recorder, new StreamingWrites()), TestTables.ACCOUNTS);
+        table.putItem(Account.of("alice", 7, "open", 42));
+        var body = http.getBodies().get(0);
+        assertTrue(body.contains("\"TableName\":\"accounts\""), body);
+        assertTrue(body.contains("\"owner\":{\"S\":\"alice\"}"), body);
+        assertTrue(body.contains("\"sequence\":{\"N\":\"7\"}"), body);
+        assertTrue(body.contains("\"status\":{\"S\":\"open\"}"), body);
+        assertTrue(body.contains("\"balance\":{\"N\":\"42\"}"), body);
+        assertFalse(body.contains("ReturnConsumedCapacity"), body);
+        assertEquals(2, ((PutItemRequest) requests.get(0)).item().size());
+    }
+
+    @Test
+    void batchPutWritesEveryItem() {
+        var table = new AccountDynamoTable(http.client(new StreamingWrites()), TestTables.ACCOUNTS);
+        http.respond("{\"UnprocessedItems\":{}}");
+        table.putBatch(List.of(Account.of("bob", 1, "open", 1), Account.of("bob", 2, "closed", 2)));
+        var body = http.getBodies().get(0);
+        assertTrue(body.startsWith("{\"RequestItems\":{\"accounts\":[{\"PutRequest\":{\"Item\":{"), body);
+        assertTrue(body.contains("\"status\":{\"S\":\"open\"}"), body);
+        assertTrue(body.contains("\"status\":{\"S\":\"closed\"}"), body);
+    }
+
+    @Test
+    void capacityIsAskedForAndRecordedInsideAScope() {
+        var table = new AccountDynamoTable(http.client(new StreamingWrites()), TestTables.ACCOUNTS);
+        http.respond("{\"ConsumedCapacity\":{\"TableName\":\"accounts\",\"CapacityUnits\":1.0,\"WriteCapacityUnits\":1.0}}");
+        try (var scope = CapacityScope.open()) {
+            table.putItem(Account.of("carol", 1, "open", 5));
+            assertEquals(1.0, scope.getCapacity().getTotalWrite());
+        }
+        var body = http.getBodies().get(0);
+        assertTrue(body.endsWith("\"ReturnConsumedCapacity\":\"INDEXES\"}"), body);
+    }
+
+    @Test
+    void clientsWithoutTheInterceptorWriteThroughTheSdk() {
+        var table = new AccountDynamoTable(http.client(recorder), TestTables.ACCOUNTS);
+        table.putItem(Account.of("dave", 1, "open", 5));
+        assertEquals(4, ((PutItemRequest) requests.get(0)).item().size());
+        assertTrue(http.getBodies().get(0).contains("\"status\":{\"S\":\"open\"}"));
+    }
+
+    @Test
+    void failuresDoNotStopStreaming() {
+        var table = new AccountDynamoTable(http.client(recorder, new StreamingWrites()), TestTables.ACCOUNTS);
+        http.fail("ValidationException");
+        assertThrows(DynamoDbException.class, () -> table.putItem(Account.of("erin", 1, "open", 5)));
+        table.putItem(Account.of("erin", 2, "open", 5));
+        assertEquals(2, ((PutItemRequest) requests.get(1)).item().size());
+        assertTrue(http.getBodies().get(1).contains("\"sequence\":{\"N\":\"2\"}"));
+    }
+}
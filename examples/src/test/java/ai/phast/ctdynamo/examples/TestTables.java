@@ -0,0 +1,60 @@
+package ai.phast.ctdynamo.examples;
+
+import ai.phast.ctdynamo.memory.InMemoryDynamoDb;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+
+/**
+ * Creates the tables used by the tests in an in-memory Dynamo.
+ */
+final class TestTables {
+
+    static final String ACCOUNTS = "accounts";
+
+    static final String SAMPLES = "samples";
+
+    private TestTables() {
+    }
+
+    /**
+     * Create a table of {@link Account} items.
+     * @param dynamo The engine
+     * @return A table backed by the engine's synchronous client
+     */
+    static AccountDynamoTable accounts(InMemoryDynamoDb dynamo) {
+        dynamo.client().createTable(CreateTableRequest.builder()
+                                        .tableName(ACCOUNTS)
+                                        .billingMode(BillingMode.PAY_PER_REQUEST)
+                                        .attributeDefinitions(
+                                            AttributeDefinition.builder().attributeName("owner").attributeType(ScalarAttributeType.S).build(),
+                                            AttributeDefinition.builder().attributeName("sequence").attributeType(ScalarAttributeType.N).build())
+                                        .keySchema(
+                                            KeySchemaElement.builder().attributeName("owner").keyType(KeyType.HASH).build(),
+                                            KeySchemaElement.builder().attributeName("sequence").keyType(KeyType.RANGE).build())
+                                        .build());
+        return new AccountDynamoTable(dynamo.client(), ACCOUNTS);
+    }
+
+    /**
+     * Create a table of {@link Sample} items.
+     * @param dynamo The engine
+     * @return A table backed by the engine's clients
+     */
+    static SampleDynamoTable samples(InMemoryDynamoDb dynamo) {
+        dynamo.client().createTable(CreateTableRequest.builder()
+                                        .tableName(SAMPLES)
+                                        .billingMode(BillingMode.PAY_PER_REQUEST)
+                                        .attributeDefinitions(
+                                            AttributeDefinition.builder().attributeName("sensor").attributeType(ScalarAttributeType.N).build(),
+                                            AttributeDefinition.builder().attributeName("minute").attributeType(ScalarAttributeType.N).build())
+                                        .keySchema(
+                                            KeySchemaElement.builder().attributeName("sensor").keyType(KeyType.HASH).build(),
+                                            KeySchemaElement.builder().attributeName("minute").keyType(KeyType.RANGE).build())
+                                        .build());
+        return new SampleDynamoTable(dynamo.client(), dynamo.asyncClient(), SAMPLES);
+    }
+}
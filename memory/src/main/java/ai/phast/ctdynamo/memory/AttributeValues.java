@@ -0,0 +1,154 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for comparing and measuring attribute values the way Dynamo does.
+ */
+final class AttributeValues {
+
+    /** Orders key values. Strings compare by code point (the same as UTF-8 byte order), numbers by value, and binary
+     * values as unsigned bytes. */
+    static final Comparator<AttributeValue> KEY_ORDER = AttributeValues::compare;
+
+    private AttributeValues() {
+    }
+
+    /**
+     * Get the scalar type of a key value.
+     * @param value The value
+     * @return The type, or null if the value is not a string, number, or binary
+     */
+    static ScalarAttributeType scalarType(AttributeValue value) {
+        if (value.s() != null) {
+            return ScalarAttributeType.S;
+        } else if (value.n() != null) {
+            return ScalarAttributeType.N;
+        } else if (value.b() != null) {
+            return ScalarAttributeType.B;
+        }
+        return null;
+    }
+
+    static int compare(AttributeValue a, AttributeValue b) {
+        var typeA = scalarType(a);
+        var typeB = scalarType(b);
+        if (typeA != typeB) {
+            throw Errors.validation("Key values must be strings, numbers, or binary of the same type");
+        }
+        switch (typeA) {
+        case S:
+            return compareCodePoints(a.s(), b.s());
+        case N:
+            return new BigDecimal(a.n()).compareTo(new BigDecimal(b.n()));
+        default:
+            return Arrays.compareUnsigned(a.b().asByteArrayUnsafe(), b.b().asByteArrayUnsafe());
+        }
+    }
+
+    /**
+     * Hash a key value consistently with {@link #compare}, so that numbers like "1" and "1.0" hash the same.
+     * @param value The value
+     * @return The hash
+     */
+    static int hash(AttributeValue value) {
+        if (value.n() != null) {
+            return new BigDecimal(value.n()).stripTrailingZeros().hashCode();
+        }
+        return value.hashCode();
+    }
+
+    /**
+     * Check whether a string or binary value starts with a prefix.
+     * @param value The value
+     * @param prefix The prefix, of the same type
+     * @return Whether the value starts with the prefix
+     */
+    static boolean beginsWith(AttributeValue value, AttributeValue prefix) {
+        if ((value.s() != null) && (prefix.s() != null)) {
+            return value.s().startsWith(prefix.s());
+        } else if ((value.b() != null) && (prefix.b() != null)) {
+            var bytes = value.b().asByteArrayUnsafe();
+            var prefixBytes = prefix.b().asByteArrayUnsafe();
+            return (bytes.length >= prefixBytes.length)
+                       && Arrays.equals(bytes, 0, prefixBytes.length, prefixBytes, 0, prefixBytes.length);
+        }
+        throw Errors.validation("begins_with requires a string or binary sort key");
+    }
+
+    /**
+     * Estimate the size of an item the way Dynamo does for capacity and page size limits.
+     * @param item The item
+     * @return The size in bytes
+     */
+    static long sizeOf(Map<String, AttributeValue> item) {
+        long size = 0;
+        for (var entry : item.entrySet()) {
+            size += utf8Length(entry.getKey()) + sizeOf(entry.getValue());
+        }
+        return size;
+    }
+
+    private static long sizeOf(AttributeValue value) {
+        if (value.s() != null) {
+            return utf8Length(value.s());
+        } else if (value.n() != null) {
+            return numberSize(value.n());
+        } else if (value.b() != null) {
+            return value.b().asByteArrayUnsafe().length;
+        } else if (value.bool() != null || value.nul() != null) {
+            return 1;
+        } else if (value.hasM()) {
+            return 3 + value.m().size() + sizeOf(value.m());
+        } else if (value.hasL()) {
+            return 3 + value.l().size() + sizeOfList(value.l());
+        } else if (value.hasSs()) {
+            return value.ss().stream().mapToLong(AttributeValues::utf8Length).sum();
+        } else if (value.hasNs()) {
+            return value.ns().stream().mapToLong(AttributeValues::numberSize).sum();
+        } else if (value.hasBs()) {
+            return value.bs().stream().mapToLong(b -> b.asByteArrayUnsafe().length).sum();
+        }
+        return 0;
+    }
+
+    private static long sizeOfList(List<AttributeValue> values) {
+        long size = 0;
+        for (var value : values) {
+            size += sizeOf(value);
+        }
+        return size;
+    }
+
+    private static long numberSize(String number) {
+        // Dynamo stores two digits per byte, plus a byte of exponent
+        return (number.length() + 1) / 2 + 1;
+    }
+
+    private static long utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while ((i < a.length()) && (j < b.length())) {
+            int codePointA = a.codePointAt(i);
+            int codePointB = b.codePointAt(j);
+            if (codePointA != codePointB) {
+                return Integer.compare(codePointA, codePointB);
+            }
+            i += Character.charCount(codePointA);
+            j += Character.charCount(codePointB);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+}
@@ -0,0 +1,78 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.Capacity;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Capacity charged to one table by one operation, split between the table and its indexes.
+ */
+final class Charge {
+
+    private final String tableName;
+
+    private double tableRead;
+
+    private double tableWrite;
+
+    /** Index name to [read, write] */
+    private final Map<String, double[]> indexes = new HashMap<>();
+
+    Charge(String tableName) {
+        this.tableName = tableName;
+    }
+
+    void read(String indexName, double units) {
+        if (indexName == null) {
+            tableRead += units;
+        } else {
+            indexes.computeIfAbsent(indexName, k -> new double[2])[0] += units;
+        }
+    }
+
+    void write(String indexName, double units) {
+        if (indexName == null) {
+            tableWrite += units;
+        } else {
+            indexes.computeIfAbsent(indexName, k -> new double[2])[1] += units;
+        }
+    }
+
+    /**
+     * Convert to the form returned by Dynamo.
+     * @param mode What the request asked for
+     * @return The consumed capacity, or null if the request did not ask for it
+     */
+    ConsumedCapacity toConsumedCapacity(ReturnConsumedCapacity mode) {
+        if ((mode == null) || (mode == ReturnConsumedCapacity.NONE) || (mode == ReturnConsumedCapacity.UNKNOWN_TO_SDK_VERSION)) {
+            return null;
+        }
+        double read = tableRead;
+        double write = tableWrite;
+        for (var units : indexes.values()) {
+            read += units[0];
+            write += units[1];
+        }
+        var builder = ConsumedCapacity.builder()
+                          .tableName(tableName)
+                          .capacityUnits(read + write)
+                          .readCapacityUnits(read)
+                          .writeCapacityUnits(write);
+        if (mode == ReturnConsumedCapacity.INDEXES) {
+            builder.table(capacity(tableRead, tableWrite));
+            if (!indexes.isEmpty()) {
+                var indexCapacity = new HashMap<String, Capacity>();
+                indexes.forEach((name, units) -> indexCapacity.put(name, capacity(units[0], units[1])));
+                builder.globalSecondaryIndexes(indexCapacity);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Capacity capacity(double read, double write) {
+        return Capacity.builder().capacityUnits(read + write).readCapacityUnits(read).writeCapacityUnits(write).build();
+    }
+}
@@ -0,0 +1,64 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+/**
+ * Builds the exceptions that the real service would return, so that callers see the same exception types and error
+ * codes that they would see from Dynamo.
+ */
+final class Errors {
+
+    private static final String SERVICE_NAME = "DynamoDb";
+
+    private Errors() {
+    }
+
+    static DynamoDbException validation(String message) {
+        return (DynamoDbException)DynamoDbException.builder()
+                                      .message(message)
+                                      .statusCode(400)
+                                      .awsErrorDetails(details("ValidationException", message))
+                                      .build();
+    }
+
+    static ResourceNotFoundException tableNotFound(String tableName) {
+        var message = "Requested resource not found: Table: " + tableName + " not found";
+        return (ResourceNotFoundException)ResourceNotFoundException.builder()
+                                              .message(message)
+                                              .statusCode(400)
+                                              .awsErrorDetails(details("ResourceNotFoundException", message))
+                                              .build();
+    }
+
+    static ResourceInUseException tableExists(String tableName) {
+        var message = "Table already exists: " + tableName;
+        return (ResourceInUseException)ResourceInUseException.builder()
+                                           .message(message)
+                                           .statusCode(400)
+                                           .awsErrorDetails(details("ResourceInUseException", message))
+                                           .build();
+    }
+
+    /**
+     * Build the exception for a throttled request.
+     * @param tableName The table, or null if the request was not aimed at one table
+     * @return The exception
+     */
+    static ProvisionedThroughputExceededException throttled(String tableName) {
+        var message = "The level of configured provisioned throughput for the table was exceeded"
+                          + (tableName == null ? "" : ": " + tableName);
+        return (ProvisionedThroughputExceededException)ProvisionedThroughputExceededException.builder()
+                                                           .message(message)
+                                                           .statusCode(400)
+                                                           .awsErrorDetails(details("ProvisionedThroughputExceededException", message))
+                                                           .build();
+    }
+
+    private static AwsErrorDetails details(String errorCode, String message) {
+        return AwsErrorDetails.builder().errorCode(errorCode).errorMessage(message).serviceName(SERVICE_NAME).build();
+    }
+}
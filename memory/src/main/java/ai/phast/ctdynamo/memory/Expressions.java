@@ -0,0 +1,131 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tokenizes expressions and resolves their placeholders. Only the subset of the expression language that key
+ * conditions and projections need is understood.
+ */
+final class Expressions {
+
+    private Expressions() {
+    }
+
+    /**
+     * Split an expression into tokens: names, placeholders, keywords, and the punctuation "=", "&lt;", "&lt;=", "&gt;",
+     * "&gt;=", "(", ")", and ",".
+     * @param expression The expression
+     * @return The tokens
+     */
+    static List<String> tokenize(String expression) {
+        var tokens = new ArrayList<String>();
+        int i = 0;
+        while (i < expression.length()) {
+            var c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                ++i;
+            } else if ((c == '(') || (c == ')') || (c == ',') || (c == '=')) {
+                tokens.add(String.valueOf(c));
+                ++i;
+            } else if ((c == '<') || (c == '>')) {
+                if ((i + 1 < expression.length()) && (expression.charAt(i + 1) == '=')) {
+                    tokens.add(expression.substring(i, i + 2));
+                    i += 2;
+                } else {
+                    tokens.add(String.valueOf(c));
+                    ++i;
+                }
+            } else if ((c == '#') || (c == ':') || Character.isLetterOrDigit(c) || (c == '_')) {
+                int start = i++;
+                while ((i < expression.length()) && (Character.isLetterOrDigit(expression.charAt(i)) || (expression.charAt(i) == '_'))) {
+                    ++i;
+                }
+                tokens.add(expression.substring(start, i));
+            } else {
+                throw Errors.validation("Invalid expression: unsupported character '" + c + "' in \"" + expression + "\"");
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Resolve an attribute name token, which may be a "#" placeholder.
+     * @param token The token
+     * @param names The expression attribute names of the request
+     * @return The attribute name
+     */
+    static String resolveName(String token, Map<String, String> names) {
+        if (token.startsWith("#")) {
+            var name = names.get(token);
+            if (name == null) {
+                throw Errors.validation("Invalid expression: An expression attribute name used in the document path is not defined; attribute name: " + token);
+            }
+            return name;
+        }
+        if (token.startsWith(":")) {
+            throw Errors.validation("Invalid expression: expected an attribute name, got " + token);
+        }
+        return token;
+    }
+
+    /**
+     * Resolve a ":" placeholder.
+     * @param token The token
+     * @param values The expression attribute values of the request
+     * @return The value
+     */
+    static AttributeValue resolveValue(String token, Map<String, AttributeValue> values) {
+        var value = token.startsWith(":") ? values.get(token) : null;
+        if (value == null) {
+            throw Errors.validation("Invalid expression: An expression attribute value used in expression is not defined; attribute value: " + token);
+        }
+        return value;
+    }
+
+    /**
+     * Parse a projection expression made of top level attribute names.
+     * @param expression The expression, or null for no projection
+     * @param names The expression attribute names of the request
+     * @return The attributes to return, or null to return every attribute
+     */
+    static Set<String> parseProjection(String expression, Map<String, String> names) {
+        if (expression == null) {
+            return null;
+        }
+        var result = new LinkedHashMap<String, Boolean>();
+        var tokens = tokenize(expression);
+        for (int i = 0; i < tokens.size(); i += 2) {
+            if ((i + 1 < tokens.size()) && !tokens.get(i + 1).equals(",")) {
+                throw Errors.validation("Invalid ProjectionExpression: only top level attribute names are supported: " + expression);
+            }
+            result.put(resolveName(tokens.get(i), names), Boolean.TRUE);
+        }
+        return result.keySet();
+    }
+
+    /**
+     * Apply a projection to an item.
+     * @param item The item
+     * @param projection The attributes to keep, or null to keep them all
+     * @return The projected item
+     */
+    static Map<String, AttributeValue> project(Map<String, AttributeValue> item, Set<String> projection) {
+        if (projection == null) {
+            return item;
+        }
+        var result = new LinkedHashMap<String, AttributeValue>();
+        for (var name : projection) {
+            var value = item.get(name);
+            if (value != null) {
+                result.put(name, value);
+            }
+        }
+        return result;
+    }
+}
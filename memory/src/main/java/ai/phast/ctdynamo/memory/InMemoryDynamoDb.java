@@ -0,0 +1,438 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * An in-process Dynamo, for tests and benchmarks that should not depend on a real table. Create one, create tables in
+ * it through {@link #client()}, and hand the client (or {@link #asyncClient()}) to generated ctdynamo tables:
+ * <pre>
+ *     var dynamo = new InMemoryDynamoDb();
+ *     dynamo.client().createTable(...);
+ *     var table = new LogBatchDynamoTable(dynamo.client(), "logs");
+ * </pre>
+ *
+ * <p>Supported operations are GetItem, PutItem, DeleteItem, BatchGetItem, BatchWriteItem, Query (key conditions,
+ * Limit, ScanIndexForward and ExclusiveStartKey paging, on the table or a global secondary index), Scan (including
+ * parallel segments), and the basic table operations. Projection expressions may name top level attributes. Filter
+ * and condition expressions, updates, transactions, and local secondary indexes are not supported; requests that use
+ * them fail with a validation error rather than being silently misinterpreted.
+ *
+ * <p>Pages follow the service's rules: a page ends at Limit items or 1MB, and a page that stops early always has a
+ * LastEvaluatedKey, even if no items remain. Items are stored as given, without copying, since SDK model objects are
+ * immutable.
+ *
+ * <p>Latency, throttling, unprocessed batch items, and the capacity charged are all decided by a
+ * {@link SimulationPolicy}, which may be changed at any time.
+ */
+public final class InMemoryDynamoDb {
+
+    /** Most keys allowed in one BatchGetItem */
+    private static final int MAX_BATCH_GET = 100;
+
+    /** Most writes allowed in one BatchWriteItem */
+    private static final int MAX_BATCH_WRITE = 25;
+
+    private final Map<String, MemoryTable> tables = new ConcurrentHashMap<>();
+
+    private volatile SimulationPolicy policy = SimulationPolicy.DEFAULT;
+
+    public InMemoryDynamoDb() {
+    }
+
+    public SimulationPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Change how the engine simulates the service. This takes effect for operations that start after the call.
+     * @param value The policy
+     */
+    public void setPolicy(SimulationPolicy value) {
+        policy = Objects.requireNonNull(value, "policy must not be null");
+    }
+
+    /**
+     * Get a synchronous client. Simulated latency blocks the calling thread.
+     * @return A client backed by this engine
+     */
+    public DynamoDbClient client() {
+        return new InMemoryDynamoDbClient(this);
+    }
+
+    /**
+     * Get an asynchronous client that completes its futures on the common fork join pool.
+     * @return A client backed by this engine
+     */
+    public DynamoDbAsyncClient asyncClient() {
+        return asyncClient(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Get an asynchronous client. Simulated latency does not block any thread; the operation is scheduled to run on
+     * the executor once the latency has passed.
+     * @param executor Runs the operations and completes their futures
+     * @return A client backed by this engine
+     */
+    public DynamoDbAsyncClient asyncClient(Executor executor) {
+        return new InMemoryDynamoDbAsyncClient(this, Objects.requireNonNull(executor, "executor must not be null"));
+    }
+
+    /**
+     * Drop every table.
+     */
+    public void clear() {
+        tables.clear();
+    }
+
+    /**
+     * Run an operation on the calling thread, after the simulated latency.
+     */
+    <R> R call(Operation operation, String tableName, Supplier<R> action) {
+        var latency = policy.latency(operation, tableName);
+        if (!latency.isZero()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw AbortedException.builder().message("Interrupted during simulated latency").cause(e).build();
+            }
+        }
+        return action.get();
+    }
+
+    /**
+     * Run an operation on an executor, after the simulated latency.
+     */
+    <R> CompletableFuture<R> callAsync(Operation operation, String tableName, Supplier<R> action, Executor executor) {
+        Duration latency = policy.latency(operation, tableName);
+        var delayed = latency.isZero() ? executor : CompletableFuture.delayedExecutor(latency.toNanos(), TimeUnit.NANOSECONDS, executor);
+        return CompletableFuture.supplyAsync(action, delayed);
+    }
+
+    CreateTableResponse createTable(CreateTableRequest request) {
+        checkThrottle(Operation.CREATE_TABLE, request.tableName());
+        var table = MemoryTable.create(request);
+        if (tables.putIfAbsent(table.getName(), table) != null) {
+            throw Errors.tableExists(table.getName());
+        }
+        return CreateTableResponse.builder().tableDescription(table.describe()).build();
+    }
+
+    DeleteTableResponse deleteTable(DeleteTableRequest request) {
+        checkThrottle(Operation.DELETE_TABLE, request.tableName());
+        var table = tables.remove(request.tableName());
+        if (table == null) {
+            throw Errors.tableNotFound(request.tableName());
+        }
+        return DeleteTableResponse.builder()
+                   .tableDescription(table.describe().toBuilder().tableStatus(TableStatus.DELETING).build())
+                   .build();
+    }
+
+    DescribeTableResponse describeTable(DescribeTableRequest request) {
+        checkThrottle(Operation.DESCRIBE_TABLE, request.tableName());
+        return DescribeTableResponse.builder().table(table(request.tableName()).describe()).build();
+    }
+
+    ListTablesResponse listTables(ListTablesRequest request) {
+        checkThrottle(Operation.LIST_TABLES, null);
+        var names = new TreeSet<>(tables.keySet());
+        var remaining = request.exclusiveStartTableName() == null ? names : names.tailSet(request.exclusiveStartTableName(), false);
+        var limit = request.limit() == null ? 100 : request.limit();
+        var result = new ArrayList<String>();
+        for (var name : remaining) {
+            if (result.size() == limit) {
+                return ListTablesResponse.builder().tableNames(result).lastEvaluatedTableName(result.get(limit - 1)).build();
+            }
+            result.add(name);
+        }
+        return ListTablesResponse.builder().tableNames(result).build();
+    }
+
+    GetItemResponse getItem(GetItemRequest request) {
+        var table = table(request.tableName());
+        checkThrottle(Operation.GET_ITEM, table.getName());
+        var item = table.get(request.key());
+        var charge = new Charge(table.getName());
+        charge.read(null, readUnits(table, item == null ? 0 : AttributeValues.sizeOf(item), request.consistentRead()));
+        var builder = GetItemResponse.builder().consumedCapacity(charge.toConsumedCapacity(request.returnConsumedCapacity()));
+        if (item != null) {
+            builder.item(Expressions.project(item, Expressions.parseProjection(request.projectionExpression(), request.expressionAttributeNames())));
+        }
+        return builder.build();
+    }
+
+    PutItemResponse putItem(PutItemRequest request) {
+        var table = table(request.tableName());
+        checkUnsupported(request.conditionExpression(), "ConditionExpression");
+        var returnOld = returnsOld(request.returnValues());
+        checkThrottle(Operation.PUT_ITEM, table.getName());
+        var charge = new Charge(table.getName());
+        var old = table.put(request.item(), charge, policy);
+        var builder = PutItemResponse.builder().consumedCapacity(charge.toConsumedCapacity(request.returnConsumedCapacity()));
+        if (returnOld && (old != null)) {
+            builder.attributes(old);
+        }
+        return builder.build();
+    }
+
+    DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        var table = table(request.tableName());
+        checkUnsupported(request.conditionExpression(), "ConditionExpression");
+        var returnOld = returnsOld(request.returnValues());
+        checkThrottle(Operation.DELETE_ITEM, table.getName());
+        var charge = new Charge(table.getName());
+        var old = table.delete(request.key(), charge, policy);
+        var builder = DeleteItemResponse.builder().consumedCapacity(charge.toConsumedCapacity(request.returnConsumedCapacity()));
+        if (returnOld && (old != null)) {
+            builder.attributes(old);
+        }
+        return builder.build();
+    }
+
+    BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        var numKeys = request.requestItems().values().stream().mapToInt(keys -> keys.keys().size()).sum();
+        if (numKeys > MAX_BATCH_GET) {
+            throw Errors.validation("Too many items requested for the BatchGetItem call");
+        }
+        if (numKeys == 0) {
+            throw Errors.validation("The requestItems parameter is required for BatchGetItem");
+        }
+        checkThrottle(Operation.BATCH_GET_ITEM, null);
+        var responses = new HashMap<String, List<Map<String, AttributeValue>>>();
+        var unprocessed = new HashMap<String, KeysAndAttributes>();
+        var capacity = new ArrayList<ConsumedCapacity>();
+        for (var entry : request.requestItems().entrySet()) {
+            var table = table(entry.getKey());
+            var keysAndAttributes = entry.getValue();
+            var projection = Expressions.parseProjection(keysAndAttributes.projectionExpression(), keysAndAttributes.expressionAttributeNames());
+            var charge = new Charge(table.getName());
+            var items = new ArrayList<Map<String, AttributeValue>>();
+            var leftOver = new ArrayList<Map<String, AttributeValue>>();
+            for (var key : keysAndAttributes.keys()) {
+                if (policy.leaveUnprocessed(Operation.BATCH_GET_ITEM, table.getName())) {
+                    leftOver.add(key);
+                    continue;
+                }
+                var item = table.get(key);
+                charge.read(null, readUnits(table, item == null ? 0 : AttributeValues.sizeOf(item), keysAndAttributes.consistentRead()));
+                if (item != null) {
+                    items.add(Expressions.project(item, projection));
+                }
+            }
+            responses.put(table.getName(), items);
+            if (!leftOver.isEmpty()) {
+                unprocessed.put(table.getName(), keysAndAttributes.toBuilder().keys(leftOver).build());
+            }
+            addCapacity(capacity, charge.toConsumedCapacity(request.returnConsumedCapacity()));
+        }
+        var builder = BatchGetItemResponse.builder().responses(responses).unprocessedKeys(unprocessed);
+        if (!capacity.isEmpty()) {
+            builder.consumedCapacity(capacity);
+        }
+        return builder.build();
+    }
+
+    BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        var numWrites = request.requestItems().values().stream().mapToInt(List::size).sum();
+        if (numWrites > MAX_BATCH_WRITE) {
+            throw Errors.validation("Too many items requested for the BatchWriteItem call");
+        }
+        if (numWrites == 0) {
+            throw Errors.validation("The requestItems parameter is required for BatchWriteItem");
+        }
+        checkThrottle(Operation.BATCH_WRITE_ITEM, null);
+        var unprocessed = new HashMap<String, List<WriteRequest>>();
+        var capacity = new ArrayList<ConsumedCapacity>();
+        for (var entry : request.requestItems().entrySet()) {
+            var table = table(entry.getKey());
+            var charge = new Charge(table.getName());
+            var leftOver = new ArrayList<WriteRequest>();
+            for (var write : entry.getValue()) {
+                if (policy.leaveUnprocessed(Operation.BATCH_WRITE_ITEM, table.getName())) {
+                    leftOver.add(write);
+                } else if (write.putRequest() != null) {
+                    table.put(write.putRequest().item(), charge, policy);
+                } else if (write.deleteRequest() != null) {
+                    table.delete(write.deleteRequest().key(), charge, policy);
+                } else {
+                    throw Errors.validation("A WriteRequest must have either a PutRequest or a DeleteRequest");
+                }
+            }
+            if (!leftOver.isEmpty()) {
+                unprocessed.put(table.getName(), leftOver);
+            }
+            addCapacity(capacity, charge.toConsumedCapacity(request.returnConsumedCapacity()));
+        }
+        var builder = BatchWriteItemResponse.builder().unprocessedItems(unprocessed);
+        if (!capacity.isEmpty()) {
+            builder.consumedCapacity(capacity);
+        }
+        return builder.build();
+    }
+
+    QueryResponse query(QueryRequest request) {
+        var table = table(request.tableName());
+        var indexName = request.indexName();
+        checkUnsupported(request.filterExpression(), "FilterExpression");
+        checkIndexRead(indexName, request.consistentRead());
+        var condition = KeyCondition.parse(request.keyConditionExpression(), request.expressionAttributeNames(),
+            request.expressionAttributeValues(), table.getPartitionKey(indexName), table.getSortKey(indexName));
+        var projection = Expressions.parseProjection(request.projectionExpression(), request.expressionAttributeNames());
+        checkThrottle(Operation.QUERY, table.getName());
+        var page = table.getStore(indexName).query(condition, !Boolean.FALSE.equals(request.scanIndexForward()),
+            request.hasExclusiveStartKey() ? request.exclusiveStartKey() : null, limit(request.limit()));
+        var charge = new Charge(table.getName());
+        charge.read(indexName, readUnits(table, page.getBytes(), request.consistentRead()));
+        var builder = QueryResponse.builder()
+                          .count(page.getItems().size())
+                          .scannedCount(page.getItems().size())
+                          .consumedCapacity(charge.toConsumedCapacity(request.returnConsumedCapacity()))
+                          .lastEvaluatedKey(page.getLastEvaluatedKey());
+        if (request.select() != Select.COUNT) {
+            builder.items(project(page.getItems(), projection));
+        }
+        return builder.build();
+    }
+
+    ScanResponse scan(ScanRequest request) {
+        var table = table(request.tableName());
+        var indexName = request.indexName();
+        checkUnsupported(request.filterExpression(), "FilterExpression");
+        checkIndexRead(indexName, request.consistentRead());
+        var segment = request.segment();
+        var totalSegments = request.totalSegments();
+        if ((segment == null) != (totalSegments == null)) {
+            throw Errors.validation("The Segment parameter is required but was not present in the request when parameter TotalSegments is present");
+        }
+        if ((totalSegments != null) && ((totalSegments < 1) || (segment < 0) || (segment >= totalSegments))) {
+            throw Errors.validation("The Segment parameter is zero-based and must be less than parameter TotalSegments");
+        }
+        var projection = Expressions.parseProjection(request.projectionExpression(), request.expressionAttributeNames());
+        checkThrottle(Operation.SCAN, table.getName());
+        var page = table.getStore(indexName).scan(segment == null ? 0 : segment, totalSegments == null ? 1 : totalSegments,
+            request.hasExclusiveStartKey() ? request.exclusiveStartKey() : null, limit(request.limit()));
+        var charge = new Charge(table.getName());
+        charge.read(indexName, readUnits(table, page.getBytes(), request.consistentRead()));
+        var builder = ScanResponse.builder()
+                          .count(page.getItems().size())
+                          .scannedCount(page.getItems().size())
+                          .consumedCapacity(charge.toConsumedCapacity(request.returnConsumedCapacity()))
+                          .lastEvaluatedKey(page.getLastEvaluatedKey());
+        if (request.select() != Select.COUNT) {
+            builder.items(project(page.getItems(), projection));
+        }
+        return builder.build();
+    }
+
+    private MemoryTable table(String tableName) {
+        var table = tableName == null ? null : tables.get(tableName);
+        if (table == null) {
+            throw Errors.tableNotFound(tableName);
+        }
+        return table;
+    }
+
+    private void checkThrottle(Operation operation, String tableName) {
+        if (policy.throttle(operation, tableName)) {
+            throw Errors.throttled(tableName);
+        }
+    }
+
+    private double readUnits(MemoryTable table, long bytes, Boolean consistentRead) {
+        return policy.readCapacityUnits(table.getName(), bytes, Boolean.TRUE.equals(consistentRead));
+    }
+
+    private static void checkUnsupported(String expression, String parameter) {
+        if (expression != null) {
+            throw Errors.validation(parameter + " is not supported by the in-memory engine");
+        }
+    }
+
+    private static void checkIndexRead(String indexName, Boolean consistentRead) {
+        if ((indexName != null) && Boolean.TRUE.equals(consistentRead)) {
+            throw Errors.validation("Consistent reads are not supported on global secondary indexes");
+        }
+    }
+
+    private static boolean returnsOld(ReturnValue returnValue) {
+        if ((returnValue == null) || (returnValue == ReturnValue.NONE)) {
+            return false;
+        } else if (returnValue == ReturnValue.ALL_OLD) {
+            return true;
+        }
+        throw Errors.validation("ReturnValues " + returnValue + " is not supported by the in-memory engine");
+    }
+
+    private static int limit(Integer limit) {
+        if (limit == null) {
+            return Integer.MAX_VALUE;
+        } else if (limit < 1) {
+            throw Errors.validation("Limit must be greater than or equal to 1");
+        }
+        return limit;
+    }
+
+    private static List<Map<String, AttributeValue>> project(List<Map<String, AttributeValue>> items, Set<String> projection) {
+        if (projection == null) {
+            return items;
+        }
+        var result = new ArrayList<Map<String, AttributeValue>>(items.size());
+        for (var item : items) {
+            result.add(Expressions.project(item, projection));
+        }
+        return result;
+    }
+
+    private static void addCapacity(List<ConsumedCapacity> list, ConsumedCapacity capacity) {
+        if (capacity != null) {
+            list.add(capacity);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The asynchronous face of an {@link InMemoryDynamoDb}. Every operation runs on the executor, never on the calling
+ * thread, so callers see the same threading as with the real async client. Operations the engine does not support
+ * throw UnsupportedOperationException, the default of the SDK interface.
+ */
+final class InMemoryDynamoDbAsyncClient implements DynamoDbAsyncClient {
+
+    private final InMemoryDynamoDb engine;
+
+    private final Executor executor;
+
+    InMemoryDynamoDbAsyncClient(InMemoryDynamoDb engine, Executor executor) {
+        this.engine = engine;
+        this.executor = executor;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public CompletableFuture<CreateTableResponse> createTable(CreateTableRequest request) {
+        return engine.callAsync(Operation.CREATE_TABLE, request.tableName(), () -> engine.createTable(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<DeleteTableResponse> deleteTable(DeleteTableRequest request) {
+        return engine.callAsync(Operation.DELETE_TABLE, request.tableName(), () -> engine.deleteTable(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<DescribeTableResponse> describeTable(DescribeTableRequest request) {
+        return engine.callAsync(Operation.DESCRIBE_TABLE, request.tableName(), () -> engine.describeTable(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<ListTablesResponse> listTables(ListTablesRequest request) {
+        return engine.callAsync(Operation.LIST_TABLES, null, () -> engine.listTables(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<GetItemResponse> getItem(GetItemRequest request) {
+        return engine.callAsync(Operation.GET_ITEM, request.tableName(), () -> engine.getItem(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<PutItemResponse> putItem(PutItemRequest request) {
+        return engine.callAsync(Operation.PUT_ITEM, request.tableName(), () -> engine.putItem(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<DeleteItemResponse> deleteItem(DeleteItemRequest request) {
+        return engine.callAsync(Operation.DELETE_ITEM, request.tableName(), () -> engine.deleteItem(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<BatchGetItemResponse> batchGetItem(BatchGetItemRequest request) {
+        return engine.callAsync(Operation.BATCH_GET_ITEM, null, () -> engine.batchGetItem(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+        return engine.callAsync(Operation.BATCH_WRITE_ITEM, null, () -> engine.batchWriteItem(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> query(QueryRequest request) {
+        return engine.callAsync(Operation.QUERY, request.tableName(), () -> engine.query(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<ScanResponse> scan(ScanRequest request) {
+        return engine.callAsync(Operation.SCAN, request.tableName(), () -> engine.scan(request), executor);
+    }
+}
@@ -0,0 +1,102 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/**
+ * The synchronous face of an {@link InMemoryDynamoDb}. Operations the engine does not support throw
+ * UnsupportedOperationException, the default of the SDK interface.
+ */
+final class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    private final InMemoryDynamoDb engine;
+
+    InMemoryDynamoDbClient(InMemoryDynamoDb engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public CreateTableResponse createTable(CreateTableRequest request) {
+        return engine.call(Operation.CREATE_TABLE, request.tableName(), () -> engine.createTable(request));
+    }
+
+    @Override
+    public DeleteTableResponse deleteTable(DeleteTableRequest request) {
+        return engine.call(Operation.DELETE_TABLE, request.tableName(), () -> engine.deleteTable(request));
+    }
+
+    @Override
+    public DescribeTableResponse describeTable(DescribeTableRequest request) {
+        return engine.call(Operation.DESCRIBE_TABLE, request.tableName(), () -> engine.describeTable(request));
+    }
+
+    @Override
+    public ListTablesResponse listTables(ListTablesRequest request) {
+        return engine.call(Operation.LIST_TABLES, null, () -> engine.listTables(request));
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        return engine.call(Operation.GET_ITEM, request.tableName(), () -> engine.getItem(request));
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        return engine.call(Operation.PUT_ITEM, request.tableName(), () -> engine.putItem(request));
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        return engine.call(Operation.DELETE_ITEM, request.tableName(), () -> engine.deleteItem(request));
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        return engine.call(Operation.BATCH_GET_ITEM, null, () -> engine.batchGetItem(request));
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        return engine.call(Operation.BATCH_WRITE_ITEM, null, () -> engine.batchWriteItem(request));
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        return engine.call(Operation.QUERY, request.tableName(), () -> engine.query(request));
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        return engine.call(Operation.SCAN, request.tableName(), () -> engine.scan(request));
+    }
+}
@@ -0,0 +1,92 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Arrays;
+
+/**
+ * The position of an item within a partition. For a table this is just the sort key (or nothing, if the table has no
+ * sort key). Index entries need not be unique, so for an index it is the index sort key followed by the table key.
+ *
+ * <p>A key may also be a bound: a prefix of components that sorts before or after every key that extends it. Bounds
+ * are used to turn key conditions into ranges of a sorted map.
+ */
+final class ItemKey implements Comparable<ItemKey> {
+
+    private final AttributeValue[] components;
+
+    /** How this sorts against keys that it is a prefix of: -1 before them, 1 after them, 0 for an exact key */
+    private final int bound;
+
+    private ItemKey(AttributeValue[] components, int bound) {
+        this.components = components;
+        this.bound = bound;
+    }
+
+    static ItemKey of(AttributeValue[] components) {
+        return new ItemKey(components, 0);
+    }
+
+    /**
+     * Get a bound that sorts before every key whose first component is a value.
+     * @param first The first component
+     * @return The bound
+     */
+    static ItemKey below(AttributeValue first) {
+        return new ItemKey(new AttributeValue[] {first}, -1);
+    }
+
+    /**
+     * Get a bound that sorts after every key whose first component is a value.
+     * @param first The first component
+     * @return The bound
+     */
+    static ItemKey above(AttributeValue first) {
+        return new ItemKey(new AttributeValue[] {first}, 1);
+    }
+
+    AttributeValue get(int index) {
+        return components[index];
+    }
+
+    int size() {
+        return components.length;
+    }
+
+    @Override
+    public int compareTo(ItemKey other) {
+        var common = Math.min(components.length, other.components.length);
+        for (int i = 0; i < common; ++i) {
+            var result = AttributeValues.compare(components[i], other.components[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        if (components.length == other.components.length) {
+            return Integer.compare(bound, other.bound);
+        } else if (components.length < other.components.length) {
+            return bound == 0 ? -1 : bound;
+        } else {
+            return other.bound == 0 ? 1 : -other.bound;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof ItemKey) && (compareTo((ItemKey)o) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = bound;
+        for (var component : components) {
+            hash = hash * 31 + AttributeValues.hash(component);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(components);
+    }
+}
@@ -0,0 +1,217 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The items of one table or index, held as a sorted map of partitions, each of which is a sorted map of items. Reads
+ * never lock; callers serialize writes to any one item.
+ */
+final class ItemStore {
+
+    /** Dynamo stops a query or scan page once it has read this much data */
+    static final long MAX_PAGE_BYTES = 1024 * 1024;
+
+    private final String partitionAttribute;
+
+    /** The attributes that make up an {@link ItemKey}, in order */
+    private final String[] orderAttributes;
+
+    private final ConcurrentSkipListMap<AttributeValue, ConcurrentNavigableMap<ItemKey, Map<String, AttributeValue>>> partitions =
+        new ConcurrentSkipListMap<>(AttributeValues.KEY_ORDER);
+
+    ItemStore(String partitionAttribute, String... orderAttributes) {
+        this.partitionAttribute = partitionAttribute;
+        this.orderAttributes = orderAttributes;
+    }
+
+    /**
+     * Get the item key of an item (or of a key map).
+     * @param item The item
+     * @return The key, or null if any attribute of the key is missing
+     */
+    ItemKey keyOf(Map<String, AttributeValue> item) {
+        var components = new AttributeValue[orderAttributes.length];
+        for (int i = 0; i < components.length; ++i) {
+            components[i] = item.get(orderAttributes[i]);
+            if (components[i] == null) {
+                return null;
+            }
+        }
+        return ItemKey.of(components);
+    }
+
+    AttributeValue partitionOf(Map<String, AttributeValue> item) {
+        return item.get(partitionAttribute);
+    }
+
+    Map<String, AttributeValue> get(AttributeValue partitionValue, ItemKey key) {
+        var partition = partitions.get(partitionValue);
+        return partition == null ? null : partition.get(key);
+    }
+
+    Map<String, AttributeValue> put(AttributeValue partitionValue, ItemKey key, Map<String, AttributeValue> item) {
+        while (true) {
+            var partition = partitions.computeIfAbsent(partitionValue, k -> new ConcurrentSkipListMap<>());
+            synchronized (partition) {
+                // If the partition was dropped while we waited, the item must go into its replacement
+                if (partitions.get(partitionValue) == partition) {
+                    return partition.put(key, item);
+                }
+            }
+        }
+    }
+
+    Map<String, AttributeValue> remove(AttributeValue partitionValue, ItemKey key) {
+        var partition = partitions.get(partitionValue);
+        return partition == null ? null : partition.remove(key);
+    }
+
+    /**
+     * Drop a partition if it is empty. This is safe to race with puts to the partition: a put that finds its
+     * partition dropped starts over with a new one.
+     * @param partitionValue The partition
+     */
+    void removeIfEmpty(AttributeValue partitionValue) {
+        var partition = partitions.get(partitionValue);
+        if (partition != null) {
+            synchronized (partition) {
+                if (partition.isEmpty()) {
+                    partitions.remove(partitionValue, partition);
+                }
+            }
+        }
+    }
+
+    int partitionCount() {
+        return partitions.size();
+    }
+
+    long size() {
+        long size = 0;
+        for (var partition : partitions.values()) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    /**
+     * Read one page of a partition.
+     * @param condition The key condition
+     * @param forward Whether to read in ascending order
+     * @param exclusiveStart The key to continue after, or null to start at the beginning
+     * @param limit The maximum number of items to read
+     * @return The page
+     */
+    Page query(KeyCondition condition, boolean forward, Map<String, AttributeValue> exclusiveStart, int limit) {
+        var partition = partitions.get(condition.getPartitionValue());
+        if (partition == null) {
+            return new Page(Collections.emptyList(), null, 0);
+        }
+        NavigableMap<ItemKey, Map<String, AttributeValue>> view = condition.range(partition);
+        if (exclusiveStart != null) {
+            var startKey = startKeyOf(exclusiveStart);
+            view = forward ? view.tailMap(startKey, false) : view.headMap(startKey, false);
+        }
+        if (!forward) {
+            view = view.descendingMap();
+        }
+        var items = new ArrayList<Map<String, AttributeValue>>();
+        long bytes = 0;
+        for (var entry : view.entrySet()) {
+            if (!condition.matches(entry.getKey())) {
+                if (forward) {
+                    break;
+                }
+                continue;
+            }
+            var item = entry.getValue();
+            items.add(item);
+            bytes += AttributeValues.sizeOf(item);
+            if ((items.size() >= limit) || (bytes >= MAX_PAGE_BYTES)) {
+                return new Page(items, keyAttributes(item), bytes);
+            }
+        }
+        return new Page(items, null, bytes);
+    }
+
+    /**
+     * Read one page of a scan.
+     * @param segment The segment to read
+     * @param totalSegments The number of segments. Partitions are assigned to segments by hash.
+     * @param exclusiveStart The key to continue after, or null to start at the beginning
+     * @param limit The maximum number of items to read
+     * @return The page
+     */
+    Page scan(int segment, int totalSegments, Map<String, AttributeValue> exclusiveStart, int limit) {
+        Iterator<Map.Entry<AttributeValue, ConcurrentNavigableMap<ItemKey, Map<String, AttributeValue>>>> iterator;
+        AttributeValue startPartition = null;
+        ItemKey startKey = null;
+        if (exclusiveStart == null) {
+            iterator = partitions.entrySet().iterator();
+        } else {
+            startPartition = startPartitionOf(exclusiveStart);
+            startKey = startKeyOf(exclusiveStart);
+            iterator = partitions.tailMap(startPartition, true).entrySet().iterator();
+        }
+        var items = new ArrayList<Map<String, AttributeValue>>();
+        long bytes = 0;
+        while (iterator.hasNext()) {
+            var partitionEntry = iterator.next();
+            if (Math.floorMod(AttributeValues.hash(partitionEntry.getKey()), totalSegments) != segment) {
+                continue;
+            }
+            NavigableMap<ItemKey, Map<String, AttributeValue>> partition = partitionEntry.getValue();
+            if ((startPartition != null) && (AttributeValues.compare(startPartition, partitionEntry.getKey()) == 0)) {
+                partition = partition.tailMap(startKey, false);
+            }
+            for (var item : partition.values()) {
+                items.add(item);
+                bytes += AttributeValues.sizeOf(item);
+                if ((items.size() >= limit) || (bytes >= MAX_PAGE_BYTES)) {
+                    return new Page(items, keyAttributes(item), bytes);
+                }
+            }
+        }
+        return new Page(items, null, bytes);
+    }
+
+    /**
+     * Get the attributes of an item that identify its position in this store, for use as a LastEvaluatedKey.
+     * @param item The item
+     * @return The key attributes
+     */
+    Map<String, AttributeValue> keyAttributes(Map<String, AttributeValue> item) {
+        var result = new HashMap<String, AttributeValue>(orderAttributes.length * 2 + 2);
+        result.put(partitionAttribute, item.get(partitionAttribute));
+        for (var attribute : orderAttributes) {
+            result.put(attribute, item.get(attribute));
+        }
+        return result;
+    }
+
+    private AttributeValue startPartitionOf(Map<String, AttributeValue> exclusiveStart) {
+        var result = exclusiveStart.get(partitionAttribute);
+        if (result == null) {
+            throw Errors.validation("The provided starting key is invalid: missing " + partitionAttribute);
+        }
+        return result;
+    }
+
+    private ItemKey startKeyOf(Map<String, AttributeValue> exclusiveStart) {
+        var result = keyOf(exclusiveStart);
+        if (result == null) {
+            throw Errors.validation("The provided starting key is invalid: it must contain " + List.of(orderAttributes));
+        }
+        return result;
+    }
+}
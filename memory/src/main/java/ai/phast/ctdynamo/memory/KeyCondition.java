@@ -0,0 +1,231 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * A parsed key condition expression: an equality test on the partition key and an optional test on the sort key.
+ */
+final class KeyCondition {
+
+    enum SortOperator {
+        EQ, LT, LE, GT, GE, BETWEEN, BEGINS_WITH
+    }
+
+    private final AttributeValue partitionValue;
+
+    /** The test on the sort key, or null if there is none */
+    private final SortOperator operator;
+
+    private final AttributeValue low;
+
+    /** The upper bound of BETWEEN; null for the other operators */
+    private final AttributeValue high;
+
+    private KeyCondition(AttributeValue partitionValue, SortOperator operator, AttributeValue low, AttributeValue high) {
+        this.partitionValue = partitionValue;
+        this.operator = operator;
+        this.low = low;
+        this.high = high;
+    }
+
+    AttributeValue getPartitionValue() {
+        return partitionValue;
+    }
+
+    /**
+     * Parse a key condition.
+     * @param expression The KeyConditionExpression of the request
+     * @param names The expression attribute names
+     * @param values The expression attribute values
+     * @param partitionAttribute The partition key of the table or index being queried
+     * @param sortAttribute The sort key of the table or index, or null if it has none
+     * @return The condition
+     */
+    static KeyCondition parse(String expression, Map<String, String> names, Map<String, AttributeValue> values,
+                              String partitionAttribute, String sortAttribute) {
+        if (expression == null) {
+            throw Errors.validation("Either the KeyConditions or KeyConditionExpression parameter must be specified in the request.");
+        }
+        var parser = new Parser(Expressions.tokenize(expression), names, values);
+        AttributeValue partitionValue = null;
+        KeyCondition sort = null;
+        do {
+            var term = parser.term();
+            if (term.attribute.equals(partitionAttribute) && (term.operator == SortOperator.EQ) && (partitionValue == null)) {
+                partitionValue = term.low;
+            } else if (term.attribute.equals(sortAttribute) && (sort == null)) {
+                sort = term.toCondition();
+            } else {
+                throw Errors.validation("Query key condition not supported: " + expression);
+            }
+        } while (parser.acceptAnd());
+        parser.expectEnd();
+        if (partitionValue == null) {
+            throw Errors.validation("Query condition missed key schema element: " + partitionAttribute);
+        }
+        return sort == null ? new KeyCondition(partitionValue, null, null, null)
+                   : new KeyCondition(partitionValue, sort.operator, sort.low, sort.high);
+    }
+
+    /**
+     * Narrow a partition to the entries that can satisfy the sort condition. The sort key must be the first
+     * component of each item key.
+     * @param partition The partition
+     * @param <V> The type of entry
+     * @return The narrowed view
+     */
+    <V> NavigableMap<ItemKey, V> range(NavigableMap<ItemKey, V> partition) {
+        if (operator == null) {
+            return partition;
+        }
+        switch (operator) {
+        case EQ:
+            return partition.subMap(ItemKey.below(low), true, ItemKey.above(low), true);
+        case LT:
+            return partition.headMap(ItemKey.below(low), false);
+        case LE:
+            return partition.headMap(ItemKey.above(low), false);
+        case GT:
+            return partition.tailMap(ItemKey.above(low), false);
+        case GE:
+        case BEGINS_WITH:
+            return partition.tailMap(ItemKey.below(low), false);
+        case BETWEEN:
+            if (AttributeValues.compare(low, high) > 0) {
+                throw Errors.validation("Invalid KeyConditionExpression: The BETWEEN operator requires upper bound to be greater than or equal to lower bound");
+            }
+            return partition.subMap(ItemKey.below(low), false, ItemKey.above(high), false);
+        default:
+            throw new IllegalStateException("Unknown operator " + operator);
+        }
+    }
+
+    /**
+     * Check whether a key in the range satisfies the condition. Only begins_with can fail this, since its range
+     * has no upper bound.
+     * @param key The item key
+     * @return Whether the key satisfies the condition
+     */
+    boolean matches(ItemKey key) {
+        return (operator != SortOperator.BEGINS_WITH) || AttributeValues.beginsWith(key.get(0), low);
+    }
+
+    /**
+     * Check whether the sort condition is a prefix test, in which case a scan of the range can stop at the first
+     * miss when going forward.
+     * @return Whether the condition is begins_with
+     */
+    boolean isPrefix() {
+        return operator == SortOperator.BEGINS_WITH;
+    }
+
+    private static final class Term {
+        private final String attribute;
+        private final SortOperator operator;
+        private final AttributeValue low;
+        private final AttributeValue high;
+
+        Term(String attribute, SortOperator operator, AttributeValue low, AttributeValue high) {
+            this.attribute = attribute;
+            this.operator = operator;
+            this.low = low;
+            this.high = high;
+        }
+
+        KeyCondition toCondition() {
+            return new KeyCondition(null, operator, low, high);
+        }
+    }
+
+    private static final class Parser {
+        private final List<String> tokens;
+        private final Map<String, String> names;
+        private final Map<String, AttributeValue> values;
+        private int position = 0;
+
+        Parser(List<String> tokens, Map<String, String> names, Map<String, AttributeValue> values) {
+            this.tokens = tokens;
+            this.names = names;
+            this.values = values;
+        }
+
+        Term term() {
+            if (accept("(")) {
+                var result = term();
+                expect(")");
+                return result;
+            }
+            var first = next();
+            if (first.equalsIgnoreCase("begins_with") && accept("(")) {
+                var attribute = Expressions.resolveName(next(), names);
+                expect(",");
+                var prefix = Expressions.resolveValue(next(), values);
+                expect(")");
+                return new Term(attribute, SortOperator.BEGINS_WITH, prefix, null);
+            }
+            var attribute = Expressions.resolveName(first, names);
+            var operator = next();
+            if (operator.equalsIgnoreCase("BETWEEN")) {
+                var low = Expressions.resolveValue(next(), values);
+                if (!next().equalsIgnoreCase("AND")) {
+                    throw Errors.validation("Invalid KeyConditionExpression: BETWEEN requires AND");
+                }
+                return new Term(attribute, SortOperator.BETWEEN, low, Expressions.resolveValue(next(), values));
+            }
+            var value = Expressions.resolveValue(next(), values);
+            switch (operator) {
+            case "=":
+                return new Term(attribute, SortOperator.EQ, value, null);
+            case "<":
+                return new Term(attribute, SortOperator.LT, value, null);
+            case "<=":
+                return new Term(attribute, SortOperator.LE, value, null);
+            case ">":
+                return new Term(attribute, SortOperator.GT, value, null);
+            case ">=":
+                return new Term(attribute, SortOperator.GE, value, null);
+            default:
+                throw Errors.validation("Invalid KeyConditionExpression: unsupported operator " + operator);
+            }
+        }
+
+        boolean acceptAnd() {
+            if ((position < tokens.size()) && tokens.get(position).equalsIgnoreCase("AND")) {
+                ++position;
+                return true;
+            }
+            return false;
+        }
+
+        void expectEnd() {
+            if (position < tokens.size()) {
+                throw Errors.validation("Invalid KeyConditionExpression: unexpected token " + tokens.get(position));
+            }
+        }
+
+        private boolean accept(String token) {
+            if ((position < tokens.size()) && tokens.get(position).equals(token)) {
+                ++position;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw Errors.validation("Invalid KeyConditionExpression: expected " + token);
+            }
+        }
+
+        private String next() {
+            if (position >= tokens.size()) {
+                throw Errors.validation("Invalid KeyConditionExpression: unexpected end of expression");
+            }
+            return tokens.get(position++);
+        }
+    }
+}
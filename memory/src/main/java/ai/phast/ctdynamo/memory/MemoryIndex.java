@@ -0,0 +1,129 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A global secondary index. Items that lack either index key attribute are not indexed, just as in Dynamo.
+ */
+final class MemoryIndex {
+
+    private final String name;
+
+    private final String partitionKey;
+
+    /** The index sort key, or null if there is none */
+    private final String sortKey;
+
+    private final ProjectionType projectionType;
+
+    /** Attributes copied into the index when the projection is not ALL */
+    private final Set<String> projectedAttributes;
+
+    private final ItemStore store;
+
+    MemoryIndex(String name, String partitionKey, String sortKey, ProjectionType projectionType, Set<String> nonKeyAttributes,
+                String tablePartitionKey, String tableSortKey) {
+        this.name = name;
+        this.partitionKey = partitionKey;
+        this.sortKey = sortKey;
+        this.projectionType = projectionType;
+        var projected = new LinkedHashSet<String>();
+        projected.add(tablePartitionKey);
+        if (tableSortKey != null) {
+            projected.add(tableSortKey);
+        }
+        projected.add(partitionKey);
+        if (sortKey != null) {
+            projected.add(sortKey);
+        }
+        if (projectionType == ProjectionType.INCLUDE) {
+            projected.addAll(nonKeyAttributes);
+        }
+        projectedAttributes = projected;
+        // Index keys need not be unique, so the table key breaks ties
+        var order = new LinkedHashSet<String>();
+        if (sortKey != null) {
+            order.add(sortKey);
+        }
+        order.add(tablePartitionKey);
+        if (tableSortKey != null) {
+            order.add(tableSortKey);
+        }
+        store = new ItemStore(partitionKey, order.toArray(new String[0]));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getPartitionKey() {
+        return partitionKey;
+    }
+
+    String getSortKey() {
+        return sortKey;
+    }
+
+    ProjectionType getProjectionType() {
+        return projectionType;
+    }
+
+    ItemStore getStore() {
+        return store;
+    }
+
+    /**
+     * Add an item to the index, if it has the index keys.
+     * @param item The table item
+     * @return The projected item that was added, or null if the item is not indexed
+     */
+    Map<String, AttributeValue> add(Map<String, AttributeValue> item) {
+        var partitionValue = store.partitionOf(item);
+        var key = store.keyOf(item);
+        if ((partitionValue == null) || (key == null)) {
+            return null;
+        }
+        var projected = project(item);
+        store.put(partitionValue, key, projected);
+        return projected;
+    }
+
+    /**
+     * Remove an item from the index.
+     * @param item The table item
+     * @return The projected item that was removed, or null if the item was not indexed
+     */
+    Map<String, AttributeValue> remove(Map<String, AttributeValue> item) {
+        var partitionValue = store.partitionOf(item);
+        var key = store.keyOf(item);
+        if ((partitionValue == null) || (key == null)) {
+            return null;
+        }
+        var removed = store.remove(partitionValue, key);
+        if (removed != null) {
+            // Index partitions are written under the locks of many table partitions, which the store copes with
+            store.removeIfEmpty(partitionValue);
+        }
+        return removed;
+    }
+
+    private Map<String, AttributeValue> project(Map<String, AttributeValue> item) {
+        if (projectionType == ProjectionType.ALL) {
+            return item;
+        }
+        var result = new HashMap<String, AttributeValue>();
+        for (var attribute : projectedAttributes) {
+            var value = item.get(attribute);
+            if (value != null) {
+                result.put(attribute, value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,293 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One table and its global secondary indexes. Writes to an item lock a stripe chosen by the item's partition key, so
+ * that the table and its indexes are updated together; writes to different partitions rarely contend. Reads never
+ * lock, so a read that races a write may see the table and an index in different states, much as the real service's
+ * eventually consistent indexes behave.
+ */
+final class MemoryTable {
+
+    private static final int NUM_STRIPES = 64;
+
+    private final String name;
+
+    private final String partitionKey;
+
+    /** The sort key, or null if the table has none */
+    private final String sortKey;
+
+    /** The types of every key attribute of the table and its indexes */
+    private final Map<String, ScalarAttributeType> keyTypes;
+
+    private final ItemStore items;
+
+    private final Map<String, MemoryIndex> indexes;
+
+    private final Object[] stripes = new Object[NUM_STRIPES];
+
+    /** The description returned by describeTable, minus the item count */
+    private final TableDescription description;
+
+    private MemoryTable(String name, String partitionKey, String sortKey, Map<String, ScalarAttributeType> keyTypes,
+                        Map<String, MemoryIndex> indexes, TableDescription description) {
+        this.name = name;
+        this.partitionKey = partitionKey;
+        this.sortKey = sortKey;
+        this.keyTypes = keyTypes;
+        this.indexes = indexes;
+        this.description = description;
+        items = sortKey == null ? new ItemStore(partitionKey) : new ItemStore(partitionKey, sortKey);
+        for (int i = 0; i < NUM_STRIPES; ++i) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Build a table from a create request.
+     * @param request The request
+     * @return The new, empty table
+     */
+    static MemoryTable create(CreateTableRequest request) {
+        var name = request.tableName();
+        if ((name == null) || name.isEmpty()) {
+            throw Errors.validation("TableName must be specified");
+        }
+        if (request.hasLocalSecondaryIndexes() && !request.localSecondaryIndexes().isEmpty()) {
+            throw Errors.validation("Local secondary indexes are not supported by the in-memory engine");
+        }
+        var definedTypes = new HashMap<String, ScalarAttributeType>();
+        for (var definition : request.attributeDefinitions()) {
+            definedTypes.put(definition.attributeName(), definition.attributeType());
+        }
+        var keyTypes = new HashMap<String, ScalarAttributeType>();
+        var tableKeys = keyNames(request.keySchema(), definedTypes, keyTypes);
+        var indexes = new LinkedHashMap<String, MemoryIndex>();
+        var indexDescriptions = new ArrayList<GlobalSecondaryIndexDescription>();
+        for (var index : request.globalSecondaryIndexes()) {
+            var indexKeys = keyNames(index.keySchema(), definedTypes, keyTypes);
+            var projection = index.projection();
+            var projectionType = projection == null || projection.projectionType() == null ? ProjectionType.ALL : projection.projectionType();
+            var nonKey = projection != null && projection.hasNonKeyAttributes() ? new HashSet<>(projection.nonKeyAttributes()) : new HashSet<String>();
+            if (indexes.put(index.indexName(), new MemoryIndex(index.indexName(), indexKeys[0], indexKeys[1], projectionType, nonKey,
+                tableKeys[0], tableKeys[1])) != null) {
+                throw Errors.validation("Duplicate index name: " + index.indexName());
+            }
+            indexDescriptions.add(GlobalSecondaryIndexDescription.builder()
+                                      .indexName(index.indexName())
+                                      .keySchema(index.keySchema())
+                                      .projection(projection)
+                                      .indexStatus(IndexStatus.ACTIVE)
+                                      .indexArn(arn(name) + "/index/" + index.indexName())
+                                      .build());
+        }
+        var description = TableDescription.builder()
+                              .tableName(name)
+                              .tableArn(arn(name))
+                              .tableStatus(TableStatus.ACTIVE)
+                              .creationDateTime(Instant.now())
+                              .keySchema(request.keySchema())
+                              .attributeDefinitions(request.attributeDefinitions())
+                              .globalSecondaryIndexes(indexDescriptions.isEmpty() ? null : indexDescriptions)
+                              .build();
+        return new MemoryTable(name, tableKeys[0], tableKeys[1], keyTypes, Collections.unmodifiableMap(indexes), description);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    TableDescription describe() {
+        return description.toBuilder().itemCount(items.size()).build();
+    }
+
+    /**
+     * Get the store and key attributes for a table or one of its indexes.
+     * @param indexName The index, or null for the table itself
+     * @return The index, or null for the table
+     */
+    MemoryIndex getIndex(String indexName) {
+        if (indexName == null) {
+            return null;
+        }
+        var index = indexes.get(indexName);
+        if (index == null) {
+            throw Errors.validation("The table does not have the specified index: " + indexName);
+        }
+        return index;
+    }
+
+    ItemStore getStore(String indexName) {
+        return indexName == null ? items : getIndex(indexName).getStore();
+    }
+
+    String getPartitionKey(String indexName) {
+        return indexName == null ? partitionKey : getIndex(indexName).getPartitionKey();
+    }
+
+    String getSortKey(String indexName) {
+        return indexName == null ? sortKey : getIndex(indexName).getSortKey();
+    }
+
+    ScalarAttributeType getKeyType(String attribute) {
+        return keyTypes.get(attribute);
+    }
+
+    Map<String, AttributeValue> get(Map<String, AttributeValue> key) {
+        checkKey(key);
+        return items.get(key.get(partitionKey), items.keyOf(key));
+    }
+
+    /**
+     * Write an item, replacing any item with the same key.
+     * @param item The item
+     * @param charge Where to charge the capacity
+     * @param policy Decides the capacity charged
+     * @return The item that was replaced, or null if there was none
+     */
+    Map<String, AttributeValue> put(Map<String, AttributeValue> item, Charge charge, SimulationPolicy policy) {
+        checkItem(item);
+        var partitionValue = item.get(partitionKey);
+        Map<String, AttributeValue> old;
+        synchronized (stripeFor(partitionValue)) {
+            old = items.put(partitionValue, items.keyOf(item), item);
+            for (var index : indexes.values()) {
+                var removed = old == null ? null : index.remove(old);
+                chargeIndexWrite(index, removed, index.add(item), charge, policy);
+            }
+        }
+        charge.write(null, policy.writeCapacityUnits(name, Math.max(AttributeValues.sizeOf(item), old == null ? 0 : AttributeValues.sizeOf(old))));
+        return old;
+    }
+
+    /**
+     * Delete an item.
+     * @param key The key of the item
+     * @param charge Where to charge the capacity
+     * @param policy Decides the capacity charged
+     * @return The item that was deleted, or null if there was none
+     */
+    Map<String, AttributeValue> delete(Map<String, AttributeValue> key, Charge charge, SimulationPolicy policy) {
+        checkKey(key);
+        var partitionValue = key.get(partitionKey);
+        Map<String, AttributeValue> old;
+        synchronized (stripeFor(partitionValue)) {
+            old = items.remove(partitionValue, items.keyOf(key));
+            if (old != null) {
+                items.removeIfEmpty(partitionValue);
+                for (var index : indexes.values()) {
+                    chargeIndexWrite(index, index.remove(old), null, charge, policy);
+                }
+            }
+        }
+        charge.write(null, policy.writeCapacityUnits(name, old == null ? 0 : AttributeValues.sizeOf(old)));
+        return old;
+    }
+
+    private void chargeIndexWrite(MemoryIndex index, Map<String, AttributeValue> removed, Map<String, AttributeValue> added,
+                                  Charge charge, SimulationPolicy policy) {
+        var store = index.getStore();
+        if ((removed != null) && (added != null)
+                && (AttributeValues.compare(store.partitionOf(removed), store.partitionOf(added)) == 0)
+                && store.keyOf(removed).equals(store.keyOf(added))) {
+            // Updated in place: one write
+            charge.write(index.getName(), policy.writeCapacityUnits(name, Math.max(AttributeValues.sizeOf(removed), AttributeValues.sizeOf(added))));
+            return;
+        }
+        if (removed != null) {
+            charge.write(index.getName(), policy.writeCapacityUnits(name, AttributeValues.sizeOf(removed)));
+        }
+        if (added != null) {
+            charge.write(index.getName(), policy.writeCapacityUnits(name, AttributeValues.sizeOf(added)));
+        }
+    }
+
+    private Object stripeFor(AttributeValue partitionValue) {
+        return stripes[Math.floorMod(AttributeValues.hash(partitionValue), NUM_STRIPES)];
+    }
+
+    private void checkKey(Map<String, AttributeValue> key) {
+        var expected = sortKey == null ? 1 : 2;
+        if ((key.size() != expected) || !key.containsKey(partitionKey) || ((sortKey != null) && !key.containsKey(sortKey))) {
+            throw Errors.validation("The provided key element does not match the schema");
+        }
+        for (var entry : key.entrySet()) {
+            checkKeyValue(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void checkItem(Map<String, AttributeValue> item) {
+        for (var attribute : sortKey == null ? List.of(partitionKey) : List.of(partitionKey, sortKey)) {
+            if (!item.containsKey(attribute)) {
+                throw Errors.validation("One or more parameter values were invalid: Missing the key " + attribute + " in the item");
+            }
+        }
+        for (var entry : keyTypes.entrySet()) {
+            var value = item.get(entry.getKey());
+            if (value != null) {
+                checkKeyValue(entry.getKey(), value);
+            }
+        }
+    }
+
+    private void checkKeyValue(String attribute, AttributeValue value) {
+        var type = AttributeValues.scalarType(value);
+        if (type != keyTypes.get(attribute)) {
+            throw Errors.validation("One or more parameter values were invalid: Type mismatch for key " + attribute + " expected: "
+                                        + keyTypes.get(attribute) + " actual: " + type);
+        }
+        if (((type == ScalarAttributeType.S) && value.s().isEmpty()) || ((type == ScalarAttributeType.B) && (value.b().asByteArrayUnsafe().length == 0))) {
+            throw Errors.validation("One or more parameter values are not valid. The AttributeValue for a key attribute cannot contain an empty value. Key: "
+                                        + attribute);
+        }
+    }
+
+    /**
+     * Read the hash and range key names from a key schema.
+     * @return The hash key name and the range key name (null if there is none)
+     */
+    private static String[] keyNames(List<KeySchemaElement> schema, Map<String, ScalarAttributeType> definedTypes,
+                                     Map<String, ScalarAttributeType> keyTypes) {
+        var result = new String[2];
+        for (var element : schema) {
+            var slot = element.keyType() == KeyType.HASH ? 0 : 1;
+            if (result[slot] != null) {
+                throw Errors.validation("Invalid KeySchema: a key schema has one HASH key and at most one RANGE key");
+            }
+            result[slot] = element.attributeName();
+            var type = definedTypes.get(element.attributeName());
+            if (type == null) {
+                throw Errors.validation("One or more parameter values were invalid: Some index key attributes are not defined in AttributeDefinitions");
+            }
+            keyTypes.put(element.attributeName(), type);
+        }
+        if (result[0] == null) {
+            throw Errors.validation("Invalid KeySchema: The first KeySchemaElement is not a HASH key type");
+        }
+        return result;
+    }
+
+    private static String arn(String tableName) {
+        return "arn:aws:dynamodb:local:000000000000:table/" + tableName;
+    }
+}
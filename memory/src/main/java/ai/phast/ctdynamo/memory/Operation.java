@@ -0,0 +1,19 @@
+package ai.phast.ctdynamo.memory;
+
+/**
+ * The operations supported by the in-memory engine. A {@link SimulationPolicy} is told which one is running, so that
+ * it can, for example, slow down queries without slowing down gets.
+ */
+public enum Operation {
+    CREATE_TABLE,
+    DELETE_TABLE,
+    DESCRIBE_TABLE,
+    LIST_TABLES,
+    GET_ITEM,
+    PUT_ITEM,
+    DELETE_ITEM,
+    BATCH_GET_ITEM,
+    BATCH_WRITE_ITEM,
+    QUERY,
+    SCAN
+}
@@ -0,0 +1,38 @@
+package ai.phast.ctdynamo.memory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a query or scan, before projection.
+ */
+final class Page {
+
+    private final List<Map<String, AttributeValue>> items;
+
+    /** The key to continue from, or null if the page reached the end */
+    private final Map<String, AttributeValue> lastEvaluatedKey;
+
+    /** The total size of the items read, for capacity */
+    private final long bytes;
+
+    Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey, long bytes) {
+        this.items = items;
+        this.lastEvaluatedKey = lastEvaluatedKey;
+        this.bytes = bytes;
+    }
+
+    List<Map<String, AttributeValue>> getItems() {
+        return items;
+    }
+
+    Map<String, AttributeValue> getLastEvaluatedKey() {
+        return lastEvaluatedKey;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+}
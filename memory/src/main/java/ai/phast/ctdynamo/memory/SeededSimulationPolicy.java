@@ -0,0 +1,84 @@
+package ai.phast.ctdynamo.memory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * A simulation policy driven by a seeded random number generator, so that a single threaded test sees the same
+ * throttles and unprocessed items on every run. All settings apply to every table and operation; extend
+ * {@link SimulationPolicy} directly for anything more selective.
+ */
+public final class SeededSimulationPolicy implements SimulationPolicy {
+
+    private final Random random;
+
+    private volatile Duration latency = Duration.ZERO;
+
+    private volatile double throttleRate = 0.0;
+
+    private volatile double unprocessedRate = 0.0;
+
+    /**
+     * Build a policy that does nothing until configured.
+     * @param seed The seed for the random number generator
+     */
+    public SeededSimulationPolicy(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Set the latency of every operation.
+     * @param value The latency
+     * @return This policy
+     */
+    public SeededSimulationPolicy latency(Duration value) {
+        if (value.isNegative()) {
+            throw new IllegalArgumentException("Latency must not be negative, got " + value);
+        }
+        latency = Objects.requireNonNull(value);
+        return this;
+    }
+
+    /**
+     * Set the fraction of operations that are throttled.
+     * @param value The fraction, from 0 to 1
+     * @return This policy
+     */
+    public SeededSimulationPolicy throttleRate(double value) {
+        throttleRate = checkRate(value);
+        return this;
+    }
+
+    /**
+     * Set the fraction of batch items that are returned unprocessed.
+     * @param value The fraction, from 0 to 1
+     * @return This policy
+     */
+    public SeededSimulationPolicy unprocessedRate(double value) {
+        unprocessedRate = checkRate(value);
+        return this;
+    }
+
+    @Override
+    public Duration latency(Operation operation, String tableName) {
+        return latency;
+    }
+
+    @Override
+    public boolean throttle(Operation operation, String tableName) {
+        return (throttleRate > 0.0) && (random.nextDouble() < throttleRate);
+    }
+
+    @Override
+    public boolean leaveUnprocessed(Operation operation, String tableName) {
+        return (unprocessedRate > 0.0) && (random.nextDouble() < unprocessedRate);
+    }
+
+    private static double checkRate(double value) {
+        if (!(value >= 0.0 && value <= 1.0)) {
+            throw new IllegalArgumentException("Rates must be in [0, 1], got " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,70 @@
+package ai.phast.ctdynamo.memory;
+
+import java.time.Duration;
+
+/**
+ * Decides how the in-memory engine misbehaves. Every method has a default that matches an idealized Dynamo table: no
+ * latency, no throttling, every batch item processed, and capacity charged the way Dynamo charges on-demand tables.
+ * Override only the methods needed for an experiment.
+ *
+ * <p>Methods are called from whatever thread makes the request, so implementations must be thread safe.
+ */
+public interface SimulationPolicy {
+
+    /** The policy used when none is set */
+    SimulationPolicy DEFAULT = new SimulationPolicy() { };
+
+    /**
+     * Get the time an operation takes before its result is available.
+     * @param operation The operation
+     * @param tableName The table, or null for operations (like batches) that are not aimed at one table
+     * @return The latency. Zero means no delay.
+     */
+    default Duration latency(Operation operation, String tableName) {
+        return Duration.ZERO;
+    }
+
+    /**
+     * Decide whether an operation fails with a ProvisionedThroughputExceededException. Nothing is read or written
+     * when an operation is throttled.
+     * @param operation The operation
+     * @param tableName The table, or null for operations (like batches) that are not aimed at one table
+     * @return Whether to throttle the operation
+     */
+    default boolean throttle(Operation operation, String tableName) {
+        return false;
+    }
+
+    /**
+     * Decide whether one item of a batch is returned as unprocessed instead of being read or written.
+     * @param operation Either {@link Operation#BATCH_GET_ITEM} or {@link Operation#BATCH_WRITE_ITEM}
+     * @param tableName The table that the item belongs to
+     * @return Whether to leave the item unprocessed
+     */
+    default boolean leaveUnprocessed(Operation operation, String tableName) {
+        return false;
+    }
+
+    /**
+     * Get the read capacity charged for reading some data. The default charges one unit per 4KB, rounded up, and
+     * half that for eventually consistent reads.
+     * @param tableName The table
+     * @param bytes The number of bytes read, summed over all items for queries and scans
+     * @param consistentRead Whether the read was strongly consistent
+     * @return The read capacity units
+     */
+    default double readCapacityUnits(String tableName, long bytes, boolean consistentRead) {
+        var units = Math.max(1L, (bytes + 4095) / 4096);
+        return consistentRead ? units : units / 2.0;
+    }
+
+    /**
+     * Get the write capacity charged for writing one item. The default charges one unit per 1KB, rounded up.
+     * @param tableName The table
+     * @param bytes The size of the item written
+     * @return The write capacity units
+     */
+    default double writeCapacityUnits(String tableName, long bytes) {
+        return Math.max(1L, (bytes + 1023) / 1024);
+    }
+}
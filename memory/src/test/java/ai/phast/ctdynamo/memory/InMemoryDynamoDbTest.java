@@ -0,0 +1,200 @@
+package ai.phast.ctdynamo.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryDynamoDbTest {
+
+    private InMemoryDynamoDb dynamo;
+
+    private DynamoDbClient client;
+
+    @BeforeEach
+    void setUp() {
+        dynamo = new InMemoryDynamoDb();
+        client = dynamo.client();
+        client.createTable(CreateTableRequest.builder()
+                               .tableName("events")
+                               .billingMode(BillingMode.PAY_PER_REQUEST)
+                               .attributeDefinitions(
+                                   AttributeDefinition.builder().attributeName("stream").attributeType(ScalarAttributeType.S).build(),
+                                   AttributeDefinition.builder().attributeName("seq").attributeType(ScalarAttributeType.N).build(),
+                                   AttributeDefinition.builder().attributeName("kind").attributeType(ScalarAttributeType.S).build())
+                               .keySchema(
+                                   KeySchemaElement.builder().attributeName("stream").keyType(KeyType.HASH).build(),
+                                   KeySchemaElement.builder().attributeName("seq").keyType(KeyType.RANGE).build())
+                               .globalSecondaryIndexes(GlobalSecondaryIndex.builder()
+                                                           .indexName("byKind")
+                                                           .keySchema(KeySchemaElement.builder().attributeName("kind").keyType(KeyType.HASH).build(),
+                                                               KeySchemaElement.builder().attributeName("seq").keyType(KeyType.RANGE).build())
+                                                           .projection(Projection.builder().projectionType(ProjectionType.KEYS_ONLY).build())
+                                                           .build())
+                               .build());
+        for (int i = 0; i < 10; ++i) {
+            put("a", i, i % 2 == 0 ? "even" : "odd");
+        }
+        put("b", 1, "odd");
+    }
+
+    private void put(String stream, int seq, String kind) {
+        client.putItem(PutItemRequest.builder().tableName("events").item(item(stream, seq, kind)).build());
+    }
+
+    private static Map<String, AttributeValue> item(String stream, int seq, String kind) {
+        return Map.of("stream", s(stream), "seq", n(seq), "kind", s(kind));
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private static AttributeValue n(int value) {
+        return AttributeValue.builder().n(Integer.toString(value)).build();
+    }
+
+    private List<Integer> seqs(QueryRequest.Builder request) {
+        var result = new ArrayList<Integer>();
+        for (var item : client.query(request.tableName("events").build()).items()) {
+            result.add(Integer.parseInt(item.get("seq").n()));
+        }
+        return result;
+    }
+
+    private static QueryRequest.Builder query(String condition, Map<String, AttributeValue> values) {
+        return QueryRequest.builder()
+                   .keyConditionExpression(condition)
+                   .expressionAttributeNames(Map.of("#p", "stream", "#s", "seq"))
+                   .expressionAttributeValues(values);
+    }
+
+    @Test
+    void keyConditions() {
+        var a = s("a");
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), seqs(query("#p = :p", Map.of(":p", a))
+                                                                     .expressionAttributeNames(Map.of("#p", "stream"))));
+        assertEquals(List.of(3, 4, 5), seqs(query("#p = :p AND #s BETWEEN :lo AND :hi", Map.of(":p", a, ":lo", n(3), ":hi", n(5)))));
+        assertEquals(List.of(8, 9), seqs(query("#p = :p AND #s > :v", Map.of(":p", a, ":v", n(7)))));
+        assertEquals(List.of(7, 8, 9), seqs(query("#p = :p AND #s >= :v", Map.of(":p", a, ":v", n(7)))));
+        assertEquals(List.of(0, 1), seqs(query("#p = :p AND #s < :v", Map.of(":p", a, ":v", n(2)))));
+        assertEquals(List.of(0, 1, 2), seqs(query("#p = :p AND #s <= :v", Map.of(":p", a, ":v", n(2)))));
+        assertEquals(List.of(4), seqs(query("#p = :p AND #s = :v", Map.of(":p", a, ":v", n(4)))));
+        assertEquals(List.of(9, 8, 7), seqs(query("#p = :p AND #s >= :v", Map.of(":p", a, ":v", n(7))).scanIndexForward(false)));
+        assertEquals(List.of(), seqs(query("#p = :p AND #s > :v", Map.of(":p", s("nobody"), ":v", n(0)))));
+    }
+
+    @Test
+    void queriesPageAtTheLimit() {
+        var request = query("#p = :p AND #s >= :v", Map.of(":p", s("a"), ":v", n(3))).tableName("events").limit(3);
+        var seen = new ArrayList<Integer>();
+        var pages = 0;
+        Map<String, AttributeValue> start = null;
+        do {
+            var response = client.query(request.exclusiveStartKey(start).build());
+            response.items().forEach(item -> seen.add(Integer.parseInt(item.get("seq").n())));
+            start = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty() ? response.lastEvaluatedKey() : null;
+            ++pages;
+        } while (start != null);
+        assertEquals(List.of(3, 4, 5, 6, 7, 8, 9), seen);
+        // Pages that stop at the limit have a LastEvaluatedKey; the short last page does not
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void indexQueriesAndDeletes() {
+        var byKind = QueryRequest.builder()
+                         .tableName("events")
+                         .indexName("byKind")
+                         .keyConditionExpression("kind = :k")
+                         .expressionAttributeValues(Map.of(":k", s("odd")));
+        assertEquals(6, client.query(byKind.build()).count());
+        client.deleteItem(DeleteItemRequest.builder().tableName("events").key(Map.of("stream", s("b"), "seq", n(1))).build());
+        assertEquals(5, client.query(byKind.build()).count());
+        put("a", 1, "even");
+        assertEquals(4, client.query(byKind.build()).count());
+    }
+
+    @Test
+    void conditionalWritesAreRejected() {
+        var put = PutItemRequest.builder().tableName("events").item(item("c", 1, "odd"))
+                      .conditionExpression("attribute_not_exists(stream)").build();
+        assertThrows(DynamoDbException.class, () -> client.putItem(put));
+        var delete = DeleteItemRequest.builder().tableName("events").key(Map.of("stream", s("a"), "seq", n(1)))
+                         .conditionExpression("attribute_exists(stream)").build();
+        assertThrows(DynamoDbException.class, () -> client.deleteItem(delete));
+        // Nothing was written or deleted
+        assertFalse(client.getItem(GetItemRequest.builder().tableName("events").key(Map.of("stream", s("c"), "seq", n(1))).build()).hasItem());
+        assertTrue(client.getItem(GetItemRequest.builder().tableName("events").key(Map.of("stream", s("a"), "seq", n(1))).build()).hasItem());
+    }
+
+    @Test
+    void policyThrottles() {
+        dynamo.setPolicy(new SeededSimulationPolicy(1).throttleRate(1.0));
+        assertThrows(ProvisionedThroughputExceededException.class, () -> put("c", 1, "odd"));
+        dynamo.setPolicy(SimulationPolicy.DEFAULT);
+        assertTrue(client.getItem(GetItemRequest.builder().tableName("events").key(Map.of("stream", s("a"), "seq", n(1))).build()).hasItem());
+    }
+
+    @Test
+    void policyLeavesBatchItemsUnprocessed() {
+        dynamo.setPolicy(new SeededSimulationPolicy(1).unprocessedRate(1.0));
+        var write = WriteRequest.builder().putRequest(PutRequest.builder().item(item("c", 1, "odd")).build()).build();
+        var response = client.batchWriteItem(BatchWriteItemRequest.builder().requestItems(Map.of("events", List.of(write))).build());
+        assertEquals(List.of(write), response.unprocessedItems().get("events"));
+    }
+
+    @Test
+    void policyChargesCapacity() {
+        var response = client.putItem(PutItemRequest.builder().tableName("events").item(item("c", 1, "odd"))
+                                          .returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build());
+        // One unit for the table and one for the index
+        assertEquals(2.0, response.consumedCapacity().capacityUnits());
+        dynamo.setPolicy(new SimulationPolicy() {
+            @Override
+            public double writeCapacityUnits(String tableName, long bytes) {
+                return 5.0;
+            }
+        });
+        response = client.putItem(PutItemRequest.builder().tableName("events").item(item("c", 2, "odd"))
+                                      .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build());
+        assertEquals(10.0, response.consumedCapacity().capacityUnits());
+    }
+
+    @Test
+    void policyAddsLatency() {
+        dynamo.setPolicy(new SeededSimulationPolicy(1).latency(Duration.ofMillis(20)));
+        var started = System.nanoTime();
+        put("c", 1, "odd");
+        assertTrue(System.nanoTime() - started >= Duration.ofMillis(20).toNanos());
+    }
+}
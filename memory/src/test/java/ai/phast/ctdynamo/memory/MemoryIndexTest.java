@@ -0,0 +1,68 @@
+package ai.phast.ctdynamo.memory;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MemoryIndexTest {
+
+    private static Map<String, AttributeValue> item(String id, String status) {
+        return Map.of("id", AttributeValue.builder().s(id).build(), "status", AttributeValue.builder().s(status).build());
+    }
+
+    @Test
+    void lastRemovalDropsThePartition() {
+        var index = new MemoryIndex("byStatus", "status", null, ProjectionType.KEYS_ONLY, Set.of(), "id", null);
+        index.add(item("a", "open"));
+        index.add(item("b", "open"));
+        index.add(item("c", "closed"));
+        assertEquals(2, index.getStore().partitionCount());
+        index.remove(item("a", "open"));
+        assertEquals(2, index.getStore().partitionCount());
+        index.remove(item("b", "open"));
+        assertEquals(1, index.getStore().partitionCount());
+        index.add(item("d", "open"));
+        assertEquals(2, index.getStore().partitionCount());
+        assertEquals(2, index.getStore().size());
+    }
+
+    @Test
+    void unindexedItemsAreIgnored() {
+        var index = new MemoryIndex("byStatus", "status", null, ProjectionType.ALL, Set.of(), "id", null);
+        assertNull(index.add(Map.of("id", AttributeValue.builder().s("a").build())));
+        assertNull(index.remove(Map.of("id", AttributeValue.builder().s("a").build())));
+        assertEquals(0, index.getStore().partitionCount());
+    }
+
+    @Test
+    void concurrentAddsAndRemovesLoseNothing() throws InterruptedException {
+        var index = new MemoryIndex("byStatus", "status", null, ProjectionType.KEYS_ONLY, Set.of(), "id", null);
+        var threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            var prefix = "t" + t + "-";
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; ++i) {
+                    // Each thread churns its own items through the same few partitions, keeping the last one
+                    var churned = item(prefix + i, "s" + (i % 3));
+                    index.add(churned);
+                    if (i < 19_999) {
+                        index.remove(churned);
+                    }
+                }
+            });
+        }
+        for (var thread : threads) {
+            thread.start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length, index.getStore().size());
+    }
+}
@@ -40,14 +40,16 @@ public class DynamoProcessor extends AbstractProcessor {
     @Override
     public boolean process(Set<? extends TypeElement> set, RoundEnvironment roundEnvironment) {
         for (var element : roundEnvironment.getElementsAnnotatedWith(DynamoItem.class)) {
-            if (element.getKind() != ElementKind.CLASS) {
-                messager.printMessage(Diagnostic.Kind.ERROR, "Only classes can have annotation " + DynamoItem.class.getSimpleName(), element);
+            // Records are checked by name, since ElementKind.RECORD does not exist before Java 16
+            if ((element.getKind() != ElementKind.CLASS) && !element.getKind().name().equals("RECORD")) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Only classes and records can have annotation " + DynamoItem.class.getSimpleName(), element);
                 return true;
             }
             var annotation = element.getAnnotation(DynamoItem.class);
             try {
                 var writer = new TableWriter((TypeElement)element, processingEnv.getElementUtils(), processingEnv.getTypeUtils(),
-                    annotation.ignoreNulls());
+                    annotation.ignoreNulls(), annotation.cacheSmallNumbers(), annotation.nativeSets(), annotation.packed(), annotation.lazy(),
+                    annotation.internStrings());
                 if (Arrays.asList(annotation.value()).contains(DynamoItem.Output.TABLE)) {
                     writer.buildTableClass().writeTo(processingEnv.getFiler());
                 }
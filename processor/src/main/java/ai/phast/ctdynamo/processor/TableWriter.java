@@ -1,16 +1,38 @@
 package ai.phast.ctdynamo.processor;
 
+import ai.phast.ctdynamo.Column;
+import ai.phast.ctdynamo.Compression;
 import ai.phast.ctdynamo.DynamoCodec;
 import ai.phast.ctdynamo.DynamoIndex;
 import ai.phast.ctdynamo.DynamoTable;
+import ai.phast.ctdynamo.JsonAttributeValues;
+import ai.phast.ctdynamo.Key;
+import ai.phast.ctdynamo.Lazy;
+import ai.phast.ctdynamo.LazyList;
+import ai.phast.ctdynamo.Offloading;
+import ai.phast.ctdynamo.Packed;
+import ai.phast.ctdynamo.PackedReader;
+import ai.phast.ctdynamo.PackedWriter;
+import ai.phast.ctdynamo.Query;
+import ai.phast.ctdynamo.StreamingReads;
+import ai.phast.ctdynamo.StreamingWrites;
+import ai.phast.ctdynamo.StringPool;
 import ai.phast.ctdynamo.annotations.DefaultCodec;
 import ai.phast.ctdynamo.annotations.DynamoAttribute;
+import ai.phast.ctdynamo.annotations.DynamoCreator;
 import ai.phast.ctdynamo.annotations.DynamoIgnore;
 import ai.phast.ctdynamo.annotations.DynamoItem;
 import ai.phast.ctdynamo.annotations.DynamoPartitionKey;
 import ai.phast.ctdynamo.annotations.DynamoSecondaryPartitionKey;
 import ai.phast.ctdynamo.annotations.DynamoSecondarySortKey;
 import ai.phast.ctdynamo.annotations.DynamoSortKey;
+import ai.phast.ctdynamo.codecs.BigDecimalCodec;
+import ai.phast.ctdynamo.codecs.BigIntegerCodec;
+import ai.phast.ctdynamo.codecs.DurationSecondsCodec;
+import ai.phast.ctdynamo.codecs.InstantMillisCodec;
+import ai.phast.ctdynamo.codecs.LocalDateEpochDayCodec;
+import ai.phast.ctdynamo.codecs.UuidBinaryCodec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -21,18 +43,37 @@ import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import com.squareup.javapoet.WildcardTypeName;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.lang.model.element.Element;
@@ -41,10 +82,13 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
@@ -54,6 +98,28 @@ public class TableWriter {
     private static final ClassName STRING_CLASS_NAME = ClassName.get(String.class);
     private static final ClassName ATTRIBUTE_VALUE_CLASS_NAME = ClassName.get(AttributeValue.class);
     private static final TypeName MAP_OF_ATTRIBUTE_VALUES_CLASS_NAME = ParameterizedTypeName.get(HASH_MAP_CLASS_NAME, STRING_CLASS_NAME, ATTRIBUTE_VALUE_CLASS_NAME);
+    /** Jackson comes with the runtime, but the processor does not need it, so these are named rather than referenced */
+    private static final ClassName JSON_GENERATOR_CLASS_NAME = ClassName.get("com.fasterxml.jackson.core", "JsonGenerator");
+    private static final ClassName JSON_PARSER_CLASS_NAME = ClassName.get("com.fasterxml.jackson.core", "JsonParser");
+    private static final ClassName JSON_TOKEN_CLASS_NAME = ClassName.get("com.fasterxml.jackson.core", "JsonToken");
+
+    /**
+     * The codecs from the runtime library used for common classes when an attribute names no codec of its own. These
+     * are the most compact forms that still sort in order; the library has string forms too, for annotations to pick.
+     */
+    private static final Map<String, ClassName> BUILT_IN_CODECS = Map.of(
+        Instant.class.getCanonicalName(), ClassName.get(InstantMillisCodec.class),
+        LocalDate.class.getCanonicalName(), ClassName.get(LocalDateEpochDayCodec.class),
+        Duration.class.getCanonicalName(), ClassName.get(DurationSecondsCodec.class),
+        UUID.class.getCanonicalName(), ClassName.get(UuidBinaryCodec.class),
+        BigDecimal.class.getCanonicalName(), ClassName.get(BigDecimalCodec.class),
+        BigInteger.class.getCanonicalName(), ClassName.get(BigIntegerCodec.class));
+
+    /** Decoders for classes with fewer attributes than this look each one up, instead of walking the map */
+    private static final int SINGLE_PASS_MIN_ATTRIBUTES = 4;
+
+    /** The name of the nested class that lazy items are decoded into */
+    private static final String LAZY_ITEM_CLASS = "LazyItem";
 
     /**
      * The element declaring the type of our table entry
@@ -83,6 +149,8 @@ public class TableWriter {
 
     private final TypeMirror enumMirror;
 
+    private final TypeMirror lazyMirror;
+
     private final List<TypeMirror> boxedPrimitiveMirrors;
 
     private int paramNumber = 0;
@@ -93,15 +161,49 @@ public class TableWriter {
 
     private final Map<TypeName, String> codecClassToCodecVar = new HashMap<>();
 
+    /** Generated helper methods (collection and enum encoders and decoders) of the class being built, by method name */
+    private final Map<String, MethodSpec> helperMethods = new LinkedHashMap<>();
+
+    /** Generated constant fields (precomputed enum attribute values) of the class being built, by field name */
+    private final Map<String, FieldSpec> helperFields = new LinkedHashMap<>();
+
+    /** The identifiers used in helper names of the class being built, by the full type name they stand for */
+    private final Map<String, String> typeIdentifiers = new HashMap<>();
+
     private final Map<String, IndexMetadata> indexes = new HashMap<>();
 
     private final boolean ignoreNulls;
 
-    public TableWriter(TypeElement entryType, Elements elements, Types types, boolean ignoreNulls) throws TableException {
+    private final boolean cacheSmallNumbers;
+
+    private final boolean nativeSets;
+
+    private final boolean packed;
+
+    private final boolean lazy;
+
+    private final boolean internStrings;
+
+    /** For lazy items, the field of the lazy item class that records whether each non-key attribute is loaded */
+    private final Map<String, String> lazyFlags = new HashMap<>();
+
+    /** The constructor that decoders call with attributes, or null to call the no argument constructor and setters */
+    private final ExecutableElement creator;
+
+    /** The attributes passed to the creator, in parameter order, each with the local variable it is decoded into */
+    private final Map<String, String> creatorLocals = new LinkedHashMap<>();
+
+    public TableWriter(TypeElement entryType, Elements elements, Types types, boolean ignoreNulls, boolean cacheSmallNumbers,
+                       boolean nativeSets, boolean packed, boolean lazy, boolean internStrings) throws TableException {
         this.entryType = entryType;
         this.elements = elements;
         this.types = types;
         this.ignoreNulls = ignoreNulls;
+        this.cacheSmallNumbers = cacheSmallNumbers;
+        this.nativeSets = nativeSets;
+        this.packed = packed;
+        this.lazy = lazy;
+        this.internStrings = internStrings;
         dynamoMapMirror = types.getDeclaredType(elements.getTypeElement(Map.class.getCanonicalName()),
             types.getDeclaredType(elements.getTypeElement(String.class.getCanonicalName())),
             types.getDeclaredType(elements.getTypeElement(AttributeValue.class.getCanonicalName())));
@@ -113,10 +215,14 @@ public class TableWriter {
             types.getWildcardType(null, null));
         enumMirror = types.getDeclaredType(elements.getTypeElement(Enum.class.getCanonicalName()),
             types.getWildcardType(null, null));
+        lazyMirror = types.getDeclaredType(elements.getTypeElement(Lazy.class.getCanonicalName()),
+            types.getWildcardType(null, null));
         boxedPrimitiveMirrors = List.of(TypeKind.INT, TypeKind.BYTE, TypeKind.LONG, TypeKind.FLOAT, TypeKind.DOUBLE, TypeKind.SHORT, TypeKind.BOOLEAN)
             .stream().map(kind -> types.boxedClass(types.getPrimitiveType(kind)).asType())
             .collect(Collectors.toList());
 
+        // Records are compared by name, since the processor is built for a release that predates them
+        var isRecord = entryType.getKind().name().equals("RECORD");
         for (var element : entryType.getEnclosedElements()) {
             if (element.getKind() == ElementKind.METHOD) {
                 var exec = (ExecutableElement)element;
@@ -125,9 +231,21 @@ public class TableWriter {
                     processGetter(exec);
                 }
             } else if (element.getKind() == ElementKind.FIELD) {
-                processField((VariableElement)element);
+                if (isRecord && !element.getModifiers().contains(Modifier.STATIC)) {
+                    processRecordComponent((VariableElement)element);
+                } else {
+                    processField((VariableElement)element);
+                }
             }
         }
+        creator = findCreator(isRecord);
+        checkDecodable();
+        if (lazy) {
+            if (creator != null) {
+                throw new TableException("Lazy items need a no argument constructor", creator);
+            }
+            checkLazy();
+        }
     }
 
     public JavaFile buildTableClass() throws TableException {
@@ -135,10 +253,13 @@ public class TableWriter {
             throw new TableException("Tables must have a getter with @DynamoPartitionKey annotation");
         }
         var tableType = types.getDeclaredType(elements.getTypeElement(DynamoTable.class.getCanonicalName()),
-            types.getDeclaredType(entryType), attributes.get(partitionKeyAttribute).returnType,
+            types.getDeclaredType(entryType), getKeyType(partitionKeyAttribute),
             sortKeyAttribute == null
             ? types.getDeclaredType(elements.getTypeElement(Void.class.getCanonicalName()))
-            : attributes.get(sortKeyAttribute).returnType);
+            : getKeyType(sortKeyAttribute));
+        helperMethods.clear();
+        helperFields.clear();
+        typeIdentifiers.clear();
         var classBuilder = TypeSpec.classBuilder(entryType.getSimpleName() + "DynamoTable")
                                .addModifiers(Modifier.PUBLIC)
                                .superclass(ParameterizedTypeName.get(tableType));
@@ -155,19 +276,30 @@ public class TableWriter {
             .addMethod(buildDecoder(false))
             .addMethod(buildGetExclusiveStart())
             .addMethod(buildGetIndex());
+        if (!lazy && (creator == null)) {
+            classBuilder.addMethod(buildDecodeInto(false));
+        }
+        addColumnConstants(classBuilder);
+        addCompactKeyMethods(classBuilder);
+        if (ignoreNulls && !lazy) {
+            classBuilder.addMethod(buildJsonEncoder(false))
+                .addMethod(buildJsonDecoder());
+        }
+        if (lazy) {
+            classBuilder.addType(buildLazyItemClass());
+        }
 
-        var qualifiedName = entryType.getQualifiedName().toString();
-        var packageSplit = qualifiedName.lastIndexOf('.');
-        var packageName = (packageSplit > 0 ? qualifiedName.substring(0, packageSplit) : "");
+        var packageName = getPackageName();
         // Add our indexes
         for (var indexName : indexes.keySet()) {
             TypeName name = ClassName.get(packageName, entryType.getSimpleName() + "DynamoTable",
                 indexNameToClassName(indexName));
             classBuilder.addType(buildIndexInnerClass(indexName));
+            classBuilder.addField(name, indexNameToFieldName(indexName), Modifier.PRIVATE, Modifier.FINAL);
             classBuilder.addMethod(MethodSpec.methodBuilder("get" + indexNameToClassName(indexName))
                                        .addModifiers(Modifier.PUBLIC)
                                        .returns(name)
-                                       .addStatement("return new $T(getClient(), getAsyncClient(), getTableName())", name)
+                                       .addStatement("return $N", indexNameToFieldName(indexName))
                                        .build());
         }
 
@@ -179,6 +311,8 @@ public class TableWriter {
                             .initializer(CodeBlock.builder().add("new $T()", codecEntry.getKey()).build());
             classBuilder.addField(field.build());
         }
+        classBuilder.addFields(helperFields.values());
+        classBuilder.addMethods(helperMethods.values());
 
         return JavaFile.builder(packageName, classBuilder.build()).build();
     }
@@ -192,8 +326,7 @@ public class TableWriter {
             throw new TableException("Index " + indexName + " has no sort key");
         }
         var indexType = types.getDeclaredType(elements.getTypeElement(DynamoIndex.class.getCanonicalName()),
-            types.getDeclaredType(entryType), attributes.get(metadata.partitonAttribute).returnType,
-            attributes.get(metadata.sortAttribute).returnType);
+            types.getDeclaredType(entryType), getKeyType(metadata.partitonAttribute), getKeyType(metadata.sortAttribute));
         var constructor = MethodSpec.constructorBuilder()
                               .addParameter(DynamoDbClient.class, "client")
                               .addParameter(DynamoDbAsyncClient.class, "asyncClient")
@@ -209,23 +342,49 @@ public class TableWriter {
                                .addMethod(buildKeyToAttributeValue("sortValueToAttributeValue", metadata.sortAttribute))
                                .addMethod(buildDecoder(false))
                                .addMethod(buildGetExclusiveStart(metadata.partitonAttribute, metadata.getSortAttribute()));
+        if (!lazy && (creator == null)) {
+            classBuilder.addMethod(buildDecodeInto(false));
+        }
+        if (ignoreNulls && !lazy) {
+            classBuilder.addMethod(buildJsonDecoder());
+        }
         return classBuilder.build();
     }
 
     public JavaFile buildCodecClass() throws TableException {
         var codecType = types.getDeclaredType(elements.getTypeElement(DynamoCodec.class.getCanonicalName()),
             types.getDeclaredType(entryType));
+        helperMethods.clear();
+        helperFields.clear();
+        typeIdentifiers.clear();
         var classBuilder = TypeSpec.classBuilder(entryType.getSimpleName() + "DynamoCodec")
                                .addModifiers(Modifier.PUBLIC)
                                .superclass(ParameterizedTypeName.get(codecType));
+        classBuilder.addMethod(buildEncoder(true))
+            .addMethod(buildDecoder(true));
+        if (!lazy && (creator == null)) {
+            classBuilder.addMethod(buildDecodeInto(true));
+        }
+        if (ignoreNulls && !lazy) {
+            classBuilder.addMethod(buildJsonEncoder(true));
+        }
+        if (packed) {
+            classBuilder.addMethod(buildPackedEncoder())
+                .addMethod(buildPackedDecoder());
+        }
+        if (lazy) {
+            classBuilder.addType(buildLazyItemClass());
+        }
+        // As with tables, fields must come after the methods, which may find more codecs. They are static so that the
+        // static collection helpers can use them.
         for (var codecEntry: codecClassToCodecVar.entrySet()) {
             var field = FieldSpec.builder(codecEntry.getKey(), codecEntry.getValue(),
-                Modifier.PRIVATE, Modifier.FINAL)
+                Modifier.PRIVATE, Modifier.FINAL, Modifier.STATIC)
                             .initializer(CodeBlock.builder().add("new $T()", codecEntry.getKey()).build());
             classBuilder.addField(field.build());
         }
-        classBuilder.addMethod(buildEncoder(true))
-            .addMethod(buildDecoder(true));
+        classBuilder.addFields(helperFields.values());
+        classBuilder.addMethods(helperMethods.values());
         var qualifiedName = entryType.getQualifiedName().toString();
         var packageSplit = qualifiedName.lastIndexOf('.');
         return JavaFile.builder(packageSplit > 0 ? qualifiedName.substring(0, packageSplit) : "", classBuilder.build()).build();
@@ -250,9 +409,23 @@ public class TableWriter {
         }
     }
 
+    /**
+     * Process a component of a record. Every component is an attribute unless it is ignored, and its accessor has the
+     * same name as the component.
+     * @param element The field of the component
+     */
+    private void processRecordComponent(VariableElement element) throws TableException {
+        var propertyName = element.getSimpleName().toString();
+        if (ignoredAttributes.contains(propertyName) || (element.getAnnotation(DynamoIgnore.class) != null)) {
+            ignoredAttributes.add(propertyName);
+            return;
+        }
+        processAttribute(element, propertyName, propertyName, element.asType());
+    }
+
     private void processGetter(ExecutableElement getter) throws TableException {
         var getterName = getter.getSimpleName().toString();
-        var attributeName = getAttributeName(null, getterName);
+        var attributeName = Character.toLowerCase(getterName.charAt(3)) + getterName.substring(4);
         if (ignoredAttributes.contains(attributeName)) {
             // We already got an ignore for this attribute.
             return;
@@ -264,12 +437,38 @@ public class TableWriter {
         processAttribute(getter, getterName, attributeName, getter.getReturnType());
     }
 
-    private void processAttribute(Element declaringElement, String getterName, String attributeName, TypeMirror attributeType) throws TableException {
+    private void processAttribute(Element declaringElement, String getterName, String propertyName, TypeMirror attributeType) throws TableException {
+        var attributeName = propertyName;
         TypeMirror codecType = null;
+        var zeroCopy = false;
+        TypeName compressor = null;
+        var compressAbove = 0;
+        var offloadAbove = 0;
+        String blobStore = null;
+        var intern = false;
+        var writeOnly = false;
+        var valueType = getLazyValueType(attributeType);
         var attributeAnnotation = declaringElement.getAnnotation(DynamoAttribute.class);
         if (attributeAnnotation != null) {
-            attributeName = getAttributeName(attributeAnnotation.value(), getterName);
+            attributeName = getAttributeName(attributeAnnotation.value(), propertyName);
             codecType = getCodecClass(attributeAnnotation::codec);
+            zeroCopy = attributeAnnotation.zeroCopy();
+            if (zeroCopy && !isByteArray(valueType) && !isClass(valueType, ByteBuffer.class)) {
+                throw new TableException("zeroCopy only applies to byte[] and ByteBuffer attributes", declaringElement);
+            }
+            if (attributeAnnotation.compress()) {
+                compressor = TypeName.get(getCodecClass(attributeAnnotation::compressor));
+                compressAbove = attributeAnnotation.compressAbove();
+            }
+            if (attributeAnnotation.offloadAbove() > 0) {
+                offloadAbove = attributeAnnotation.offloadAbove();
+                blobStore = attributeAnnotation.blobStore();
+            }
+            intern = attributeAnnotation.intern();
+            if (intern && !types.isSameType(valueType, stringMirror)) {
+                throw new TableException("intern only applies to String attributes", declaringElement);
+            }
+            writeOnly = attributeAnnotation.writeOnly();
         }
         var partitionKeyAnnotation = declaringElement.getAnnotation(DynamoPartitionKey.class);
         if (partitionKeyAnnotation != null) {
@@ -282,8 +481,9 @@ public class TableWriter {
             if (partitionKeyAttribute != null) {
                 throw new TableException("Cannot have multiple partition keys", declaringElement);
             }
-            partitionKeyAttribute = getAttributeName(partitionKeyAnnotation.value(), getterName);
+            partitionKeyAttribute = getAttributeName(partitionKeyAnnotation.value(), propertyName);
             codecType = getCodecClass(partitionKeyAnnotation::codec);
+            writeOnly = partitionKeyAnnotation.writeOnly();
         }
         var sortKeyAnnotation = declaringElement.getAnnotation(DynamoSortKey.class);
         if (sortKeyAnnotation != null) {
@@ -296,37 +496,45 @@ public class TableWriter {
             if (sortKeyAttribute != null) {
                 throw new TableException("Cannot have multiple sort keys", declaringElement);
             }
-            sortKeyAttribute = getAttributeName(sortKeyAnnotation.value(), getterName);
+            sortKeyAttribute = getAttributeName(sortKeyAnnotation.value(), propertyName);
             codecType = getCodecClass(sortKeyAnnotation::codec);
+            writeOnly = sortKeyAnnotation.writeOnly();
         }
         var secondaryPartitionKeyAnnotation = declaringElement.getAnnotation(DynamoSecondaryPartitionKey.class);
+        var secondarySortKeyAnnotation = declaringElement.getAnnotation(DynamoSecondarySortKey.class);
+        if (((compressor != null) || (blobStore != null) || (valueType != attributeType))
+            && ((partitionKeyAnnotation != null) || (sortKeyAnnotation != null)
+                || (secondaryPartitionKeyAnnotation != null) || (secondarySortKeyAnnotation != null))) {
+            throw new TableException("Keys cannot be compressed, offloaded, or lazy", declaringElement);
+        }
         if (secondaryPartitionKeyAnnotation != null) {
             for (var indexName : secondaryPartitionKeyAnnotation.value()) {
                 indexes.computeIfAbsent(indexName, index -> new IndexMetadata()).setPartitonAttribute(attributeName);
             }
         }
-        var secondarySortKeyAnnotation = declaringElement.getAnnotation(DynamoSecondarySortKey.class);
         if (secondarySortKeyAnnotation != null) {
             for (var indexName: secondarySortKeyAnnotation.value()) {
                 indexes.computeIfAbsent(indexName, index -> new IndexMetadata()).setSortAttribute(attributeName);
             }
         }
+        if (internStrings && (partitionKeyAnnotation == null) && (sortKeyAnnotation == null) && types.isSameType(valueType, stringMirror)) {
+            intern = true;
+        }
         var codecName = (codecType == null || defaultCodecMirror.equals(codecType) ? null : TypeName.get(codecType));
         if (codecName == null) {
-            codecName = findCodecClass(attributeType);
+            codecName = findCodecClass(valueType);
         } else {
             addCodec(codecName);
         }
-        var prevMetadata = attributes.put(attributeName, new AttributeMetadata(getterName, attributeType, codecName));
+        var prevMetadata = attributes.put(attributeName, new AttributeMetadata(declaringElement, getterName, propertyName, attributeType, codecName,
+            zeroCopy, compressor, compressAbove, blobStore, offloadAbove, intern, writeOnly));
         if (prevMetadata != null) {
             throw new TableException("Two getters return attribute " + attributeName, declaringElement);
         }
     }
 
-    private String getAttributeName(String annotationValue, String getterName) {
-        return (annotationValue == null || annotationValue.isEmpty()
-                ? Character.toLowerCase(getterName.charAt(3)) + getterName.substring(4)
-                : annotationValue);
+    private String getAttributeName(String annotationValue, String propertyName) {
+        return (annotationValue == null || annotationValue.isEmpty() ? propertyName : annotationValue);
     }
 
     private MethodSpec buildTableConstructor(boolean withSyncClient, boolean withAsyncClient) {
@@ -346,6 +554,12 @@ public class TableWriter {
         } else {
             builder.addStatement("super(null, asyncClient, tableName, $S, $S)", partitionKeyAttribute, sortKeyAttribute);
         }
+        // Build the indexes once, so that anything attached to an index (like a hot key sampler) stays attached
+        var packageName = getPackageName();
+        for (var indexName : indexes.keySet()) {
+            builder.addStatement("$N = new $T(getClient(), getAsyncClient(), tableName)", indexNameToFieldName(indexName),
+                ClassName.get(packageName, entryType.getSimpleName() + "DynamoTable", indexNameToClassName(indexName)));
+        }
         return builder.build();
     }
 
@@ -364,7 +578,7 @@ public class TableWriter {
                 .addStatement("return null");
         } else {
             var parameterMetadata = attributes.get(attributeName);
-            methodBuilder.returns(TypeName.get(parameterMetadata.returnType));
+            methodBuilder.returns(TypeName.get(getKeyType(attributeName)));
             if (fromItem) {
                 if (parameterMetadata.returnType.getKind().isPrimitive()) {
                     // Cannot be null
@@ -385,13 +599,204 @@ public class TableWriter {
                     .addStatement("return null")
                     .nextControlFlow("else");
                 var formatParams = new HashMap<String, Object>();
-                methodBuilder.addCode("return " + buildAttributeDecodeExpression("value", parameterMetadata.codecClass, parameterMetadata.returnType, formatParams) + ";\n", formatParams);
+                methodBuilder.addNamedCode("return " + buildAttributeDecodeExpression("value", parameterMetadata.codecClass, parameterMetadata.returnType, false, formatParams) + ";\n", formatParams);
                 methodBuilder.endControlFlow();
             }
         }
         return methodBuilder.build();
     }
 
+    private String getPackageName() {
+        var qualifiedName = entryType.getQualifiedName().toString();
+        var packageSplit = qualifiedName.lastIndexOf('.');
+        return packageSplit > 0 ? qualifiedName.substring(0, packageSplit) : "";
+    }
+
+    /**
+     * Get the type of a key as a type argument of the table or index, which is the type of the attribute, boxed if it is
+     * primitive.
+     * @param attributeName The key attribute
+     * @return The type
+     */
+    private TypeMirror getKeyType(String attributeName) {
+        var type = attributes.get(attributeName).returnType;
+        return type.getKind().isPrimitive() ? types.boxedClass((PrimitiveType)type).asType() : type;
+    }
+
+    /**
+     * Get the type that a key is passed as by the methods that avoid boxing it: the primitive type of integer keys, or
+     * String.
+     * @param attributeName The key attribute
+     * @return The type, or null if the key has a codec or some other type
+     */
+    private TypeMirror getCompactKeyType(String attributeName) {
+        var metadata = attributes.get(attributeName);
+        if (metadata.codecClass != null) {
+            return null;
+        }
+        var type = boxedPrimitiveMirrors.contains(metadata.returnType) ? types.unboxedType(metadata.returnType) : metadata.returnType;
+        switch (type.getKind()) {
+            case INT:
+            case LONG:
+            case SHORT:
+            case BYTE:
+                return type;
+            default:
+                return types.isSameType(type, stringMirror) ? type : null;
+        }
+    }
+
+    /**
+     * Add the methods of a table with an integer key that take the keys unboxed: get, delete, and query overloads that
+     * encode the keys straight into attribute values, and a {@code CompactKey} class that holds both keys without
+     * boxes. Tables whose keys are all strings or have codecs have nothing to box, so they get none of this.
+     * @param classBuilder The table class
+     */
+    private void addCompactKeyMethods(TypeSpec.Builder classBuilder) throws TableException {
+        var partitionType = getCompactKeyType(partitionKeyAttribute);
+        var sortType = sortKeyAttribute == null ? null : getCompactKeyType(sortKeyAttribute);
+        if ((partitionType == null) || ((sortKeyAttribute != null) && (sortType == null))
+            || (!partitionType.getKind().isPrimitive() && ((sortType == null) || !sortType.getKind().isPrimitive()))) {
+            return;
+        }
+        var entryTypeName = TypeName.get(types.getDeclaredType(entryType));
+        var partitionTypeName = TypeName.get(partitionType);
+        var sortTypeName = sortType == null ? null : TypeName.get(sortType);
+        var formatParams = new HashMap<String, Object>();
+        var encodedKeys = buildAttributeEncodeExpression("partitionValue", null, partitionType, false, formatParams)
+                          + ", " + (sortType == null ? "null" : buildAttributeEncodeExpression("sortValue", null, sortType, false, formatParams));
+
+        var keyClassName = ClassName.get(getPackageName(), entryType.getSimpleName() + "DynamoTable", "CompactKey");
+        for (var methodName : List.of("getItem", "getItemAsync", "deleteItem")) {
+            var builder = MethodSpec.methodBuilder(methodName)
+                              .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                              .returns(methodName.endsWith("Async")
+                                       ? ParameterizedTypeName.get(ClassName.get(CompletableFuture.class), entryTypeName)
+                                       : entryTypeName)
+                              .addParameter(partitionTypeName, "partitionValue");
+            if (sortType != null) {
+                builder.addParameter(sortTypeName, "sortValue");
+            }
+            var baseName = methodName.equals("getItemAsync") ? "getItemByEncodedKeysAsync" : methodName + "ByEncodedKeys";
+            classBuilder.addMethod(builder.addNamedCode("return " + baseName + "(" + encodedKeys + ");\n", formatParams).build());
+            classBuilder.addMethod(MethodSpec.methodBuilder(methodName)
+                                       .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                                       .returns(builder.build().returnType)
+                                       .addParameter(keyClassName, "key")
+                                       .addStatement("return " + methodName + "(key.getPartition()" + (sortType == null ? ")" : ", key.getSort())"))
+                                       .build());
+        }
+        if (partitionType.getKind().isPrimitive()) {
+            // A String partition would just override query(PartitionT), so only integers get an overload
+            formatParams.clear();
+            classBuilder.addMethod(MethodSpec.methodBuilder("query")
+                                       .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                                       .returns(ParameterizedTypeName.get(ClassName.get(Query.class), entryTypeName,
+                                           TypeName.get(getKeyType(partitionKeyAttribute)),
+                                           sortKeyAttribute == null ? ClassName.get(Void.class) : TypeName.get(getKeyType(sortKeyAttribute))))
+                                       .addParameter(partitionTypeName, "partitionValue")
+                                       .addNamedCode("return queryEncoded("
+                                                         + buildAttributeEncodeExpression("partitionValue", null, partitionType, false, formatParams)
+                                                         + ");\n", formatParams)
+                                       .build());
+        }
+        var getCompactKey = MethodSpec.methodBuilder("getCompactKey")
+                                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                                .returns(keyClassName)
+                                .addParameter(entryTypeName, "value")
+                                .addStatement("return new $T(value." + attributes.get(partitionKeyAttribute).getterName + "()"
+                                                  + (sortType == null ? ")" : ", value." + attributes.get(sortKeyAttribute).getterName + "())"),
+                                    keyClassName);
+        classBuilder.addMethod(getCompactKey.build())
+            .addType(buildCompactKeyClass(partitionType, sortType));
+    }
+
+    /**
+     * Build the key class of a table with an integer key. It holds the keys unboxed, and hashes the same as an equal
+     * {@link Key}.
+     */
+    private TypeSpec buildCompactKeyClass(TypeMirror partitionType, TypeMirror sortType) {
+        var partitionTypeName = TypeName.get(partitionType);
+        var keyType = ParameterizedTypeName.get(ClassName.get(Key.class), TypeName.get(getKeyType(partitionKeyAttribute)),
+            sortType == null ? ClassName.get(Void.class) : TypeName.get(getKeyType(sortKeyAttribute)));
+        var builder = TypeSpec.classBuilder("CompactKey")
+                          .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                          .addJavadoc("A key of this table that holds its values without boxing them.\n")
+                          .addField(partitionTypeName, "partition", Modifier.PRIVATE, Modifier.FINAL);
+        var constructor = MethodSpec.constructorBuilder()
+                              .addModifiers(Modifier.PUBLIC)
+                              .addParameter(partitionTypeName, "partition");
+        constructor.addStatement(partitionType.getKind().isPrimitive() ? "this.partition = partition" : "this.partition = $T.requireNonNull(partition)",
+            Objects.class);
+        var hash = CodeBlock.builder().add("int result = $L * 31", hashExpression(partitionType, "partition"));
+        var equals = CodeBlock.builder().add("return $L", equalsExpression(partitionType, "partition"));
+        builder.addMethod(MethodSpec.methodBuilder("getPartition")
+                              .addModifiers(Modifier.PUBLIC)
+                              .returns(partitionTypeName)
+                              .addStatement("return partition")
+                              .build());
+        if (sortType != null) {
+            var sortTypeName = TypeName.get(sortType);
+            builder.addField(sortTypeName, "sort", Modifier.PRIVATE, Modifier.FINAL)
+                .addMethod(MethodSpec.methodBuilder("getSort")
+                               .addModifiers(Modifier.PUBLIC)
+                               .returns(sortTypeName)
+                               .addStatement("return sort")
+                               .build());
+            constructor.addParameter(sortTypeName, "sort")
+                .addStatement(sortType.getKind().isPrimitive() ? "this.sort = sort" : "this.sort = $T.requireNonNull(sort)", Objects.class);
+            hash.add(" + $L", hashExpression(sortType, "sort"));
+            equals.add(" && $L", equalsExpression(sortType, "sort"));
+        }
+        return builder.addMethod(constructor.build())
+                   .addMethod(MethodSpec.methodBuilder("toKey")
+                                  .addJavadoc("Get the same key as a {@link $T}, for the batch methods.\n", Key.class)
+                                  .addModifiers(Modifier.PUBLIC)
+                                  .returns(keyType)
+                                  .addStatement("return new $T<>(partition, " + (sortType == null ? "null" : "sort") + ")", Key.class)
+                                  .build())
+                   .addMethod(MethodSpec.methodBuilder("hashCode")
+                                  .addAnnotation(Override.class)
+                                  .addModifiers(Modifier.PUBLIC)
+                                  .returns(int.class)
+                                  .addStatement(hash.build())
+                                  .addStatement("return result")
+                                  .build())
+                   .addMethod(MethodSpec.methodBuilder("equals")
+                                  .addAnnotation(Override.class)
+                                  .addModifiers(Modifier.PUBLIC)
+                                  .returns(boolean.class)
+                                  .addParameter(Object.class, "other")
+                                  .beginControlFlow("if (other == this)")
+                                  .addStatement("return true")
+                                  .endControlFlow()
+                                  .beginControlFlow("if (!(other instanceof CompactKey))")
+                                  .addStatement("return false")
+                                  .endControlFlow()
+                                  .addStatement("CompactKey peer = (CompactKey)other")
+                                  .addStatement(equals.build())
+                                  .build())
+                   .addMethod(MethodSpec.methodBuilder("toString")
+                                  .addAnnotation(Override.class)
+                                  .addModifiers(Modifier.PUBLIC)
+                                  .returns(String.class)
+                                  .addStatement("return \"CompactKey[\" + partition + \", \" + " + (sortType == null ? "null" : "sort") + " + \"]\"")
+                                  .build())
+                   .build();
+    }
+
+    private CodeBlock hashExpression(TypeMirror type, String field) {
+        return type.getKind().isPrimitive()
+               ? CodeBlock.of("$T.hashCode($L)", types.boxedClass((PrimitiveType)type), field)
+               : CodeBlock.of("$L.hashCode()", field);
+    }
+
+    private CodeBlock equalsExpression(TypeMirror type, String field) {
+        return type.getKind().isPrimitive()
+               ? CodeBlock.of("($L == peer.$L)", field, field)
+               : CodeBlock.of("$L.equals(peer.$L)", field, field);
+    }
+
     private MethodSpec buildKeyToAttributeValue(String methodName, String attribute) throws TableException {
         var metadata = (attribute == null ? null : attributes.get(attribute));
         var methodBuilder = MethodSpec.methodBuilder(methodName)
@@ -403,7 +808,7 @@ public class TableWriter {
             methodBuilder.addStatement("throw new $T($S)", UnsupportedOperationException.class,
                 "This table has no sort key");
         } else {
-            methodBuilder.addParameter(TypeName.get(metadata.returnType), "value");
+            methodBuilder.addParameter(TypeName.get(getKeyType(attribute)), "value");
             var formatParams = new HashMap<String, Object>();
             methodBuilder.addNamedCode("return " + buildAttributeEncodeExpression(attribute, "value", formatParams) + ";\n", formatParams);
         }
@@ -417,6 +822,9 @@ public class TableWriter {
                           .addParameter(TypeName.get(types.getDeclaredType(entryType)), "value")
                           .returns(toAttributeValue ? TypeName.get(AttributeValue.class) : TypeName.get(dynamoMapMirror))
                           .addStatement("$T map = new $T($L)", MAP_OF_ATTRIBUTE_VALUES_CLASS_NAME, MAP_OF_ATTRIBUTE_VALUES_CLASS_NAME, (attributes.size() * 4 + 2) / 3);
+        if (lazy) {
+            builder.addStatement("$L lazy = value instanceof $L ? ($L)value : null", LAZY_ITEM_CLASS, LAZY_ITEM_CLASS, LAZY_ITEM_CLASS);
+        }
         var formatParams = new HashMap<String, Object>();
         for (var entry : attributes.entrySet()) {
             var attributeName = entry.getKey();
@@ -424,6 +832,16 @@ public class TableWriter {
             formatParams.clear();
             var attrNameParam = "s" + ++paramNumber;
             formatParams.put(attrNameParam, attributeName);
+            var lazyFlag = lazyFlags.get(attributeName);
+            if (lazyFlag != null) {
+                // Attributes of lazy items that were never read go back exactly as they came
+                var rawVar = "r" + upcaseFirst(attributeName);
+                builder.addStatement("$T " + rawVar + " = lazy == null || lazy." + lazyFlag + " ? null : lazy.map.get($S)",
+                    AttributeValue.class, attributeName)
+                    .beginControlFlow("if (" + rawVar + " != null)")
+                    .addStatement("map.put($S, " + rawVar + ")", attributeName)
+                    .nextControlFlow("else");
+            }
             if (kind.isPrimitive()) {
                 builder.addNamedCode("map.put($" + attrNameParam + ":S, " + buildAttributeEncodeExpression(attributeName, null, formatParams) + ");\n", formatParams);
             } else {
@@ -439,7 +857,7 @@ public class TableWriter {
                         .endControlFlow()
                         .addNamedCode("map.put($" + attrNameParam + ":S, " + buildAttributeEncodeExpression(attributeName, varName, formatParams) + ");\n", formatParams);
                 } else if (ignoreNulls) {
-                    builder.beginControlFlow("if (" + varName + " != null)")
+                    builder.beginControlFlow("if (" + buildPresentCondition(entry.getValue(), varName) + ")")
                         .addNamedCode("map.put($" + attrNameParam + ":S, " + buildAttributeEncodeExpression(attributeName, varName, formatParams) + ");\n", formatParams)
                         .endControlFlow();
                 } else {
@@ -449,6 +867,9 @@ public class TableWriter {
                                              + buildAttributeEncodeExpression(attributeName, varName, formatParams) + ");\n", formatParams);
                 }
             }
+            if (lazyFlag != null) {
+                builder.endControlFlow();
+            }
         }
         if (toAttributeValue) {
             builder.addStatement("return $T.builder().m(map).build()", AttributeValue.class);
@@ -463,172 +884,745 @@ public class TableWriter {
         var builder = MethodSpec.methodBuilder("decode")
             .addAnnotation(Override.class)
             .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-            .returns(entryTypeName)
-            .addStatement("$T result = new $T()", entryTypeName, entryTypeName);
+            .returns(entryTypeName);
         if (fromAttributeValue) {
             builder.addParameter(TypeName.get(AttributeValue.class), "value")
                 .addStatement("$T map = value.m()", dynamoMapMirror);
         } else {
             builder.addParameter(TypeName.get(dynamoMapMirror), "map");
         }
-        builder.addStatement("$T attribute", AttributeValue.class);
         var formatParams = new HashMap<String, Object>();
-        for (var entry: attributes.entrySet()) {
-            formatParams.clear();
-            if (entry.getKey().equals(partitionKeyAttribute) || entry.getKey().equals(sortKeyAttribute)) {
-                // Cannot be null. Just call the setter.
-                formatParams.put("a", entry.getKey());
-                builder.addNamedCode("result." + entry.getValue().setterName + "("
-                                         + buildAttributeDecodeExpression("map.get($a:S)", entry.getValue().codecClass, entry.getValue().returnType, formatParams)
-                                         + ");\n", formatParams);
-            } else {
-                builder.addStatement("attribute = map.get($S)", entry.getKey());
-                var expression = buildAttributeDecodeExpression("attribute", entry.getValue().codecClass, entry.getValue().returnType, formatParams);
-                if (ignoreNulls || entry.getValue().returnType.getKind().isPrimitive()) {
-                    // With ignore nulls or a primitive type, we ignore null attributes.
-                    // Primitive types perhaps should throw exceptions when they see an explicit null value, but that is
-                    // a dangerous game to play.
-                    builder.beginControlFlow("if (attribute != null && attribute.nul() != $T.TRUE)", Boolean.class)
-                        .addNamedCode("result." + entry.getValue().setterName + "("
-                                          + expression
-                                          + ");\n", formatParams)
-                        .endControlFlow();
-                } else {
-                    // If we have a nullable field and we don't ignore nulls, then we explicitly set the value to null.
-                    // This will be unnecessary in most cases, but if the class has a nullable field with a non-null value
-                    // then it will be needed.
-                    formatParams.put("b", Boolean.class);
-                    builder.addNamedCode("result." + entry.getValue().setterName + "(attribute == null || attribute.nul() == $b:T.TRUE ? null : "
-                                             + expression + ");\n", formatParams);
+        if (lazy) {
+            // Only the keys are decoded now; the lazy item decodes everything else when it is asked for
+            builder.addStatement("$T result = new $L(map)", entryTypeName, LAZY_ITEM_CLASS);
+            for (var attributeName : attributes.keySet()) {
+                if (!lazyFlags.containsKey(attributeName)) {
+                    formatParams.clear();
+                    var varName = "a" + upcaseFirst(attributeName.replaceAll("[^A-Za-z0-9_]", "_"));
+                    builder.addStatement("$T " + varName + " = map.get($S)", AttributeValue.class, attributeName);
+                    addAttributeDecode(builder, "result", attributeName, varName, formatParams);
                 }
             }
+            return builder.addStatement("return result").build();
+        }
+        if (creator == null) {
+            addConstruction(builder, "result");
+        }
+        var localVars = buildDecoderLocals(builder);
+        if (creator != null) {
+            // Everything the creator takes is decoded first, then the rest goes to setters
+            addCreatorLocals(builder);
+            for (var attributeName : creatorLocals.keySet()) {
+                formatParams.clear();
+                addAttributeDecode(builder, null, attributeName, localVars.get(attributeName), formatParams);
+            }
+            addConstruction(builder, "result");
+        }
+        for (var entry: attributes.entrySet()) {
+            if (!creatorLocals.containsKey(entry.getKey()) && isDecoded(entry.getKey())) {
+                formatParams.clear();
+                addAttributeDecode(builder, "result", entry.getKey(), localVars.get(entry.getKey()), formatParams);
+            }
         }
         return builder.addStatement("return result").build();
     }
 
-    private MethodSpec buildGetExclusiveStart(String... secondaryKeys) throws TableException {
-        var builder = MethodSpec.methodBuilder("getExclusiveStart")
-                          .addAnnotation(Override.class)
-                          .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-                          .addParameter(TypeName.get(types.getDeclaredType(entryType)), "value")
-                          .returns(TypeName.get(dynamoMapMirror));
-        var formatParams = new HashMap<String, Object>();
-        if ((sortKeyAttribute) == null && (secondaryKeys.length == 0)) {
-            formatParams.put("collections", Collections.class);
-            formatParams.put("param", partitionKeyAttribute);
-            builder.addNamedCode("return $collections:T.singletonMap($param:S, "
-                                     + buildAttributeEncodeExpression(partitionKeyAttribute, null, formatParams)
-                                     + ");\n", formatParams);
-        } else {
-            var keys = new HashSet<String>();
-            keys.add(partitionKeyAttribute);
-            if (sortKeyAttribute != null) {
-                keys.add(sortKeyAttribute);
+    /**
+     * Add a {@link Column} constant for each attribute that column reads can handle: numbers and strings (including
+     * enums) that are stored as plain attributes, without a codec, compression, or offloading.
+     * @param classBuilder The table class
+     */
+    private void addColumnConstants(TypeSpec.Builder classBuilder) {
+        for (var entry : new TreeMap<>(attributes).entrySet()) {
+            var metadata = entry.getValue();
+            if ((metadata.codecClass != null) || (metadata.compressor != null) || (metadata.blobStore != null)) {
+                continue;
             }
-            Collections.addAll(keys, secondaryKeys);
-            formatParams.put("map", Map.class);
-            formatParams.put("param", partitionKeyAttribute);
-            formatParams.put("sort", sortKeyAttribute);
-            var template = new StringBuilder("return $map:T.of(");
-            var first = true;
-            for (var key: keys) {
-                var param = "v" + ++paramNumber;
-                if (first) {
-                    first = false;
-                } else {
-                    template.append(", ");
-                }
-                formatParams.put(param, key);
-                template.append("$").append(param).append(":S, ")
-                    .append(buildAttributeEncodeExpression(key, null, formatParams));
+            var type = metadata.returnType;
+            if (boxedPrimitiveMirrors.contains(type)) {
+                type = types.unboxedType(type);
             }
-            builder.addNamedCode(template.append(");\n").toString(), formatParams);
+            String factory;
+            Class<?> arrayClass;
+            switch (type.getKind()) {
+                case LONG:
+                    factory = "longs";
+                    arrayClass = long[].class;
+                    break;
+                case INT:
+                case SHORT:
+                case BYTE:
+                    factory = "ints";
+                    arrayClass = int[].class;
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    factory = "doubles";
+                    arrayClass = double[].class;
+                    break;
+                case DECLARED:
+                    if (!types.isSameType(type, stringMirror) && !types.isSubtype(type, enumMirror)) {
+                        continue;
+                    }
+                    factory = "strings";
+                    arrayClass = int[].class;
+                    break;
+                default:
+                    continue;
+            }
+            classBuilder.addField(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(Column.class), TypeName.get(arrayClass)),
+                toConstantName(metadata.propertyName) + "_COLUMN", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                      .initializer("$T.$L($S)", Column.class, factory, entry.getKey())
+                                      .build());
         }
-        return builder.build();
     }
 
-    private MethodSpec buildGetIndex() {
-        var partitionT = TypeVariableName.get("IndexPartitionT");
-        var sortT = TypeVariableName.get("IndexSortT");
-        var builder = MethodSpec.methodBuilder("getIndex")
-                          .addModifiers(Modifier.PUBLIC)
+    /**
+     * Build the decoder that refills an existing item. Every attribute the item can take is set, with missing ones
+     * reset, since the item still holds the previous item's values. Lists are refilled in place when the item already
+     * has an ArrayList, and then passed back to the setter. Only generated for items built with a no argument
+     * constructor that are not lazy.
+     * @param fromAttributeValue True to decode from a map attribute value, for codecs, rather than a bare item
+     * @return The decoder
+     */
+    private MethodSpec buildDecodeInto(boolean fromAttributeValue) throws TableException {
+        var entryTypeName = TypeName.get(types.getDeclaredType(entryType));
+        var builder = MethodSpec.methodBuilder("decodeInto")
                           .addAnnotation(Override.class)
-                          .addTypeVariable(partitionT)
-                          .addTypeVariable(sortT)
-                          .returns(ParameterizedTypeName.get(ClassName.get(DynamoIndex.class), TypeName.get(entryType.asType()), partitionT, sortT))
-                          .addParameter(String.class, "name")
-                          .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), partitionT), "partitionClass")
-                          .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), sortT), "sortClass");
-        switch (indexes.size()) {
-            case 0:
-                return builder.addStatement("throw new $T($S)", UnsupportedOperationException.class,
-                    "Class " + entryType.getSimpleName() + " has no secondary indexes. Maybe you are missing @"
-                        + DynamoSecondaryPartitionKey.class.getSimpleName() + " annotations").build();
-            case 1:
-                var entry = indexes.entrySet().iterator().next();
-                var partitionType = attributes.get(entry.getValue().getPartitonAttribute()).returnType;
-                var sortType = attributes.get(entry.getValue().getSortAttribute()).returnType;
-                return builder.beginControlFlow("if (name.equals($S))", entry.getKey())
-                           .beginControlFlow("if ((partitionClass == $T.class) && (sortClass == $T.class))", partitionType, sortType)
-                           .addStatement("return (DynamoIndex<$T, IndexPartitionT, IndexSortT>)" + "get" + upcaseFirst(entry.getKey()) + "Index()", entryType)
-                           .nextControlFlow("else")
-                           .addStatement("throw new $T($S + partitionClass.getSimpleName() + $S + sortClass.getSimpleName())",
-                               IllegalArgumentException.class, "Incorrect key types for index " + entry.getKey() + ", expected: "
-                                                                   + (partitionType.getKind().isPrimitive()
-                                                                      ? partitionType.toString()
-                                                                      : ((DeclaredType)partitionType).asElement().getSimpleName())
-                                                                   + " and "
-                                                                   + (sortType.getKind().isPrimitive()
-                                                                      ? sortType.toString()
-                                                                      : ((DeclaredType)sortType).asElement().getSimpleName()) + ", got: ",
-                               " and ")
-                           .endControlFlow()
-                           .nextControlFlow("else")
-                           .addStatement("throw new $T($S + name)", IllegalArgumentException.class, "Unknown index: ")
-                           .endControlFlow()
-                           .build();
-            default:
-                builder.addStatement("$T expectedPartitionClass", ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)))
-                    .addStatement("$T expectedSortClass", ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)))
-                    .addStatement("$T index", ParameterizedTypeName.get(ClassName.get(DynamoIndex.class),
-                        WildcardTypeName.subtypeOf(Object.class), WildcardTypeName.subtypeOf(Object.class)))
-                    .beginControlFlow("switch(name)");
-                for (var indexName : indexes.keySet()) {
-                    var metadata = indexes.get(indexName);
-                    builder.addCode("case($S):\n", indexName)
-                        .addStatement("$>expectedPartitionClass = $T.class", indexName, attributes.get(metadata.partitonAttribute).returnType)
-                        .addStatement("expectedSortClass = $T.class", attributes.get(metadata.sortAttribute).returnType)
-                        .addStatement("index = " + "get" + upcaseFirst(indexName) + "()")
-                        .addStatement("break");
-                }
-                builder.addCode("default:\n")
-                    .addStatement("throw new $T($S + name)", IllegalArgumentException.class,
-                        "Unknown index name: ");
-                builder.endControlFlow();
-                builder.beginControlFlow("if ((expectedPartitionClass != partitionClass) || (expectedSortClass != sortClass))")
-                    .addStatement("throw new $T($S + name + $S + expectedPartitionClass.getSimpleName() + $S + expectedSortClass.getSimpleName() + $S + partitionClass.getSimpleName() + $S + sortClass.getSimpleName())",
-                        IllegalArgumentException.class, "Incorrect key types for index ", ", expected: ", " and ", ", got: ", " and ")
+                          .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                          .returns(entryTypeName);
+        if (fromAttributeValue) {
+            builder.addParameter(TypeName.get(AttributeValue.class), "value")
+                .addParameter(entryTypeName, "reuse")
+                .addStatement("$T map = value.m()", dynamoMapMirror);
+        } else {
+            builder.addParameter(TypeName.get(dynamoMapMirror), "map")
+                .addParameter(entryTypeName, "reuse");
+        }
+        var localVars = buildDecoderLocals(builder);
+        var formatParams = new HashMap<String, Object>();
+        for (var entry : attributes.entrySet()) {
+            var attributeName = entry.getKey();
+            var metadata = entry.getValue();
+            if (!isDecoded(attributeName)) {
+                continue;
+            }
+            var attribute = localVars.get(attributeName);
+            formatParams.clear();
+            if (attributeName.equals(partitionKeyAttribute) || attributeName.equals(sortKeyAttribute)) {
+                builder.addNamedCode(buildAssignment("reuse", attributeName,
+                    buildAttributeDecodeExpression(attributeName, attribute, formatParams)) + ";\n", formatParams);
+                continue;
+            }
+            var intoHelper = getListIntoHelper(metadata);
+            builder.beginControlFlow("if (" + attribute + " == null || " + attribute + ".nul() == $T.TRUE)", Boolean.class)
+                .addStatement(buildAssignment("reuse", attributeName, getDefaultArgument(metadata.returnType)))
+                .nextControlFlow("else");
+            if (intoHelper == null) {
+                builder.addNamedCode(buildAssignment("reuse", attributeName,
+                    buildAttributeDecodeExpression(attributeName, attribute, formatParams)) + ";\n", formatParams);
+            } else {
+                // Only a plain ArrayList, like the ones decoders create, is refilled. Anything else (an unmodifiable
+                // view, say) is replaced. The refilled list goes back through the setter, in case the getter copied it.
+                builder.addStatement("$T current = reuse." + metadata.getterName + "()", metadata.returnType)
+                    .beginControlFlow("if (current != null && current.getClass() == $T.class)", ArrayList.class)
+                    .addStatement(intoHelper + "(" + attribute + ", current)")
+                    .addStatement(buildAssignment("reuse", attributeName, "current"))
+                    .nextControlFlow("else")
+                    .addNamedCode(buildAssignment("reuse", attributeName,
+                        buildAttributeDecodeExpression(attributeName, attribute, formatParams)) + ";\n", formatParams)
                     .endControlFlow();
-                builder.addStatement("return null");
-                return builder.build();
+            }
+            builder.endControlFlow();
         }
+        return builder.addStatement("return reuse").build();
     }
 
     /**
-     * Turn an index name into the name of a class. Replace illegal java class name characters with underscores, upcase
-     * the first character, and append the word "Index" at the end.
-     * @param indexName The name of the index
-     * @return An inner class name.
+     * Get the name of a generated method that refills an existing list from an attribute, generating it if this is the
+     * first use. Lists of nested items decode into the items already in the list, so refilling a list of the same
+     * size allocates no items at all.
+     * @param metadata The attribute
+     * @return The name of the method, or null if the attribute is not a plain list
      */
-    private String indexNameToClassName(String indexName) {
-        if (Character.isDigit(indexName.charAt(0))) {
-            indexName = "n" + indexName;  // Prepend a "n" so we don't start with a digit.
+    private String getListIntoHelper(AttributeMetadata metadata) throws TableException {
+        var type = metadata.returnType;
+        if ((metadata.codecClass != null) || (metadata.compressor != null) || (metadata.blobStore != null)
+            || (type.getKind() != TypeKind.DECLARED) || !types.isSubtype(type, listMirror)) {
+            return null;
         }
-        return upcaseFirst(indexName.replace('.', '_').replace('-', '_')) + "Index";
+        var elementType = ((DeclaredType)type).getTypeArguments().get(0);
+        var methodName = "decodeListOf" + typeToIdentifier(elementType) + "Into";
+        if (helperMethods.containsKey(methodName)) {
+            return methodName;
+        }
+        helperMethods.put(methodName, null); // Reserve the name while we build
+        var elementTypeName = TypeName.get(elementType);
+        var builder = MethodSpec.methodBuilder(methodName)
+                          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                          .addParameter(AttributeValue.class, "value")
+                          .addParameter(ParameterizedTypeName.get(ClassName.get(List.class), elementTypeName), "result");
+        var itemCodec = isCollectionOfItems(elementType) ? findCodecClass(elementType) : null;
+        if (isPackedItem(elementType)) {
+            builder.beginControlFlow("if ($T.isPacked(value))", Packed.class)
+                .addStatement("result.clear()")
+                .addStatement(codecClassToCodecVar.get(itemCodec) + ".decodePacked(value, size -> result)")
+                .addStatement("return")
+                .endControlFlow();
+        }
+        builder.addStatement("$T list = value.l()", ParameterizedTypeName.get(ClassName.get(List.class), ATTRIBUTE_VALUE_CLASS_NAME))
+            .addStatement("int size = list.size()");
+        if (itemCodec != null) {
+            var codecVar = codecClassToCodecVar.get(itemCodec);
+            builder.addStatement("int reused = $T.min(size, result.size())", Math.class)
+                .beginControlFlow("for (int i = 0; i < reused; ++i)")
+                .addStatement("result.set(i, " + codecVar + ".decodeInto(list.get(i), result.get(i)))")
+                .endControlFlow()
+                .beginControlFlow("while (result.size() > size)")
+                .addStatement("result.remove(result.size() - 1)")
+                .endControlFlow()
+                .beginControlFlow("for (int i = reused; i < size; ++i)")
+                .addStatement("result.add(" + codecVar + ".decode(list.get(i)))")
+                .endControlFlow();
+        } else {
+            var formatParams = new HashMap<String, Object>();
+            var elementExpression = buildAttributeDecodeExpression("list.get(i)", null, elementType, false, formatParams);
+            builder.addStatement("result.clear()")
+                .beginControlFlow("for (int i = 0; i < size; ++i)")
+                .addNamedCode("result.add(" + elementExpression + ");\n", formatParams)
+                .endControlFlow();
+        }
+        helperMethods.put(methodName, builder.build());
+        return methodName;
     }
 
-    private String upcaseFirst(String value) {
-        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    /**
+     * Check whether collection elements are nested items, decoded by their generated codec.
+     * @param elementType The type of the elements
+     * @return True for items with a generated codec
+     */
+    private boolean isCollectionOfItems(TypeMirror elementType) {
+        return (elementType.getKind() == TypeKind.DECLARED) && !types.isSameType(elementType, stringMirror)
+               && !types.isSubtype(elementType, enumMirror) && !boxedPrimitiveMirrors.contains(elementType)
+               && (findItemCodecClass(elementType) != null);
+    }
+
+    /**
+     * Add code that decodes one attribute and passes it to the item's setter, skipping or clearing missing attributes
+     * as the table's null handling says.
+     * @param builder The method being built
+     * @param target The expression holding the item, or null to store the attribute in its creator local instead
+     * @param attributeName The attribute
+     * @param attribute The local variable holding the attribute value, which may be null
+     * @param formatParams The named parameters to use for the code
+     */
+    private void addAttributeDecode(MethodSpec.Builder builder, String target, String attributeName, String attribute,
+                                    Map<String, Object> formatParams) throws TableException {
+        var metadata = attributes.get(attributeName);
+        var expression = lazyFlags.containsKey(attributeName) && (getLazyListHelper(attributeName) != null)
+                         ? getLazyListHelper(attributeName) + "(" + attribute + ")"
+                         : buildAttributeDecodeExpression(attributeName, attribute, formatParams);
+        if (attributeName.equals(partitionKeyAttribute) || attributeName.equals(sortKeyAttribute)) {
+            // Cannot be null. Just call the setter.
+            builder.addNamedCode(buildAssignment(target, attributeName, expression) + ";\n", formatParams);
+        } else if (ignoreNulls || metadata.returnType.getKind().isPrimitive()) {
+            // With ignore nulls or a primitive type, we ignore null attributes.
+            // Primitive types perhaps should throw exceptions when they see an explicit null value, but that is
+            // a dangerous game to play.
+            builder.beginControlFlow("if (" + attribute + " != null && " + attribute + ".nul() != $T.TRUE)", Boolean.class)
+                .addNamedCode(buildAssignment(target, attributeName, expression) + ";\n", formatParams)
+                .endControlFlow();
+        } else {
+            // If we have a nullable field and we don't ignore nulls, then we explicitly set the value to null.
+            // This will be unnecessary in most cases, but if the class has a nullable field with a non-null value
+            // then it will be needed.
+            formatParams.put("b", Boolean.class);
+            builder.addNamedCode(buildAssignment(target, attributeName, attribute + " == null || " + attribute
+                                     + ".nul() == $b:T.TRUE ? null : " + expression) + ";\n", formatParams);
+        }
+    }
+
+    /**
+     * Build the condition under which a table that ignores nulls writes an attribute. A {@code Lazy} attribute that has
+     * been loaded with null is left out like any other null; one that was never loaded is written, since its raw value
+     * is not null.
+     * @param metadata The attribute
+     * @param varName The local variable holding the attribute
+     * @return The condition
+     */
+    private String buildPresentCondition(AttributeMetadata metadata, String varName) {
+        var condition = varName + " != null";
+        if (getLazyValueType(metadata.returnType) != metadata.returnType) {
+            condition += " && !(" + varName + ".isLoaded() && " + varName + ".get() == null)";
+        }
+        return condition;
+    }
+
+    /**
+     * Build the code that gives an attribute of an item its value, without the closing semicolon.
+     * @param target The expression holding the item, or null to assign the attribute's creator local instead
+     * @param attributeName The attribute
+     * @param expression The value
+     * @return The code
+     */
+    private String buildAssignment(String target, String attributeName, String expression) {
+        return target == null ? creatorLocals.get(attributeName) + " = " + expression
+                              : target + "." + attributes.get(attributeName).setterName + "(" + expression + ")";
+    }
+
+    /**
+     * Build the encoder used by {@link StreamingWrites}. Like the JSON decoder, strings, numbers, and booleans are
+     * written straight to the generator, as are nested items and lists of them, which have JSON encoders of their own.
+     * Everything else goes through an attribute value. Tables without ignoreNulls and lazy tables keep the default of
+     * writing the encoded map.
+     * @param toAttributeValue True to write the item as a map attribute value, for codecs, rather than a bare item
+     * @return The encoder
+     */
+    private MethodSpec buildJsonEncoder(boolean toAttributeValue) throws TableException {
+        var builder = MethodSpec.methodBuilder("encodeJson")
+                          .addAnnotation(Override.class)
+                          .addModifiers(toAttributeValue ? Modifier.PUBLIC : Modifier.PROTECTED, Modifier.FINAL)
+                          .addParameter(TypeName.get(types.getDeclaredType(entryType)), "value")
+                          .addParameter(JSON_GENERATOR_CLASS_NAME, "generator")
+                          .addException(IOException.class);
+        if (toAttributeValue) {
+            builder.addStatement("generator.writeStartObject()")
+                .addStatement("generator.writeFieldName(\"M\")");
+        }
+        builder.addStatement("generator.writeStartObject()");
+        var formatParams = new HashMap<String, Object>();
+        for (var entry : attributes.entrySet()) {
+            var attributeName = entry.getKey();
+            var metadata = entry.getValue();
+            formatParams.clear();
+            var primitive = metadata.returnType.getKind().isPrimitive();
+            var varName = "v" + upcaseFirst(attributeName);
+            builder.addStatement("$T " + varName + " = value." + metadata.getterName + "()", TypeName.get(metadata.returnType));
+            if (attributeName.equals(partitionKeyAttribute) || attributeName.equals(sortKeyAttribute)) {
+                if (!primitive) {
+                    builder.beginControlFlow("if (" + varName + " == null)")
+                        .addStatement("throw new $T($S)", NullPointerException.class,
+                            "Null primary "
+                                + (attributeName.equals(partitionKeyAttribute) ? "partition" : "sort")
+                                + " key attribute \"" + attributeName + "\"")
+                        .endControlFlow();
+                }
+            } else if (!primitive) {
+                builder.beginControlFlow("if (" + buildPresentCondition(metadata, varName) + ")");
+            }
+            builder.addStatement("generator.writeFieldName($S)", attributeName);
+            var jsonType = getJsonScalarType(metadata);
+            if ("BOOL".equals(jsonType)) {
+                builder.addStatement("$T.writeBool(generator, " + varName + ")", JsonAttributeValues.class);
+            } else if ("N".equals(jsonType)) {
+                if (primitive) {
+                    builder.addStatement("$T.writeScalar(generator, \"N\", $T.toString(" + varName + "))",
+                        JsonAttributeValues.class, TypeName.get(metadata.returnType).box());
+                } else {
+                    builder.addStatement("$T.writeScalar(generator, \"N\", " + varName + ".toString())", JsonAttributeValues.class);
+                }
+            } else if ("S".equals(jsonType)) {
+                builder.addStatement("$T.writeScalar(generator, \"S\", " + varName + ")", JsonAttributeValues.class);
+            } else if (getJsonCodec(metadata) != null) {
+                builder.addStatement(getJsonCodec(metadata) + ".encodeJson(" + varName + ", generator)");
+            } else if (getJsonListHelper(metadata) != null) {
+                builder.addStatement(getJsonListHelper(metadata) + "(" + varName + ", generator)");
+            } else {
+                var classParam = "t" + ++paramNumber;
+                formatParams.put(classParam, JsonAttributeValues.class);
+                builder.addNamedCode("$" + classParam + ":T.write(generator, " + buildAttributeEncodeExpression(attributeName, varName, formatParams) + ");\n", formatParams);
+            }
+            if (!primitive && !attributeName.equals(partitionKeyAttribute) && !attributeName.equals(sortKeyAttribute)) {
+                builder.endControlFlow();
+            }
+        }
+        builder.addStatement("generator.writeEndObject()");
+        if (toAttributeValue) {
+            builder.addStatement("generator.writeEndObject()");
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the codec that writes an attribute for the JSON encoder.
+     * @param metadata The attribute
+     * @return The variable holding the codec, or null if the attribute is not a plain codec value
+     */
+    private String getJsonCodec(AttributeMetadata metadata) {
+        if ((metadata.compressor != null) || (metadata.blobStore != null) || (getLazyValueType(metadata.returnType) != metadata.returnType)) {
+            return null;
+        }
+        var codecClass = metadata.codecClass != null ? metadata.codecClass : findCodecClass(metadata.returnType);
+        return codecClass == null ? null : codecClassToCodecVar.get(codecClass);
+    }
+
+    /**
+     * Get the helper that writes a list for the JSON encoder, building it if needed. Lists of strings, numbers,
+     * booleans, enums, and nested items are written element by element. Packed lists are a single binary attribute, so
+     * they go through the attribute value like anything else.
+     * @param metadata The attribute
+     * @return The name of the helper, or null if the attribute is not a plain list of elements we can write
+     */
+    private String getJsonListHelper(AttributeMetadata metadata) {
+        if ((metadata.codecClass != null) || (metadata.compressor != null) || (metadata.blobStore != null)
+                || !types.isSubtype(metadata.returnType, listMirror) || (getLazyValueType(metadata.returnType) != metadata.returnType)) {
+            return null;
+        }
+        var elementType = ((DeclaredType)metadata.returnType).getTypeArguments().get(0);
+        var elementWrite = getJsonElementWrite(elementType);
+        if (elementWrite == null) {
+            return null;
+        }
+        var methodName = "encodeJsonListOf" + typeToIdentifier(elementType);
+        if (!helperMethods.containsKey(methodName)) {
+            var elementTypeName = TypeName.get(elementType);
+            // Indexing is cheapest, but only for random access lists, as in the other list encoders
+            helperMethods.put(methodName, MethodSpec.methodBuilder(methodName)
+                                              .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                              .addParameter(ParameterizedTypeName.get(ClassName.get(List.class), elementTypeName), "value")
+                                              .addParameter(JSON_GENERATOR_CLASS_NAME, "generator")
+                                              .addException(IOException.class)
+                                              .addStatement("generator.writeStartObject()")
+                                              .addStatement("generator.writeArrayFieldStart(\"L\")")
+                                              .beginControlFlow("if (value instanceof $T)", RandomAccess.class)
+                                              .beginControlFlow("for (int i = 0, size = value.size(); i < size; ++i)")
+                                              .addStatement("$T element = value.get(i)", elementTypeName)
+                                              .addStatement(elementWrite)
+                                              .endControlFlow()
+                                              .nextControlFlow("else")
+                                              .beginControlFlow("for ($T element : value)", elementTypeName)
+                                              .addStatement(elementWrite)
+                                              .endControlFlow()
+                                              .endControlFlow()
+                                              .addStatement("generator.writeEndArray()")
+                                              .addStatement("generator.writeEndObject()")
+                                              .build());
+        }
+        return methodName;
+    }
+
+    /**
+     * Get the statement that writes one list element named "element" for the JSON encoder.
+     * @param elementType The type of the element
+     * @return The statement, or null if the element needs an attribute value
+     */
+    private CodeBlock getJsonElementWrite(TypeMirror elementType) {
+        if (elementType.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        if (types.isSameType(elementType, stringMirror)) {
+            return CodeBlock.of("$T.writeScalar(generator, \"S\", element)", JsonAttributeValues.class);
+        } else if (types.isSubtype(elementType, enumMirror)) {
+            return CodeBlock.of("$T.writeScalar(generator, \"S\", element.name())", JsonAttributeValues.class);
+        } else if (elementType.equals(types.boxedClass(types.getPrimitiveType(TypeKind.BOOLEAN)).asType())) {
+            return CodeBlock.of("$T.writeBool(generator, element)", JsonAttributeValues.class);
+        } else if (boxedPrimitiveMirrors.contains(elementType)) {
+            return CodeBlock.of("$T.writeScalar(generator, \"N\", element.toString())", JsonAttributeValues.class);
+        }
+        var codecClass = findCodecClass(elementType);
+        if ((codecClass == null) || isPackedItem(elementType)) {
+            return null;
+        }
+        return CodeBlock.of("$L.encodeJson(element, generator)", codecClassToCodecVar.get(codecClass));
+    }
+
+    /**
+     * Build the decoder used by {@link StreamingReads}. Strings, numbers, and booleans are read straight from the
+     * tokens; everything else is read into an attribute value and decoded as usual. Without ignoreNulls, missing
+     * attributes must be set to null, which is easier from a map, so those tables (and lazy ones, which need the map)
+     * keep the default of decoding a map.
+     * @return The decoder
+     */
+    private MethodSpec buildJsonDecoder() throws TableException {
+        var entryTypeName = TypeName.get(types.getDeclaredType(entryType));
+        var builder = MethodSpec.methodBuilder("decodeJson")
+                          .addAnnotation(Override.class)
+                          .addModifiers(Modifier.PROTECTED, Modifier.FINAL)
+                          .addParameter(JSON_PARSER_CLASS_NAME, "parser")
+                          .addException(IOException.class)
+                          .returns(entryTypeName);
+        // With a creator, attributes that go to setters wait in their attribute values until the item exists
+        var pendingVars = new LinkedHashMap<String, String>();
+        if (creator == null) {
+            addConstruction(builder, "result");
+        } else {
+            addCreatorLocals(builder);
+            for (var attributeName : attributes.keySet()) {
+                if (!creatorLocals.containsKey(attributeName) && isDecoded(attributeName)) {
+                    var varName = "a" + upcaseFirst(attributeName.replaceAll("[^A-Za-z0-9_]", "_"));
+                    while (pendingVars.containsValue(varName)) {
+                        varName += "_";
+                    }
+                    pendingVars.put(attributeName, varName);
+                    builder.addStatement("$T " + varName + " = null", AttributeValue.class);
+                }
+            }
+        }
+        builder.beginControlFlow("while (parser.nextToken() == $T.FIELD_NAME)", JSON_TOKEN_CLASS_NAME)
+            .addStatement("$T name = parser.getCurrentName()", String.class)
+            .addStatement("parser.nextToken()")
+            .beginControlFlow("switch (name)");
+        var formatParams = new HashMap<String, Object>();
+        for (var entry : attributes.entrySet()) {
+            var attributeName = entry.getKey();
+            var metadata = entry.getValue();
+            if (!isDecoded(attributeName)) {
+                continue;
+            }
+            formatParams.clear();
+            builder.addCode("case $S: {\n$>", attributeName);
+            var jsonType = getJsonScalarType(metadata);
+            var target = creatorLocals.containsKey(attributeName) ? null : "result";
+            if (pendingVars.containsKey(attributeName)) {
+                builder.addStatement(pendingVars.get(attributeName) + " = $T.read(parser)", JsonAttributeValues.class);
+            } else if (jsonType != null) {
+                if (metadata.intern) {
+                    builder.addStatement("$T text = $T.readString(parser, " + getStringPool(metadata) + ")", String.class, JsonAttributeValues.class);
+                } else {
+                    builder.addStatement("$T text = $T.readScalar(parser, $S)", String.class, JsonAttributeValues.class, jsonType);
+                }
+                builder.beginControlFlow("if (text != null)")
+                    .addNamedCode(buildAssignment(target, attributeName, buildJsonScalarParse(metadata.returnType, formatParams)) + ";\n", formatParams)
+                    .endControlFlow();
+            } else {
+                builder.addStatement("$T attribute = $T.read(parser)", AttributeValue.class, JsonAttributeValues.class);
+                addAttributeDecode(builder, target, attributeName, "attribute", formatParams);
+            }
+            builder.addStatement("break")
+                .addCode("$<}\n");
+        }
+        builder.addCode("default:\n$>")
+            .addStatement("parser.skipChildren()$<")
+            .endControlFlow()
+            .endControlFlow();
+        if (creator != null) {
+            addConstruction(builder, "result");
+            for (var entry : pendingVars.entrySet()) {
+                formatParams.clear();
+                addAttributeDecode(builder, "result", entry.getKey(), entry.getValue(), formatParams);
+            }
+        }
+        return builder.addStatement("return result").build();
+    }
+
+    /**
+     * Get the wire type of attributes that the JSON decoder reads as text.
+     * @param metadata The attribute
+     * @return "S", "N", or "BOOL", or null if the attribute needs the full attribute value
+     */
+    private String getJsonScalarType(AttributeMetadata metadata) {
+        var type = metadata.returnType;
+        if ((metadata.codecClass != null) || (metadata.compressor != null) || (metadata.blobStore != null)) {
+            return null;
+        }
+        if (type.getKind() == TypeKind.BOOLEAN || type.equals(types.boxedClass(types.getPrimitiveType(TypeKind.BOOLEAN)).asType())) {
+            return "BOOL";
+        }
+        if (type.getKind().isPrimitive() || boxedPrimitiveMirrors.contains(type)) {
+            return "N";
+        }
+        return types.isSameType(type, stringMirror) ? "S" : null;
+    }
+
+    private String buildJsonScalarParse(TypeMirror type, Map<String, Object> formatData) {
+        if (types.isSameType(type, stringMirror)) {
+            return "text";
+        }
+        var typeId = "t" + ++paramNumber;
+        if (type.getKind().isPrimitive()) {
+            var boxed = types.boxedClass((PrimitiveType)type);
+            formatData.put(typeId, TypeName.get(boxed.asType()));
+            return "$" + typeId + ":T.parse" + upcaseFirst(type.getKind().name().toLowerCase()) + "(text)";
+        }
+        formatData.put(typeId, TypeName.get(type));
+        return "$" + typeId + ":T.valueOf(text)";
+    }
+
+    /**
+     * Add code to a decoder that copies each attribute from the map into its own local variable.
+     * <p>With only a few attributes, a map lookup per attribute is as cheap as anything. Otherwise the generated code
+     * walks the map once and switches on the attribute name, which costs one pass over the attributes actually present
+     * rather than one lookup per attribute declared. That wins for sparse items. Items that carry more attributes than
+     * we declare (written by some other program, perhaps) fall back to the lookups, since walking them would cost more.
+     * Write only attributes are never read, so they get no local.
+     * @param builder The decoder being built
+     * @return The local variable holding each decoded attribute
+     */
+    private Map<String, String> buildDecoderLocals(MethodSpec.Builder builder) {
+        var localVars = new HashMap<String, String>();
+        var usedNames = new HashSet<String>();
+        for (var attributeName : attributes.keySet()) {
+            if (!isDecoded(attributeName)) {
+                continue;
+            }
+            // Prepend an "a" to make sure it is not a reserved word or the name "map", "value", or "result"
+            var varName = "a" + upcaseFirst(attributeName.replaceAll("[^A-Za-z0-9_]", "_"));
+            while (!usedNames.add(varName)) {
+                varName += "_";
+            }
+            localVars.put(attributeName, varName);
+        }
+        if (localVars.size() < SINGLE_PASS_MIN_ATTRIBUTES) {
+            for (var entry : localVars.entrySet()) {
+                builder.addStatement("$T " + entry.getValue() + " = map.get($S)", AttributeValue.class, entry.getKey());
+            }
+            return localVars;
+        }
+        for (var varName : localVars.values()) {
+            builder.addStatement("$T " + varName + " = null", AttributeValue.class);
+        }
+        builder.beginControlFlow("if (map.size() <= $L)", attributes.size())
+            .beginControlFlow("for ($T entry : map.entrySet())",
+                ParameterizedTypeName.get(ClassName.get(Map.Entry.class), STRING_CLASS_NAME, ATTRIBUTE_VALUE_CLASS_NAME))
+            .beginControlFlow("switch (entry.getKey())");
+        for (var entry : localVars.entrySet()) {
+            builder.addCode("case $S:\n", entry.getKey())
+                .addStatement("$>" + entry.getValue() + " = entry.getValue()")
+                .addStatement("break$<");
+        }
+        builder.endControlFlow()
+            .endControlFlow()
+            .nextControlFlow("else");
+        for (var entry : localVars.entrySet()) {
+            builder.addStatement(entry.getValue() + " = map.get($S)", entry.getKey());
+        }
+        builder.endControlFlow();
+        return localVars;
+    }
+
+    private MethodSpec buildGetExclusiveStart(String... secondaryKeys) throws TableException {
+        var builder = MethodSpec.methodBuilder("getExclusiveStart")
+                          .addAnnotation(Override.class)
+                          .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                          .addParameter(TypeName.get(types.getDeclaredType(entryType)), "value")
+                          .returns(TypeName.get(dynamoMapMirror));
+        var formatParams = new HashMap<String, Object>();
+        if ((sortKeyAttribute) == null && (secondaryKeys.length == 0)) {
+            formatParams.put("collections", Collections.class);
+            formatParams.put("param", partitionKeyAttribute);
+            builder.addNamedCode("return $collections:T.singletonMap($param:S, "
+                                     + buildAttributeEncodeExpression(partitionKeyAttribute, null, formatParams)
+                                     + ");\n", formatParams);
+        } else {
+            var keys = new HashSet<String>();
+            keys.add(partitionKeyAttribute);
+            if (sortKeyAttribute != null) {
+                keys.add(sortKeyAttribute);
+            }
+            Collections.addAll(keys, secondaryKeys);
+            formatParams.put("map", Map.class);
+            formatParams.put("param", partitionKeyAttribute);
+            formatParams.put("sort", sortKeyAttribute);
+            var template = new StringBuilder("return $map:T.of(");
+            var first = true;
+            for (var key: keys) {
+                var param = "v" + ++paramNumber;
+                if (first) {
+                    first = false;
+                } else {
+                    template.append(", ");
+                }
+                formatParams.put(param, key);
+                template.append("$").append(param).append(":S, ")
+                    .append(buildAttributeEncodeExpression(key, null, formatParams));
+            }
+            builder.addNamedCode(template.append(");\n").toString(), formatParams);
+        }
+        return builder.build();
+    }
+
+    private MethodSpec buildGetIndex() {
+        var partitionT = TypeVariableName.get("IndexPartitionT");
+        var sortT = TypeVariableName.get("IndexSortT");
+        var builder = MethodSpec.methodBuilder("getIndex")
+                          .addModifiers(Modifier.PUBLIC)
+                          .addAnnotation(Override.class)
+                          .addTypeVariable(partitionT)
+                          .addTypeVariable(sortT)
+                          .returns(ParameterizedTypeName.get(ClassName.get(DynamoIndex.class), TypeName.get(entryType.asType()), partitionT, sortT))
+                          .addParameter(String.class, "name")
+                          .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), partitionT), "partitionClass")
+                          .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), sortT), "sortClass");
+        switch (indexes.size()) {
+            case 0:
+                return builder.addStatement("throw new $T($S)", UnsupportedOperationException.class,
+                    "Class " + entryType.getSimpleName() + " has no secondary indexes. Maybe you are missing @"
+                        + DynamoSecondaryPartitionKey.class.getSimpleName() + " annotations").build();
+            case 1:
+                var entry = indexes.entrySet().iterator().next();
+                var partitionType = getKeyType(entry.getValue().getPartitonAttribute());
+                var sortType = getKeyType(entry.getValue().getSortAttribute());
+                return builder.beginControlFlow("if (name.equals($S))", entry.getKey())
+                           .beginControlFlow("if ((partitionClass == $T.class) && (sortClass == $T.class))", partitionType, sortType)
+                           .addStatement("return (DynamoIndex<$T, IndexPartitionT, IndexSortT>)" + "get" + upcaseFirst(entry.getKey()) + "Index()", entryType)
+                           .nextControlFlow("else")
+                           .addStatement("throw new $T($S + partitionClass.getSimpleName() + $S + sortClass.getSimpleName())",
+                               IllegalArgumentException.class, "Incorrect key types for index " + entry.getKey() + ", expected: "
+                                                                   + (partitionType.getKind().isPrimitive()
+                                                                      ? partitionType.toString()
+                                                                      : ((DeclaredType)partitionType).asElement().getSimpleName())
+                                                                   + " and "
+                                                                   + (sortType.getKind().isPrimitive()
+                                                                      ? sortType.toString()
+                                                                      : ((DeclaredType)sortType).asElement().getSimpleName()) + ", got: ",
+                               " and ")
+                           .endControlFlow()
+                           .nextControlFlow("else")
+                           .addStatement("throw new $T($S + name)", IllegalArgumentException.class, "Unknown index: ")
+                           .endControlFlow()
+                           .build();
+            default:
+                builder.addStatement("$T expectedPartitionClass", ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)))
+                    .addStatement("$T expectedSortClass", ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)))
+                    .addStatement("$T index", ParameterizedTypeName.get(ClassName.get(DynamoIndex.class),
+                        WildcardTypeName.subtypeOf(Object.class), WildcardTypeName.subtypeOf(Object.class)))
+                    .beginControlFlow("switch(name)");
+                for (var indexName : indexes.keySet()) {
+                    var metadata = indexes.get(indexName);
+                    builder.addCode("case($S):\n", indexName)
+                        .addStatement("$>expectedPartitionClass = $T.class", indexName, attributes.get(metadata.partitonAttribute).returnType)
+                        .addStatement("expectedSortClass = $T.class", attributes.get(metadata.sortAttribute).returnType)
+                        .addStatement("index = " + "get" + upcaseFirst(indexName) + "()")
+                        .addStatement("break");
+                }
+                builder.addCode("default:\n")
+                    .addStatement("throw new $T($S + name)", IllegalArgumentException.class,
+                        "Unknown index name: ");
+                builder.endControlFlow();
+                builder.beginControlFlow("if ((expectedPartitionClass != partitionClass) || (expectedSortClass != sortClass))")
+                    .addStatement("throw new $T($S + name + $S + expectedPartitionClass.getSimpleName() + $S + expectedSortClass.getSimpleName() + $S + partitionClass.getSimpleName() + $S + sortClass.getSimpleName())",
+                        IllegalArgumentException.class, "Incorrect key types for index ", ", expected: ", " and ", ", got: ", " and ")
+                    .endControlFlow();
+                builder.addStatement("return null");
+                return builder.build();
+        }
+    }
+
+    /**
+     * Turn an index name into the name of a class. Replace illegal java class name characters with underscores, upcase
+     * the first character, and append the word "Index" at the end.
+     * @param indexName The name of the index
+     * @return An inner class name.
+     */
+    private String indexNameToClassName(String indexName) {
+        if (Character.isDigit(indexName.charAt(0))) {
+            indexName = "n" + indexName;  // Prepend a "n" so we don't start with a digit.
+        }
+        return upcaseFirst(indexName.replace('.', '_').replace('-', '_')) + "Index";
+    }
+
+    /**
+     * Turn an index name into the name of the table field that holds the index.
+     * @param indexName The name of the index
+     * @return A field name.
+     */
+    private String indexNameToFieldName(String indexName) {
+        var className = indexNameToClassName(indexName);
+        return Character.toLowerCase(className.charAt(0)) + className.substring(1);
+    }
+
+    private String upcaseFirst(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
     }
 
     private String buildAttributeEncodeExpression(String attributeName, String valueVar, Map<String, Object> formatData) throws TableException {
@@ -636,24 +1630,127 @@ public class TableWriter {
         if (valueVar == null) {
             valueVar = "value." + metadata.getterName + "()";
         }
-        return buildAttributeEncodeExpression(valueVar, metadata.codecClass, metadata.returnType, formatData);
+        var valueType = getLazyValueType(metadata.returnType);
+        var isLazy = valueType != metadata.returnType;
+        // Lambda parameters may not shadow locals, so this name must not be used by anything else in generated methods
+        var expression = buildAttributeEncodeExpression(isLazy ? "lazyValue" : valueVar, metadata.codecClass, valueType,
+            metadata.zeroCopy, formatData);
+        if (metadata.compressor != null) {
+            var compressionId = "t" + ++paramNumber;
+            formatData.put(compressionId, Compression.class);
+            expression = "$" + compressionId + ":T.compress(" + expression + ", " + getCompressor(metadata.compressor) + ", "
+                             + metadata.compressAbove + ")";
+        }
+        if (metadata.blobStore != null) {
+            var offloadingId = "t" + ++paramNumber;
+            var storeId = "s" + ++paramNumber;
+            formatData.put(offloadingId, Offloading.class);
+            formatData.put(storeId, metadata.blobStore);
+            expression = "$" + offloadingId + ":T.offload(" + expression + ", $" + storeId + ":S, " + metadata.offloadAbove + ")";
+        }
+        if (isLazy) {
+            var lazyId = "t" + ++paramNumber;
+            formatData.put(lazyId, Lazy.class);
+            expression = "$" + lazyId + ":T.encode(" + valueVar + ", lazyValue -> " + expression + ")";
+        }
+        return expression;
+    }
+
+    /**
+     * Build the expression that decodes an attribute of the item, including any blob fetching, decompression, and lazy
+     * loading.
+     * @param attributeName The attribute
+     * @param valueVar The expression holding the attribute value
+     * @param formatData The named parameters of the expression
+     * @return The expression
+     */
+    private String buildAttributeDecodeExpression(String attributeName, String valueVar, Map<String, Object> formatData) throws TableException {
+        var metadata = attributes.get(attributeName);
+        var valueType = getLazyValueType(metadata.returnType);
+        var isLazy = valueType != metadata.returnType;
+        var source = isLazy ? "lazyValue" : valueVar;
+        if (metadata.blobStore != null) {
+            var offloadingId = "t" + ++paramNumber;
+            var storeId = "s" + ++paramNumber;
+            formatData.put(offloadingId, Offloading.class);
+            formatData.put(storeId, metadata.blobStore);
+            source = "$" + offloadingId + ":T.fetch(" + source + ", $" + storeId + ":S)";
+        }
+        if (metadata.compressor != null) {
+            var compressionId = "t" + ++paramNumber;
+            formatData.put(compressionId, Compression.class);
+            source = "$" + compressionId + ":T.decompress(" + source + ", " + getCompressor(metadata.compressor) + ")";
+        }
+        var expression = buildAttributeDecodeExpression(source, metadata.codecClass, valueType, metadata.zeroCopy, formatData);
+        if (metadata.intern) {
+            expression = getStringPool(metadata) + ".intern(" + expression + ")";
+        }
+        if (isLazy) {
+            var lazyId = "t" + ++paramNumber;
+            formatData.put(lazyId, Lazy.class);
+            expression = "$" + lazyId + ":T.decoding(" + valueVar + ", lazyValue -> " + expression + ")";
+        }
+        return expression;
+    }
+
+    /**
+     * Get the type of value held by an attribute: the type argument of {@code Lazy} attributes, or the attribute's own
+     * type for all others.
+     * @param attributeType The type of the attribute
+     * @return The type of the value
+     */
+    private TypeMirror getLazyValueType(TypeMirror attributeType) {
+        if ((attributeType.getKind() == TypeKind.DECLARED) && types.isSubtype(types.erasure(attributeType), types.erasure(lazyMirror))) {
+            return ((DeclaredType)attributeType).getTypeArguments().get(0);
+        }
+        return attributeType;
+    }
+
+    /**
+     * Get the name of the generated constant holding the string pool of an interned attribute, generating it if this is
+     * the first use. Each attribute has its own pool, so that one with many values cannot push out another's.
+     * @param metadata The attribute
+     * @return The name of the field
+     */
+    private String getStringPool(AttributeMetadata metadata) {
+        var fieldName = toConstantName(metadata.propertyName) + "_POOL";
+        helperFields.computeIfAbsent(fieldName, name -> FieldSpec.builder(StringPool.class, name,
+            Modifier.PRIVATE, Modifier.FINAL, Modifier.STATIC)
+                                                            .initializer("new $T()", StringPool.class)
+                                                            .build());
+        return fieldName;
+    }
+
+    /**
+     * Get the name of the generated constant holding a compressor, generating it if this is the first use.
+     * @param compressorClass The compressor class
+     * @return The name of the field
+     */
+    private String getCompressor(TypeName compressorClass) {
+        var fieldName = toConstantName(((ClassName)compressorClass).simpleName());
+        helperFields.computeIfAbsent(fieldName, name -> FieldSpec.builder(compressorClass, name,
+            Modifier.PRIVATE, Modifier.FINAL, Modifier.STATIC)
+                                                            .initializer("new $T()", compressorClass)
+                                                            .build());
+        return fieldName;
     }
 
-    private String buildAttributeEncodeExpression(String valueVar, TypeName codecClass, TypeMirror returnType, Map<String, Object> formatData)
-    throws TableException {
+    private String buildAttributeEncodeExpression(String valueVar, TypeName codecClass, TypeMirror returnType, boolean zeroCopy,
+                                                  Map<String, Object> formatData) throws TableException {
         if (codecClass == null) {
             var avId = "t" + ++paramNumber;
             var typeId = "t" + ++paramNumber;
             formatData.put(avId, AttributeValue.class);
             switch (returnType.getKind()) {
                 case INT:
-                    formatData.put(typeId, Integer.class);
-                    return "$" + avId + ":T.builder().n($" + typeId + ":T.toString(" + valueVar + ")).build()";
                 case LONG:
-                    formatData.put(typeId, Long.class);
-                    return "$" + avId + ":T.builder().n($" + typeId + ":T.toString(" + valueVar + ")).build()";
                 case BYTE:
-                    formatData.put(typeId, Byte.class);
+                case SHORT:
+                    if (cacheSmallNumbers) {
+                        formatData.put(typeId, DynamoCodec.class);
+                        return "$" + typeId + ":T.number(" + valueVar + ")";
+                    }
+                    formatData.put(typeId, TypeName.get(returnType).box());
                     return "$" + avId + ":T.builder().n($" + typeId + ":T.toString(" + valueVar + ")).build()";
                 case FLOAT:
                     formatData.put(typeId, Float.class);
@@ -661,11 +1758,16 @@ public class TableWriter {
                 case DOUBLE:
                     formatData.put(typeId, Double.class);
                     return "$" + avId + ":T.builder().n($" + typeId + ":T.toString(" + valueVar + ")).build()";
-                case SHORT:
-                    formatData.put(typeId, Short.class);
-                    return "$" + avId + ":T.builder().n($" + typeId + ":T.toString(" + valueVar + ")).build()";
                 case BOOLEAN:
-                    return "$" + avId + ":T.builder().bool(" + valueVar + ").build()";
+                    formatData.put(typeId, DynamoCodec.class);
+                    return "$" + typeId + ":T.bool(" + valueVar + ")";
+                case ARRAY:
+                    if (!isByteArray(returnType)) {
+                        throw new TableException("Don't know how to encode array " + returnType);
+                    }
+                    // Without zero copy the item may change the array after encoding, so it must be copied
+                    formatData.put(typeId, SdkBytes.class);
+                    return "$" + avId + ":T.builder().b($" + typeId + ":T." + (zeroCopy ? "fromByteArrayUnsafe" : "fromByteArray") + "(" + valueVar + ")).build()";
                 case DECLARED:
                     break;
                 default:
@@ -673,20 +1775,30 @@ public class TableWriter {
             }
             if (types.isSameType(returnType, stringMirror)) {
                 return "$" + avId + ":T.builder().s(" + valueVar + ").build()";
+            } else if (isClass(returnType, SdkBytes.class)) {
+                // Already immutable, so it never needs a copy
+                return "$" + avId + ":T.builder().b(" + valueVar + ").build()";
+            } else if (isClass(returnType, ByteBuffer.class)) {
+                if (zeroCopy) {
+                    formatData.put(typeId, DynamoCodec.class);
+                    return "$" + avId + ":T.builder().b($" + typeId + ":T.wrapBytes(" + valueVar + ")).build()";
+                }
+                formatData.put(typeId, SdkBytes.class);
+                return "$" + avId + ":T.builder().b($" + typeId + ":T.fromByteBuffer(" + valueVar + ")).build()";
             } else if (types.isSubtype(returnType, listMirror) || types.isSubtype(returnType, setMirror)) {
-                var innerType = ((DeclaredType)returnType).getTypeArguments().get(0);
-                var tmpVar = "t" + ++paramNumber;
-                var collectors = "t" + ++paramNumber;
-                formatData.put(collectors, Collectors.class);
-                return "$" + avId + ":T.builder().l(" + valueVar + ".stream()"
-                           + ".map(" + tmpVar + " -> " + buildAttributeEncodeExpression(tmpVar, null, innerType, formatData) + ")"
-                           + ".collect($" + collectors + ":T.toList())).build()";
+                return getCollectionHelper(true, (DeclaredType)returnType) + "(" + valueVar + ")";
             } else if (types.isSubtype(returnType, enumMirror)) {
-                return "$" + avId + ":T.builder().s(" + valueVar + ".name()).build()";
+                return getEnumValues((DeclaredType)returnType) + "[" + valueVar + ".ordinal()]";
             } else if (returnType.equals(types.boxedClass(types.getPrimitiveType(TypeKind.BOOLEAN)).asType())) {
-                return "$" + avId + ":T.builder().bool(" + valueVar + ").build()";
+                formatData.put(typeId, DynamoCodec.class);
+                return "$" + typeId + ":T.bool(" + valueVar + ")";
             } else if (boxedPrimitiveMirrors.contains(returnType)) {
                 // boolean is in here too, but we check that first
+                var unboxedKind = types.unboxedType(returnType).getKind();
+                if (cacheSmallNumbers && (unboxedKind != TypeKind.FLOAT) && (unboxedKind != TypeKind.DOUBLE)) {
+                    formatData.put(typeId, DynamoCodec.class);
+                    return "$" + typeId + ":T.number(" + valueVar + ")";
+                }
                 return "$" + avId + ":T.builder().n(" + valueVar + ".toString()).build()";
             } else {
                 // See if we can find a codec for this class. Otherwise we can't encode it.
@@ -703,8 +1815,8 @@ public class TableWriter {
         }
     }
 
-    private String buildAttributeDecodeExpression(String valueVar, TypeName codecClass, TypeMirror returnType, Map<String, Object> formatData)
-        throws TableException {
+    private String buildAttributeDecodeExpression(String valueVar, TypeName codecClass, TypeMirror returnType, boolean zeroCopy,
+                                                  Map<String, Object> formatData) throws TableException {
         if (codecClass == null) {
             var typeId = "t" + ++paramNumber;
             switch (returnType.getKind()) {
@@ -727,7 +1839,13 @@ public class TableWriter {
                     formatData.put(typeId, Short.class);
                     return "$" + typeId + ":T.parseShort(" + valueVar + ".n())";
                 case BOOLEAN:
-                    return "valueVar.bool()";
+                    return valueVar + ".bool()";
+                case ARRAY:
+                    if (!isByteArray(returnType)) {
+                        throw new TableException("Don't know how to decode array " + returnType);
+                    }
+                    // The SDK never hands its arrays to anyone else, so with zero copy we may take it for ourselves
+                    return valueVar + ".b()." + (zeroCopy ? "asByteArrayUnsafe" : "asByteArray") + "()";
                 case DECLARED:
                     break;
                 default:
@@ -735,18 +1853,21 @@ public class TableWriter {
             }
             if (types.isSameType(returnType, stringMirror)) {
                 return valueVar + ".s()";
+            } else if (isClass(returnType, SdkBytes.class)) {
+                return valueVar + ".b()";
+            } else if (isClass(returnType, ByteBuffer.class)) {
+                // A read only view of the bytes, which is safe to share without a copy
+                return valueVar + ".b().asByteBuffer()";
             } else if (types.isSubtype(returnType, listMirror) || types.isSubtype(returnType, setMirror)) {
-                var collectorFunc = (types.isSubtype(returnType, listMirror) ? "toList" : "toSet");
-                var innerType = ((DeclaredType)returnType).getTypeArguments().get(0);
-                var tmpVar = "t" + ++paramNumber;
-                var collectors = "t" + ++paramNumber;
-                formatData.put(collectors, Collectors.class);
-                return valueVar + ".l().stream()"
-                           + ".map(" + tmpVar + " -> " + buildAttributeDecodeExpression(tmpVar, null, innerType, formatData) + ")"
-                           + ".collect($" + collectors + ":T." + collectorFunc + "())";
-            } else if (types.isSubtype(returnType, enumMirror) || boxedPrimitiveMirrors.contains(returnType)) {
+                return getCollectionHelper(false, (DeclaredType)returnType) + "(" + valueVar + ")";
+            } else if (types.isSubtype(returnType, enumMirror)) {
+                return getEnumDecoder((DeclaredType)returnType) + "(" + valueVar + ")";
+            } else if (returnType.equals(types.boxedClass(types.getPrimitiveType(TypeKind.BOOLEAN)).asType())) {
+                return valueVar + ".bool()";
+            } else if (boxedPrimitiveMirrors.contains(returnType)) {
+                // Numbers are encoded as "n" attributes, so they must be decoded from the same
                 formatData.put(typeId, returnType);
-                return "$" + typeId + ":T.valueOf(" + valueVar + ".s())";
+                return "$" + typeId + ":T.valueOf(" + valueVar + ".n())";
             } else {
                 // See if we can find a codec for this class. Otherwise we can't decode it.
                 codecClass = findCodecClass(returnType);
@@ -762,7 +1883,887 @@ public class TableWriter {
         }
     }
 
+    /**
+     * Get the name of a generated method that encodes or decodes a collection, generating it if this is the first use.
+     * These are plain loops into presized collections; streams cost a lambda, a pipeline, and repeated growth of the
+     * result for every item, which dominated the allocation of collection heavy items.
+     * @param encode True for the encoder, false for the decoder
+     * @param collectionType The List or Set type
+     * @return The name of the method
+     */
+    private String getCollectionHelper(boolean encode, DeclaredType collectionType) throws TableException {
+        var isList = types.isSubtype(collectionType, listMirror);
+        var elementType = collectionType.getTypeArguments().get(0);
+        var nativeSetKind = isList ? null : getNativeSetKind(elementType);
+        var methodName = (encode ? "encode" : "decode") + (isList ? "List" : "Set") + "Of" + typeToIdentifier(elementType);
+        if (helperMethods.containsKey(methodName)) {
+            return methodName;
+        }
+        helperMethods.put(methodName, null); // Reserve the name while we build
+        var elementTypeName = TypeName.get(elementType);
+        var builder = MethodSpec.methodBuilder(methodName)
+                          .addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        var formatParams = new HashMap<String, Object>();
+        if (encode) {
+            var collectionTypeName = ParameterizedTypeName.get(ClassName.get(isList ? List.class : Set.class), elementTypeName);
+            // Dynamo does not allow empty native sets, so empty sets are always written as empty lists
+            builder.addParameter(collectionTypeName, "value")
+                .returns(AttributeValue.class)
+                .addStatement("int size = value.size()")
+                .beginControlFlow("if (size == 0)")
+                .addStatement("return $T.EMPTY_LIST_ATTRIBUTE_VALUE", DynamoCodec.class)
+                .endControlFlow();
+            if ((nativeSetKind != null) && nativeSets) {
+                buildNativeSetEncoder(builder, nativeSetKind, elementType, elementTypeName);
+                helperMethods.put(methodName, builder.build());
+                return methodName;
+            } else if (isPackedItem(elementType)) {
+                builder.addStatement("return " + codecClassToCodecVar.get(findCodecClass(elementType)) + ".encodePacked(value)");
+                helperMethods.put(methodName, builder.build());
+                return methodName;
+            }
+            builder.addStatement("$T list = new $T<>(size)", ParameterizedTypeName.get(ClassName.get(List.class), ATTRIBUTE_VALUE_CLASS_NAME), ArrayList.class);
+            var elementExpression = buildAttributeEncodeExpression("element", null, elementType, false, formatParams);
+            if (isList) {
+                // Indexing is cheapest, but only for random access lists. Linked lists would be quadratic.
+                builder.beginControlFlow("if (value instanceof $T)", RandomAccess.class)
+                    .beginControlFlow("for (int i = 0; i < size; ++i)")
+                    .addStatement("$T element = value.get(i)", elementTypeName)
+                    .addNamedCode("list.add(" + elementExpression + ");\n", formatParams)
+                    .endControlFlow()
+                    .nextControlFlow("else");
+            }
+            builder.beginControlFlow("for ($T element : value)", elementTypeName)
+                .addNamedCode("list.add(" + elementExpression + ");\n", formatParams)
+                .endControlFlow();
+            if (isList) {
+                builder.endControlFlow();
+            }
+            builder.addStatement("return $T.builder().l(list).build()", AttributeValue.class);
+        } else {
+            var elementExpression = buildAttributeDecodeExpression("list.get(i)", null, elementType, false, formatParams);
+            builder.addParameter(AttributeValue.class, "value");
+            if (nativeSetKind != null) {
+                // Whatever we write, we read native sets and lists both, so that the nativeSets switch can be flipped
+                buildNativeSetDecoder(builder, nativeSetKind, elementType, elementTypeName);
+            } else if (isPackedItem(elementType)) {
+                // Likewise packed collections and lists of maps are both read, so that packing can be turned on and off
+                var codecVar = codecClassToCodecVar.get(findCodecClass(elementType));
+                builder.beginControlFlow("if ($T.isPacked(value))", Packed.class);
+                if (isList) {
+                    builder.addStatement("return " + codecVar + ".decodePacked(value, $T::new)", ArrayList.class);
+                } else {
+                    builder.addStatement("return " + codecVar + ".decodePacked(value, size -> new $T<>(size * 4 / 3 + 1))", HashSet.class);
+                }
+                builder.endControlFlow();
+            }
+            builder.addStatement("$T list = value.l()", ParameterizedTypeName.get(ClassName.get(List.class), ATTRIBUTE_VALUE_CLASS_NAME))
+                .addStatement("int size = list.size()");
+            if (isList) {
+                builder.returns(ParameterizedTypeName.get(ClassName.get(List.class), elementTypeName))
+                    .addStatement("$T result = new $T<>(size)", ParameterizedTypeName.get(ClassName.get(List.class), elementTypeName), ArrayList.class);
+            } else if (types.isSubtype(elementType, enumMirror)) {
+                builder.returns(ParameterizedTypeName.get(ClassName.get(Set.class), elementTypeName))
+                    .addStatement("$T result = $T.noneOf($T.class)", ParameterizedTypeName.get(ClassName.get(Set.class), elementTypeName), EnumSet.class, elementTypeName);
+            } else {
+                builder.returns(ParameterizedTypeName.get(ClassName.get(Set.class), elementTypeName))
+                    .addStatement("$T result = new $T<>(size * 4 / 3 + 1)", ParameterizedTypeName.get(ClassName.get(Set.class), elementTypeName), HashSet.class);
+            }
+            // Lists from the SDK are always random access
+            builder.beginControlFlow("for (int i = 0; i < size; ++i)")
+                .addNamedCode("result.add(" + elementExpression + ");\n", formatParams)
+                .endControlFlow()
+                .addStatement("return result");
+        }
+        helperMethods.put(methodName, builder.build());
+        return methodName;
+    }
+
+    /**
+     * Check whether collections of a type are written packed.
+     * @param type The type of the collection elements
+     * @return True if the type is an item with a packed codec
+     */
+    private boolean isPackedItem(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        var itemAnnotation = ((DeclaredType)type).asElement().getAnnotation(DynamoItem.class);
+        return (itemAnnotation != null) && itemAnnotation.packed()
+               && Arrays.asList(itemAnnotation.value()).contains(DynamoItem.Output.CODEC);
+    }
+
+    /**
+     * Get the packed type code of an attribute. Attributes without a compact form of their own are written as the
+     * binary form of their encoded attribute value, so anything that can be encoded can be packed.
+     * @param metadata The attribute
+     * @return The type code from {@link Packed}, without {@link Packed#NULLABLE}
+     */
+    private int getPackedType(AttributeMetadata metadata) {
+        var type = metadata.returnType;
+        if ((metadata.codecClass != null) || (metadata.compressor != null) || (metadata.blobStore != null)) {
+            return Packed.TYPE_VALUE;
+        }
+        if (type.getKind().isPrimitive() || boxedPrimitiveMirrors.contains(type)) {
+            switch (type.getKind().isPrimitive() ? type.getKind() : types.unboxedType(type).getKind()) {
+                case FLOAT:
+                    return Packed.TYPE_FLOAT;
+                case DOUBLE:
+                    return Packed.TYPE_DOUBLE;
+                case BOOLEAN:
+                    return Packed.TYPE_BOOLEAN;
+                default:
+                    return Packed.TYPE_VARINT;
+            }
+        } else if (types.isSameType(type, stringMirror)) {
+            return Packed.TYPE_STRING;
+        } else if (types.isSubtype(type, enumMirror)) {
+            return Packed.TYPE_ENUM;
+        } else if (isByteArray(type) || isClass(type, SdkBytes.class)) {
+            return Packed.TYPE_BYTES;
+        }
+        return Packed.TYPE_VALUE;
+    }
+
+    private static String getPackedTypeConstant(int packedType) {
+        switch (packedType) {
+            case Packed.TYPE_VARINT:
+                return "TYPE_VARINT";
+            case Packed.TYPE_FLOAT:
+                return "TYPE_FLOAT";
+            case Packed.TYPE_DOUBLE:
+                return "TYPE_DOUBLE";
+            case Packed.TYPE_BOOLEAN:
+                return "TYPE_BOOLEAN";
+            case Packed.TYPE_STRING:
+                return "TYPE_STRING";
+            case Packed.TYPE_ENUM:
+                return "TYPE_ENUM";
+            case Packed.TYPE_BYTES:
+                return "TYPE_BYTES";
+            default:
+                return "TYPE_VALUE";
+        }
+    }
+
+    /**
+     * Build the method of a packed codec that writes a whole collection of items as one attribute.
+     */
+    private MethodSpec buildPackedEncoder() throws TableException {
+        var entryTypeName = TypeName.get(types.getDeclaredType(entryType));
+        var attributeNames = new ArrayList<>(new TreeSet<>(attributes.keySet()));
+        var builder = MethodSpec.methodBuilder("encodePacked")
+                          .addJavadoc("Encode a collection of items as one packed binary attribute.\n")
+                          .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                          .addParameter(ParameterizedTypeName.get(ClassName.get(Collection.class), entryTypeName), "values")
+                          .returns(AttributeValue.class)
+                          .addStatement("$T writer = new $T(values.size() * $L + 64, $L)", PackedWriter.class, PackedWriter.class,
+                              attributeNames.size() * 8, attributeNames.size());
+        for (var attributeName : attributeNames) {
+            var metadata = attributes.get(attributeName);
+            var packedType = getPackedType(metadata);
+            var nullable = !metadata.returnType.getKind().isPrimitive();
+            if (packedType == Packed.TYPE_ENUM) {
+                builder.addStatement("writer.writeEnumField($S, $L, $L)", attributeName, nullable,
+                    getEnumValues((DeclaredType)metadata.returnType));
+            } else if (nullable) {
+                builder.addStatement("writer.writeField($S, $T.$L | $T.NULLABLE)", attributeName, Packed.class,
+                    getPackedTypeConstant(packedType), Packed.class);
+            } else {
+                builder.addStatement("writer.writeField($S, $T.$L)", attributeName, Packed.class, getPackedTypeConstant(packedType));
+            }
+        }
+        builder.addStatement("writer.writeVarint(values.size())")
+            .beginControlFlow("for ($T value : values)", entryTypeName)
+            .beginControlFlow("if (value == null)")
+            .addStatement("throw new $T($S)", NullPointerException.class,
+                "Packed collections of " + entryType.getSimpleName() + " cannot hold null items")
+            .endControlFlow();
+        var formatParams = new HashMap<String, Object>();
+        for (int i = 0; i < attributeNames.size(); ++i) {
+            var attributeName = attributeNames.get(i);
+            var metadata = attributes.get(attributeName);
+            var packedType = getPackedType(metadata);
+            formatParams.clear();
+            if (metadata.returnType.getKind().isPrimitive()) {
+                builder.addNamedCode(buildPackedWrite(attributeName, "value." + metadata.getterName + "()", packedType, formatParams) + ";\n",
+                    formatParams);
+            } else {
+                var varName = "field" + i;
+                builder.addStatement("$T " + varName + " = value." + metadata.getterName + "()", TypeName.get(metadata.returnType))
+                    .beginControlFlow("if (" + varName + " == null)")
+                    .addStatement("writer.writeNull()")
+                    .nextControlFlow("else")
+                    .addStatement("writer.writePresent()")
+                    .addNamedCode(buildPackedWrite(attributeName, varName, packedType, formatParams) + ";\n", formatParams)
+                    .endControlFlow();
+            }
+        }
+        return builder.endControlFlow()
+                   .addStatement("return writer.toAttributeValue()")
+                   .build();
+    }
+
+    private String buildPackedWrite(String attributeName, String valueVar, int packedType, Map<String, Object> formatData) throws TableException {
+        switch (packedType) {
+            case Packed.TYPE_VARINT:
+                return "writer.writeLong(" + valueVar + ")";
+            case Packed.TYPE_FLOAT:
+                return "writer.writeFloat(" + valueVar + ")";
+            case Packed.TYPE_DOUBLE:
+                return "writer.writeDouble(" + valueVar + ")";
+            case Packed.TYPE_BOOLEAN:
+                return "writer.writeBoolean(" + valueVar + ")";
+            case Packed.TYPE_STRING:
+                return "writer.writeString(" + valueVar + ")";
+            case Packed.TYPE_ENUM:
+                return "writer.writeEnum(" + valueVar + ")";
+            case Packed.TYPE_BYTES:
+                return "writer.writeBytes(" + valueVar + (isByteArray(attributes.get(attributeName).returnType) ? "" : ".asByteArrayUnsafe()") + ")";
+            default:
+                return "writer.writeValue(" + buildAttributeEncodeExpression(attributeName, valueVar, formatData) + ")";
+        }
+    }
+
+    /**
+     * Build the method of a packed codec that reads a collection written by the packed encoder. Fields are matched by
+     * name, so that fields can be added and removed over time.
+     */
+    private MethodSpec buildPackedDecoder() throws TableException {
+        var entryTypeName = TypeName.get(types.getDeclaredType(entryType));
+        var attributeNames = new ArrayList<>(new TreeSet<>(attributes.keySet()));
+        var collectionType = TypeVariableName.get("C", ParameterizedTypeName.get(ClassName.get(Collection.class),
+            WildcardTypeName.supertypeOf(entryTypeName)));
+        var builder = MethodSpec.methodBuilder("decodePacked")
+                          .addJavadoc("Decode a collection written by {@link #encodePacked}.\n")
+                          .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                          .addTypeVariable(collectionType)
+                          .addParameter(AttributeValue.class, "packed")
+                          .addParameter(ParameterizedTypeName.get(ClassName.get(IntFunction.class), collectionType), "collectionFactory")
+                          .returns(collectionType)
+                          .addStatement("$T reader = new $T(packed)", PackedReader.class, PackedReader.class)
+                          .addStatement("int fieldCount = reader.readCount()")
+                          .addStatement("int[] slots = new int[fieldCount]")
+                          .addStatement("int[] fieldTypes = new int[fieldCount]");
+        for (int i = 0; i < attributeNames.size(); ++i) {
+            var metadata = attributes.get(attributeNames.get(i));
+            if (getPackedType(metadata) == Packed.TYPE_ENUM) {
+                builder.addStatement("$T[] dictionary" + i + " = null", TypeName.get(metadata.returnType));
+            }
+        }
+        builder.beginControlFlow("for (int i = 0; i < fieldCount; ++i)")
+            .addStatement("$T name = reader.readString()", String.class)
+            .addStatement("int type = reader.readVarint()")
+            .addStatement("fieldTypes[i] = type")
+            .beginControlFlow("switch (name)");
+        for (int i = 0; i < attributeNames.size(); ++i) {
+            var metadata = attributes.get(attributeNames.get(i));
+            var packedType = getPackedType(metadata);
+            // Slot 0 means a field we don't know, so ours start at 1
+            builder.addCode("case $S:\n$>", attributeNames.get(i))
+                .addStatement("$T.checkType(name, type, $T.$L)", PackedReader.class, Packed.class, getPackedTypeConstant(packedType))
+                .addStatement("slots[i] = $L", i + 1);
+            if (packedType == Packed.TYPE_ENUM) {
+                builder.addStatement("dictionary" + i + " = reader.readEnumDictionary($T.class)", TypeName.get(metadata.returnType));
+            }
+            builder.addStatement("break$<");
+        }
+        builder.addCode("default:\n$>")
+            .addStatement("reader.skipFieldSchema(type)$<")
+            .endControlFlow()
+            .endControlFlow()
+            .addStatement("int count = reader.readCount()")
+            .addStatement("$T result = collectionFactory.apply(count)", collectionType)
+            .beginControlFlow("for (int item = 0; item < count; ++item)");
+        if (creator == null) {
+            addConstruction(builder, "value");
+        } else {
+            // Setters can only be called once the creator has made the item, so their values wait in locals too
+            addCreatorLocals(builder);
+            for (int i = 0; i < attributeNames.size(); ++i) {
+                var attributeName = attributeNames.get(i);
+                if (!creatorLocals.containsKey(attributeName) && isDecoded(attributeName)) {
+                    var type = attributes.get(attributeName).returnType;
+                    builder.addStatement("$T p" + i + " = " + getDefaultValue(type), TypeName.get(type))
+                        .addStatement("boolean has" + i + " = false");
+                }
+            }
+        }
+        builder.beginControlFlow("for (int i = 0; i < fieldCount; ++i)")
+            .addStatement("int type = fieldTypes[i]")
+            .beginControlFlow("if ((type & $T.NULLABLE) != 0 && reader.readNull())", Packed.class)
+            .addStatement("continue")
+            .endControlFlow()
+            .beginControlFlow("switch (slots[i])");
+        var formatParams = new HashMap<String, Object>();
+        for (int i = 0; i < attributeNames.size(); ++i) {
+            var attributeName = attributeNames.get(i);
+            var metadata = attributes.get(attributeName);
+            if (!isDecoded(attributeName)) {
+                // Left to the default, which skips it
+                continue;
+            }
+            formatParams.clear();
+            builder.addCode("case $L:\n$>", i + 1);
+            var read = buildPackedRead(attributeName, i, formatParams);
+            if (creator == null) {
+                builder.addNamedCode("value." + metadata.setterName + "(" + read + ");\n", formatParams);
+            } else if (creatorLocals.containsKey(attributeName)) {
+                builder.addNamedCode(buildAssignment(null, attributeName, read) + ";\n", formatParams);
+            } else {
+                builder.addNamedCode("p" + i + " = " + read + ";\n", formatParams)
+                    .addStatement("has" + i + " = true");
+            }
+            builder.addStatement("break$<");
+        }
+        builder.addCode("default:\n$>")
+            .addStatement("reader.skip(type)$<")
+            .endControlFlow()
+            .endControlFlow();
+        if (creator != null) {
+            addConstruction(builder, "value");
+            for (int i = 0; i < attributeNames.size(); ++i) {
+                var attributeName = attributeNames.get(i);
+                if (!creatorLocals.containsKey(attributeName) && isDecoded(attributeName)) {
+                    builder.beginControlFlow("if (has" + i + ")")
+                        .addStatement(buildAssignment("value", attributeName, "p" + i))
+                        .endControlFlow();
+                }
+            }
+        }
+        return builder.addStatement("result.add(value)")
+                   .endControlFlow()
+                   .addStatement("return result")
+                   .build();
+    }
+
+    private String buildPackedRead(String attributeName, int index, Map<String, Object> formatData) throws TableException {
+        var metadata = attributes.get(attributeName);
+        var type = metadata.returnType;
+        switch (getPackedType(metadata)) {
+            case Packed.TYPE_VARINT:
+                var kind = type.getKind().isPrimitive() ? type.getKind() : types.unboxedType(type).getKind();
+                return kind == TypeKind.LONG ? "reader.readLong()" : "(" + kind.toString().toLowerCase() + ")reader.readLong()";
+            case Packed.TYPE_FLOAT:
+                return "reader.readFloat()";
+            case Packed.TYPE_DOUBLE:
+                return "reader.readDouble()";
+            case Packed.TYPE_BOOLEAN:
+                return "reader.readBoolean()";
+            case Packed.TYPE_STRING:
+                return metadata.intern ? getStringPool(metadata) + ".intern(reader.readString())" : "reader.readString()";
+            case Packed.TYPE_ENUM:
+                return "reader.readEnum(dictionary" + index + ")";
+            case Packed.TYPE_BYTES:
+                if (isByteArray(type)) {
+                    return "reader.readBytes()";
+                }
+                var bytesId = "t" + ++paramNumber;
+                formatData.put(bytesId, SdkBytes.class);
+                return "$" + bytesId + ":T.fromByteArrayUnsafe(reader.readBytes())";
+            default:
+                return buildAttributeDecodeExpression(attributeName, "reader.readValue()", formatData);
+        }
+    }
+
+    /**
+     * Check that the item class can be subclassed by a lazy item, and choose the fields of the lazy item that record
+     * which attributes have been loaded.
+     */
+    private void checkLazy() throws TableException {
+        if (entryType.getModifiers().contains(Modifier.FINAL)) {
+            throw new TableException("Lazy items cannot be final", entryType);
+        }
+        var usedNames = new HashSet<String>();
+        for (var entry : attributes.entrySet()) {
+            var attributeName = entry.getKey();
+            if (attributeName.equals(partitionKeyAttribute) || attributeName.equals(sortKeyAttribute)) {
+                continue;
+            }
+            for (var method : List.of(findAccessor(entry.getValue().getterName, 0), findAccessor(entry.getValue().setterName, 1))) {
+                var modifiers = method.getModifiers();
+                if (modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+                    throw new TableException("Getters and setters of lazy items cannot be final, private, or static", method);
+                }
+            }
+            var flag = "loaded" + upcaseFirst(attributeName.replaceAll("[^A-Za-z0-9_]", "_"));
+            while (!usedNames.add(flag)) {
+                flag += "_";
+            }
+            lazyFlags.put(attributeName, flag);
+        }
+    }
+
+    /**
+     * Find the constructor that decoders pass attributes to. Classes with a no argument constructor are built with it
+     * and filled in with setters. Otherwise (records and other immutable classes) decoders call the constructor marked
+     * with {@link DynamoCreator}, or else the one constructor that takes the most attributes, matching parameters to
+     * attributes by name. Attributes the constructor does not take are still set with setters, if there are any.
+     * @param isRecord Whether the item is a record, which never uses its no argument constructor
+     * @return The constructor, or null to use the no argument constructor
+     */
+    private ExecutableElement findCreator(boolean isRecord) throws TableException {
+        ExecutableElement marked = null;
+        ExecutableElement best = null;
+        var tied = false;
+        var hasNoArgConstructor = false;
+        var attributesByProperty = new HashMap<String, String>();
+        for (var entry : attributes.entrySet()) {
+            attributesByProperty.put(entry.getValue().propertyName, entry.getKey());
+        }
+        for (var constructor : ElementFilter.constructorsIn(entryType.getEnclosedElements())) {
+            if (constructor.getAnnotation(DynamoCreator.class) != null) {
+                if (marked != null) {
+                    throw new TableException("Only one constructor can be marked " + DynamoCreator.class.getSimpleName(), constructor);
+                }
+                marked = constructor;
+            }
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            var parameters = constructor.getParameters();
+            if (parameters.isEmpty()) {
+                hasNoArgConstructor = true;
+            } else if (parameters.stream().allMatch(parameter -> attributesByProperty.containsKey(parameter.getSimpleName().toString()))) {
+                if ((best == null) || (parameters.size() > best.getParameters().size())) {
+                    best = constructor;
+                    tied = false;
+                } else if (parameters.size() == best.getParameters().size()) {
+                    tied = true;
+                }
+            }
+        }
+        if (marked == null) {
+            if (hasNoArgConstructor && !isRecord) {
+                return null;
+            }
+            if (best == null) {
+                throw new TableException("Items need a no argument constructor, a constructor whose parameters are named after "
+                                             + "attributes, or a constructor marked " + DynamoCreator.class.getSimpleName(), entryType);
+            }
+            if (tied) {
+                throw new TableException("More than one constructor could build items; mark one "
+                                             + DynamoCreator.class.getSimpleName(), entryType);
+            }
+            marked = best;
+        }
+        if (marked.getModifiers().contains(Modifier.PRIVATE)) {
+            throw new TableException(DynamoCreator.class.getSimpleName() + " constructors cannot be private", marked);
+        }
+        var usedNames = new HashSet<String>();
+        for (var parameter : marked.getParameters()) {
+            var attributeName = attributesByProperty.get(parameter.getSimpleName().toString());
+            if (attributeName == null) {
+                throw new TableException("Constructor parameter " + parameter.getSimpleName() + " does not match any attribute", parameter);
+            }
+            if (!types.isAssignable(attributes.get(attributeName).returnType, parameter.asType())) {
+                throw new TableException("Constructor parameter " + parameter.getSimpleName() + " does not match the type of its attribute", parameter);
+            }
+            // Prepend a "c" to make sure it is not a reserved word or a name the decoders use
+            var varName = "c" + upcaseFirst(attributeName.replaceAll("[^A-Za-z0-9_]", "_"));
+            while (!usedNames.add(varName)) {
+                varName += "_";
+            }
+            creatorLocals.put(attributeName, varName);
+        }
+        return marked;
+    }
+
+    /**
+     * Check that decoders can set every attribute that is not marked write only, through the creator or a setter.
+     * Attributes backed by a field always count as settable, since another processor (Lombok, say) may not have
+     * generated the setter yet.
+     */
+    private void checkDecodable() throws TableException {
+        var members = elements.getAllMembers(entryType);
+        for (var entry : attributes.entrySet()) {
+            var metadata = entry.getValue();
+            if (creatorLocals.containsKey(entry.getKey())) {
+                if (metadata.writeOnly) {
+                    throw new TableException("Attribute " + entry.getKey() + " is taken by the constructor, so cannot be write only",
+                        metadata.element);
+                }
+                continue;
+            }
+            if (metadata.writeOnly) {
+                continue;
+            }
+            var settable = members.stream().anyMatch(member ->
+                ((member.getKind() == ElementKind.METHOD) && member.getSimpleName().contentEquals(metadata.setterName)
+                 && (((ExecutableElement)member).getParameters().size() == 1))
+                || ((member.getKind() == ElementKind.FIELD) && member.getSimpleName().contentEquals(metadata.propertyName)
+                    && !member.getModifiers().contains(Modifier.FINAL)));
+            if (!settable) {
+                throw new TableException("Attribute " + entry.getKey() + " has no setter and is not taken by the constructor; add "
+                                             + "one, or mark it writeOnly if it is never read back", metadata.element);
+            }
+        }
+    }
+
+    /**
+     * Check whether decoders should set an attribute. Only attributes marked write only are left out, since
+     * {@link #checkDecodable()} has made sure decoders can set the rest.
+     * @param attributeName The attribute
+     * @return True if decoders set the attribute, either through the creator or a setter
+     */
+    private boolean isDecoded(String attributeName) {
+        return !attributes.get(attributeName).writeOnly;
+    }
+
+    /**
+     * Add the declarations of the creator's locals, each holding the value the creator gets if its attribute is missing.
+     * @param builder The decoder being built
+     */
+    private void addCreatorLocals(MethodSpec.Builder builder) {
+        for (var entry : creatorLocals.entrySet()) {
+            var type = attributes.get(entry.getKey()).returnType;
+            builder.addStatement("$T " + entry.getValue() + " = " + getDefaultValue(type), TypeName.get(type));
+        }
+    }
+
+    private static String getDefaultValue(TypeMirror type) {
+        return type.getKind() == TypeKind.BOOLEAN ? "false" : type.getKind().isPrimitive() ? "0" : "null";
+    }
+
+    /**
+     * Get the default value of a type as a method argument, where zero needs a cast to the narrower primitives.
+     * @param type The type
+     * @return The code of the value
+     */
+    private static String getDefaultArgument(TypeMirror type) {
+        return type.getKind().isPrimitive() && (type.getKind() != TypeKind.BOOLEAN) ? "(" + type + ")0" : getDefaultValue(type);
+    }
+
+    /**
+     * Add the call of the creator, or the no argument constructor if there is no creator.
+     * @param builder The decoder being built
+     * @param target The local variable to hold the item
+     */
+    private void addConstruction(MethodSpec.Builder builder, String target) {
+        var entryTypeName = TypeName.get(types.getDeclaredType(entryType));
+        builder.addStatement("$T " + target + " = new $T(" + String.join(", ", creatorLocals.values()) + ")", entryTypeName, entryTypeName);
+    }
+
+    private ExecutableElement findAccessor(String methodName, int parameterCount) throws TableException {
+        for (var member : elements.getAllMembers(entryType)) {
+            if ((member.getKind() == ElementKind.METHOD) && member.getSimpleName().contentEquals(methodName)
+                && (((ExecutableElement)member).getParameters().size() == parameterCount)) {
+                return (ExecutableElement)member;
+            }
+        }
+        throw new TableException("Lazy items need method " + methodName, entryType);
+    }
+
+    /**
+     * Build the subclass of the item that lazy items are decoded into. It keeps the attribute map, and each getter
+     * decodes its attribute on the first call. Setters mark their attribute loaded, so a value set by the caller is
+     * never replaced by the decoded one.
+     * @return The class
+     */
+    private TypeSpec buildLazyItemClass() throws TableException {
+        var constructor = MethodSpec.constructorBuilder()
+                              .addParameter(TypeName.get(dynamoMapMirror), "map")
+                              .addStatement("this.map = map");
+        var classBuilder = TypeSpec.classBuilder(LAZY_ITEM_CLASS)
+                               .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                               .superclass(TypeName.get(types.getDeclaredType(entryType)))
+                               .addField(TypeName.get(dynamoMapMirror), "map", Modifier.PRIVATE, Modifier.FINAL);
+        var formatParams = new HashMap<String, Object>();
+        for (var entry : lazyFlags.entrySet()) {
+            var attributeName = entry.getKey();
+            var metadata = attributes.get(attributeName);
+            var flag = entry.getValue();
+            var typeName = TypeName.get(metadata.returnType);
+            classBuilder.addField(boolean.class, flag, Modifier.PRIVATE);
+            // The item's constructor may have called the setter, which must not count as loading the attribute
+            constructor.addStatement(flag + " = false");
+
+            formatParams.clear();
+            var getter = MethodSpec.methodBuilder(metadata.getterName)
+                             .addAnnotation(Override.class)
+                             .addModifiers(getOverrideModifiers(findAccessor(metadata.getterName, 0)))
+                             .returns(typeName)
+                             .beginControlFlow("if (!" + flag + ")")
+                             .addStatement("$T attribute = map.get($S)", AttributeValue.class, attributeName);
+            addAttributeDecode(getter, "super", attributeName, "attribute", formatParams);
+            getter.addStatement(flag + " = true")
+                .endControlFlow()
+                .addStatement("return super." + metadata.getterName + "()");
+            classBuilder.addMethod(getter.build());
+
+            var setterElement = findAccessor(metadata.setterName, 1);
+            var setter = MethodSpec.methodBuilder(metadata.setterName)
+                             .addAnnotation(Override.class)
+                             .addModifiers(getOverrideModifiers(setterElement))
+                             .addParameter(typeName, "value")
+                             .addStatement(flag + " = true");
+            if (setterElement.getReturnType().getKind() == TypeKind.VOID) {
+                setter.addStatement("super." + metadata.setterName + "(value)");
+            } else {
+                setter.returns(TypeName.get(setterElement.getReturnType()))
+                    .addStatement("return super." + metadata.setterName + "(value)");
+            }
+            classBuilder.addMethod(setter.build());
+        }
+        return classBuilder.addMethod(constructor.build()).build();
+    }
+
+    private static Modifier[] getOverrideModifiers(ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.PUBLIC)) {
+            return new Modifier[] {Modifier.PUBLIC};
+        }
+        return method.getModifiers().contains(Modifier.PROTECTED) ? new Modifier[] {Modifier.PROTECTED} : new Modifier[0];
+    }
+
+    /**
+     * Get the name of a generated method that decodes a list of nested items into a {@link LazyList}, generating it if
+     * this is the first use. Only lists of items with generated codecs are worth it; anything else is cheap enough to
+     * decode up front.
+     * @param attributeName The attribute
+     * @return The name of the method, or null if the attribute is decoded as usual
+     */
+    private String getLazyListHelper(String attributeName) throws TableException {
+        var metadata = attributes.get(attributeName);
+        var type = metadata.returnType;
+        if ((metadata.codecClass != null) || (metadata.compressor != null) || (metadata.blobStore != null)
+            || (type.getKind() != TypeKind.DECLARED) || !types.isSameType(types.erasure(type), types.erasure(listMirror))) {
+            return null;
+        }
+        var elementType = ((DeclaredType)type).getTypeArguments().get(0);
+        var codecClass = findItemCodecClass(elementType);
+        if (codecClass == null) {
+            return null;
+        }
+        var methodName = "lazyListOf" + typeToIdentifier(elementType);
+        if (helperMethods.containsKey(methodName)) {
+            return methodName;
+        }
+        var elementTypeName = TypeName.get(elementType);
+        var builder = MethodSpec.methodBuilder(methodName)
+                          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                          .addParameter(AttributeValue.class, "value")
+                          .returns(ParameterizedTypeName.get(ClassName.get(List.class), elementTypeName));
+        if (isPackedItem(elementType)) {
+            // Packed lists have no elements to decode one at a time
+            builder.beginControlFlow("if (!value.hasL())")
+                .addStatement("return " + getCollectionHelper(false, (DeclaredType)type) + "(value)")
+                .endControlFlow();
+        }
+        builder.addStatement("return new $T<>(value.l(), " + codecClassToCodecVar.get(codecClass) + "::decode)", LazyList.class);
+        helperMethods.put(methodName, builder.build());
+        return methodName;
+    }
+
+    /**
+     * Find the native Dynamo set type that can hold elements of a type.
+     * @param elementType The type of the set elements
+     * @return "ss", "ns", or "bs", or null if the elements can only go in a list
+     */
+    private String getNativeSetKind(TypeMirror elementType) {
+        if (types.isSameType(elementType, stringMirror)) {
+            return "ss";
+        } else if (isByteArray(elementType)) {
+            return "bs";
+        } else if ((boxedPrimitiveMirrors.contains(elementType)
+                    && !elementType.equals(types.boxedClass(types.getPrimitiveType(TypeKind.BOOLEAN)).asType()))
+                   || isClass(elementType, BigDecimal.class) || isClass(elementType, BigInteger.class)) {
+            return "ns";
+        }
+        return null;
+    }
+
+    private boolean isByteArray(TypeMirror type) {
+        return (type.getKind() == TypeKind.ARRAY) && (((ArrayType)type).getComponentType().getKind() == TypeKind.BYTE);
+    }
+
+    private boolean isClass(TypeMirror type, Class<?> klass) {
+        return (type.getKind() == TypeKind.DECLARED) && types.isSameType(type, elements.getTypeElement(klass.getCanonicalName()).asType());
+    }
+
+    /**
+     * Add code that writes a non empty set as a native Dynamo set. Native sets store each element bare, without the
+     * per element type wrapper that lists need, so items are smaller. They also allow ADD and DELETE updates and
+     * contains filters on the server.
+     */
+    private void buildNativeSetEncoder(MethodSpec.Builder builder, String nativeSetKind, TypeMirror elementType, TypeName elementTypeName) {
+        if (nativeSetKind.equals("ss")) {
+            // The SDK copies the collection it is given, so there is no need for us to copy it first
+            builder.addStatement("return $T.builder().ss(value).build()", AttributeValue.class);
+            return;
+        }
+        if (nativeSetKind.equals("bs")) {
+            // Arrays are equal only to themselves, so a Set<byte[]> may hold the same bytes twice. Dynamo rejects a
+            // binary set with duplicates, so collapse them by content, which SdkBytes compares by.
+            builder.addStatement("$T distinct = new $T<>(size * 4 / 3 + 1)", ParameterizedTypeName.get(Set.class, SdkBytes.class),
+                    LinkedHashSet.class)
+                .beginControlFlow("for ($T element : value)", elementTypeName)
+                .addStatement("distinct.add($T.fromByteArray(element))", SdkBytes.class)
+                .endControlFlow()
+                .addStatement("return $T.builder().bs(distinct).build()", AttributeValue.class);
+            return;
+        }
+        if (isClass(elementType, BigDecimal.class)) {
+            // A Set<BigDecimal> may hold 1.5 and 1.50, which Dynamo sees as the same number and rejects as duplicates.
+            // Strip the trailing zeros so they collapse, and use plain strings since Dynamo may not take the exponents
+            // that toString uses for very big and very small decimals.
+            builder.addStatement("$T distinct = new $T<>(size * 4 / 3 + 1)", ParameterizedTypeName.get(Set.class, String.class),
+                    LinkedHashSet.class)
+                .beginControlFlow("for ($T element : value)", elementTypeName)
+                .addStatement("distinct.add(element.stripTrailingZeros().toPlainString())")
+                .endControlFlow()
+                .addStatement("return $T.builder().ns(distinct).build()", AttributeValue.class);
+            return;
+        }
+        builder.addStatement("$T list = new $T<>(size)", ParameterizedTypeName.get(List.class, String.class), ArrayList.class)
+            .beginControlFlow("for ($T element : value)", elementTypeName)
+            .addStatement("list.add(element.toString())")
+            .endControlFlow()
+            .addStatement("return $T.builder().ns(list).build()", AttributeValue.class);
+    }
+
+    /**
+     * Add code that reads a native Dynamo set, if the attribute holds one, straight from its typed list.
+     */
+    private void buildNativeSetDecoder(MethodSpec.Builder builder, String nativeSetKind, TypeMirror elementType, TypeName elementTypeName) {
+        var setTypeName = ParameterizedTypeName.get(ClassName.get(Set.class), elementTypeName);
+        builder.beginControlFlow("if (value.has$L())", upcaseFirst(nativeSetKind));
+        if (nativeSetKind.equals("ss")) {
+            builder.addStatement("return new $T<>(value.ss())", HashSet.class)
+                .endControlFlow();
+            return;
+        }
+        var nativeElementClass = nativeSetKind.equals("ns") ? String.class : SdkBytes.class;
+        builder.addStatement("$T nativeSet = value.$L()", ParameterizedTypeName.get(List.class, nativeElementClass), nativeSetKind)
+            .addStatement("int nativeSize = nativeSet.size()")
+            .addStatement("$T result = new $T<>(nativeSize * 4 / 3 + 1)", setTypeName, HashSet.class)
+            .beginControlFlow("for (int i = 0; i < nativeSize; ++i)");
+        if (nativeSetKind.equals("bs")) {
+            builder.addStatement("result.add(nativeSet.get(i).asByteArray())");
+        } else if (isClass(elementType, BigDecimal.class) || isClass(elementType, BigInteger.class)) {
+            builder.addStatement("result.add(new $T(nativeSet.get(i)))", elementTypeName);
+        } else {
+            builder.addStatement("result.add($T.valueOf(nativeSet.get(i)))", elementTypeName);
+        }
+        builder.endControlFlow()
+            .addStatement("return result")
+            .endControlFlow();
+    }
+
+    /**
+     * Get the name of a generated constant holding the attribute value of every constant of an enum, indexed by
+     * ordinal, generating it if this is the first use. Encoding an enum is then an array lookup instead of a builder.
+     * @param enumType The enum type
+     * @return The name of the field
+     */
+    private String getEnumValues(DeclaredType enumType) {
+        var fieldName = toConstantName(typeToIdentifier(enumType)) + "_VALUES";
+        helperFields.computeIfAbsent(fieldName, name -> FieldSpec.builder(ArrayTypeName.of(AttributeValue.class), name,
+            Modifier.PRIVATE, Modifier.FINAL, Modifier.STATIC)
+                                                           .initializer("$T.enumValues($T.class)", DynamoCodec.class, TypeName.get(enumType))
+                                                           .build());
+        return fieldName;
+    }
+
+    /**
+     * Get the name of a generated method that decodes an enum, generating it if this is the first use. A switch on the
+     * name compiles to a hash lookup with no exception path, which is cheaper than {@code Enum.valueOf}.
+     * @param enumType The enum type
+     * @return The name of the method
+     */
+    private String getEnumDecoder(DeclaredType enumType) {
+        var methodName = "decode" + typeToIdentifier(enumType);
+        if (helperMethods.containsKey(methodName)) {
+            return methodName;
+        }
+        var enumTypeName = TypeName.get(enumType);
+        var builder = MethodSpec.methodBuilder(methodName)
+                          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                          .addParameter(AttributeValue.class, "value")
+                          .returns(enumTypeName)
+                          .addStatement("$T name = value.s()", String.class)
+                          .beginControlFlow("switch (name)");
+        for (var element : enumType.asElement().getEnclosedElements()) {
+            if (element.getKind() == ElementKind.ENUM_CONSTANT) {
+                var constant = element.getSimpleName().toString();
+                builder.addCode("case $S:\n", constant)
+                    .addStatement("$>return $T.$N$<", enumTypeName, constant);
+            }
+        }
+        builder.addCode("default:\n")
+            .addStatement("$>throw new $T($S + name)$<", IllegalArgumentException.class, "No enum constant " + enumType.asElement() + ".")
+            .endControlFlow();
+        helperMethods.put(methodName, builder.build());
+        return methodName;
+    }
+
+    /**
+     * Turn a camel case identifier like "LogLevel" into a constant name like "LOG_LEVEL".
+     * @param identifier The identifier
+     * @return The constant name
+     */
+    private String toConstantName(String identifier) {
+        var result = new StringBuilder(identifier.length() + 4);
+        for (int i = 0; i < identifier.length(); ++i) {
+            var c = identifier.charAt(i);
+            if ((i > 0) && Character.isUpperCase(c) && !Character.isUpperCase(identifier.charAt(i - 1))) {
+                result.append('_');
+            }
+            result.append(Character.toUpperCase(c));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Turn a type into something usable in a method name, like "LogEntry" or "ListOfString".
+     * @param type The type
+     * @return The identifier
+     */
+    private String typeToIdentifier(TypeMirror type) {
+        return typeIdentifiers.computeIfAbsent(type.toString(), typeName -> {
+            // Simple names read best, but two types may share one (a.Item and b.Item), so number the later ones
+            var base = simpleTypeIdentifier(type);
+            var result = base;
+            for (int suffix = 2; typeIdentifiers.containsValue(result); ++suffix) {
+                result = base + suffix;
+            }
+            return result;
+        });
+    }
+
+    private String simpleTypeIdentifier(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return simpleTypeIdentifier(((ArrayType)type).getComponentType()) + "Array";
+        } else if (type.getKind() != TypeKind.DECLARED) {
+            return upcaseFirst(type.toString());
+        }
+        var declared = (DeclaredType)type;
+        var result = new StringBuilder(declared.asElement().getSimpleName());
+        var first = true;
+        for (var argument : declared.getTypeArguments()) {
+            result.append(first ? "Of" : "And").append(simpleTypeIdentifier(argument));
+            first = false;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Find the codec for values of a type that the generated code has no built in encoding for: the generated codec
+     * of nested items, or the library codec of common classes such as Instant.
+     * @param baseType The type
+     * @return The codec class, or null if there is none
+     */
     private TypeName findCodecClass(TypeMirror baseType) {
+        var codecName = findItemCodecClass(baseType);
+        if ((codecName == null) && (baseType.getKind() == TypeKind.DECLARED)) {
+            codecName = BUILT_IN_CODECS.get(((TypeElement)((DeclaredType)baseType).asElement()).getQualifiedName().toString());
+            if (codecName != null) {
+                addCodec(codecName);
+            }
+        }
+        return codecName;
+    }
+
+    private TypeName findItemCodecClass(TypeMirror baseType) {
         if (baseType.getKind() == TypeKind.DECLARED) {
             // Check to see if this is based on a class that has a DynamoItem annotation
             var itemAnnotation = ((DeclaredType)baseType).asElement().getAnnotation(DynamoItem.class);
@@ -794,20 +2795,50 @@ public class TableWriter {
     }
 
     private static class AttributeMetadata {
+        /** The field or getter that declares the attribute, for errors */
+        public final Element element;
         public final String getterName;
+        /** The name of the property, which is the attribute name unless an annotation renames it */
+        public final String propertyName;
         private final String setterName;
         public final TypeMirror returnType;
         public final TypeName codecClass;
+        /** For binary attributes, whether the generated code shares arrays with the item instead of copying them */
+        public final boolean zeroCopy;
+        /** The compressor class of compressed attributes, or null if the attribute is not compressed */
+        public final TypeName compressor;
+        public final int compressAbove;
+        /** The blob store of offloaded attributes, or null if the attribute is never offloaded */
+        public final String blobStore;
+        public final int offloadAbove;
+        /** For String attributes, whether decoded values go through a {@link StringPool} */
+        public final boolean intern;
+        /** Whether decoders leave the attribute alone */
+        public final boolean writeOnly;
 
-        public AttributeMetadata(String getterName, TypeMirror returnType, TypeMirror codecClass) {
-            this(getterName, returnType, codecClass == null ? null : TypeName.get(codecClass));
+        public AttributeMetadata(Element element, String getterName, String propertyName, TypeMirror returnType, TypeMirror codecClass,
+                                 boolean zeroCopy, TypeName compressor, int compressAbove, String blobStore, int offloadAbove,
+                                 boolean intern, boolean writeOnly) {
+            this(element, getterName, propertyName, returnType, codecClass == null ? null : TypeName.get(codecClass), zeroCopy,
+                compressor, compressAbove, blobStore, offloadAbove, intern, writeOnly);
         }
 
-        public AttributeMetadata(String getterName, TypeMirror returnType, TypeName codecClass) {
+        public AttributeMetadata(Element element, String getterName, String propertyName, TypeMirror returnType, TypeName codecClass,
+                                 boolean zeroCopy, TypeName compressor, int compressAbove, String blobStore, int offloadAbove,
+                                 boolean intern, boolean writeOnly) {
+            this.element = element;
             this.getterName = getterName;
-            setterName = "set" + getterName.substring(3);
+            this.propertyName = propertyName;
+            setterName = "set" + Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
             this.returnType = returnType;
             this.codecClass = codecClass;
+            this.zeroCopy = zeroCopy;
+            this.compressor = compressor;
+            this.compressAbove = compressAbove;
+            this.blobStore = blobStore;
+            this.offloadAbove = offloadAbove;
+            this.intern = intern;
+            this.writeOnly = writeOnly;
         }
     }
 
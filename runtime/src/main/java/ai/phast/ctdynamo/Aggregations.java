@@ -0,0 +1,84 @@
+package ai.phast.ctdynamo;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * Collectors for the aggregations of {@link DynamoIndex#aggregateScan} and {@link DynamoIndex#aggregateQuery} that
+ * {@link java.util.stream.Collectors} does not have: distinct counts and quantiles, in bounded memory. Counts, sums,
+ * minimums, maximums, and grouping come from {@link java.util.stream.Collectors}, and any of these can be used inside
+ * its grouping collectors, such as distinct users per day:
+ * <pre>
+ *     table.aggregateScan(16, Collectors.groupingBy(Event::getDay, Aggregations.distinctCount(Event::getUser)))
+ * </pre>
+ */
+public final class Aggregations {
+
+    private Aggregations() {
+    }
+
+    /**
+     * Estimate the number of distinct keys, with a {@link HyperLogLog} of the default precision.
+     * @param key Gets the key of each item. Null keys are not counted.
+     * @param <T> The type of item
+     * @return The collector
+     */
+    public static <T> Collector<T, HyperLogLog, Long> distinctCount(Function<? super T, ?> key) {
+        return distinctCount(key, HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    /**
+     * Estimate the number of distinct keys with a {@link HyperLogLog}.
+     * @param key Gets the key of each item. Null keys are not counted.
+     * @param precision The precision of the sketch
+     * @param <T> The type of item
+     * @return The collector
+     */
+    public static <T> Collector<T, HyperLogLog, Long> distinctCount(Function<? super T, ?> key, int precision) {
+        // Check the precision now, rather than on the first item
+        new HyperLogLog(precision);
+        return Collector.of(() -> new HyperLogLog(precision),
+            (sketch, item) -> {
+                var value = key.apply(item);
+                if (value != null) {
+                    sketch.add(value);
+                }
+            },
+            (left, right) -> {
+                left.merge(right);
+                return left;
+            },
+            HyperLogLog::estimate,
+            Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Collect the distribution of a value into a {@link QuantileSketch} with the default accuracy, for medians,
+     * percentiles, and the like.
+     * @param value Gets the value of each item. NaN values are not counted.
+     * @param <T> The type of item
+     * @return The collector
+     */
+    public static <T> Collector<T, QuantileSketch, QuantileSketch> quantiles(ToDoubleFunction<? super T> value) {
+        return quantiles(value, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * Collect the distribution of a value into a {@link QuantileSketch}.
+     * @param value Gets the value of each item. NaN values are not counted.
+     * @param relativeAccuracy The relative accuracy of the sketch
+     * @param <T> The type of item
+     * @return The collector
+     */
+    public static <T> Collector<T, QuantileSketch, QuantileSketch> quantiles(ToDoubleFunction<? super T> value, double relativeAccuracy) {
+        new QuantileSketch(relativeAccuracy, QuantileSketch.DEFAULT_MAX_BUCKETS);
+        return Collector.of(() -> new QuantileSketch(relativeAccuracy, QuantileSketch.DEFAULT_MAX_BUCKETS),
+            (sketch, item) -> sketch.add(value.applyAsDouble(item)),
+            (left, right) -> {
+                left.merge(right);
+                return left;
+            },
+            Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+}
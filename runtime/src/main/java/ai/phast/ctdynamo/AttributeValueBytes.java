@@ -0,0 +1,275 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A compact binary form of attribute values, used to store an attribute (or a whole tree of them) inside a single
+ * binary attribute. Each value is a type tag followed by its contents; lengths and counts are unsigned varints. The
+ * form is stable, since it ends up stored in Dynamo.
+ */
+public final class AttributeValueBytes {
+
+    private static final int TAG_S = 1;
+    private static final int TAG_N = 2;
+    private static final int TAG_B = 3;
+    private static final int TAG_TRUE = 4;
+    private static final int TAG_FALSE = 5;
+    private static final int TAG_NULL = 6;
+    private static final int TAG_L = 7;
+    private static final int TAG_M = 8;
+    private static final int TAG_SS = 9;
+    private static final int TAG_NS = 10;
+    private static final int TAG_BS = 11;
+
+    private AttributeValueBytes() {
+    }
+
+    /**
+     * Serialize an attribute value.
+     * @param value The value
+     * @return The bytes
+     * @throws IllegalArgumentException If the value has no type set
+     */
+    public static byte[] toBytes(AttributeValue value) {
+        var writer = new Writer(256);
+        writer.writeValue(value);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Deserialize an attribute value.
+     * @param bytes The bytes written by {@link #toBytes(AttributeValue)}
+     * @param offset Where the value starts
+     * @param length The number of bytes in the value
+     * @return The value
+     * @throws IllegalArgumentException If the bytes are not a valid attribute value
+     */
+    public static AttributeValue fromBytes(byte[] bytes, int offset, int length) {
+        var reader = new Reader(bytes, offset, offset + length);
+        var result = reader.readValue();
+        if (reader.position != reader.end) {
+            throw new IllegalArgumentException("Extra bytes after attribute value");
+        }
+        return result;
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+
+        private int size;
+
+        Writer(int initialCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+
+        void writeValue(AttributeValue value) {
+            if (value.s() != null) {
+                writeByte(TAG_S);
+                writeString(value.s());
+            } else if (value.n() != null) {
+                writeByte(TAG_N);
+                writeString(value.n());
+            } else if (value.b() != null) {
+                writeByte(TAG_B);
+                writeBytes(value.b().asByteArrayUnsafe());
+            } else if (value.bool() != null) {
+                writeByte(value.bool() ? TAG_TRUE : TAG_FALSE);
+            } else if (Boolean.TRUE.equals(value.nul())) {
+                writeByte(TAG_NULL);
+            } else if (value.hasL()) {
+                var list = value.l();
+                writeByte(TAG_L);
+                writeVarint(list.size());
+                for (var element : list) {
+                    writeValue(element);
+                }
+            } else if (value.hasM()) {
+                var map = value.m();
+                writeByte(TAG_M);
+                writeVarint(map.size());
+                for (var entry : map.entrySet()) {
+                    writeString(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (value.hasSs()) {
+                writeByte(TAG_SS);
+                writeStrings(value.ss());
+            } else if (value.hasNs()) {
+                writeByte(TAG_NS);
+                writeStrings(value.ns());
+            } else if (value.hasBs()) {
+                var set = value.bs();
+                writeByte(TAG_BS);
+                writeVarint(set.size());
+                for (var element : set) {
+                    writeBytes(element.asByteArrayUnsafe());
+                }
+            } else {
+                throw new IllegalArgumentException("Attribute value has no type: " + value);
+            }
+        }
+
+        private void writeStrings(List<String> values) {
+            writeVarint(values.size());
+            for (var value : values) {
+                writeString(value);
+            }
+        }
+
+        private void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeBytes(byte[] value) {
+            writeVarint(value.length);
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, buffer, size, value.length);
+            size += value.length;
+        }
+
+        private void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7f) != 0) {
+                buffer[size++] = (byte)((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte)value;
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte)value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+
+        private final int end;
+
+        private int position;
+
+        Reader(byte[] bytes, int position, int end) {
+            this.bytes = bytes;
+            this.position = position;
+            this.end = end;
+        }
+
+        AttributeValue readValue() {
+            var tag = readByte();
+            switch (tag) {
+                case TAG_S:
+                    return AttributeValue.builder().s(readString()).build();
+                case TAG_N:
+                    return AttributeValue.builder().n(readString()).build();
+                case TAG_B:
+                    return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(readBytes())).build();
+                case TAG_TRUE:
+                    return DynamoCodec.TRUE_ATTRIBUTE_VALUE;
+                case TAG_FALSE:
+                    return DynamoCodec.FALSE_ATTRIBUTE_VALUE;
+                case TAG_NULL:
+                    return DynamoCodec.NULL_ATTRIBUTE_VALUE;
+                case TAG_L: {
+                    var size = readCount();
+                    var list = new ArrayList<AttributeValue>(size);
+                    for (int i = 0; i < size; ++i) {
+                        list.add(readValue());
+                    }
+                    return AttributeValue.builder().l(list).build();
+                }
+                case TAG_M: {
+                    var size = readCount();
+                    var map = new HashMap<String, AttributeValue>(size * 4 / 3 + 1);
+                    for (int i = 0; i < size; ++i) {
+                        var key = readString();
+                        map.put(key, readValue());
+                    }
+                    return AttributeValue.builder().m(map).build();
+                }
+                case TAG_SS:
+                    return AttributeValue.builder().ss(readStrings()).build();
+                case TAG_NS:
+                    return AttributeValue.builder().ns(readStrings()).build();
+                case TAG_BS: {
+                    var size = readCount();
+                    var set = new ArrayList<SdkBytes>(size);
+                    for (int i = 0; i < size; ++i) {
+                        set.add(SdkBytes.fromByteArrayUnsafe(readBytes()));
+                    }
+                    return AttributeValue.builder().bs(set).build();
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown attribute value tag " + tag);
+            }
+        }
+
+        private List<String> readStrings() {
+            var size = readCount();
+            var result = new ArrayList<String>(size);
+            for (int i = 0; i < size; ++i) {
+                result.add(readString());
+            }
+            return result;
+        }
+
+        private String readString() {
+            var length = readCount();
+            var result = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return result;
+        }
+
+        private byte[] readBytes() {
+            var length = readCount();
+            var result = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return result;
+        }
+
+        /**
+         * Read a varint that is the size of something still to come. Every element takes at least one byte, so a size
+         * bigger than the bytes left means the data is corrupt; checking here keeps us from allocating for it.
+         */
+        private int readCount() {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                var b = readByte();
+                result |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    if ((result < 0) || (result > end - position)) {
+                        throw new IllegalArgumentException("Attribute value size " + result + " is out of range");
+                    }
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in attribute value");
+        }
+
+        private int readByte() {
+            if (position >= end) {
+                throw new IllegalArgumentException("Attribute value is truncated");
+            }
+            return bytes[position++] & 0xff;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ai.phast.ctdynamo;
+
+/**
+ * Storage for attributes too big to keep in Dynamo. Attributes annotated with
+ * {@link ai.phast.ctdynamo.annotations.DynamoAttribute#offloadAbove()} are written here when they are big, and only a
+ * short pointer is kept in the item. Stores are found by name in {@link BlobStores}.
+ *
+ * <p>{@link FileBlobStore} keeps blobs in a local directory. Implementations over S3 or similar object stores only
+ * need these three methods. Implementations must be thread safe.
+ */
+public interface BlobStore {
+
+    /**
+     * Store a blob.
+     * @param data The bytes to store. The store may keep this array; callers do not change it afterwards.
+     * @return The key of the blob, which is stored in the item. Keys should be short. Every call must return a new
+     *     key, even for bytes stored before, so that deleting the blob of one item cannot break another.
+     */
+    String put(byte[] data);
+
+    /**
+     * Fetch a blob.
+     * @param key A key returned by {@link #put(byte[])}
+     * @return The bytes of the blob
+     * @throws IllegalStateException If there is no blob with this key
+     */
+    byte[] get(String key);
+
+    /**
+     * Delete a blob. Nothing deletes blobs automatically, since an item that is overwritten or deleted may still be
+     * read by someone else; applications that care about the space should delete blobs they know are unused.
+     * @param key A key returned by {@link #put(byte[])}
+     */
+    void delete(String key);
+}
@@ -0,0 +1,51 @@
+package ai.phast.ctdynamo;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The blob stores that generated code uses for offloaded attributes, by name. Register stores at startup, before any
+ * item with offloaded attributes is encoded or decoded.
+ */
+public final class BlobStores {
+
+    /** The name used by {@link ai.phast.ctdynamo.annotations.DynamoAttribute#blobStore()} unless told otherwise */
+    public static final String DEFAULT = "default";
+
+    private static final Map<String, BlobStore> STORES = new ConcurrentHashMap<>();
+
+    private BlobStores() {
+    }
+
+    /**
+     * Register a store, replacing any store already registered with the same name.
+     * @param name The name of the store
+     * @param store The store
+     */
+    public static void register(String name, BlobStore store) {
+        STORES.put(Objects.requireNonNull(name), Objects.requireNonNull(store));
+    }
+
+    /**
+     * Remove a store.
+     * @param name The name of the store
+     */
+    public static void unregister(String name) {
+        STORES.remove(name);
+    }
+
+    /**
+     * Get a store.
+     * @param name The name of the store
+     * @return The store
+     * @throws IllegalStateException If no store has been registered with this name
+     */
+    public static BlobStore get(String name) {
+        var store = STORES.get(name);
+        if (store == null) {
+            throw new IllegalStateException("No blob store registered with name \"" + name + "\"");
+        }
+        return store;
+    }
+}
@@ -0,0 +1,138 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Collects the capacity consumed by every table, query, and scan operation started on this thread while the scope is
+ * open. This lets an application measure the cost of one request (for example, one API endpoint invocation) without
+ * passing accumulators through every layer of code:
+ * <pre>
+ *     try (var scope = CapacityScope.open()) {
+ *         handleRequest();
+ *         log(scope.getCapacity().getTotalRead());
+ *     }
+ * </pre>
+ * <p>While a scope is open, operations ask Dynamo to return their consumed capacity even if the application did not
+ * call an "extended" method. Async operations are charged to the scope that was current when they were started, even
+ * if they complete after it is closed. Scopes nest; capacity is charged to the current scope and all enclosing scopes.
+ * Work that is handed to other threads can be charged to a scope by wrapping it with {@link #wrap(Runnable)} or
+ * {@link #wrap(Supplier)}.
+ */
+public final class CapacityScope implements AutoCloseable {
+
+    private static final ThreadLocal<CapacityScope> CURRENT = new ThreadLocal<>();
+
+    /** The scope that was current when we were opened, or null if there was none */
+    private final CapacityScope parent;
+
+    /** Shared by any thread that completes an operation started in this scope */
+    private final ConcurrentCapacityUsed capacity = new ConcurrentCapacityUsed();
+
+    private boolean closed = false;
+
+    private CapacityScope(CapacityScope parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Open a new scope and make it current on this thread. The scope must be closed on the same thread.
+     * @return The new scope
+     */
+    public static CapacityScope open() {
+        var scope = new CapacityScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Get the scope current on this thread.
+     * @return The current scope, or null if there is none
+     */
+    static CapacityScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Get the capacity charged to this scope so far. This includes all nested scopes.
+     * @return The capacity used
+     */
+    public CapacityUsed getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Wrap a task so that it runs with this scope current, whatever thread it runs on.
+     * @param task The task to wrap
+     * @return A task that charges any operations started by the original task to this scope
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            var previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wrap a supplier so that it runs with this scope current, whatever thread it runs on.
+     * @param supplier The supplier to wrap
+     * @param <V> The type of value supplied
+     * @return A supplier that charges any operations started by the original supplier to this scope
+     */
+    public <V> Supplier<V> wrap(Supplier<V> supplier) {
+        return () -> {
+            var previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                return supplier.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    void record(ConsumedCapacity raw) {
+        if (raw != null) {
+            for (var scope = this; scope != null; scope = scope.parent) {
+                scope.capacity.add(raw);
+            }
+        }
+    }
+
+    void record(List<ConsumedCapacity> raw) {
+        for (var capacity : raw) {
+            record(capacity);
+        }
+    }
+
+    /**
+     * Close this scope, making the enclosing scope (if any) current again. Closing a scope twice has no effect.
+     * @throws IllegalStateException If this is not the current scope of this thread
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Capacity scopes must be closed on the thread that opened them, in reverse order of opening");
+        }
+        closed = true;
+        restore(parent);
+    }
+
+    private static void restore(CapacityScope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+}
@@ -7,6 +7,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * The capacity consumed by one or more operations. This is not thread safe; use {@link ConcurrentCapacityUsed} when
+ * one accumulator is shared between threads.
+ */
 public class CapacityUsed {
 
     private static final Map<String, ReadWrite> EMPTY_INDEXES = Collections.emptyMap();
@@ -57,29 +61,48 @@ public class CapacityUsed {
         if (raw == null) {
             return;
         }
-        totalRead += zeroNull(raw.readCapacityUnits());
-        totalWrite += zeroNull(raw.writeCapacityUnits());
         var table = raw.table();
-        if (table != null) {
-            tableRead += zeroNull(table.readCapacityUnits());
-            tableWrite += zeroNull(table.writeCapacityUnits());
-        }
+        addTotals(zeroNull(raw.readCapacityUnits()), zeroNull(raw.writeCapacityUnits()),
+            table == null ? 0.0 : zeroNull(table.readCapacityUnits()),
+            table == null ? 0.0 : zeroNull(table.writeCapacityUnits()));
         if (raw.hasGlobalSecondaryIndexes()) {
-            indexes = updateIndexes(indexes, raw.globalSecondaryIndexes());
+            updateIndexes(raw.globalSecondaryIndexes());
         }
         if (raw.hasLocalSecondaryIndexes()) {
-            indexes = updateIndexes(indexes, raw.localSecondaryIndexes());
+            updateIndexes(raw.localSecondaryIndexes());
+        }
+    }
+
+    /**
+     * Add all of the capacity in another accumulator to this one.
+     * @param other The capacity to add
+     */
+    void add(CapacityUsed other) {
+        addTotals(other.getTotalRead(), other.getTotalWrite(), other.getTableRead(), other.getTableWrite());
+        for (var entry : other.getIndexes().entrySet()) {
+            getOrCreateIndex(entry.getKey()).add(entry.getValue().getRead(), entry.getValue().getWrite());
         }
     }
 
-    private static Map<String, ReadWrite> updateIndexes(Map<String, ReadWrite> indexes, Map<String, Capacity> rawIndexes) {
+    void addTotals(double totalRead, double totalWrite, double tableRead, double tableWrite) {
+        this.totalRead += totalRead;
+        this.totalWrite += totalWrite;
+        this.tableRead += tableRead;
+        this.tableWrite += tableWrite;
+    }
+
+    ReadWrite getOrCreateIndex(String indexName) {
         if (indexes == null) {
             indexes = new HashMap<>();
         }
-        for (var indexName: rawIndexes.keySet()) {
-            indexes.computeIfAbsent(indexName, key -> new ReadWrite()).add(rawIndexes.get(indexName));
+        return indexes.computeIfAbsent(indexName, key -> new ReadWrite());
+    }
+
+    private void updateIndexes(Map<String, Capacity> rawIndexes) {
+        for (var entry : rawIndexes.entrySet()) {
+            var capacity = entry.getValue();
+            getOrCreateIndex(entry.getKey()).add(zeroNull(capacity.readCapacityUnits()), zeroNull(capacity.writeCapacityUnits()));
         }
-        return indexes;
     }
 
     private static double zeroNull(Double x) {
@@ -91,9 +114,9 @@ public class CapacityUsed {
         private double read;
         private double write;
 
-        void add(Capacity capacity) {
-            read += zeroNull(capacity.readCapacityUnits());
-            write += zeroNull(capacity.writeCapacityUnits());
+        void add(double read, double write) {
+            this.read += read;
+            this.write += write;
         }
 
         public double getRead() {
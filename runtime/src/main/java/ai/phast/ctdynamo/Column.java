@@ -0,0 +1,115 @@
+package ai.phast.ctdynamo;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An attribute read into a column by {@link Scan#invokeColumns(Column[])} or {@link Query#invokeColumns(Column[])}.
+ * Generated tables have a constant for each attribute that can be read this way, named after the property with a
+ * "_COLUMN" suffix, but columns can also be made here by attribute name.
+ * @param <V> The type of array that each page holds the column in
+ */
+public final class Column<V> {
+
+    enum Type {
+        LONG, INT, DOUBLE, STRING
+    }
+
+    private final String attributeName;
+
+    private final Type type;
+
+    private Column(String attributeName, Type type) {
+        this.attributeName = Objects.requireNonNull(attributeName, "attributeName must not be null");
+        this.type = type;
+    }
+
+    /**
+     * A number attribute read as longs. Reading a number with a fraction fails.
+     * @param attributeName The attribute
+     * @return The column
+     */
+    public static Column<long[]> longs(String attributeName) {
+        return new Column<>(attributeName, Type.LONG);
+    }
+
+    /**
+     * A number attribute read as ints. Reading a number with a fraction, or one too big for an int, fails.
+     * @param attributeName The attribute
+     * @return The column
+     */
+    public static Column<int[]> ints(String attributeName) {
+        return new Column<>(attributeName, Type.INT);
+    }
+
+    /**
+     * A number attribute read as doubles.
+     * @param attributeName The attribute
+     * @return The column
+     */
+    public static Column<double[]> doubles(String attributeName) {
+        return new Column<>(attributeName, Type.DOUBLE);
+    }
+
+    /**
+     * A string attribute, which includes enums, read as dictionary codes. Each distinct string gets a code the first
+     * time it is seen, which it keeps for every later page of the same result; see {@link ColumnPage#getDictionary}.
+     * @param attributeName The attribute
+     * @return The column
+     */
+    public static Column<int[]> strings(String attributeName) {
+        return new Column<>(attributeName, Type.STRING);
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    /**
+     * Build the projection expression that reads some columns.
+     * @param columns The columns
+     * @param names The expression attribute names, which the names used by the projection are added to
+     * @return The projection expression
+     */
+    static String project(Column<?>[] columns, Map<String, String> names) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column must be read");
+        }
+        var result = new StringBuilder();
+        for (int i = 0; i < columns.length; ++i) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append("#c").append(i);
+            names.put("#c" + i, columns[i].attributeName);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return attributeName.hashCode() * 31 + type.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (other instanceof Column) {
+            var peer = (Column<?>)other;
+            return attributeName.equals(peer.attributeName) && (type == peer.type);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return attributeName + " as " + type.name().toLowerCase() + "s";
+    }
+}
@@ -0,0 +1,216 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a {@link ColumnResult}, with each column in an array indexed by row. The arrays are reused for every
+ * page of the result and may be longer than the page, so loops must stop at {@link #size()}, and nothing from one
+ * page may be kept once the next is read.
+ *
+ * <p>Rows missing an attribute, or holding a value of some other type, hold 0 in number columns and -1 in string
+ * columns; {@link #isMissing} tells those apart from a real 0.
+ */
+public final class ColumnPage {
+
+    private final Column<?>[] columns;
+
+    /** The array holding each column */
+    private final Object[] values;
+
+    /** The rows missing from each column */
+    private final BitSet[] missing;
+
+    /** The dictionary of each string column, shared by all the pages of the result; null for other columns */
+    private final Dictionary[] dictionaries;
+
+    private int size;
+
+    ColumnPage(Column<?>[] columns) {
+        this.columns = columns.clone();
+        values = new Object[columns.length];
+        missing = new BitSet[columns.length];
+        dictionaries = new Dictionary[columns.length];
+        for (int i = 0; i < columns.length; ++i) {
+            missing[i] = new BitSet();
+            if (columns[i].getType() == Column.Type.STRING) {
+                dictionaries[i] = new Dictionary();
+            }
+        }
+        grow(0);
+    }
+
+    /**
+     * Get the number of rows in this page.
+     * @return The number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get a column.
+     * @param column The column, which must be one of those the result was asked for
+     * @param <V> The type of array holding the column
+     * @return The column's array. Only the first {@link #size()} entries belong to this page.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(Column<V> column) {
+        return (V)values[indexOf(column)];
+    }
+
+    /**
+     * Check whether a row had no value for a column.
+     * @param column The column
+     * @param row The row
+     * @return True if the row had no value, or a value of the wrong type
+     */
+    public boolean isMissing(Column<?> column, int row) {
+        return missing[indexOf(column)].get(row);
+    }
+
+    /**
+     * Get the strings that the codes of a string column stand for. The dictionary grows as later pages find new
+     * strings, and a code keeps its string for the whole result.
+     * @param column A column made by {@link Column#strings(String)}
+     * @return The strings, indexed by code
+     */
+    public List<String> getDictionary(Column<int[]> column) {
+        var dictionary = dictionaries[indexOf(column)];
+        if (dictionary == null) {
+            throw new IllegalArgumentException(column + " is not a string column");
+        }
+        return dictionary.view;
+    }
+
+    /**
+     * Replace the contents of this page.
+     * @param items The items of the new page
+     */
+    void fill(List<Map<String, AttributeValue>> items) {
+        size = items.size();
+        grow(size);
+        for (int c = 0; c < columns.length; ++c) {
+            var attributeName = columns[c].getAttributeName();
+            var missingRows = missing[c];
+            missingRows.clear();
+            switch (columns[c].getType()) {
+                case LONG: {
+                    var column = (long[])values[c];
+                    for (int row = 0; row < size; ++row) {
+                        var value = items.get(row).get(attributeName);
+                        if ((value == null) || (value.n() == null)) {
+                            column[row] = 0;
+                            missingRows.set(row);
+                        } else {
+                            column[row] = Long.parseLong(value.n());
+                        }
+                    }
+                    break;
+                }
+                case INT: {
+                    var column = (int[])values[c];
+                    for (int row = 0; row < size; ++row) {
+                        var value = items.get(row).get(attributeName);
+                        if ((value == null) || (value.n() == null)) {
+                            column[row] = 0;
+                            missingRows.set(row);
+                        } else {
+                            column[row] = Integer.parseInt(value.n());
+                        }
+                    }
+                    break;
+                }
+                case DOUBLE: {
+                    var column = (double[])values[c];
+                    for (int row = 0; row < size; ++row) {
+                        var value = items.get(row).get(attributeName);
+                        if ((value == null) || (value.n() == null)) {
+                            column[row] = 0;
+                            missingRows.set(row);
+                        } else {
+                            column[row] = Double.parseDouble(value.n());
+                        }
+                    }
+                    break;
+                }
+                case STRING: {
+                    var column = (int[])values[c];
+                    var dictionary = dictionaries[c];
+                    for (int row = 0; row < size; ++row) {
+                        var value = items.get(row).get(attributeName);
+                        if ((value == null) || (value.s() == null)) {
+                            column[row] = -1;
+                            missingRows.set(row);
+                        } else {
+                            column[row] = dictionary.code(value.s());
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Make sure every column can hold a page.
+     * @param rows The number of rows in the page
+     */
+    private void grow(int rows) {
+        for (int c = 0; c < columns.length; ++c) {
+            var current = values[c];
+            if ((current != null) && (Array.getLength(current) >= rows)) {
+                continue;
+            }
+            switch (columns[c].getType()) {
+                case LONG:
+                    values[c] = new long[rows];
+                    break;
+                case DOUBLE:
+                    values[c] = new double[rows];
+                    break;
+                default:
+                    values[c] = new int[rows];
+                    break;
+            }
+        }
+    }
+
+    private int indexOf(Column<?> column) {
+        for (int i = 0; i < columns.length; ++i) {
+            if (columns[i].equals(column)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(column + " was not read");
+    }
+
+    /**
+     * The strings of one string column.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        private final List<String> strings = new ArrayList<>();
+
+        private final List<String> view = Collections.unmodifiableList(strings);
+
+        private int code(String value) {
+            var code = codes.get(value);
+            if (code == null) {
+                code = strings.size();
+                codes.put(value, code);
+                strings.add(value);
+            }
+            return code;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The result of a scan or query that reads a few attributes into columns, for analytics that would otherwise decode
+ * every item just to look at a number or two. Dynamo is asked for only those attributes, and each page is read into
+ * primitive arrays instead of items:
+ * <pre>
+ *     long total = 0;
+ *     for (var page : table.scan().invokeColumns(BatchDynamoTable.TTL_COLUMN)) {
+ *         var ttl = page.get(BatchDynamoTable.TTL_COLUMN);
+ *         for (int row = 0; row &lt; page.size(); ++row) {
+ *             total += ttl[row];
+ *         }
+ *     }
+ * </pre>
+ * <p>As with {@link IterableResult}, the next page is fetched while the application reads the current one, and the
+ * result can be iterated only once. Every page is the same {@link ColumnPage}, refilled.
+ */
+public final class ColumnResult implements Iterable<ColumnPage> {
+
+    private final PagedResult<?, ?> source;
+
+    private final ColumnPage page;
+
+    /** The items of the next page, once fetched */
+    private List<Map<String, AttributeValue>> nextItems;
+
+    /** Whether nextItems holds the page after the one last returned */
+    private boolean fetched;
+
+    ColumnResult(PagedResult<?, ?> source, Column<?>[] columns) {
+        this.source = source;
+        page = new ColumnPage(columns);
+    }
+
+    /**
+     * Return the total number of items that have been scanned so far.
+     * @return The number of items scanned
+     */
+    public int getNumItemsScanned() {
+        return source.getNumItemsScanned();
+    }
+
+    /**
+     * Return the total number of items returned so far.
+     * @return The number of items returned
+     */
+    public int getNumItemsReturned() {
+        return source.getNumItemsReturned();
+    }
+
+    public CapacityUsed getCapacity() {
+        return source.getCapacity();
+    }
+
+    /**
+     * Get an exclusive start key that will continue where this result leaves off, as with
+     * {@link IterableResult#getExclusiveStart()}. When a limit ends part way through a page, the key is read from the
+     * last row returned, so it is only usable if the key attributes are among the columns.
+     * @return The key that lets you resume this operation where it left off
+     * @throws IllegalStateException If this is called before the last page has been reached
+     */
+    public Map<String, AttributeValue> getExclusiveStart() {
+        return source.getExclusiveStart();
+    }
+
+    @Override
+    public Iterator<ColumnPage> iterator() {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                if (!fetched) {
+                    nextItems = source.nextPage();
+                    fetched = true;
+                }
+                return nextItems != null;
+            }
+
+            @Override
+            public ColumnPage next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                page.fill(nextItems);
+                nextItems = null;
+                fetched = false;
+                return page;
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Objects;
+
+/**
+ * A codec that compresses the output of another codec. See {@link Compression} for the format. To use one in an
+ * annotation, subclass it with a no argument constructor:
+ * <pre>
+ *     public class CompressedEntriesCodec extends CompressingCodec&lt;List&lt;LogEntry&gt;&gt; {
+ *         public CompressedEntriesCodec() {
+ *             super(new LogEntryListCodec());
+ *         }
+ *     }
+ * </pre>
+ * For attributes that the generated code already knows how to encode, {@code @DynamoAttribute(compress = true)} is
+ * simpler.
+ * @param <T> The type of value encoded
+ */
+public class CompressingCodec<T> extends DynamoCodec<T> {
+
+    private final DynamoCodec<T> delegate;
+
+    private final Compressor compressor;
+
+    private final int minSize;
+
+    /**
+     * Build a codec that deflates values of at least {@link Compression#DEFAULT_MIN_SIZE} bytes.
+     * @param delegate The codec whose output is compressed
+     */
+    public CompressingCodec(DynamoCodec<T> delegate) {
+        this(delegate, new DeflateCompressor(), Compression.DEFAULT_MIN_SIZE);
+    }
+
+    /**
+     * Build a codec.
+     * @param delegate The codec whose output is compressed
+     * @param compressor The compression algorithm
+     * @param minSize Encoded values smaller than this, in bytes, are not compressed
+     */
+    public CompressingCodec(DynamoCodec<T> delegate, Compressor compressor, int minSize) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.compressor = Objects.requireNonNull(compressor);
+        this.minSize = minSize;
+    }
+
+    @Override
+    public AttributeValue encode(T value) {
+        return Compression.compress(delegate.encode(value), compressor, minSize);
+    }
+
+    @Override
+    public T decode(AttributeValue dynamoValue) {
+        return delegate.decode(Compression.decompress(dynamoValue, compressor));
+    }
+}
@@ -0,0 +1,132 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Compresses attribute values into binary attributes, and back. Generated code calls this for attributes annotated with
+ * {@code @DynamoAttribute(compress = true)}; {@link CompressingCodec} uses it to compress the output of any codec.
+ *
+ * <p>A compressed attribute is a binary attribute that starts with an 8 byte header: the magic bytes 0xCD 0x5A, the
+ * format version, the id of the compressor, and the length of the uncompressed data as a big endian int. The rest is
+ * the compressed {@link AttributeValueBytes} form of the original attribute. Values too small to be worth compressing,
+ * or that do not shrink, are stored as they are, so readers must accept both forms (decompress does). The one exception
+ * is a binary value that already starts with the magic bytes: that would be misread as compressed, so it is written
+ * with the header and compressor id {@link #STORED_ID}, which means the rest is the uncompressed form.
+ */
+public final class Compression {
+
+    public static final int HEADER_LENGTH = 8;
+
+    /** Attributes smaller than this rarely shrink enough to pay for the header and the CPU */
+    public static final int DEFAULT_MIN_SIZE = 1024;
+
+    /** The compressor id of values that carry the header but are not compressed. No compressor may use this id */
+    public static final int STORED_ID = 0;
+
+    /**
+     * The largest uncompressed length that decompress accepts. The length comes from the data, so without a limit a
+     * corrupt or hostile header could make us allocate up to 2GB.
+     */
+    public static final int MAX_UNCOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
+    private static final byte MAGIC_0 = (byte)0xCD;
+
+    private static final byte MAGIC_1 = (byte)0x5A;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private Compression() {
+    }
+
+    /**
+     * Compress an attribute value, if it is big enough and compresses well enough to be worth it.
+     * @param value The value to compress
+     * @param compressor The compression algorithm
+     * @param minSize Values whose serialized form is smaller than this are returned as they are
+     * @return A compressed binary attribute, or the original value
+     */
+    public static AttributeValue compress(AttributeValue value, Compressor compressor, int minSize) {
+        if (Boolean.TRUE.equals(value.nul())) {
+            return value;
+        }
+        var data = AttributeValueBytes.toBytes(value);
+        if (data.length >= minSize) {
+            var compressed = compressor.compress(data);
+            if (compressed.length + HEADER_LENGTH < data.length) {
+                return frame(compressor.getId(), data.length, compressed);
+            }
+        }
+        return startsWithMagic(value) ? frame(STORED_ID, data.length, data) : value;
+    }
+
+    private static AttributeValue frame(int compressorId, int length, byte[] payload) {
+        var result = new byte[HEADER_LENGTH + payload.length];
+        result[0] = MAGIC_0;
+        result[1] = MAGIC_1;
+        result[2] = FORMAT_VERSION;
+        result[3] = (byte)compressorId;
+        result[4] = (byte)(length >>> 24);
+        result[5] = (byte)(length >>> 16);
+        result[6] = (byte)(length >>> 8);
+        result[7] = (byte)length;
+        System.arraycopy(payload, 0, result, HEADER_LENGTH, payload.length);
+        return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(result)).build();
+    }
+
+    private static boolean startsWithMagic(AttributeValue value) {
+        if (value.b() == null) {
+            return false;
+        }
+        var bytes = value.b().asByteArrayUnsafe();
+        return (bytes.length >= 2) && (bytes[0] == MAGIC_0) && (bytes[1] == MAGIC_1);
+    }
+
+    /**
+     * Check whether an attribute value was compressed by {@link #compress(AttributeValue, Compressor, int)}.
+     * @param value The value
+     * @return True if the value is a compressed binary attribute
+     */
+    public static boolean isCompressed(AttributeValue value) {
+        if (value.b() == null) {
+            return false;
+        }
+        var bytes = value.b().asByteArrayUnsafe();
+        return (bytes.length >= HEADER_LENGTH) && (bytes[0] == MAGIC_0) && (bytes[1] == MAGIC_1);
+    }
+
+    /**
+     * Undo {@link #compress(AttributeValue, Compressor, int)}. Values that were not compressed are returned as they are.
+     * @param value The value to decompress
+     * @param compressor The compression algorithm used to write the value
+     * @return The original value
+     * @throws IllegalArgumentException If the value was written by a different version or compressor, or is corrupt
+     */
+    public static AttributeValue decompress(AttributeValue value, Compressor compressor) {
+        if (!isCompressed(value)) {
+            return value;
+        }
+        var bytes = value.b().asByteArrayUnsafe();
+        if (bytes[2] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown compressed attribute format version " + bytes[2]);
+        }
+        var id = bytes[3] & 0xff;
+        var length = ((bytes[4] & 0xff) << 24) | ((bytes[5] & 0xff) << 16) | ((bytes[6] & 0xff) << 8) | (bytes[7] & 0xff);
+        if (id == STORED_ID) {
+            if (length != bytes.length - HEADER_LENGTH) {
+                throw new IllegalArgumentException("Corrupt stored attribute: header says " + length + " bytes, got "
+                                                       + (bytes.length - HEADER_LENGTH));
+            }
+            return AttributeValueBytes.fromBytes(bytes, HEADER_LENGTH, length);
+        }
+        if (id != compressor.getId()) {
+            throw new IllegalArgumentException("Attribute was compressed with compressor " + id + ", not "
+                                                   + compressor.getId());
+        }
+        if ((length < 0) || (length > MAX_UNCOMPRESSED_LENGTH)) {
+            throw new IllegalArgumentException("Corrupt compressed attribute length " + length);
+        }
+        var data = compressor.decompress(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, length);
+        return AttributeValueBytes.fromBytes(data, 0, data.length);
+    }
+}
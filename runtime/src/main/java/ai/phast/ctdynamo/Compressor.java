@@ -0,0 +1,34 @@
+package ai.phast.ctdynamo;
+
+/**
+ * A compression algorithm for compressed attributes. Implementations must be thread safe, and must have a public no
+ * argument constructor to be named in {@link ai.phast.ctdynamo.annotations.DynamoAttribute#compressor()}.
+ */
+public interface Compressor {
+
+    /**
+     * Get the id of this algorithm. This is stored in the header of every compressed attribute, so that data written
+     * with one algorithm is never handed to another. Ids 1 through 15 are reserved for compressors built into this
+     * library.
+     * @return The id, from 1 to 255
+     */
+    int getId();
+
+    /**
+     * Compress some data.
+     * @param data The data to compress
+     * @return The compressed data
+     */
+    byte[] compress(byte[] data);
+
+    /**
+     * Decompress some data.
+     * @param data An array holding the compressed data
+     * @param offset Where the compressed data starts
+     * @param length The number of compressed bytes
+     * @param uncompressedLength The length of the data before it was compressed
+     * @return The decompressed data
+     * @throws IllegalArgumentException If the data is corrupt
+     */
+    byte[] decompress(byte[] data, int offset, int length, int uncompressedLength);
+}
@@ -0,0 +1,93 @@
+package ai.phast.ctdynamo;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A capacity accumulator that may be shared between threads, for example by all of the futures of an async batch or
+ * by all segments of a parallel scan. Each counter is a {@link DoubleAdder}, so concurrent updates land on separate
+ * cells instead of contending for one lock. Reads are not atomic snapshots; a read that races with an update may see
+ * some counters with the update and some without.
+ */
+public final class ConcurrentCapacityUsed extends CapacityUsed {
+
+    private final DoubleAdder totalRead = new DoubleAdder();
+    private final DoubleAdder totalWrite = new DoubleAdder();
+
+    private final DoubleAdder tableRead = new DoubleAdder();
+    private final DoubleAdder tableWrite = new DoubleAdder();
+
+    private final Map<String, ReadWrite> indexes = new ConcurrentHashMap<>();
+
+    public ConcurrentCapacityUsed() {
+    }
+
+    @Override
+    public double getTotalRead() {
+        return totalRead.sum();
+    }
+
+    @Override
+    public double getTotalWrite() {
+        return totalWrite.sum();
+    }
+
+    @Override
+    public double getTableRead() {
+        return tableRead.sum();
+    }
+
+    @Override
+    public double getTableWrite() {
+        return tableWrite.sum();
+    }
+
+    @Override
+    public Map<String, ReadWrite> getIndexes() {
+        return Collections.unmodifiableMap(indexes);
+    }
+
+    /**
+     * Add to the totals. This may be called from any thread, so both forms of {@link CapacityUsed#add} are safe to
+     * call concurrently.
+     */
+    @Override
+    void addTotals(double totalRead, double totalWrite, double tableRead, double tableWrite) {
+        this.totalRead.add(totalRead);
+        this.totalWrite.add(totalWrite);
+        this.tableRead.add(tableRead);
+        this.tableWrite.add(tableWrite);
+    }
+
+    /**
+     * Get the accumulator for an index, creating it if needed. This may be called from any thread.
+     */
+    @Override
+    ReadWrite getOrCreateIndex(String indexName) {
+        return indexes.computeIfAbsent(indexName, key -> new ConcurrentReadWrite());
+    }
+
+    private static final class ConcurrentReadWrite extends ReadWrite {
+
+        private final DoubleAdder read = new DoubleAdder();
+        private final DoubleAdder write = new DoubleAdder();
+
+        @Override
+        void add(double read, double write) {
+            this.read.add(read);
+            this.write.add(write);
+        }
+
+        @Override
+        public double getRead() {
+            return read.sum();
+        }
+
+        @Override
+        public double getWrite() {
+            return write.sum();
+        }
+    }
+}
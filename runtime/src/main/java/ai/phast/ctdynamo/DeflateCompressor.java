@@ -0,0 +1,85 @@
+package ai.phast.ctdynamo;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses with the JDK's deflate implementation. This is the default compressor of compressed attributes. The raw
+ * deflate format is used, without the zlib header and checksum, since compressed attributes carry their own header.
+ */
+public class DeflateCompressor implements Compressor {
+
+    public static final int ID = 1;
+
+    private final int level;
+
+    /**
+     * Build a compressor with the default deflate level, which favors speed over the last few percent of size.
+     */
+    public DeflateCompressor() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Build a compressor.
+     * @param level The deflate level, from 0 to 9, or -1 for the default
+     */
+    public DeflateCompressor(int level) {
+        if ((level < -1) || (level > 9)) {
+            throw new IllegalArgumentException("Deflate level must be from -1 to 9, got " + level);
+        }
+        this.level = level;
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        var deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            // Most attributes worth compressing shrink a lot, so start small and let the stream grow if needed
+            var out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            var buffer = new byte[Math.min(8192, Math.max(64, data.length))];
+            while (!deflater.finished()) {
+                var count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int uncompressedLength) {
+        var inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, length);
+            var result = new byte[uncompressedLength];
+            var position = 0;
+            while (position < uncompressedLength) {
+                var count = inflater.inflate(result, position, uncompressedLength - position);
+                if ((count == 0) && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                position += count;
+            }
+            if (position != uncompressedLength) {
+                throw new IllegalArgumentException("Compressed attribute is truncated: expected " + uncompressedLength
+                                                       + " bytes, got " + position);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed attribute", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
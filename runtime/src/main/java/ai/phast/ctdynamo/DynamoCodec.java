@@ -1,7 +1,13 @@
 package ai.phast.ctdynamo;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
 public abstract class DynamoCodec<T> {
 
     /**
@@ -10,7 +16,112 @@ public abstract class DynamoCodec<T> {
      */
     public static final AttributeValue NULL_ATTRIBUTE_VALUE = AttributeValue.builder().nul(true).build();
 
+    /** Empty collections are common and all encode the same, so they share one immutable attribute value too. */
+    public static final AttributeValue EMPTY_LIST_ATTRIBUTE_VALUE = AttributeValue.builder().l(Collections.emptyList()).build();
+
+    public static final AttributeValue TRUE_ATTRIBUTE_VALUE = AttributeValue.builder().bool(true).build();
+
+    public static final AttributeValue FALSE_ATTRIBUTE_VALUE = AttributeValue.builder().bool(false).build();
+
+    private static final int SMALL_NUMBER_MIN = -128;
+
+    private static final int SMALL_NUMBER_MAX = 1023;
+
+    /** Counts, flags, and small codes are far more common than other numbers, so their attribute values are built once */
+    private static final AttributeValue[] SMALL_NUMBERS = new AttributeValue[SMALL_NUMBER_MAX - SMALL_NUMBER_MIN + 1];
+
+    static {
+        for (int i = SMALL_NUMBER_MIN; i <= SMALL_NUMBER_MAX; ++i) {
+            SMALL_NUMBERS[i - SMALL_NUMBER_MIN] = AttributeValue.builder().n(Integer.toString(i)).build();
+        }
+    }
+
+    /**
+     * Get the attribute value of a boolean. This never allocates.
+     * @param value The boolean
+     * @return The shared attribute value
+     */
+    public static AttributeValue bool(boolean value) {
+        return value ? TRUE_ATTRIBUTE_VALUE : FALSE_ATTRIBUTE_VALUE;
+    }
+
+    /**
+     * Get the attribute value of an integer. Values from -128 to 1023 come from a cache and do not allocate.
+     * @param value The integer
+     * @return The attribute value
+     */
+    public static AttributeValue number(int value) {
+        if ((value >= SMALL_NUMBER_MIN) && (value <= SMALL_NUMBER_MAX)) {
+            return SMALL_NUMBERS[value - SMALL_NUMBER_MIN];
+        }
+        return AttributeValue.builder().n(Integer.toString(value)).build();
+    }
+
+    /**
+     * Get the attribute value of a long. Values from -128 to 1023 come from a cache and do not allocate.
+     * @param value The long
+     * @return The attribute value
+     */
+    public static AttributeValue number(long value) {
+        if ((value >= SMALL_NUMBER_MIN) && (value <= SMALL_NUMBER_MAX)) {
+            return SMALL_NUMBERS[(int)value - SMALL_NUMBER_MIN];
+        }
+        return AttributeValue.builder().n(Long.toString(value)).build();
+    }
+
+    /**
+     * Build the attribute values of every constant of an enum, indexed by ordinal. Generated code keeps one of these
+     * per enum, so encoding an enum is an array lookup.
+     * @param enumClass The enum
+     * @param <E> The type of the enum
+     * @return The attribute values
+     */
+    public static <E extends Enum<E>> AttributeValue[] enumValues(Class<E> enumClass) {
+        var constants = enumClass.getEnumConstants();
+        var result = new AttributeValue[constants.length];
+        for (var constant : constants) {
+            result[constant.ordinal()] = AttributeValue.builder().s(constant.name()).build();
+        }
+        return result;
+    }
+
+    /**
+     * Wrap the remaining bytes of a buffer without copying them when the buffer covers exactly its whole backing array.
+     * Other buffers (direct, read only, or slices) are copied. The buffer's position is not changed.
+     * @param value The buffer
+     * @return The bytes, which may share the buffer's array
+     */
+    public static SdkBytes wrapBytes(ByteBuffer value) {
+        if (value.hasArray() && (value.arrayOffset() == 0) && (value.position() == 0)
+            && (value.remaining() == value.array().length)) {
+            return SdkBytes.fromByteArrayUnsafe(value.array());
+        }
+        return SdkBytes.fromByteBuffer(value);
+    }
+
     public abstract AttributeValue encode(T value);
 
+    /**
+     * Encode a value as the JSON of its attribute value, for {@link StreamingWrites}. Generated codecs override this to
+     * write the item straight to the generator, without building attribute values for its simple attributes.
+     * @param value The value
+     * @param generator The generator, which the whole attribute value object must be written to
+     * @throws IOException If the generator fails
+     */
+    public void encodeJson(T value, JsonGenerator generator) throws IOException {
+        JsonAttributeValues.write(generator, encode(value));
+    }
+
     public abstract T decode(AttributeValue dynamoValue);
+
+    /**
+     * Decode a value into an existing instance. Generated codecs refill the instance the way
+     * {@link DynamoIndex#decodeInto(java.util.Map, Object)} does; others decode a new value.
+     * @param dynamoValue The attribute value
+     * @param reuse The instance to decode into, which is overwritten
+     * @return The decoded value, which is {@code reuse} unless this codec cannot refill instances
+     */
+    public T decodeInto(AttributeValue dynamoValue, T reuse) {
+        return decode(dynamoValue);
+    }
 }
@@ -1,11 +1,19 @@
 package ai.phast.ctdynamo;
 
+import com.fasterxml.jackson.core.JsonParser;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
 
 public abstract class DynamoIndex<T, PartitionT, SortT> {
 
@@ -21,6 +29,11 @@ public abstract class DynamoIndex<T, PartitionT, SortT> {
 
     private final DynamoDbAsyncClient asyncClient;
 
+    /** Whether our synchronous client was built with {@link StreamingReads} */
+    private final boolean streamingReads;
+
+    private volatile HotKeySampler hotKeySampler;
+
     public DynamoIndex(DynamoDbClient client, DynamoDbAsyncClient asyncClient,
                        String tableName, String indexName, String partitionKeyAttribute, String sortKeyAttribute) {
         if (client == null && asyncClient == null) {
@@ -28,6 +41,7 @@ public abstract class DynamoIndex<T, PartitionT, SortT> {
         }
         this.client = client;
         this.asyncClient = asyncClient;
+        streamingReads = StreamingReads.isInstalledOn(client);
         this.tableName = Objects.requireNonNull(tableName, "tableName must not be null");
         this.indexName = indexName;
         this.partitionKeyAttribute = Objects.requireNonNull(partitionKeyAttribute, "partitionKeyAttribute must not be null");
@@ -54,6 +68,10 @@ public abstract class DynamoIndex<T, PartitionT, SortT> {
         return asyncClient;
     }
 
+    final boolean isStreamingReads() {
+        return streamingReads;
+    }
+
     protected final String getPartitionKeyAttribute() {
         return partitionKeyAttribute;
     }
@@ -62,6 +80,26 @@ public abstract class DynamoIndex<T, PartitionT, SortT> {
         return sortKeyAttribute;
     }
 
+    /**
+     * Get the hot key sampler watching this table or index.
+     * @return The sampler, or null if there is none
+     */
+    public final HotKeySampler getHotKeySampler() {
+        return hotKeySampler;
+    }
+
+    /**
+     * Attach a sampler that tracks the partition keys used by this table or index. Gets, puts, deletes, their batch
+     * forms, and query pages are all recorded; scans are not, since they are not aimed at a partition. While a sampler
+     * is attached, requests ask Dynamo to return their consumed capacity.
+     * <p>Each index object returned by the table has its own sampler, since its partitions are separate from those of
+     * the table.
+     * @param value The sampler, or null to stop sampling
+     */
+    public final void setHotKeySampler(HotKeySampler value) {
+        hotKeySampler = value;
+    }
+
     public final Query<T, PartitionT, SortT> query() {
         return query(null);
     }
@@ -70,6 +108,24 @@ public abstract class DynamoIndex<T, PartitionT, SortT> {
         return new Query<>(this, partitionValue);
     }
 
+    /**
+     * Start a query of an encoded partition value. Generated tables use this for their overloads that take primitive
+     * keys, which encode the key without boxing it.
+     * @param partitionValue The attribute value of the partition key
+     * @return The query
+     */
+    protected final Query<T, PartitionT, SortT> queryEncoded(AttributeValue partitionValue) {
+        return new Query<T, PartitionT, SortT>(this, null).encodedPartitionValue(partitionValue);
+    }
+
+    /**
+     * Prepare a query to run many times, possibly from many threads. See {@link PreparedQuery}.
+     * @return A prepared query of whole partitions, which can be narrowed with the methods of the prepared query
+     */
+    public final PreparedQuery<T, PartitionT, SortT> prepareQuery() {
+        return new PreparedQuery<>(this);
+    }
+
     public final Scan<T> scan() {
         return scan(0, 1);
     }
@@ -78,12 +134,119 @@ public abstract class DynamoIndex<T, PartitionT, SortT> {
         return new Scan<>(this, segment, numSegments);
     }
 
+    /**
+     * Start a scan of a random sample of segments, for estimates. See {@link SampleScan}.
+     * @param totalSegments The number of segments to divide the table or index into
+     * @param sampledSegments The number of those segments to read
+     * @return The sample scan
+     */
+    public final SampleScan<T> sampleScan(int totalSegments, int sampledSegments) {
+        return new SampleScan<>(this, totalSegments, sampledSegments);
+    }
+
+    /**
+     * Aggregate the whole table or index with a parallel scan. Each segment of the scan is read by its own thread into
+     * its own accumulator, and the accumulators are combined once all segments finish, so the collector should keep
+     * bounded state (counts, sums, or the sketches of {@link Aggregations}) rather than the items. Workers run on a
+     * shared pool of daemon threads, and charge their reads to the {@link CapacityScope} that was current when the
+     * aggregation started.
+     * @param numSegments The number of segments, which is also the number of threads
+     * @param collector The aggregation
+     * @param <A> The type of accumulator
+     * @param <R> The type of result
+     * @return The result. Cancelling it stops the scan after the item that each thread is on.
+     */
+    public final <A, R> CompletableFuture<R> aggregateScan(int numSegments, Collector<? super T, A, R> collector) {
+        return aggregateScan(numSegments, collector, null);
+    }
+
+    /**
+     * Aggregate the whole table or index with a parallel scan, as {@link #aggregateScan(int, Collector)} does.
+     * @param numSegments The number of segments, which is also the number of threads
+     * @param collector The aggregation
+     * @param executor Runs the segments, which block while waiting for pages. Null for the shared pool.
+     * @param <A> The type of accumulator
+     * @param <R> The type of result
+     * @return The result. Cancelling it stops the scan after the item that each thread is on.
+     */
+    public final <A, R> CompletableFuture<R> aggregateScan(int numSegments, Collector<? super T, A, R> collector, Executor executor) {
+        if (numSegments <= 0) {
+            throw new IllegalArgumentException("numSegments must be positive, got " + numSegments);
+        }
+        var sources = new ArrayList<Supplier<? extends Iterable<? extends T>>>(numSegments);
+        for (int segment = 0; segment < numSegments; ++segment) {
+            var thisSegment = segment;
+            sources.add(() -> scan(thisSegment, numSegments).invoke());
+        }
+        return ParallelAggregation.start(sources, numSegments, collector, executor);
+    }
+
+    /**
+     * Aggregate the items of several partitions, querying up to {@code parallelism} of them at once. As with
+     * {@link #aggregateScan(int, Collector)}, each thread has its own accumulator and they are combined at the end.
+     * @param partitionValues The partitions to read
+     * @param parallelism The number of threads
+     * @param collector The aggregation
+     * @param <A> The type of accumulator
+     * @param <R> The type of result
+     * @return The result. Cancelling it stops the queries after the item that each thread is on.
+     */
+    public final <A, R> CompletableFuture<R> aggregateQuery(Collection<? extends PartitionT> partitionValues, int parallelism,
+                                                            Collector<? super T, A, R> collector) {
+        return aggregateQuery(partitionValues, parallelism, collector, null);
+    }
+
+    /**
+     * Aggregate the items of several partitions, as {@link #aggregateQuery(Collection, int, Collector)} does.
+     * @param partitionValues The partitions to read
+     * @param parallelism The number of threads
+     * @param collector The aggregation
+     * @param executor Runs the queries, which block while waiting for pages. Null for the shared pool.
+     * @param <A> The type of accumulator
+     * @param <R> The type of result
+     * @return The result. Cancelling it stops the queries after the item that each thread is on.
+     */
+    public final <A, R> CompletableFuture<R> aggregateQuery(Collection<? extends PartitionT> partitionValues, int parallelism,
+                                                            Collector<? super T, A, R> collector, Executor executor) {
+        var sources = new ArrayList<Supplier<? extends Iterable<? extends T>>>(partitionValues.size());
+        for (var partitionValue : partitionValues) {
+            sources.add(() -> query(partitionValue).invoke());
+        }
+        return ParallelAggregation.start(sources, parallelism, collector, executor);
+    }
+
     protected abstract AttributeValue partitionValueToAttributeValue(PartitionT partitionValue);
 
     protected abstract AttributeValue sortValueToAttributeValue(SortT sortValue);
 
     public abstract T decode(Map<String, AttributeValue> map);
 
+    /**
+     * Decode an item into an existing instance, so that reads of many items can refill one instance instead of
+     * allocating one per item. Generated tables override this to call the setters of the instance given, resetting
+     * attributes missing from the map to null, zero, or false. A list whose getter returns an
+     * {@link java.util.ArrayList} is refilled in place (including the items in lists of nested items) and then passed
+     * to the setter, so getters that return copies still work; other lists, such as unmodifiable views, are replaced
+     * with new ones. Tables of lazy items, and of items built through a constructor, decode a new item.
+     * @param map The attributes of the item
+     * @param reuse The instance to decode into. It is overwritten, and must not be in use elsewhere.
+     * @return The decoded item, which is {@code reuse} unless this table cannot refill instances
+     */
+    public T decodeInto(Map<String, AttributeValue> map, T reuse) {
+        return decode(map);
+    }
+
+    /**
+     * Decode an item from the JSON that Dynamo sends, for {@link StreamingReads}. Generated tables override this to
+     * read simple attributes straight from the tokens, without building attribute values for them.
+     * @param parser The parser, on the start of the item object. It must be left on the end of the item object.
+     * @return The item
+     * @throws IOException If the item is not valid
+     */
+    protected T decodeJson(JsonParser parser) throws IOException {
+        return decode(JsonAttributeValues.readItem(parser));
+    }
+
     public abstract Map<String, AttributeValue> getExclusiveStart(T value);
 
 }
@@ -1,5 +1,6 @@
 package ai.phast.ctdynamo;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
@@ -7,6 +8,7 @@ import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
 import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
@@ -19,8 +21,10 @@ import software.amazon.awssdk.services.dynamodb.model.PutRequest;
 import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
 import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -32,9 +36,35 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
 
     private static final int MAX_ITEMS_PER_BATCH = 25;
 
+    /**
+     * The key of a get or delete, filled in just long enough for the request builder to copy it. The SDK copies every
+     * key it is given, so building a new map for each request would only give it something to copy and then drop.
+     */
+    private static final ThreadLocal<Map<String, AttributeValue>> KEY_SCRATCH = ThreadLocal.withInitial(() -> new HashMap<>(4));
+
+    /** Whether our synchronous client was built with {@link StreamingWrites} */
+    private final boolean streamingWrites;
+
+    /** The gets and deletes that requests are built from, with everything but the key filled in */
+    private final GetItemRequest getTemplate;
+
+    private final GetItemRequest getCapacityTemplate;
+
+    private final GetItemRequest getConsistentCapacityTemplate;
+
+    private final DeleteItemRequest deleteTemplate;
+
+    private final DeleteItemRequest deleteCapacityTemplate;
+
     public DynamoTable(DynamoDbClient client, DynamoDbAsyncClient asyncClient, String tableName,
                        String partitionKeyAttribute, String sortKeyAttribute) {
         super(client, asyncClient, tableName, null, partitionKeyAttribute, sortKeyAttribute);
+        streamingWrites = StreamingWrites.isInstalledOn(client);
+        getTemplate = GetItemRequest.builder().tableName(tableName).build();
+        getCapacityTemplate = getTemplate.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+        getConsistentCapacityTemplate = getCapacityTemplate.toBuilder().consistentRead(true).build();
+        deleteTemplate = DeleteItemRequest.builder().tableName(tableName).build();
+        deleteCapacityTemplate = deleteTemplate.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
     }
 
     public final T getItem(T value) {
@@ -46,10 +76,18 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public T getItem(PartitionT partitionValue, SortT sortValue) {
-        var response = getItem(GetItemRequest.builder()
-                               .tableName(getTableName())
-                               .key(keysToMap(partitionValue, sortValue))
-                               .build());
+        return getItemByEncodedKeys(partitionValueToAttributeValue(partitionValue), encodeSortValue(sortValue));
+    }
+
+    /**
+     * Get an item by its encoded key. Generated tables use this for their overloads that take primitive keys, which
+     * encode the key without boxing it.
+     * @param partitionValue The attribute value of the partition key
+     * @param sortValue The attribute value of the sort key. Must be null if there is no sort key
+     * @return The item, or null if there is none
+     */
+    protected final T getItemByEncodedKeys(AttributeValue partitionValue, AttributeValue sortValue) {
+        var response = getItem(capacity -> withKey(capacity ? getCapacityTemplate : getTemplate, partitionValue, sortValue));
         return response.hasItem() ? decode(response.item()) : null;
     }
 
@@ -62,18 +100,16 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public ExtendedItemResult<T> getItemExtended(PartitionT partitionValue, SortT sortValue, boolean useConsistentRead) {
-        var response = getItem(GetItemRequest.builder()
-                               .tableName(getTableName())
-                               .key(keysToMap(partitionValue, sortValue))
-                               .returnConsumedCapacity(ReturnConsumedCapacity.INDEXES)
-                               .consistentRead(useConsistentRead)
-                               .build());
+        var key = partitionValueToAttributeValue(partitionValue);
+        var sortKey = encodeSortValue(sortValue);
+        var response = getItem(capacity -> withKey(useConsistentRead ? getConsistentCapacityTemplate : getCapacityTemplate, key, sortKey));
         return new ExtendedItemResult<>(response.hasItem() ? decode(response.item()) : null,
             response.consumedCapacity());
     }
 
-    private GetItemResponse getItem(GetItemRequest request) {
-        return getClient() == null ? getAsyncClient().getItem(request).join() : getClient().getItem(request);
+    private GetItemResponse getItem(Function<Boolean, GetItemRequest> request) {
+        return send(request, r -> getClient() == null ? getAsyncClient().getItem(r).join() : getClient().getItem(r),
+            (scope, r, response) -> recordRead(scope, r.key(), response.consumedCapacity()));
     }
 
     public final CompletableFuture<T> getItemAsync(T value) {
@@ -85,10 +121,17 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public CompletableFuture<T> getItemAsync(PartitionT partitionValue, SortT sortValue) {
-        return getItemAsync(GetItemRequest.builder()
-                            .tableName(getTableName())
-                            .key(keysToMap(partitionValue, sortValue))
-                            .build())
+        return getItemByEncodedKeysAsync(partitionValueToAttributeValue(partitionValue), encodeSortValue(sortValue));
+    }
+
+    /**
+     * Get an item by its encoded key, asynchronously.
+     * @param partitionValue The attribute value of the partition key
+     * @param sortValue The attribute value of the sort key. Must be null if there is no sort key
+     * @return The item, or null if there is none
+     */
+    protected final CompletableFuture<T> getItemByEncodedKeysAsync(AttributeValue partitionValue, AttributeValue sortValue) {
+        return getItemAsync(capacity -> withKey(capacity ? getCapacityTemplate : getTemplate, partitionValue, sortValue))
                    .thenApply(r -> r.hasItem() ? decode(r.item()) : null);
     }
 
@@ -101,19 +144,16 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public CompletableFuture<ExtendedItemResult<T>> getItemExtendedAsync(PartitionT partitionValue, SortT sortValue, boolean useConsistentRead) {
-        return getItemAsync(GetItemRequest.builder()
-                            .tableName(getTableName())
-                            .key(keysToMap(partitionValue, sortValue))
-                            .returnConsumedCapacity(ReturnConsumedCapacity.INDEXES)
-                            .consistentRead(useConsistentRead)
-                            .build())
+        var key = partitionValueToAttributeValue(partitionValue);
+        var sortKey = encodeSortValue(sortValue);
+        return getItemAsync(capacity -> withKey(useConsistentRead ? getConsistentCapacityTemplate : getCapacityTemplate, key, sortKey))
                    .thenApply(r -> new ExtendedItemResult<>(r.hasItem() ? decode(r.item()) : null, r.consumedCapacity()));
     }
 
-    private CompletableFuture<GetItemResponse> getItemAsync(GetItemRequest request) {
-        return getAsyncClient() == null
-               ? CompletableFuture.supplyAsync(() -> getClient().getItem(request))
-               : getAsyncClient().getItem(request);
+    private CompletableFuture<GetItemResponse> getItemAsync(Function<Boolean, GetItemRequest> request) {
+        return sendAsync(request,
+            r -> getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().getItem(r)) : getAsyncClient().getItem(r),
+            (scope, r, response) -> recordRead(scope, r.key(), response.consumedCapacity()));
     }
 
     /**
@@ -135,15 +175,10 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     private List<T> getBatch(List<Map<String, KeysAndAttributes>> batches) {
-        Function<BatchGetItemRequest, BatchGetItemResponse> doCall = (getClient() == null
-                                                                      ? req -> getAsyncClient().batchGetItem(req).join()
-                                                                      : req -> getClient().batchGetItem(req));
         return batches.stream()
                    .map(batch -> BatchGetItemRequest.builder().requestItems(batch).build())
-                   .map(doCall)
-                   .filter(BatchGetItemResponse::hasResponses)
-                   .flatMap(response -> response.responses().get(getTableName()).stream())
-                   .map(this::decode)
+                   .map(this::batchGetItem)
+                   .flatMap(page -> page.items.stream())
                    .collect(Collectors.toList());
     }
 
@@ -162,8 +197,7 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
                               .requestItems(batch)
                               .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
                               .build();
-            updateExtendedGetBatchResult(result,
-                getClient() == null ? getAsyncClient().batchGetItem(request).join() : getClient().batchGetItem(request));
+            updateExtendedGetBatchResult(result, batchGetItem(request));
         }
         return result;
     }
@@ -177,19 +211,14 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     private CompletableFuture<List<T>> getBatchAsync(List<Map<String, KeysAndAttributes>> batches) {
-        BiFunction<List<T>, BatchGetItemResponse, List<T>> merger = (list, response) -> {
-            if (response.hasResponses()) {
-                response.responses().get(getTableName()).forEach(m -> list.add(decode(m)));
-            }
+        BiFunction<List<T>, GetBatchPage<T>, List<T>> merger = (list, page) -> {
+            list.addAll(page.items);
             return list;
         };
         CompletableFuture<List<T>> result = CompletableFuture.completedFuture(new ArrayList<>(batches.size() * MAX_ITEMS_PER_BATCH));
         for (var batch: batches) {
             var request = BatchGetItemRequest.builder().requestItems(batch).build();
-            result = result.thenCombine(
-                getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().batchGetItem(request))
-                                         : getAsyncClient().batchGetItem(request),
-                merger);
+            result = result.thenCombine(batchGetItemAsync(request), merger);
         }
         return result;
     }
@@ -209,27 +238,23 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
                               .requestItems(batch)
                               .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
                               .build();
-            result = result.thenCombine(
-                getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().batchGetItem(request))
-                                         : getAsyncClient().batchGetItem(request),
-                this::updateExtendedGetBatchResult);
+            result = result.thenCombine(batchGetItemAsync(request), this::updateExtendedGetBatchResult);
         }
         return result;
     }
 
-    private ExtendedBatchResult<T, Key<PartitionT, SortT>> updateExtendedGetBatchResult(ExtendedBatchResult<T, Key<PartitionT, SortT>> result, BatchGetItemResponse response) {
-        if (response.hasResponses()) {
-            response.responses().get(getTableName()).stream()
-                .map(this::decode)
-                .forEach(item -> result.getItems().add(item));
-        }
+    private ExtendedBatchResult<T, Key<PartitionT, SortT>> updateExtendedGetBatchResult(ExtendedBatchResult<T, Key<PartitionT, SortT>> result, GetBatchPage<T> page) {
+        var response = page.response;
+        result.getItems().addAll(page.items);
         if (response.hasConsumedCapacity()) {
             for (var cap : response.consumedCapacity()) {
                 result.getCapacity().add(cap);
             }
         }
-        if (response.hasUnprocessedKeys()) {
-            for (var keyMap : response.unprocessedKeys().get(getTableName()).keys()) {
+        // Dynamo returns an empty map, not a missing one, when every key was processed
+        var unprocessed = response.hasUnprocessedKeys() ? response.unprocessedKeys().get(getTableName()) : null;
+        if (unprocessed != null) {
+            for (var keyMap : unprocessed.keys()) {
                 result.getUnprocessedValues().add(new Key<>(getPartitionKey(keyMap.get(getPartitionKeyAttribute())),
                     getSortKey(keyMap.get(getSortKeyAttribute()))));
             }
@@ -276,37 +301,19 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public T putItem(T value) {
-        var putResponse = putItem(PutItemRequest.builder()
-                                      .tableName(getTableName())
-                                      .item(encode(value))
-                                      .build());
+        var putResponse = putItemSync(value, null);
         return putResponse.hasAttributes() ? decode(putResponse.attributes()) : null;
     }
 
     public void putBatch(List<T> values) {
         int numValues = values.size();
         for (int i = 0; i < numValues; i += MAX_ITEMS_PER_BATCH) {
-            var request = BatchWriteItemRequest.builder()
-                              .requestItems(Collections.singletonMap(getTableName(),
-                                  values.subList(i, Math.min(numValues, i + MAX_ITEMS_PER_BATCH)).stream()
-                                      .map(value -> WriteRequest.builder().putRequest(PutRequest.builder()
-                                                                                          .item(encode(value)).build()).build())
-                                      .collect(Collectors.toList())))
-                              .build();
-            if (getClient() == null) {
-                getAsyncClient().batchWriteItem(request).join();
-            } else {
-                getClient().batchWriteItem(request);
-            }
+            putBatchSync(values.subList(i, Math.min(numValues, i + MAX_ITEMS_PER_BATCH)), null);
         }
     }
 
     public ExtendedItemResult<T> putItemExtended(T value) {
-        var putResponse = putItem(PutItemRequest.builder()
-                          .tableName(getTableName())
-                          .item(encode(value))
-                          .returnConsumedCapacity(ReturnConsumedCapacity.INDEXES)
-                          .build());
+        var putResponse = putItemSync(value, ReturnConsumedCapacity.INDEXES);
         return new ExtendedItemResult<>(putResponse.hasAttributes() ? decode(putResponse.attributes()) : null, putResponse.consumedCapacity());
     }
 
@@ -314,15 +321,8 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
         int numValues = values.size();
         var result = new ExtendedBatchResult<T, T>();
         for (int i = 0; i < numValues; i += MAX_ITEMS_PER_BATCH) {
-            var request = BatchWriteItemRequest.builder()
-                              .requestItems(Collections.singletonMap(getTableName(),
-                                  values.subList(i, Math.min(numValues, i + MAX_ITEMS_PER_BATCH)).stream()
-                                      .map(value -> WriteRequest.builder().putRequest(PutRequest.builder()
-                                                                                          .item(encode(value)).build()).build())
-                                      .collect(Collectors.toList())))
-                              .build();
-            var response = getClient() == null ? getAsyncClient().batchWriteItem(request).join() : getClient().batchWriteItem(request);
-            updateBatchResultForPut(result, response);
+            updateBatchResultForPut(result, putBatchSync(values.subList(i, Math.min(numValues, i + MAX_ITEMS_PER_BATCH)),
+                ReturnConsumedCapacity.INDEXES));
         }
         return result;
     }
@@ -337,7 +337,7 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
 
     public CompletableFuture<Void> putBatchAsync(List<T> values) {
         int numValues = values.size();
-        var futures = new CompletableFuture<?>[(numValues + MAX_ITEMS_PER_BATCH) / MAX_ITEMS_PER_BATCH];
+        var futures = new CompletableFuture<?>[(numValues + MAX_ITEMS_PER_BATCH - 1) / MAX_ITEMS_PER_BATCH];
         for (int i = 0; i < numValues; i += MAX_ITEMS_PER_BATCH) {
             var request = BatchWriteItemRequest.builder()
                               .requestItems(Collections.singletonMap(getTableName(),
@@ -346,9 +346,7 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
                                                                                           .item(encode(value)).build()).build())
                                       .collect(Collectors.toList())))
                               .build();
-            futures[i / MAX_ITEMS_PER_BATCH] =
-                getAsyncClient() == null ? CompletableFuture.runAsync(() -> getClient().batchWriteItem(request))
-                                         : getAsyncClient().batchWriteItem(request);
+            futures[i / MAX_ITEMS_PER_BATCH] = batchWriteItemAsync(request);
         }
         return CompletableFuture.allOf(futures);
     }
@@ -375,25 +373,89 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
                                                                                           .item(encode(value)).build()).build())
                                       .collect(Collectors.toList())))
                               .build();
-            result = result.thenCombine(
-                getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().batchWriteItem(request))
-                                         : getAsyncClient().batchWriteItem(request),
-                this::updateBatchResultForPut);
+            result = result.thenCombine(batchWriteItemAsync(request), this::updateBatchResultForPut);
         }
         return result;
     }
 
+    /**
+     * Put an item, letting {@link StreamingWrites} write the request if our synchronous client has it.
+     * @param value The item
+     * @param capacity The consumed capacity to return, or null for none
+     * @return The response
+     */
+    private PutItemResponse putItemSync(T value, ReturnConsumedCapacity capacity) {
+        if (streamingWrites) {
+            var scope = CapacityScope.current();
+            var bodyCapacity = (capacity == null) && wantsCapacity(scope) ? ReturnConsumedCapacity.INDEXES : capacity;
+            try (var body = StreamingWrites.putItem(getTableName(), bodyCapacity, this, value)) {
+                // The SDK only sees the key, which is all that the capacity tracking needs
+                var request = PutItemRequest.builder()
+                                  .tableName(getTableName())
+                                  .item(keysToMap(getPartitionKey(value), getSortKey(value)))
+                                  .returnConsumedCapacity(bodyCapacity)
+                                  .build();
+                body.send(request);
+                var response = getClient().putItem(request);
+                recordWrite(scope, request.item(), response.consumedCapacity());
+                return response;
+            }
+        }
+        return putItem(PutItemRequest.builder()
+                           .tableName(getTableName())
+                           .item(encode(value))
+                           .returnConsumedCapacity(capacity)
+                           .build());
+    }
+
+    /**
+     * Put one batch of items, letting {@link StreamingWrites} write the request if our synchronous client has it.
+     * @param values The items, no more than fit in one batch
+     * @param capacity The consumed capacity to return, or null for none
+     * @return The response
+     */
+    private BatchWriteItemResponse putBatchSync(List<T> values, ReturnConsumedCapacity capacity) {
+        if (streamingWrites) {
+            var scope = CapacityScope.current();
+            var bodyCapacity = (capacity == null) && wantsCapacity(scope) ? ReturnConsumedCapacity.INDEXES : capacity;
+            try (var body = StreamingWrites.putBatch(getTableName(), bodyCapacity, this, values)) {
+                // The SDK only sees the keys, which is all that the capacity tracking needs
+                var request = BatchWriteItemRequest.builder()
+                                  .requestItems(Collections.singletonMap(getTableName(), values.stream()
+                                      .map(value -> WriteRequest.builder().putRequest(PutRequest.builder()
+                                          .item(keysToMap(getPartitionKey(value), getSortKey(value))).build()).build())
+                                      .collect(Collectors.toList())))
+                                  .returnConsumedCapacity(bodyCapacity)
+                                  .build();
+                body.send(request);
+                var response = getClient().batchWriteItem(request);
+                recordBatchWrite(scope, request, response);
+                return response;
+            }
+        }
+        return batchWriteItem(BatchWriteItemRequest.builder()
+                                  .requestItems(Collections.singletonMap(getTableName(), values.stream()
+                                      .map(value -> WriteRequest.builder().putRequest(PutRequest.builder()
+                                                                                          .item(encode(value)).build()).build())
+                                      .collect(Collectors.toList())))
+                                  .returnConsumedCapacity(capacity)
+                                  .build());
+    }
+
     private PutItemResponse putItem(PutItemRequest request) {
-        return getClient() == null ? getAsyncClient().putItem(request).join() : getClient().putItem(request);
+        return send(withCapacity(request), r -> getClient() == null ? getAsyncClient().putItem(r).join() : getClient().putItem(r),
+            (scope, r, response) -> recordWrite(scope, r.item(), response.consumedCapacity()));
     }
 
     private CompletableFuture<PutItemResponse> putItemAsync(PutItemRequest request) {
-        return getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().putItem(request)) : getAsyncClient().putItem(request);
+        return sendAsync(withCapacity(request),
+            r -> getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().putItem(r)) : getAsyncClient().putItem(r),
+            (scope, r, response) -> recordWrite(scope, r.item(), response.consumedCapacity()));
     }
 
     private ExtendedBatchResult<T, T> updateBatchResultForPut(ExtendedBatchResult<T, T> result, BatchWriteItemResponse response) {
         if (response.hasUnprocessedItems()) {
-            response.unprocessedItems().get(getTableName()).stream()
+            response.unprocessedItems().getOrDefault(getTableName(), Collections.emptyList()).stream()
                 .map(writeRequest -> decode(writeRequest.putRequest().item()))
                 .forEach(item -> result.getUnprocessedValues().add(item));
         }
@@ -412,10 +474,17 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public T deleteItem(PartitionT partitionKey, SortT sortKey) {
-        var deleteResponse = deleteItem(DeleteItemRequest.builder()
-                   .tableName(getTableName())
-                   .key(keysToMap(partitionKey, sortKey))
-                   .build());
+        return deleteItemByEncodedKeys(partitionValueToAttributeValue(partitionKey), encodeSortValue(sortKey));
+    }
+
+    /**
+     * Delete an item by its encoded key.
+     * @param partitionValue The attribute value of the partition key
+     * @param sortValue The attribute value of the sort key. Must be null if there is no sort key
+     * @return The deleted item, or null if there was none
+     */
+    protected final T deleteItemByEncodedKeys(AttributeValue partitionValue, AttributeValue sortValue) {
+        var deleteResponse = deleteItem(capacity -> withKey(capacity ? deleteCapacityTemplate : deleteTemplate, partitionValue, sortValue));
         return deleteResponse.hasAttributes() ? decode(deleteResponse.attributes()) : null;
     }
 
@@ -437,12 +506,7 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
 
     private void deleteBatch(List<Map<String, List<WriteRequest>>> batches) {
         for (var batch: batches) {
-            var req = BatchWriteItemRequest.builder().requestItems(batch).build();
-            if (getClient() == null) {
-                getAsyncClient().batchWriteItem(req).join();
-            } else {
-                getClient().batchWriteItem(req);
-            }
+            batchWriteItem(BatchWriteItemRequest.builder().requestItems(batch).build());
         }
     }
 
@@ -455,11 +519,9 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public ExtendedItemResult<T> deleteItemExtended(PartitionT partitionKey, SortT sortKey) {
-        var deleteResponse = deleteItem(DeleteItemRequest.builder()
-                                        .tableName(getTableName())
-                                        .key(keysToMap(partitionKey, sortKey))
-                                        .returnConsumedCapacity(ReturnConsumedCapacity.INDEXES)
-                                        .build());
+        var key = partitionValueToAttributeValue(partitionKey);
+        var sortValue = encodeSortValue(sortKey);
+        var deleteResponse = deleteItem(capacity -> withKey(deleteCapacityTemplate, key, sortValue));
         return new ExtendedItemResult<>(deleteResponse.hasAttributes() ? decode(deleteResponse.attributes()) : null, deleteResponse.consumedCapacity());
     }
 
@@ -483,7 +545,7 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
         var result = new ExtendedBatchResult<T, Key<PartitionT, SortT>>();
         for (var batch: batches) {
             var req = BatchWriteItemRequest.builder().requestItems(batch).build();
-            updateBatchResultForDelete(result, getClient() == null ? getAsyncClient().batchWriteItem(req).join() : getClient().batchWriteItem(req));
+            updateBatchResultForDelete(result, batchWriteItem(req));
         }
         return result;
     }
@@ -497,10 +559,9 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public CompletableFuture<T> deleteItemAsync(PartitionT partitionKey, SortT sortKey) {
-        return deleteItemAsync(DeleteItemRequest.builder()
-                               .tableName(getTableName())
-                               .key(keysToMap(partitionKey, sortKey))
-                               .build())
+        var key = partitionValueToAttributeValue(partitionKey);
+        var sortValue = encodeSortValue(sortKey);
+        return deleteItemAsync(capacity -> withKey(capacity ? deleteCapacityTemplate : deleteTemplate, key, sortValue))
                    .thenApply(resp -> resp.hasAttributes() ? decode(resp.attributes()) : null);
     }
 
@@ -524,7 +585,7 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
         CompletableFuture<?>[] futures = new CompletableFuture<?>[batches.size()];
         for (var i = 0; i < batches.size(); ++i) {
             var req = BatchWriteItemRequest.builder().requestItems(batches.get(i)).build();
-            futures[i] = getAsyncClient() == null ? CompletableFuture.runAsync(() -> getClient().batchWriteItem(req)) : getAsyncClient().batchWriteItem(req);
+            futures[i] = batchWriteItemAsync(req);
         }
         return CompletableFuture.allOf(futures);
     }
@@ -538,11 +599,9 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
     }
 
     public CompletableFuture<ExtendedItemResult<T>> deleteItemExtendedAsync(PartitionT partitionKey, SortT sortKey) {
-        return deleteItemAsync(DeleteItemRequest.builder()
-                               .tableName(getTableName())
-                               .key(keysToMap(partitionKey, sortKey))
-                               .returnConsumedCapacity(ReturnConsumedCapacity.INDEXES)
-                               .build())
+        var key = partitionValueToAttributeValue(partitionKey);
+        var sortValue = encodeSortValue(sortKey);
+        return deleteItemAsync(capacity -> withKey(deleteCapacityTemplate, key, sortValue))
                    .thenApply(resp -> new ExtendedItemResult<>(
                        resp.hasAttributes() ? decode(resp.attributes()) : null, resp.consumedCapacity()));
     }
@@ -567,17 +626,14 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
         var futureResult = CompletableFuture.completedFuture(new ExtendedBatchResult<T, Key<PartitionT, SortT>>());
         for (var batch : batches) {
             var req = BatchWriteItemRequest.builder().requestItems(batch).build();
-            futureResult = futureResult.thenCombine(
-                getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().batchWriteItem(req))
-                                         : getAsyncClient().batchWriteItem(req),
-                this::updateBatchResultForDelete);
+            futureResult = futureResult.thenCombine(batchWriteItemAsync(req), this::updateBatchResultForDelete);
         }
         return futureResult;
     }
 
     private ExtendedBatchResult<T, Key<PartitionT, SortT>> updateBatchResultForDelete(ExtendedBatchResult<T, Key<PartitionT, SortT>> result, BatchWriteItemResponse response) {
         if (response.hasUnprocessedItems()) {
-            response.unprocessedItems().get(getTableName()).stream()
+            response.unprocessedItems().getOrDefault(getTableName(), Collections.emptyList()).stream()
                 .map(writeRequest -> writeRequest.deleteRequest().key())
                 .map(m -> new Key<>(getPartitionKey(m.get(getPartitionKeyAttribute())), getSortKey(m.get(getSortKeyAttribute()))))
                 .forEach(k -> result.getUnprocessedValues().add(k));
@@ -588,12 +644,199 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
         return result;
     }
 
-    private DeleteItemResponse deleteItem(DeleteItemRequest request) {
-        return getClient() == null ? getAsyncClient().deleteItem(request).join() : getClient().deleteItem(request);
+    private DeleteItemResponse deleteItem(Function<Boolean, DeleteItemRequest> request) {
+        return send(request, r -> getClient() == null ? getAsyncClient().deleteItem(r).join() : getClient().deleteItem(r),
+            (scope, r, response) -> recordWrite(scope, r.key(), response.consumedCapacity()));
     }
 
-    private CompletableFuture<DeleteItemResponse> deleteItemAsync(DeleteItemRequest request) {
-        return getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().deleteItem(request)) : getAsyncClient().deleteItem(request);
+    private CompletableFuture<DeleteItemResponse> deleteItemAsync(Function<Boolean, DeleteItemRequest> request) {
+        return sendAsync(request,
+            r -> getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().deleteItem(r)) : getAsyncClient().deleteItem(r),
+            (scope, r, response) -> recordWrite(scope, r.key(), response.consumedCapacity()));
+    }
+
+    private GetBatchPage<T> batchGetItem(BatchGetItemRequest request) {
+        return send(withCapacity(request),
+            r -> getClient() == null ? getAsyncClient().batchGetItem(r).thenApply(this::toGetBatchPage).join() : batchGetItemSync(r),
+            (scope, r, page) -> recordBatchGet(scope, r, page.response));
+    }
+
+    private CompletableFuture<GetBatchPage<T>> batchGetItemAsync(BatchGetItemRequest request) {
+        return sendAsync(withCapacity(request),
+            r -> getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> batchGetItemSync(r))
+                                          : getAsyncClient().batchGetItem(r).thenApply(this::toGetBatchPage),
+            (scope, r, page) -> recordBatchGet(scope, r, page.response));
+    }
+
+    /**
+     * Run a batch get through the synchronous client, letting {@link StreamingReads} decode the items if it is installed.
+     * @param request The request
+     * @return The response and its items
+     */
+    private GetBatchPage<T> batchGetItemSync(BatchGetItemRequest request) {
+        var page = StreamingReads.expect(request, this);
+        if (page == null) {
+            return toGetBatchPage(getClient().batchGetItem(request));
+        }
+        try (page) {
+            var response = getClient().batchGetItem(request);
+            return page.getItems() == null ? toGetBatchPage(response) : new GetBatchPage<>(response, page.getItems());
+        }
+    }
+
+    private GetBatchPage<T> toGetBatchPage(BatchGetItemResponse response) {
+        var maps = response.hasResponses() ? response.responses().getOrDefault(getTableName(), Collections.emptyList())
+                                           : Collections.<Map<String, AttributeValue>>emptyList();
+        var items = new ArrayList<T>(maps.size());
+        for (var map : maps) {
+            items.add(decode(map));
+        }
+        return new GetBatchPage<>(response, items);
+    }
+
+    private BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        return send(withCapacity(request),
+            r -> getClient() == null ? getAsyncClient().batchWriteItem(r).join() : getClient().batchWriteItem(r),
+            this::recordBatchWrite);
+    }
+
+    private CompletableFuture<BatchWriteItemResponse> batchWriteItemAsync(BatchWriteItemRequest request) {
+        return sendAsync(withCapacity(request),
+            r -> getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getClient().batchWriteItem(r)) : getAsyncClient().batchWriteItem(r),
+            this::recordBatchWrite);
+    }
+
+    /**
+     * Send a request, asking for its consumed capacity if someone wants it, and record the capacity it used.
+     * @param request Builds the request, given whether it should ask for its consumed capacity
+     * @param send Sends the request
+     * @param recorder Records the capacity used
+     * @param <RequestT> The type of request
+     * @param <ResponseT> The type of response
+     * @return The response
+     */
+    private <RequestT, ResponseT> ResponseT send(Function<Boolean, RequestT> request, Function<RequestT, ResponseT> send,
+                                                 CapacityRecorder<RequestT, ResponseT> recorder) {
+        var scope = CapacityScope.current();
+        var wantsCapacity = wantsCapacity(scope);
+        var actualRequest = request.apply(wantsCapacity);
+        var response = send.apply(actualRequest);
+        if (wantsCapacity) {
+            recorder.record(scope, actualRequest, response);
+        }
+        return response;
+    }
+
+    /**
+     * Send a request asynchronously, as {@link #send(Function, Function, CapacityRecorder)} does.
+     * @param request Builds the request, given whether it should ask for its consumed capacity
+     * @param send Sends the request
+     * @param recorder Records the capacity used, once the response arrives
+     * @param <RequestT> The type of request
+     * @param <ResponseT> The type of response
+     * @return The response
+     */
+    private <RequestT, ResponseT> CompletableFuture<ResponseT> sendAsync(Function<Boolean, RequestT> request,
+                                                                         Function<RequestT, CompletableFuture<ResponseT>> send,
+                                                                         CapacityRecorder<RequestT, ResponseT> recorder) {
+        var scope = CapacityScope.current();
+        if (!wantsCapacity(scope)) {
+            return send.apply(request.apply(false));
+        }
+        var actualRequest = request.apply(true);
+        return send.apply(actualRequest).thenApply(response -> {
+            recorder.record(scope, actualRequest, response);
+            return response;
+        });
+    }
+
+    private static Function<Boolean, PutItemRequest> withCapacity(PutItemRequest request) {
+        return capacity -> capacity && (request.returnConsumedCapacity() == null)
+                           ? request.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build()
+                           : request;
+    }
+
+    private static Function<Boolean, BatchGetItemRequest> withCapacity(BatchGetItemRequest request) {
+        return capacity -> capacity && (request.returnConsumedCapacity() == null)
+                           ? request.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build()
+                           : request;
+    }
+
+    private static Function<Boolean, BatchWriteItemRequest> withCapacity(BatchWriteItemRequest request) {
+        return capacity -> capacity && (request.returnConsumedCapacity() == null)
+                           ? request.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build()
+                           : request;
+    }
+
+    /**
+     * Decide whether a request should ask Dynamo to return its consumed capacity. Someone needs it if there is a capacity
+     * scope open or a hot key sampler attached.
+     * @param scope The current capacity scope, or null if there is none
+     * @return True if the capacity should be requested
+     */
+    private boolean wantsCapacity(CapacityScope scope) {
+        return (scope != null) || (getHotKeySampler() != null);
+    }
+
+    private void recordRead(CapacityScope scope, Map<String, AttributeValue> key, ConsumedCapacity capacity) {
+        if (scope != null) {
+            scope.record(capacity);
+        }
+        var sampler = getHotKeySampler();
+        if (sampler != null) {
+            sampler.recordRead(key.get(getPartitionKeyAttribute()), capacity);
+        }
+    }
+
+    private void recordWrite(CapacityScope scope, Map<String, AttributeValue> key, ConsumedCapacity capacity) {
+        if (scope != null) {
+            scope.record(capacity);
+        }
+        var sampler = getHotKeySampler();
+        if (sampler != null) {
+            sampler.recordWrite(key.get(getPartitionKeyAttribute()), capacity);
+        }
+    }
+
+    private void recordBatchGet(CapacityScope scope, BatchGetItemRequest request, BatchGetItemResponse response) {
+        if (scope != null) {
+            scope.record(response.consumedCapacity());
+        }
+        var sampler = getHotKeySampler();
+        if (sampler != null) {
+            // Dynamo only tells us the capacity of the whole batch, so charge each key an equal share
+            var keys = request.requestItems().get(getTableName()).keys();
+            var capacityPerKey = totalCapacityUnits(response.consumedCapacity()) / keys.size();
+            for (var key : keys) {
+                sampler.recordRead(key.get(getPartitionKeyAttribute()), capacityPerKey);
+            }
+        }
+    }
+
+    private void recordBatchWrite(CapacityScope scope, BatchWriteItemRequest request, BatchWriteItemResponse response) {
+        if (scope != null) {
+            scope.record(response.consumedCapacity());
+        }
+        var sampler = getHotKeySampler();
+        if (sampler != null) {
+            // Dynamo only tells us the capacity of the whole batch, so charge each key an equal share
+            var writes = request.requestItems().get(getTableName());
+            var capacityPerKey = totalCapacityUnits(response.consumedCapacity()) / writes.size();
+            for (var write : writes) {
+                var key = (write.putRequest() == null ? write.deleteRequest().key() : write.putRequest().item());
+                sampler.recordWrite(key.get(getPartitionKeyAttribute()), capacityPerKey);
+            }
+        }
+    }
+
+    private static double totalCapacityUnits(List<ConsumedCapacity> capacities) {
+        var total = 0.0;
+        for (var capacity : capacities) {
+            if (capacity.capacityUnits() != null) {
+                total += capacity.capacityUnits();
+            }
+        }
+        return total;
     }
 
     public abstract <SecondaryPartitionT, SecondarySortT> DynamoIndex<T, SecondaryPartitionT, SecondarySortT> getIndex(
@@ -635,6 +878,17 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
 
     public abstract Map<String, AttributeValue> encode(T value);
 
+    /**
+     * Encode an item as the JSON that Dynamo expects, for {@link StreamingWrites}. Generated tables override this to
+     * write simple attributes straight to the generator, without building attribute values for them.
+     * @param value The item
+     * @param generator The generator, which the whole item object must be written to
+     * @throws IOException If the generator fails
+     */
+    protected void encodeJson(T value, JsonGenerator generator) throws IOException {
+        JsonAttributeValues.writeItem(generator, encode(value));
+    }
+
     public abstract PartitionT getPartitionKey(T value);
 
     public abstract SortT getSortKey(T value);
@@ -650,9 +904,79 @@ public abstract class DynamoTable<T, PartitionT, SortT> extends DynamoIndex<T, P
      * @return A dynamo-friendly map of attribute values
      */
     protected final Map<String, AttributeValue> keysToMap(PartitionT partitionValue, SortT sortValue) {
+        return encodedKeysToMap(partitionValueToAttributeValue(partitionValue), encodeSortValue(sortValue));
+    }
+
+    private AttributeValue encodeSortValue(SortT sortValue) {
+        return sortValue == null ? null : sortValueToAttributeValue(sortValue);
+    }
+
+    /**
+     * Build a get from a template and a key.
+     * @param template The request with everything but the key
+     * @param partitionValue The attribute value of the partition key
+     * @param sortValue The attribute value of the sort key, or null if there is no sort key
+     * @return The request
+     */
+    private GetItemRequest withKey(GetItemRequest template, AttributeValue partitionValue, AttributeValue sortValue) {
+        var key = fillKeyScratch(partitionValue, sortValue);
+        try {
+            return template.toBuilder().key(key).build();
+        } finally {
+            key.clear();
+        }
+    }
+
+    /**
+     * Build a delete from a template and a key.
+     * @param template The request with everything but the key
+     * @param partitionValue The attribute value of the partition key
+     * @param sortValue The attribute value of the sort key, or null if there is no sort key
+     * @return The request
+     */
+    private DeleteItemRequest withKey(DeleteItemRequest template, AttributeValue partitionValue, AttributeValue sortValue) {
+        var key = fillKeyScratch(partitionValue, sortValue);
+        try {
+            return template.toBuilder().key(key).build();
+        } finally {
+            key.clear();
+        }
+    }
+
+    private Map<String, AttributeValue> fillKeyScratch(AttributeValue partitionValue, AttributeValue sortValue) {
+        var key = KEY_SCRATCH.get();
+        key.put(getPartitionKeyAttribute(), partitionValue);
+        if (sortValue != null) {
+            key.put(getSortKeyAttribute(), sortValue);
+        }
+        return key;
+    }
+
+    /**
+     * Convert encoded partition and sort keys to a map.
+     * @param partitionValue The attribute value of the partition key
+     * @param sortValue The attribute value of the sort key. Must be null if there is no sort key
+     * @return A dynamo-friendly map of attribute values
+     */
+    protected final Map<String, AttributeValue> encodedKeysToMap(AttributeValue partitionValue, AttributeValue sortValue) {
         return sortValue == null
-               ? Collections.singletonMap(getPartitionKeyAttribute(), partitionValueToAttributeValue(partitionValue))
-               : Map.of(getPartitionKeyAttribute(), partitionValueToAttributeValue(partitionValue),
-                   getSortKeyAttribute(), sortValueToAttributeValue(sortValue));
+               ? Collections.singletonMap(getPartitionKeyAttribute(), partitionValue)
+               : Map.of(getPartitionKeyAttribute(), partitionValue, getSortKeyAttribute(), sortValue);
+    }
+
+    /** Records the capacity that a request used */
+    private interface CapacityRecorder<RequestT, ResponseT> {
+        void record(CapacityScope scope, RequestT request, ResponseT response);
+    }
+
+    /** A batch get response, with the items from this table decoded */
+    private static final class GetBatchPage<T> {
+        private final BatchGetItemResponse response;
+        private final List<T> items;
+
+        GetBatchPage(BatchGetItemResponse response, List<T> items) {
+            this.response = response;
+            this.items = items;
+        }
     }
 }
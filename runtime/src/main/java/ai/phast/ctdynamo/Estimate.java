@@ -0,0 +1,79 @@
+package ai.phast.ctdynamo;
+
+/**
+ * A value estimated from a sample, with its standard error. The interval from {@link #getLow()} to
+ * {@link #getHigh()} holds the true value with about 95% confidence; for other levels, use the value plus or minus
+ * the standard error times the normal quantile (1.645 for 90%, 2.576 for 99%). The interval assumes enough segments
+ * were sampled for their average to be roughly normal, which takes a dozen or so.
+ */
+public final class Estimate {
+
+    private static final double Z_95 = 1.959963984540054;
+
+    private final double value;
+
+    private final double standardError;
+
+    private final long itemsRead;
+
+    private final int sampledSegments;
+
+    private final int totalSegments;
+
+    Estimate(double value, double standardError, long itemsRead, int sampledSegments, int totalSegments) {
+        this.value = value;
+        this.standardError = standardError;
+        this.itemsRead = itemsRead;
+        this.sampledSegments = sampledSegments;
+        this.totalSegments = totalSegments;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Get the standard error of the estimate.
+     * @return The standard error, or NaN if only one segment was sampled
+     */
+    public double getStandardError() {
+        return standardError;
+    }
+
+    /**
+     * Get the bottom of the 95% confidence interval.
+     * @return The bottom of the interval
+     */
+    public double getLow() {
+        return value - Z_95 * standardError;
+    }
+
+    /**
+     * Get the top of the 95% confidence interval.
+     * @return The top of the interval
+     */
+    public double getHigh() {
+        return value + Z_95 * standardError;
+    }
+
+    /**
+     * Get the number of items that the estimate was made from.
+     * @return The number of items read
+     */
+    public long getItemsRead() {
+        return itemsRead;
+    }
+
+    public int getSampledSegments() {
+        return sampledSegments;
+    }
+
+    public int getTotalSegments() {
+        return totalSegments;
+    }
+
+    @Override
+    public String toString() {
+        return value + " ± " + (Z_95 * standardError) + " (" + sampledSegments + " of " + totalSegments + " segments)";
+    }
+}
@@ -0,0 +1,100 @@
+package ai.phast.ctdynamo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * A blob store in a local directory, useful for development, tests, and hosts with shared file systems. Every put
+ * stores a new blob under a random key, even if the same bytes were stored before, so that deleting the blob of one
+ * item never breaks another. Each blob is written to a temporary file and then moved into place, so readers never see
+ * part of one.
+ */
+public class FileBlobStore implements BlobStore {
+
+    /** Keys are 32 random hex digits */
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    private final Path directory;
+
+    /**
+     * Build a store.
+     * @param directory The directory for the blobs. It is created if it does not exist.
+     * @throws UncheckedIOException If the directory cannot be created
+     */
+    public FileBlobStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create blob directory " + directory, e);
+        }
+    }
+
+    @Override
+    public String put(byte[] data) {
+        var key = newKey();
+        var path = toPath(key);
+        try {
+            Files.createDirectories(path.getParent());
+            var temp = Files.createTempFile(path.getParent(), key, ".tmp");
+            try {
+                Files.write(temp, data);
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write blob " + key, e);
+        }
+        return key;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            return Files.readAllBytes(toPath(key));
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("No blob with key " + key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read blob " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(toPath(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete blob " + key, e);
+        }
+    }
+
+    private Path toPath(String key) {
+        // Keys come from items, which anyone might have written, so never let one name a file outside our directory
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid blob key " + key);
+        }
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static String newKey() {
+        var uuid = UUID.randomUUID();
+        return hex(uuid.getMostSignificantBits()) + hex(uuid.getLeastSignificantBits());
+    }
+
+    private static String hex(long value) {
+        var digits = Long.toHexString(value);
+        return "0".repeat(16 - digits.length()) + digits;
+    }
+}
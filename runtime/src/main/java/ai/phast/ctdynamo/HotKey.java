@@ -0,0 +1,97 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * A snapshot of the activity on one partition key, as estimated by a {@link HotKeySampler}.
+ */
+public final class HotKey {
+
+    private final AttributeValue partitionKey;
+
+    private final long count;
+
+    private final long error;
+
+    private final long reads;
+
+    private final long writes;
+
+    private final double readCapacity;
+
+    private final double writeCapacity;
+
+    HotKey(AttributeValue partitionKey, long count, long error, long reads, long writes, double readCapacity, double writeCapacity) {
+        this.partitionKey = partitionKey;
+        this.count = count;
+        this.error = error;
+        this.reads = reads;
+        this.writes = writes;
+        this.readCapacity = readCapacity;
+        this.writeCapacity = writeCapacity;
+    }
+
+    /**
+     * Get the partition key, as Dynamo sees it.
+     * @return The partition key
+     */
+    public AttributeValue getPartitionKey() {
+        return partitionKey;
+    }
+
+    /**
+     * Get the estimated number of accesses to this key. The true count is between count - error and count.
+     * @return The estimated number of accesses
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the maximum amount by which the count may overestimate the true count.
+     * @return The maximum error of the count
+     */
+    public long getError() {
+        return error;
+    }
+
+    /**
+     * Get the number of reads (gets, batch gets, and query pages) seen since this key started being tracked.
+     * @return The number of reads
+     */
+    public long getReads() {
+        return reads;
+    }
+
+    /**
+     * Get the number of writes (puts, deletes, and their batch forms) seen since this key started being tracked.
+     * @return The number of writes
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Get the read capacity consumed since this key started being tracked. Batch operations report capacity for the
+     * whole batch, so it is split evenly among the keys of the batch.
+     * @return The read capacity units consumed
+     */
+    public double getReadCapacity() {
+        return readCapacity;
+    }
+
+    /**
+     * Get the write capacity consumed since this key started being tracked. Batch operations report capacity for the
+     * whole batch, so it is split evenly among the keys of the batch.
+     * @return The write capacity units consumed
+     */
+    public double getWriteCapacity() {
+        return writeCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + partitionKey + ", count=" + count + ", error=" + error + ", reads=" + reads
+                   + ", writes=" + writes + ", readCapacity=" + readCapacity + ", writeCapacity=" + writeCapacity + "]";
+    }
+}
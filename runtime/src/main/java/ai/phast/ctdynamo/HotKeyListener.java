@@ -0,0 +1,16 @@
+package ai.phast.ctdynamo;
+
+/**
+ * Hook for exporting hot key information to a metrics or alerting system.
+ */
+@FunctionalInterface
+public interface HotKeyListener {
+
+    /**
+     * Called the first time the guaranteed access count of a key (its count minus its error) reaches the alert threshold
+     * of its sampler. It will not
+     * be called again for the same key until the sampler is reset or the key stops being tracked.
+     * @param key A snapshot of the key's activity
+     */
+    void hotKeyDetected(HotKey key);
+}
@@ -0,0 +1,257 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the most frequently accessed partition keys of a table or index, so that hot partitions can be found before
+ * Dynamo starts throttling them. Attach one to a table or index with {@link DynamoIndex#setHotKeySampler(HotKeySampler)}.
+ *
+ * <p>This uses the Space-Saving heavy hitters algorithm, so memory is bounded by the number of keys tracked no matter
+ * how many distinct keys are accessed. Any key whose true access count is more than 1/maxKeys of all accesses is
+ * guaranteed to be tracked. Counts of tracked keys may be overestimated by at most {@link HotKey#getError()}.
+ *
+ * <p>So that busy tables don't serialize on one lock, the keys are split by hash across up to 16 stripes, each with its
+ * own lock and its own share of maxKeys. A key always lands in the same stripe, so the guarantee above holds within
+ * each stripe, against that stripe's share of the accesses. Every stripe tracks at least 8 keys (or all of maxKeys,
+ * if that is smaller), so small samplers use fewer stripes rather than stripes too small to hold a heavy hitter.
+ *
+ * <p>Each access can optionally be sampled, which cuts the cost on very busy tables; counts are scaled back up by the
+ * sample rate, so they remain estimates of the true number of accesses.
+ */
+public final class HotKeySampler {
+
+    /** The most stripes a sampler is split into. Must be a power of two */
+    private static final int MAX_STRIPES = 16;
+
+    /** The fewest keys a stripe tracks, unless maxKeys itself is smaller */
+    private static final int MIN_STRIPE_KEYS = 8;
+
+    private final double sampleRate;
+
+    private final long alertThreshold;
+
+    private final List<HotKeyListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** The stripes. The length is a power of two */
+    private final Stripe[] stripes;
+
+    /** Total sampled accesses since the last reset */
+    private final LongAdder totalAccesses = new LongAdder();
+
+    /**
+     * Build a sampler that looks at every access and never notifies listeners.
+     * @param maxKeys The number of keys to track
+     */
+    public HotKeySampler(int maxKeys) {
+        this(maxKeys, 1.0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Build a sampler.
+     * @param maxKeys The number of keys to track
+     * @param sampleRate The fraction of accesses to look at, greater than 0 and at most 1
+     * @param alertThreshold Listeners are notified the first time a key is certain to have been accessed this many times
+     * @throws IllegalArgumentException If maxKeys or alertThreshold is not positive, or sampleRate is out of range
+     */
+    public HotKeySampler(int maxKeys, double sampleRate, long alertThreshold) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive, got " + maxKeys);
+        }
+        if (!(sampleRate > 0.0 && sampleRate <= 1.0)) {
+            throw new IllegalArgumentException("sampleRate must be in (0, 1], got " + sampleRate);
+        }
+        if (alertThreshold <= 0) {
+            throw new IllegalArgumentException("alertThreshold must be positive, got " + alertThreshold);
+        }
+        this.sampleRate = sampleRate;
+        this.alertThreshold = alertThreshold;
+        // Give every stripe enough keys to hold a heavy hitter, and split the keys as evenly as we can
+        var stripeCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, maxKeys / MIN_STRIPE_KEYS)));
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; ++i) {
+            stripes[i] = new Stripe(maxKeys / stripeCount + (i < maxKeys % stripeCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Add a listener that is told when a key becomes hot. Listeners are called on the thread that made the access, so
+     * they should be quick.
+     * @param listener The listener
+     */
+    public void addListener(HotKeyListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeListener(HotKeyListener listener) {
+        listeners.remove(listener);
+    }
+
+    void recordRead(AttributeValue partitionKey, ConsumedCapacity capacity) {
+        record(partitionKey, false, capacityUnits(capacity));
+    }
+
+    void recordRead(AttributeValue partitionKey, double capacityUnits) {
+        record(partitionKey, false, capacityUnits);
+    }
+
+    void recordWrite(AttributeValue partitionKey, ConsumedCapacity capacity) {
+        record(partitionKey, true, capacityUnits(capacity));
+    }
+
+    void recordWrite(AttributeValue partitionKey, double capacityUnits) {
+        record(partitionKey, true, capacityUnits);
+    }
+
+    private void record(AttributeValue partitionKey, boolean isWrite, double capacityUnits) {
+        if ((partitionKey == null) || ((sampleRate < 1.0) && (ThreadLocalRandom.current().nextDouble() >= sampleRate))) {
+            return;
+        }
+        totalAccesses.increment();
+        var hash = partitionKey.hashCode();
+        var stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        HotKey alert = null;
+        synchronized (stripe) {
+            var counter = stripe.counters.get(partitionKey);
+            if (counter == null) {
+                if (stripe.counters.size() < stripe.maxKeys) {
+                    counter = new Counter(partitionKey, 0);
+                } else {
+                    // Replace the smallest counter. The new key inherits its count, which bounds our overestimate.
+                    var smallest = stripe.ordered.pollFirst();
+                    stripe.counters.remove(smallest.key);
+                    counter = new Counter(partitionKey, smallest.count);
+                }
+                counter.id = stripe.nextId++;
+                stripe.counters.put(partitionKey, counter);
+            } else {
+                stripe.ordered.remove(counter);
+            }
+            ++counter.count;
+            if (isWrite) {
+                ++counter.writes;
+                counter.writeCapacity += capacityUnits;
+            } else {
+                ++counter.reads;
+                counter.readCapacity += capacityUnits;
+            }
+            stripe.ordered.add(counter);
+            // Alert on the guaranteed count, not the estimate, so that keys that just inherited a big count don't fire
+            if (!counter.alerted && (scale(counter.count - counter.error) >= alertThreshold) && !listeners.isEmpty()) {
+                counter.alerted = true;
+                alert = snapshot(counter);
+            }
+        }
+        if (alert != null) {
+            for (var listener : listeners) {
+                listener.hotKeyDetected(alert);
+            }
+        }
+    }
+
+    /**
+     * Get the hottest keys seen since construction or the last reset, hottest first.
+     * @param n The maximum number of keys to return
+     * @return The hottest keys
+     */
+    public List<HotKey> getTopKeys(int n) {
+        var result = new ArrayList<HotKey>();
+        // Take the top n of each stripe, then the top n of those
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                var taken = 0;
+                for (var counter : stripe.ordered.descendingSet()) {
+                    if (taken++ >= n) {
+                        break;
+                    }
+                    result.add(snapshot(counter));
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+        return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+    }
+
+    /**
+     * Get the estimated number of accesses since construction or the last reset.
+     * @return The estimated number of accesses
+     */
+    public long getTotalAccesses() {
+        return scale(totalAccesses.sum());
+    }
+
+    /**
+     * Forget all keys. Applications that want a rate rather than a total should call this periodically.
+     */
+    public void reset() {
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                stripe.counters.clear();
+                stripe.ordered.clear();
+            }
+        }
+        totalAccesses.reset();
+    }
+
+    private HotKey snapshot(Counter counter) {
+        return new HotKey(counter.key, scale(counter.count), scale(counter.error), scale(counter.reads), scale(counter.writes),
+            counter.readCapacity / sampleRate, counter.writeCapacity / sampleRate);
+    }
+
+    private long scale(long sampled) {
+        return sampleRate == 1.0 ? sampled : Math.round(sampled / sampleRate);
+    }
+
+    private static double capacityUnits(ConsumedCapacity capacity) {
+        return ((capacity == null) || (capacity.capacityUnits() == null)) ? 0.0 : capacity.capacityUnits();
+    }
+
+    /**
+     * One Space-Saving summary over the keys that hash to it. All fields are guarded by the stripe itself.
+     */
+    private static final class Stripe {
+        private final int maxKeys;
+
+        /** The counters, by key */
+        private final Map<AttributeValue, Counter> counters = new HashMap<>();
+
+        /** The same counters, ordered so that the smallest is first */
+        private final TreeSet<Counter> ordered = new TreeSet<>(Comparator.<Counter>comparingLong(c -> c.count).thenComparingLong(c -> c.id));
+
+        /** Used to break ties between counters with equal counts */
+        private long nextId;
+
+        Stripe(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+    }
+
+    private static final class Counter {
+        private final AttributeValue key;
+        private final long error;
+        private long id;
+        private long count;
+        private long reads;
+        private long writes;
+        private double readCapacity;
+        private double writeCapacity;
+        private boolean alerted;
+
+        Counter(AttributeValue key, long inheritedCount) {
+            this.key = key;
+            this.error = inheritedCount;
+            this.count = inheritedCount;
+        }
+    }
+}
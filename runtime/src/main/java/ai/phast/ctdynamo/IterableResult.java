@@ -4,6 +4,8 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -108,6 +110,19 @@ public abstract class IterableResult<T> implements Iterable<T> {
         return capacity;
     }
 
+    /**
+     * Pass every item to an action, decoding each one into the same instance instead of allocating a new one. This is
+     * for big scans and queries whose items are only looked at briefly, such as aggregations: the action must not
+     * keep the item, or anything it holds, after it returns, since the next item overwrites it. Lists the item holds
+     * in an {@link java.util.ArrayList} are refilled in place too. Each call creates its own instance, so parallel
+     * scans that use this on each segment get one instance per thread.
+     * <p>Items decoded as their page arrived, by {@link StreamingReads}, are passed along as they are. So are items of
+     * tables that cannot refill instances (see {@link DynamoIndex#decodeInto(Map, Object)}).
+     * @param factory Creates the instance to reuse, called once before the first item that needs it
+     * @param action Called with each item
+     */
+    public abstract void forEachReusing(Supplier<? extends T> factory, Consumer<? super T> action);
+
     public Stream<T> stream() {
         return StreamSupport.stream(spliterator(), false);
     }
@@ -0,0 +1,263 @@
+package ai.phast.ctdynamo;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes attribute values in the JSON form that Dynamo uses on the wire, such as {@code {"S": "text"}}. This
+ * is used by {@link StreamingReads}, {@link StreamingWrites}, and the generated tables, which handle simple attributes
+ * straight from the tokens and use these methods for the rest.
+ */
+public final class JsonAttributeValues {
+
+    private JsonAttributeValues() {
+    }
+
+    /**
+     * Read an item.
+     * @param parser The parser, on the start of the item object
+     * @return The item, with the parser on the end of the item object
+     * @throws IOException If the item is not valid
+     */
+    public static Map<String, AttributeValue> readItem(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        var result = new HashMap<String, AttributeValue>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.getCurrentName();
+            parser.nextToken();
+            result.put(name, read(parser));
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+        return result;
+    }
+
+    /**
+     * Read an attribute value.
+     * @param parser The parser, on the start of the attribute value object
+     * @return The value, with the parser on the end of the attribute value object
+     * @throws IOException If the value is not valid
+     */
+    public static AttributeValue read(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        expect(parser, parser.nextToken(), JsonToken.FIELD_NAME);
+        var type = parser.getCurrentName();
+        parser.nextToken();
+        AttributeValue result;
+        switch (type) {
+            case "S":
+                result = AttributeValue.builder().s(parser.getText()).build();
+                break;
+            case "N":
+                result = AttributeValue.builder().n(parser.getText()).build();
+                break;
+            case "B":
+                result = AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(parser.getBinaryValue())).build();
+                break;
+            case "BOOL":
+                result = parser.getBooleanValue() ? DynamoCodec.TRUE_ATTRIBUTE_VALUE : DynamoCodec.FALSE_ATTRIBUTE_VALUE;
+                break;
+            case "NULL":
+                result = DynamoCodec.NULL_ATTRIBUTE_VALUE;
+                break;
+            case "L": {
+                expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+                var list = new ArrayList<AttributeValue>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(read(parser));
+                }
+                result = AttributeValue.builder().l(list).build();
+                break;
+            }
+            case "M":
+                result = AttributeValue.builder().m(readItem(parser)).build();
+                break;
+            case "SS":
+                result = AttributeValue.builder().ss(readStrings(parser)).build();
+                break;
+            case "NS":
+                result = AttributeValue.builder().ns(readStrings(parser)).build();
+                break;
+            case "BS": {
+                expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+                var set = new ArrayList<SdkBytes>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    set.add(SdkBytes.fromByteArrayUnsafe(parser.getBinaryValue()));
+                }
+                result = AttributeValue.builder().bs(set).build();
+                break;
+            }
+            default:
+                throw new JsonParseException(parser, "Unknown attribute value type " + type);
+        }
+        expect(parser, parser.nextToken(), JsonToken.END_OBJECT);
+        return result;
+    }
+
+    /**
+     * Read the text of a scalar attribute value, without building the attribute value.
+     * @param parser The parser, on the start of the attribute value object
+     * @param type The type expected, such as "S", "N", or "BOOL"
+     * @return The text of the value, or null if the value is null or of some other type. The parser is left on the end
+     *         of the attribute value object.
+     * @throws IOException If the value is not valid
+     */
+    public static String readScalar(JsonParser parser, String type) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        expect(parser, parser.nextToken(), JsonToken.FIELD_NAME);
+        var matches = type.equals(parser.getCurrentName());
+        String result = null;
+        if (parser.nextToken().isScalarValue() && matches) {
+            result = parser.getText();
+        } else {
+            // Anything else is treated as missing, the same as the decoders treat a value of the wrong type
+            parser.skipChildren();
+        }
+        expect(parser, parser.nextToken(), JsonToken.END_OBJECT);
+        return result;
+    }
+
+    /**
+     * Read a string attribute value through a pool, without building the string when the pool has it already.
+     * @param parser The parser, on the start of the attribute value object
+     * @param pool The pool
+     * @return The pooled string, or null if the value is null or of some other type. The parser is left on the end of
+     *         the attribute value object.
+     * @throws IOException If the value is not valid
+     */
+    public static String readString(JsonParser parser, StringPool pool) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        expect(parser, parser.nextToken(), JsonToken.FIELD_NAME);
+        var matches = "S".equals(parser.getCurrentName());
+        String result = null;
+        if ((parser.nextToken() == JsonToken.VALUE_STRING) && matches) {
+            result = pool.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        } else {
+            parser.skipChildren();
+        }
+        expect(parser, parser.nextToken(), JsonToken.END_OBJECT);
+        return result;
+    }
+
+    /**
+     * Write an item.
+     * @param generator The generator
+     * @param item The item
+     * @throws IOException If the generator fails
+     */
+    public static void writeItem(JsonGenerator generator, Map<String, AttributeValue> item) throws IOException {
+        generator.writeStartObject();
+        for (var entry : item.entrySet()) {
+            generator.writeFieldName(entry.getKey());
+            write(generator, entry.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write an attribute value.
+     * @param generator The generator
+     * @param value The value
+     * @throws IOException If the generator fails
+     */
+    public static void write(JsonGenerator generator, AttributeValue value) throws IOException {
+        generator.writeStartObject();
+        if (value.s() != null) {
+            generator.writeStringField("S", value.s());
+        } else if (value.n() != null) {
+            generator.writeStringField("N", value.n());
+        } else if (value.b() != null) {
+            generator.writeFieldName("B");
+            writeBinary(generator, value.b());
+        } else if (value.bool() != null) {
+            generator.writeBooleanField("BOOL", value.bool());
+        } else if (value.nul() != null) {
+            generator.writeBooleanField("NULL", value.nul());
+        } else if (value.hasL()) {
+            generator.writeArrayFieldStart("L");
+            for (var element : value.l()) {
+                write(generator, element);
+            }
+            generator.writeEndArray();
+        } else if (value.hasM()) {
+            generator.writeFieldName("M");
+            writeItem(generator, value.m());
+        } else if (value.hasSs()) {
+            writeStrings(generator, "SS", value.ss());
+        } else if (value.hasNs()) {
+            writeStrings(generator, "NS", value.ns());
+        } else if (value.hasBs()) {
+            generator.writeArrayFieldStart("BS");
+            for (var element : value.bs()) {
+                writeBinary(generator, element);
+            }
+            generator.writeEndArray();
+        } else {
+            // An empty list is the only value with no type set. Dynamo rejects the other empty collections anyway.
+            generator.writeArrayFieldStart("L");
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write a scalar attribute value from its text, without building the attribute value.
+     * @param generator The generator
+     * @param type The type, such as "S" or "N"
+     * @param text The text of the value
+     * @throws IOException If the generator fails
+     */
+    public static void writeScalar(JsonGenerator generator, String type, String text) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(type, text);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write a boolean attribute value, without building the attribute value.
+     * @param generator The generator
+     * @param value The value
+     * @throws IOException If the generator fails
+     */
+    public static void writeBool(JsonGenerator generator, boolean value) throws IOException {
+        generator.writeStartObject();
+        generator.writeBooleanField("BOOL", value);
+        generator.writeEndObject();
+    }
+
+    private static void writeBinary(JsonGenerator generator, SdkBytes bytes) throws IOException {
+        generator.writeBinary(bytes.asByteArrayUnsafe());
+    }
+
+    private static void writeStrings(JsonGenerator generator, String type, List<String> strings) throws IOException {
+        generator.writeArrayFieldStart(type);
+        for (var string : strings) {
+            generator.writeString(string);
+        }
+        generator.writeEndArray();
+    }
+
+    private static List<String> readStrings(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        var result = new ArrayList<String>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            result.add(parser.getText());
+        }
+        return result;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " in attribute value, got " + actual);
+        }
+    }
+}
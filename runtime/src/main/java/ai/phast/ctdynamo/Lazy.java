@@ -0,0 +1,125 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An attribute value that is decoded the first time it is used. Declare an attribute as {@code Lazy<T>} instead of
+ * {@code T} and the generated code keeps the raw attribute until {@link #get()} is called, so reads that never look at
+ * a big attribute (especially a compressed one) never pay to decode it. Writing back an item whose lazy attribute was
+ * never loaded reuses the raw attribute, without decoding and encoding it again.
+ *
+ * <p>This is thread safe; the value is decoded at most once.
+ * @param <T> The type of the value
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private static final Object UNLOADED = new Object();
+
+    /** The value, or UNLOADED */
+    private volatile Object value;
+
+    /** The raw attribute, until the value is loaded. Guarded by "this" */
+    private AttributeValue source;
+
+    /** Turns the raw attribute into the value, until the value is loaded. Guarded by "this" */
+    private Function<AttributeValue, ? extends T> decoder;
+
+    private Lazy(Object value, AttributeValue source, Function<AttributeValue, ? extends T> decoder) {
+        this.value = value;
+        this.source = source;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Build a lazy value that is already loaded.
+     * @param value The value
+     * @param <T> The type of the value
+     * @return The lazy value
+     */
+    public static <T> Lazy<T> of(T value) {
+        return new Lazy<>(value, null, null);
+    }
+
+    /**
+     * Build a lazy value that will be decoded from an attribute on first use.
+     * @param source The raw attribute
+     * @param decoder Decodes the attribute
+     * @param <T> The type of the value
+     * @return The lazy value
+     */
+    public static <T> Lazy<T> decoding(AttributeValue source, Function<AttributeValue, ? extends T> decoder) {
+        return new Lazy<>(UNLOADED, Objects.requireNonNull(source), Objects.requireNonNull(decoder));
+    }
+
+    /**
+     * Encode a lazy value. If it was never loaded, this returns the attribute it came from.
+     * @param lazy The lazy value
+     * @param encoder Encodes a loaded value
+     * @param <T> The type of the value
+     * @return The attribute value
+     */
+    public static <T> AttributeValue encode(Lazy<T> lazy, Function<? super T, AttributeValue> encoder) {
+        if (lazy.value == UNLOADED) {
+            synchronized (lazy) {
+                if (lazy.source != null) {
+                    return lazy.source;
+                }
+            }
+        }
+        var value = lazy.get();
+        return value == null ? DynamoCodec.NULL_ATTRIBUTE_VALUE : encoder.apply(value);
+    }
+
+    /**
+     * Get the value, decoding it if this is the first use.
+     * @return The value
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        var result = value;
+        if (result == UNLOADED) {
+            synchronized (this) {
+                result = value;
+                if (result == UNLOADED) {
+                    result = decoder.apply(source);
+                    value = result;
+                    // Let the raw attribute be collected
+                    source = null;
+                    decoder = null;
+                }
+            }
+        }
+        return (T)result;
+    }
+
+    /**
+     * Check whether the value has been decoded yet.
+     * @return True if {@link #get()} will not need to decode
+     */
+    public boolean isLoaded() {
+        return value != UNLOADED;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        return (other instanceof Lazy) && Objects.equals(get(), ((Lazy<?>)other).get());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(get());
+    }
+
+    @Override
+    public String toString() {
+        return isLoaded() ? String.valueOf(value) : "Lazy(unloaded)";
+    }
+}
@@ -0,0 +1,114 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * A list that decodes each element from its attribute the first time the element is read. Lazy items (see
+ * {@link ai.phast.ctdynamo.annotations.DynamoItem#lazy()}) use these for lists of nested items, so a caller that looks
+ * at a few elements of a long list only pays to decode those.
+ *
+ * <p>The list is fully modifiable. Replacing an element never decodes the others, but adding or removing elements
+ * decodes everything first, since the raw attributes can no longer be matched to their positions.
+ *
+ * <p>Like {@link ArrayList}, this is not thread safe. Unlike it, reads change the list, so a lazy list shared between
+ * threads needs the same synchronization as one that is shared for writing.
+ * @param <T> The type of the elements
+ */
+public final class LazyList<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final Object UNDECODED = new Object();
+
+    /** The elements, or UNDECODED for elements that have not been read yet */
+    private final ArrayList<Object> elements;
+
+    /** The raw elements, until all have been decoded or the list structure changes */
+    private List<AttributeValue> source;
+
+    /** Turns a raw element into an element, as long as there is a source */
+    private Function<AttributeValue, ? extends T> decoder;
+
+    /**
+     * Build a list that decodes elements on demand.
+     * @param source The raw elements. This must not change while the list uses it.
+     * @param decoder Decodes one element
+     */
+    public LazyList(List<AttributeValue> source, Function<AttributeValue, ? extends T> decoder) {
+        this.source = Objects.requireNonNull(source);
+        this.decoder = Objects.requireNonNull(decoder);
+        elements = new ArrayList<>(Collections.nCopies(source.size(), UNDECODED));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        var result = elements.get(index);
+        if (result == UNDECODED) {
+            result = decoder.apply(source.get(index));
+            elements.set(index, result);
+        }
+        return (T)result;
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public T set(int index, T element) {
+        var previous = get(index);
+        elements.set(index, element);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        decodeAll();
+        elements.add(index, element);
+        ++modCount;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int index) {
+        decodeAll();
+        ++modCount;
+        return (T)elements.remove(index);
+    }
+
+    @Override
+    public void clear() {
+        elements.clear();
+        source = null;
+        decoder = null;
+        ++modCount;
+    }
+
+    /**
+     * Check whether an element has been decoded yet.
+     * @param index The index of the element
+     * @return True if {@link #get(int)} will not need to decode
+     */
+    public boolean isDecoded(int index) {
+        return elements.get(index) != UNDECODED;
+    }
+
+    private void decodeAll() {
+        if (source != null) {
+            for (int i = 0, size = elements.size(); i < size; ++i) {
+                get(i);
+            }
+            // Let the raw attributes be collected
+            source = null;
+            decoder = null;
+        }
+    }
+}
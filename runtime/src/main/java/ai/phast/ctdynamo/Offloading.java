@@ -0,0 +1,120 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Moves big attribute values to a {@link BlobStore}, leaving a pointer in the item, and brings them back. Generated code
+ * calls this for attributes annotated with {@code @DynamoAttribute(offloadAbove = ...)}.
+ *
+ * <p>A pointer is a binary attribute holding the magic bytes 0xCD 0x42, the format version, and the UTF-8 blob key. The
+ * blob holds the {@link AttributeValueBytes} form of the attribute (after compression, if the attribute is compressed
+ * too). Values smaller than the threshold are stored in the item as they are, and fetch accepts both. The one exception
+ * is a binary value that already starts with the magic bytes, which could be mistaken for a pointer: it is stored as
+ * the magic bytes, the marker {@code 0}, and the {@link AttributeValueBytes} form of the value.
+ */
+public final class Offloading {
+
+    private static final byte MAGIC_0 = (byte)0xCD;
+
+    private static final byte MAGIC_1 = (byte)0x42;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    /** Takes the place of the format version in values that are stored inline but escaped */
+    private static final byte INLINE_MARKER = 0;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private Offloading() {
+    }
+
+    /**
+     * Offload an attribute value if it is big enough.
+     * @param value The value
+     * @param storeName The name of the blob store in {@link BlobStores}
+     * @param threshold Values whose serialized form is smaller than this many bytes stay in the item
+     * @return A pointer to the blob, or the original value
+     */
+    public static AttributeValue offload(AttributeValue value, String storeName, int threshold) {
+        if (Boolean.TRUE.equals(value.nul())) {
+            return value;
+        }
+        var data = AttributeValueBytes.toBytes(value);
+        if (data.length >= threshold) {
+            return frame(FORMAT_VERSION, BlobStores.get(storeName).put(data).getBytes(StandardCharsets.UTF_8));
+        }
+        return startsWithMagic(value) ? frame(INLINE_MARKER, data) : value;
+    }
+
+    private static AttributeValue frame(byte marker, byte[] payload) {
+        var result = new byte[HEADER_LENGTH + payload.length];
+        result[0] = MAGIC_0;
+        result[1] = MAGIC_1;
+        result[2] = marker;
+        System.arraycopy(payload, 0, result, HEADER_LENGTH, payload.length);
+        return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(result)).build();
+    }
+
+    private static boolean startsWithMagic(AttributeValue value) {
+        if (value.b() == null) {
+            return false;
+        }
+        var bytes = value.b().asByteArrayUnsafe();
+        return (bytes.length >= 2) && (bytes[0] == MAGIC_0) && (bytes[1] == MAGIC_1);
+    }
+
+    /**
+     * Check whether an attribute value is a pointer written by {@link #offload(AttributeValue, String, int)}.
+     * @param value The value
+     * @return True if the value points to a blob
+     */
+    public static boolean isPointer(AttributeValue value) {
+        if (value.b() == null) {
+            return false;
+        }
+        var bytes = value.b().asByteArrayUnsafe();
+        return (bytes.length > HEADER_LENGTH) && (bytes[0] == MAGIC_0) && (bytes[1] == MAGIC_1) && (bytes[2] != INLINE_MARKER);
+    }
+
+    /**
+     * Get the blob key of a pointer.
+     * @param value The pointer
+     * @return The key in the blob store
+     * @throws IllegalArgumentException If the value is not a pointer
+     */
+    public static String getKey(AttributeValue value) {
+        if (!isPointer(value)) {
+            throw new IllegalArgumentException("Not a blob pointer: " + value);
+        }
+        var bytes = value.b().asByteArrayUnsafe();
+        if (bytes[2] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown blob pointer format version " + bytes[2]);
+        }
+        return new String(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Undo {@link #offload(AttributeValue, String, int)}, fetching the blob if the value is a pointer.
+     * @param value The value from the item
+     * @param storeName The name of the blob store in {@link BlobStores}
+     * @return The original value
+     */
+    public static AttributeValue fetch(AttributeValue value, String storeName) {
+        if (!isPointer(value)) {
+            if (startsWithMagic(value)) {
+                // Escaped by offload, since it looked like a pointer
+                var bytes = value.b().asByteArrayUnsafe();
+                if ((bytes.length <= HEADER_LENGTH) || (bytes[2] != INLINE_MARKER)) {
+                    throw new IllegalArgumentException("Corrupt blob pointer: " + value);
+                }
+                return AttributeValueBytes.fromBytes(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            }
+            return value;
+        }
+        var data = BlobStores.get(storeName).get(getKey(value));
+        return AttributeValueBytes.fromBytes(data, 0, data.length);
+    }
+}
@@ -0,0 +1,66 @@
+package ai.phast.ctdynamo;
+
+/**
+ * Constants of the packed format, which generated codecs of {@code @DynamoItem(packed = true)} types use to write a
+ * whole collection of items as one binary attribute.
+ *
+ * <p>A packed collection starts with the magic bytes 0xCD 0x50 and the format version. Then comes the schema: the
+ * number of fields, and for each field its name and type code (and, for enums, the names of the constants in ordinal
+ * order). Then comes the number of items, and each item as its field values in schema order, with no names. Numbers
+ * are zigzag varints, enums are varint indexes into their dictionary, and anything without a compact form of its own
+ * is its {@link AttributeValueBytes} form. Nullable fields are preceded by a byte that is 0 for null and 1 otherwise.
+ *
+ * <p>Readers match fields by name, so fields may be added, removed, or reordered; readers skip fields they do not
+ * know and leave missing fields at their defaults. Changing the type of a field is an error.
+ */
+public final class Packed {
+
+    static final byte MAGIC_0 = (byte)0xCD;
+
+    static final byte MAGIC_1 = (byte)0x50;
+
+    static final byte FORMAT_VERSION = 1;
+
+    /** A zigzag varint holding any integer type */
+    public static final int TYPE_VARINT = 1;
+
+    /** A four byte float */
+    public static final int TYPE_FLOAT = 2;
+
+    /** An eight byte double */
+    public static final int TYPE_DOUBLE = 3;
+
+    /** One byte, 0 or 1 */
+    public static final int TYPE_BOOLEAN = 4;
+
+    /** A varint length and UTF-8 bytes */
+    public static final int TYPE_STRING = 5;
+
+    /** A varint index into the dictionary of the field */
+    public static final int TYPE_ENUM = 6;
+
+    /** A varint length and the bytes */
+    public static final int TYPE_BYTES = 7;
+
+    /** A varint length and the {@link AttributeValueBytes} form of the encoded attribute */
+    public static final int TYPE_VALUE = 8;
+
+    /** Or'ed into a type code when each value is preceded by a null marker */
+    public static final int NULLABLE = 0x80;
+
+    private Packed() {
+    }
+
+    /**
+     * Check whether an attribute value holds a packed collection.
+     * @param value The value
+     * @return True if the value is packed
+     */
+    public static boolean isPacked(software.amazon.awssdk.services.dynamodb.model.AttributeValue value) {
+        if (value.b() == null) {
+            return false;
+        }
+        var bytes = value.b().asByteArrayUnsafe();
+        return (bytes.length >= 3) && (bytes[0] == MAGIC_0) && (bytes[1] == MAGIC_1);
+    }
+}
@@ -0,0 +1,240 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a packed collection. See {@link Packed} for the format. Generated codecs drive this; it is rarely useful
+ * directly.
+ */
+public final class PackedReader {
+
+    private final byte[] bytes;
+
+    private int position;
+
+    /**
+     * Start reading a packed collection.
+     * @param value The attribute holding the collection
+     * @throws IllegalArgumentException If the value is not a packed collection of a version we understand
+     */
+    public PackedReader(AttributeValue value) {
+        if (!Packed.isPacked(value)) {
+            throw new IllegalArgumentException("Not a packed collection");
+        }
+        bytes = value.b().asByteArrayUnsafe();
+        if (bytes[2] != Packed.FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown packed format version " + bytes[2]);
+        }
+        position = 3;
+    }
+
+    /**
+     * Check the type of a field against what the reader expects.
+     * @param name The name of the field
+     * @param type The type written, from the schema
+     * @param expected The type the reader expects, without {@link Packed#NULLABLE}
+     * @throws IllegalArgumentException If the types differ
+     */
+    public static void checkType(String name, int type, int expected) {
+        if ((type & ~Packed.NULLABLE) != expected) {
+            throw new IllegalArgumentException("Packed field " + name + " has type " + (type & ~Packed.NULLABLE)
+                                                   + ", expected " + expected);
+        }
+    }
+
+    /**
+     * Read an enum dictionary from the schema, matching the writer's constants to ours by name.
+     * @param enumClass The class of the enum
+     * @param <E> The type of the enum
+     * @return Our constants, indexed by the writer's ordinals. Constants we do not have are null.
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Enum<E>> E[] readEnumDictionary(Class<E> enumClass) {
+        var count = readCount();
+        var result = (E[])Array.newInstance(enumClass, count);
+        // getEnumConstants clones the array on every call
+        var constants = enumClass.getEnumConstants();
+        for (int i = 0; i < count; ++i) {
+            var name = readString();
+            for (var constant : constants) {
+                if (constant.name().equals(name)) {
+                    result[i] = constant;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Skip the extra schema data of a field we do not know.
+     * @param type The type of the field
+     */
+    public void skipFieldSchema(int type) {
+        if ((type & ~Packed.NULLABLE) == Packed.TYPE_ENUM) {
+            var count = readCount();
+            for (int i = 0; i < count; ++i) {
+                skipLength();
+            }
+        }
+    }
+
+    /**
+     * Read the null marker of a nullable field.
+     * @return True if the value is null, and so there is nothing more to read
+     */
+    public boolean readNull() {
+        return readRawByte() == 0;
+    }
+
+    public long readLong() {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            var b = readRawByte();
+            zigzag |= (long)(b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in packed collection");
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public double readDouble() {
+        var high = readInt();
+        return Double.longBitsToDouble(((long)high << 32) | (readInt() & 0xffffffffL));
+    }
+
+    public boolean readBoolean() {
+        return readRawByte() != 0;
+    }
+
+    public String readString() {
+        var length = readCount();
+        var result = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return result;
+    }
+
+    /**
+     * Read an enum value.
+     * @param dictionary The dictionary from {@link #readEnumDictionary(Class)}
+     * @param <E> The type of the enum
+     * @return The constant
+     * @throws IllegalArgumentException If the writer had a constant we do not
+     */
+    public <E extends Enum<E>> E readEnum(E[] dictionary) {
+        var index = readVarint();
+        if ((index >= dictionary.length) || (dictionary[index] == null)) {
+            throw new IllegalArgumentException("Unknown enum constant in packed collection");
+        }
+        return dictionary[index];
+    }
+
+    public byte[] readBytes() {
+        var length = readCount();
+        var result = Arrays.copyOfRange(bytes, position, position + length);
+        position += length;
+        return result;
+    }
+
+    public AttributeValue readValue() {
+        var length = readCount();
+        var result = AttributeValueBytes.fromBytes(bytes, position, length);
+        position += length;
+        return result;
+    }
+
+    /**
+     * Skip a value of a field we do not know. The null marker, if any, must already have been read.
+     * @param type The type of the field
+     */
+    public void skip(int type) {
+        switch (type & ~Packed.NULLABLE) {
+            case Packed.TYPE_VARINT:
+                readLong();
+                break;
+            case Packed.TYPE_FLOAT:
+                skipBytes(4);
+                break;
+            case Packed.TYPE_DOUBLE:
+                skipBytes(8);
+                break;
+            case Packed.TYPE_BOOLEAN:
+                skipBytes(1);
+                break;
+            case Packed.TYPE_ENUM:
+                readVarint();
+                break;
+            case Packed.TYPE_STRING:
+            case Packed.TYPE_BYTES:
+            case Packed.TYPE_VALUE:
+                skipLength();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown packed type " + type);
+        }
+    }
+
+    /**
+     * Read an unsigned varint, such as a type code.
+     * @return The value
+     */
+    public int readVarint() {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            var b = readRawByte();
+            result |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    throw new IllegalArgumentException("Packed varint " + result + " is out of range");
+                }
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in packed collection");
+    }
+
+    /**
+     * Read an unsigned varint that counts things still to come, such as the field or item count. Every element takes
+     * at least one byte, so counts bigger than the bytes left mean the data is corrupt; checking here keeps us from
+     * allocating for them.
+     * @return The value
+     */
+    public int readCount() {
+        var result = readVarint();
+        if (result > bytes.length - position) {
+            throw new IllegalArgumentException("Packed count " + result + " is out of range");
+        }
+        return result;
+    }
+
+    private void skipLength() {
+        skipBytes(readCount());
+    }
+
+    private void skipBytes(int count) {
+        if (count > bytes.length - position) {
+            throw new IllegalArgumentException("Packed collection is truncated");
+        }
+        position += count;
+    }
+
+    private int readInt() {
+        return (readRawByte() << 24) | (readRawByte() << 16) | (readRawByte() << 8) | readRawByte();
+    }
+
+    private int readRawByte() {
+        if (position >= bytes.length) {
+            throw new IllegalArgumentException("Packed collection is truncated");
+        }
+        return bytes[position++] & 0xff;
+    }
+}
@@ -0,0 +1,146 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a packed collection. See {@link Packed} for the format. Generated codecs drive this; it is rarely useful
+ * directly.
+ */
+public final class PackedWriter {
+
+    private byte[] buffer;
+
+    private int size;
+
+    /**
+     * Start a packed collection.
+     * @param initialCapacity A guess at the final size, in bytes
+     * @param fieldCount The number of fields that will be declared
+     */
+    public PackedWriter(int initialCapacity, int fieldCount) {
+        buffer = new byte[Math.max(16, initialCapacity)];
+        buffer[size++] = Packed.MAGIC_0;
+        buffer[size++] = Packed.MAGIC_1;
+        buffer[size++] = Packed.FORMAT_VERSION;
+        writeVarint(fieldCount);
+    }
+
+    /**
+     * Declare a field in the schema.
+     * @param name The attribute name
+     * @param type The type code, including {@link Packed#NULLABLE} if needed
+     */
+    public void writeField(String name, int type) {
+        writeString(name);
+        writeVarint(type);
+    }
+
+    /**
+     * Declare an enum field in the schema.
+     * @param name The attribute name
+     * @param nullable Whether values are preceded by a null marker
+     * @param constants The attribute values of the constants, in ordinal order
+     */
+    public void writeEnumField(String name, boolean nullable, AttributeValue[] constants) {
+        writeField(name, Packed.TYPE_ENUM | (nullable ? Packed.NULLABLE : 0));
+        writeVarint(constants.length);
+        for (var constant : constants) {
+            writeString(constant.s());
+        }
+    }
+
+    public void writeNull() {
+        writeRawByte(0);
+    }
+
+    public void writePresent() {
+        writeRawByte(1);
+    }
+
+    public void writeLong(long value) {
+        ensureCapacity(10);
+        var zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7fL) != 0) {
+            buffer[size++] = (byte)((zigzag & 0x7f) | 0x80);
+            zigzag >>>= 7;
+        }
+        buffer[size++] = (byte)zigzag;
+    }
+
+    public void writeFloat(float value) {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        var bits = Double.doubleToLongBits(value);
+        writeInt((int)(bits >>> 32));
+        writeInt((int)bits);
+    }
+
+    public void writeBoolean(boolean value) {
+        writeRawByte(value ? 1 : 0);
+    }
+
+    public void writeString(String value) {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void writeEnum(Enum<?> value) {
+        writeVarint(value.ordinal());
+    }
+
+    public void writeBytes(byte[] value) {
+        writeVarint(value.length);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, size, value.length);
+        size += value.length;
+    }
+
+    public void writeValue(AttributeValue value) {
+        writeBytes(AttributeValueBytes.toBytes(value));
+    }
+
+    /**
+     * Write an unsigned varint, such as the item count.
+     * @param value The value, which must not be negative
+     */
+    public void writeVarint(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7f) != 0) {
+            buffer[size++] = (byte)((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte)value;
+    }
+
+    /**
+     * Finish the collection.
+     * @return A binary attribute holding everything written
+     */
+    public AttributeValue toAttributeValue() {
+        return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(Arrays.copyOf(buffer, size))).build();
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[size++] = (byte)(value >>> 24);
+        buffer[size++] = (byte)(value >>> 16);
+        buffer[size++] = (byte)(value >>> 8);
+        buffer[size++] = (byte)value;
+    }
+
+    private void writeRawByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte)value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ai.phast.ctdynamo;
 
+import software.amazon.awssdk.core.SdkRequest;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
 
@@ -7,6 +8,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -22,12 +25,34 @@ abstract class PagedResult<T, ResponseT> extends IterableResult<T> {
 
     private CompletableFuture<ResponseT> futureResponse;
 
-    private Iterator<Map<String, AttributeValue>> responseIterator = null;
+    /** The items of the current page: maps to decode, or items already decoded by {@link StreamingReads} */
+    private Iterator<?> responseIterator = null;
+
+    /** Whether the current page was decoded by {@link StreamingReads} */
+    private boolean pageDecoded;
+
+    /** The page that {@link StreamingReads} is decoding the items of the request in flight into, or null */
+    private StreamingReads.Page<T> pendingPage;
 
     private Map<String, AttributeValue> exclusiveStart;
 
-    PagedResult(DynamoIndex<T, ?, ?> index, int limit) {
+    /** The capacity scope that was current when this operation started, or null if there was none */
+    private final CapacityScope scope = CapacityScope.current();
+
+    /** Whether pages are read as maps, by {@link #nextPage()}, rather than as items */
+    private final boolean rawPages;
+
+    PagedResult(DynamoIndex<T, ?, ?> index, int limit, boolean rawPages) {
         super(index, limit);
+        this.rawPages = rawPages;
+    }
+
+    /**
+     * Get the capacity scope that this operation is charged to.
+     * @return The capacity scope, or null if there is none
+     */
+    final CapacityScope getScope() {
+        return scope;
     }
 
     /** This needs to be called after the constructor is done. It starts the fetch of the first page */
@@ -40,6 +65,21 @@ abstract class PagedResult<T, ResponseT> extends IterableResult<T> {
 
     abstract CompletableFuture<ResponseT> fetchNextPage(Map<String, AttributeValue> exclusiveStart);
 
+    /**
+     * Called by {@link #fetchNextPage(Map)} before sending a request through the synchronous client, so that the items
+     * can be decoded as the response streams in.
+     * @param request The request that will be sent
+     * @param send Sends the request
+     * @return The response
+     */
+    final CompletableFuture<ResponseT> fetchStreaming(SdkRequest request, Supplier<ResponseT> send) {
+        // Raw pages are never decoded into items, so there is nothing for streaming reads to do
+        var page = rawPages ? null : StreamingReads.expect(request, getIndex());
+        pendingPage = page;
+        var future = CompletableFuture.supplyAsync(send);
+        return page == null ? future : future.whenComplete((response, error) -> page.close());
+    }
+
     private boolean iteratorHasNext() {
         while (true) {
             if ((responseIterator != null) && responseIterator.hasNext()) {
@@ -47,47 +87,105 @@ abstract class PagedResult<T, ResponseT> extends IterableResult<T> {
                 return true;
             }
             responseIterator = null; // Indicate we do not have a useful iterator
-            if (futureResponse == null) {
+            var list = advancePage();
+            if (list == null) {
                 // We have nothing from a current itorator and no operation in progress
                 return false;
             }
+            responseIterator = list.iterator();
+        }
+    }
 
-            var response = futureResponse.join();
-
-            // Update counters with data from the new request
-            addNumItemsFound(getCount(response));
-            addNumItemsScanned(getScannedCount(response));
-            getCapacity().add(getRawCapacity(response));
-
-            futureResponse = null;
-            var nextQueryStart = getLastEvaluatedKey(response);
-            var lastItemSeen = nextQueryStart;
-            var list = getItems(response);
-            var listSize = list.size();
-            if ((getLimit() >= 0) && (listSize + getNumItemsReturned() >= getLimit())) {
-                // This page completes the operation by reaching (or exceeding) our limit
-                nextQueryStart = null; // Don't ask for another page
-                if (listSize + getNumItemsReturned() > getLimit()) {
-                    // This page has too many items, it would exceed our limit. Chop off the tail of our list.
-                    listSize = getLimit() - getNumItemsReturned();
-                    lastItemSeen = list.get(listSize - 1);
-                    list = list.subList(0, listSize);
-                }
+    /**
+     * Get the items of the next page that has any, as the maps Dynamo returned, for results created with raw pages.
+     * @return The items, or null once there are no more pages
+     */
+    @SuppressWarnings("unchecked")
+    final List<Map<String, AttributeValue>> nextPage() {
+        List<?> list;
+        do {
+            list = advancePage();
+        } while ((list != null) && list.isEmpty());
+        return (List<Map<String, AttributeValue>>)list;
+    }
+
+    /**
+     * Wait for the page in flight, record it, and start the fetch of the page after it.
+     * @return The items of the page, limited to what the limit allows, or null if there is no page in flight
+     */
+    private List<?> advancePage() {
+        if (futureResponse == null) {
+            return null;
+        }
+        var response = futureResponse.join();
+        var page = pendingPage;
+        pendingPage = null;
+
+        // Update counters with data from the new request
+        addNumItemsFound(getCount(response));
+        addNumItemsScanned(getScannedCount(response));
+        getCapacity().add(getRawCapacity(response));
+        if (scope != null) {
+            scope.record(getRawCapacity(response));
+        }
+        recordPage(response);
+
+        futureResponse = null;
+        var nextQueryStart = getLastEvaluatedKey(response);
+        var lastItemSeen = nextQueryStart;
+        var decoded = (page == null) ? null : page.getItems();
+        pageDecoded = (decoded != null);
+        List<?> list = pageDecoded ? decoded : getItems(response);
+        var listSize = list.size();
+        if ((getLimit() >= 0) && (listSize + getNumItemsReturned() >= getLimit())) {
+            // This page completes the operation by reaching (or exceeding) our limit
+            nextQueryStart = null; // Don't ask for another page
+            if (listSize + getNumItemsReturned() > getLimit()) {
+                // This page has too many items, it would exceed our limit. Chop off the tail of our list.
+                listSize = getLimit() - getNumItemsReturned();
+                lastItemSeen = pageDecoded ? getIndex().getExclusiveStart(decoded.get(listSize - 1)) : getItems(response).get(listSize - 1);
+                list = list.subList(0, listSize);
             }
-            addNumItemsReturned(listSize);
-            responseIterator = list.iterator();
-            if (nextQueryStart == null) {
-                // Not asking for another page. Record the last item seen (if it exists) as the next query start.
-                exclusiveStart = lastItemSeen;
+        }
+        addNumItemsReturned(listSize);
+        if (nextQueryStart == null) {
+            // Not asking for another page. Record the last item seen (if it exists) as the next query start.
+            exclusiveStart = lastItemSeen;
+        } else {
+            // Ask for another page
+            futureResponse = fetchNextPage(nextQueryStart);
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T iteratorNext() {
+        var next = responseIterator.next();
+        return pageDecoded ? (T)next : getIndex().decode((Map<String, AttributeValue>)next);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachReusing(Supplier<? extends T> factory, Consumer<? super T> action) {
+        T reuse = null;
+        while (iteratorHasNext()) {
+            var next = responseIterator.next();
+            if (pageDecoded) {
+                action.accept((T)next);
             } else {
-                // Ask for another page
-                fetchNextPage(nextQueryStart);
+                if (reuse == null) {
+                    reuse = factory.get();
+                }
+                action.accept(getIndex().decodeInto((Map<String, AttributeValue>)next, reuse));
             }
         }
     }
 
-    private T iteratorNext() {
-        return getIndex().decode(responseIterator.next());
+    /**
+     * Hook called as each page arrives, for any bookkeeping that depends on the kind of operation.
+     * @param response The page
+     */
+    void recordPage(ResponseT response) {
     }
 
     abstract int getScannedCount(ResponseT response);
@@ -0,0 +1,138 @@
+package ai.phast.ctdynamo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Runs an aggregation over several scans or queries at once. Each worker feeds the items of the next scan or query
+ * that nobody has started into an accumulator of its own, and repeats until none are left. The accumulators of the
+ * workers are combined once, when the last worker finishes. Workers stop early once the result is complete, which is
+ * how cancelling the result stops them.
+ * @param <T> The type of item
+ * @param <A> The type of accumulator
+ * @param <R> The type of result
+ */
+final class ParallelAggregation<T, A, R> {
+
+    /** Used when the caller has no executor. Workers block on pages, so they must not use the common pool */
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "ctdynamo-aggregation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<Supplier<? extends Iterable<? extends T>>> sources;
+
+    private final Collector<? super T, A, R> collector;
+
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+
+    private final AtomicInteger nextSource = new AtomicInteger();
+
+    /** The accumulators of the workers that have finished. Guarded by "this" */
+    private final List<A> finished = new ArrayList<>();
+
+    /** The number of workers still running. Guarded by "this" */
+    private int running;
+
+    private ParallelAggregation(List<Supplier<? extends Iterable<? extends T>>> sources, Collector<? super T, A, R> collector) {
+        this.sources = sources;
+        this.collector = collector;
+    }
+
+    /**
+     * Start an aggregation.
+     * @param sources Start each scan or query. They are started only when a worker is ready for them.
+     * @param parallelism The number of workers
+     * @param collector The aggregation
+     * @param executor Runs the workers, or null for a shared pool of daemon threads
+     * @return The result, which can be cancelled to stop the workers
+     */
+    static <T, A, R> CompletableFuture<R> start(List<Supplier<? extends Iterable<? extends T>>> sources, int parallelism,
+                                                Collector<? super T, A, R> collector, Executor executor) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive, got " + parallelism);
+        }
+        var aggregation = new ParallelAggregation<>(sources, collector);
+        var workers = Math.max(1, Math.min(parallelism, sources.size()));
+        aggregation.running = workers;
+        // The workers charge their reads to the caller's scope, as async operations do
+        var scope = CapacityScope.current();
+        Runnable work = aggregation::work;
+        var task = (scope == null) ? work : scope.wrap(work);
+        for (int i = 0; i < workers; ++i) {
+            try {
+                (executor == null ? DEFAULT_EXECUTOR : executor).execute(task);
+            } catch (RejectedExecutionException e) {
+                // The workers already started see the failure and stop
+                aggregation.abandon(workers - i, e);
+                break;
+            }
+        }
+        return aggregation.result;
+    }
+
+    /**
+     * Give up on workers that could not be started, failing the result.
+     * @param workers The number of workers that will never run
+     * @param cause The reason
+     */
+    private void abandon(int workers, Throwable cause) {
+        synchronized (this) {
+            running -= workers;
+        }
+        result.completeExceptionally(cause);
+    }
+
+    private void work() {
+        try {
+            var accumulate = collector.accumulator();
+            var accumulator = collector.supplier().get();
+            for (var source = nextSource.getAndIncrement(); source < sources.size(); source = nextSource.getAndIncrement()) {
+                for (T item : sources.get(source).get()) {
+                    if (result.isDone()) {
+                        // Cancelled, or another worker failed
+                        return;
+                    }
+                    accumulate.accept(accumulator, item);
+                }
+            }
+            finish(accumulator);
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Hand in the accumulator of a worker, completing the result if it was the last one.
+     * @param accumulator The accumulator
+     */
+    @SuppressWarnings("unchecked")
+    private void finish(A accumulator) {
+        synchronized (this) {
+            finished.add(accumulator);
+            if (--running > 0) {
+                return;
+            }
+        }
+        // Only the last worker gets here, so nothing else touches the list now
+        var all = finished.get(0);
+        var combiner = collector.combiner();
+        for (int i = 1; i < finished.size(); ++i) {
+            all = combiner.apply(all, finished.get(i));
+        }
+        if (collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            result.complete((R)all);
+        } else {
+            result.complete(collector.finisher().apply(all));
+        }
+    }
+}
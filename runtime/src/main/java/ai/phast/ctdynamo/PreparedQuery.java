@@ -0,0 +1,309 @@
+package ai.phast.ctdynamo;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A query whose shape is fixed once and then run many times with different keys. The key condition, expression
+ * attribute names, projection, direction, and page size are worked out when the query is prepared, so each run only
+ * encodes its keys and copies the request. Start with {@link DynamoIndex#prepareQuery()}:
+ * <pre>
+ *     var recent = table.prepareQuery().sortAbove(true).scanForward(false).limit(10);
+ *     ...
+ *     for (var entry : recent.invoke(stream, since)) {
+ * </pre>
+ * <p>Prepared queries are immutable. Each of the methods that change the shape returns a new prepared query and leaves
+ * this one alone, so one prepared query can be shared by any number of threads.
+ * @param <T> The type of item to return
+ * @param <PartitionT> The type of the partition key
+ * @param <SortT> The type of the sort key
+ */
+public final class PreparedQuery<T, PartitionT, SortT> {
+
+    private final DynamoIndex<T, PartitionT, SortT> index;
+
+    /** The key condition, or null for the whole partition */
+    private final String sortCondition;
+
+    /** The number of sort values that each run must bind: 0, 1, or 2 */
+    private final int sortValueCount;
+
+    /** The direction, or null for the default */
+    private final Boolean scanForward;
+
+    private final int limit;
+
+    private final int pageSize;
+
+    /** The attributes to read, or null for all of them */
+    private final Column<?>[] columns;
+
+    /** The request that each run copies and adds its values to */
+    private final QueryRequest template;
+
+    PreparedQuery(DynamoIndex<T, PartitionT, SortT> index) {
+        this(index, null, 0, null, -1, -1, null);
+    }
+
+    private PreparedQuery(DynamoIndex<T, PartitionT, SortT> index, String sortCondition, int sortValueCount,
+                          Boolean scanForward, int limit, int pageSize, Column<?>[] columns) {
+        this.index = index;
+        this.sortCondition = sortCondition;
+        this.sortValueCount = sortValueCount;
+        this.scanForward = scanForward;
+        this.limit = limit;
+        this.pageSize = pageSize;
+        this.columns = columns;
+        var builder = QueryRequest.builder()
+                          .tableName(index.getTableName())
+                          .indexName(index.getIndexName())
+                          .keyConditionExpression(sortCondition == null ? "#p = :p" : sortCondition)
+                          .scanIndexForward(scanForward);
+        var names = new HashMap<String, String>();
+        names.put("#p", index.getPartitionKeyAttribute());
+        if (sortCondition != null) {
+            names.put("#s", index.getSortKeyAttribute());
+        }
+        if (columns != null) {
+            builder.projectionExpression(Column.project(columns, names));
+        }
+        builder.expressionAttributeNames(names);
+        if (pageSize <= 0) {
+            if (limit >= 0) {
+                builder.limit(limit);
+            }
+        } else {
+            builder.limit(pageSize);
+        }
+        template = builder.build();
+    }
+
+    public PreparedQuery<T, PartitionT, SortT> sortBetween() {
+        return withSortCondition("#p = :p AND #s BETWEEN :s1 AND :s2", 2);
+    }
+
+    public PreparedQuery<T, PartitionT, SortT> sortAbove(boolean inclusive) {
+        return withSortCondition(inclusive ? "#p = :p AND #s >= :s1" : "#p = :p AND #s > :s1", 1);
+    }
+
+    public PreparedQuery<T, PartitionT, SortT> sortBelow(boolean inclusive) {
+        return withSortCondition(inclusive ? "#p = :p AND #s <= :s1" : "#p = :p AND #s < :s1", 1);
+    }
+
+    public PreparedQuery<T, PartitionT, SortT> sortPrefix() {
+        return withSortCondition("#p = :p AND begins_with(#s, :s1)", 1);
+    }
+
+    public PreparedQuery<T, PartitionT, SortT> scanForward(boolean value) {
+        return new PreparedQuery<>(index, sortCondition, sortValueCount, value, limit, pageSize, columns);
+    }
+
+    public PreparedQuery<T, PartitionT, SortT> limit(int value) {
+        return new PreparedQuery<>(index, sortCondition, sortValueCount, scanForward, value, pageSize, columns);
+    }
+
+    public PreparedQuery<T, PartitionT, SortT> pageSize(int value) {
+        return new PreparedQuery<>(index, sortCondition, sortValueCount, scanForward, limit, value, columns);
+    }
+
+    /**
+     * Read only some attributes. Queries prepared with columns are run with the {@code invokeColumns} methods, and
+     * the others with the {@code invoke} methods.
+     * @param columns The attributes to read
+     * @return The new prepared query
+     */
+    public PreparedQuery<T, PartitionT, SortT> columns(Column<?>... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column must be read");
+        }
+        return new PreparedQuery<>(index, sortCondition, sortValueCount, scanForward, limit, pageSize, columns.clone());
+    }
+
+    /**
+     * Run a query with no sort condition.
+     * @param partitionValue The partition to read
+     * @return The items
+     */
+    public IterableResult<T> invoke(PartitionT partitionValue) {
+        return start(0, false, null, partitionValue, null, null);
+    }
+
+    /**
+     * Run a query prepared with {@link #sortAbove(boolean)}, {@link #sortBelow(boolean)}, or {@link #sortPrefix()}.
+     * @param partitionValue The partition to read
+     * @param sortValue The bound or prefix of the sort key
+     * @return The items
+     */
+    public IterableResult<T> invoke(PartitionT partitionValue, SortT sortValue) {
+        return start(1, false, null, partitionValue, sortValue, null);
+    }
+
+    /**
+     * Run a query prepared with {@link #sortBetween()}.
+     * @param partitionValue The partition to read
+     * @param lo The lowest sort value to read
+     * @param hi The highest sort value to read
+     * @return The items
+     */
+    public IterableResult<T> invoke(PartitionT partitionValue, SortT lo, SortT hi) {
+        return start(2, false, null, partitionValue, lo, hi);
+    }
+
+    /**
+     * Run a query with no sort condition, reading the prepared columns. See {@link ColumnResult}.
+     * @param partitionValue The partition to read
+     * @return The pages
+     */
+    public ColumnResult invokeColumns(PartitionT partitionValue) {
+        return new ColumnResult(start(0, true, null, partitionValue, null, null), columns);
+    }
+
+    /**
+     * Run a query with one sort value, reading the prepared columns. See {@link ColumnResult}.
+     * @param partitionValue The partition to read
+     * @param sortValue The bound or prefix of the sort key
+     * @return The pages
+     */
+    public ColumnResult invokeColumns(PartitionT partitionValue, SortT sortValue) {
+        return new ColumnResult(start(1, true, null, partitionValue, sortValue, null), columns);
+    }
+
+    /**
+     * Run a query prepared with {@link #sortBetween()}, reading the prepared columns. See {@link ColumnResult}.
+     * @param partitionValue The partition to read
+     * @param lo The lowest sort value to read
+     * @param hi The highest sort value to read
+     * @return The pages
+     */
+    public ColumnResult invokeColumns(PartitionT partitionValue, SortT lo, SortT hi) {
+        return new ColumnResult(start(2, true, null, partitionValue, lo, hi), columns);
+    }
+
+    /**
+     * Resume a query with no sort condition where an earlier run stopped.
+     * @param exclusiveStart The key to start after, from {@link IterableResult#getExclusiveStart()}, or null to start
+     *                       at the beginning
+     * @param partitionValue The partition to read
+     * @return The items
+     */
+    public IterableResult<T> invokeFrom(Map<String, AttributeValue> exclusiveStart, PartitionT partitionValue) {
+        return start(0, false, exclusiveStart, partitionValue, null, null);
+    }
+
+    /**
+     * Resume a query prepared with one sort value where an earlier run stopped.
+     * @param exclusiveStart The key to start after, or null to start at the beginning
+     * @param partitionValue The partition to read
+     * @param sortValue The bound or prefix of the sort key
+     * @return The items
+     */
+    public IterableResult<T> invokeFrom(Map<String, AttributeValue> exclusiveStart, PartitionT partitionValue,
+                                        SortT sortValue) {
+        return start(1, false, exclusiveStart, partitionValue, sortValue, null);
+    }
+
+    /**
+     * Resume a query prepared with {@link #sortBetween()} where an earlier run stopped.
+     * @param exclusiveStart The key to start after, or null to start at the beginning
+     * @param partitionValue The partition to read
+     * @param lo The lowest sort value to read
+     * @param hi The highest sort value to read
+     * @return The items
+     */
+    public IterableResult<T> invokeFrom(Map<String, AttributeValue> exclusiveStart, PartitionT partitionValue, SortT lo,
+                                        SortT hi) {
+        return start(2, false, exclusiveStart, partitionValue, lo, hi);
+    }
+
+    /**
+     * Resume a query with no sort condition where an earlier run stopped, reading the prepared columns.
+     * @param exclusiveStart The key to start after, from {@link ColumnResult#getExclusiveStart()}, or null to start at
+     *                       the beginning
+     * @param partitionValue The partition to read
+     * @return The pages
+     */
+    public ColumnResult invokeColumnsFrom(Map<String, AttributeValue> exclusiveStart, PartitionT partitionValue) {
+        return new ColumnResult(start(0, true, exclusiveStart, partitionValue, null, null), columns);
+    }
+
+    /**
+     * Resume a query with one sort value where an earlier run stopped, reading the prepared columns.
+     * @param exclusiveStart The key to start after, or null to start at the beginning
+     * @param partitionValue The partition to read
+     * @param sortValue The bound or prefix of the sort key
+     * @return The pages
+     */
+    public ColumnResult invokeColumnsFrom(Map<String, AttributeValue> exclusiveStart, PartitionT partitionValue,
+                                          SortT sortValue) {
+        return new ColumnResult(start(1, true, exclusiveStart, partitionValue, sortValue, null), columns);
+    }
+
+    /**
+     * Resume a query prepared with {@link #sortBetween()} where an earlier run stopped, reading the prepared columns.
+     * @param exclusiveStart The key to start after, or null to start at the beginning
+     * @param partitionValue The partition to read
+     * @param lo The lowest sort value to read
+     * @param hi The highest sort value to read
+     * @return The pages
+     */
+    public ColumnResult invokeColumnsFrom(Map<String, AttributeValue> exclusiveStart, PartitionT partitionValue,
+                                          SortT lo, SortT hi) {
+        return new ColumnResult(start(2, true, exclusiveStart, partitionValue, lo, hi), columns);
+    }
+
+    private PreparedQuery<T, PartitionT, SortT> withSortCondition(String condition, int valueCount) {
+        if (sortCondition != null) {
+            throw new IllegalArgumentException("Only one sort expression can be used");
+        }
+        if (index.getSortKeyAttribute() == null) {
+            throw new IllegalArgumentException("There is no sort key to query by");
+        }
+        return new PreparedQuery<>(index, condition, valueCount, scanForward, limit, pageSize, columns);
+    }
+
+    /**
+     * Start one run.
+     * @param valueCount The number of sort values given
+     * @param rawPages Whether the run reads columns
+     * @param exclusiveStart The key to start after, or null to start at the beginning
+     * @param partitionValue The partition to read
+     * @param sort1 The first sort value, if any
+     * @param sort2 The second sort value, if any
+     * @return The result, with a request builder of its own since it changes the builder as it reads pages
+     */
+    private QueryResult<T> start(int valueCount, boolean rawPages, Map<String, AttributeValue> exclusiveStart,
+                                 PartitionT partitionValue, SortT sort1, SortT sort2) {
+        if (valueCount != sortValueCount) {
+            throw new IllegalArgumentException("This query needs " + sortValueCount + " sort values, got " + valueCount);
+        }
+        if (rawPages != (columns != null)) {
+            throw new IllegalArgumentException(rawPages ? "This query was prepared without columns"
+                                                        : "This query was prepared with columns, so must be run with invokeColumns");
+        }
+        if (partitionValue == null) {
+            throw new IllegalArgumentException("A query must have a partition value");
+        }
+        var encodedPartition = index.partitionValueToAttributeValue(partitionValue);
+        Map<String, AttributeValue> values;
+        switch (valueCount) {
+            case 0:
+                values = Map.of(":p", encodedPartition);
+                break;
+            case 1:
+                values = Map.of(":p", encodedPartition, ":s1", index.sortValueToAttributeValue(sort1));
+                break;
+            default:
+                values = Map.of(":p", encodedPartition, ":s1", index.sortValueToAttributeValue(sort1),
+                    ":s2", index.sortValueToAttributeValue(sort2));
+                break;
+        }
+        var builder = template.toBuilder().expressionAttributeValues(values);
+        if (exclusiveStart != null) {
+            builder.exclusiveStartKey(exclusiveStart);
+        }
+        return new QueryResult<>(index, builder, encodedPartition, limit, rawPages);
+    }
+}
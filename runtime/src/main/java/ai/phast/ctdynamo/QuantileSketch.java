@@ -0,0 +1,262 @@
+package ai.phast.ctdynamo;
+
+/**
+ * Estimates quantiles (medians, percentiles) of the values added to it, in bounded memory. Values are counted in
+ * buckets whose bounds grow geometrically, so every quantile is estimated to within a fixed relative error of some
+ * value at that rank: with the default accuracy of 1%, a reported p99 of 200ms means the true p99 is between 198ms
+ * and 202ms. Sketches with the same accuracy can be merged, so each segment of a parallel scan can keep its own; see
+ * {@link Aggregations#quantiles}.
+ *
+ * <p>Each bucket takes 8 bytes. At 1% accuracy, 2048 buckets (the default limit) cover values spanning eighteen
+ * orders of magnitude. If the values span more than the limit allows, the buckets of the smallest magnitudes are
+ * combined, and only the low quantiles lose accuracy.
+ *
+ * <p>Sketches are not thread safe.
+ */
+public final class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    public static final int DEFAULT_MAX_BUCKETS = 2048;
+
+    private final double relativeAccuracy;
+
+    private final int maxBuckets;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private final Buckets positive = new Buckets();
+
+    private final Buckets negative = new Buckets();
+
+    private long zeroCount;
+
+    private long count;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Build a sketch with the default accuracy and bucket limit.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * Build a sketch.
+     * @param relativeAccuracy The relative error allowed in quantiles, greater than 0 and less than 1
+     * @param maxBuckets The most buckets kept for each of the positive and the negative values
+     * @throws IllegalArgumentException If either parameter is out of range
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if (!(relativeAccuracy > 0.0 && relativeAccuracy < 1.0)) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1), got " + relativeAccuracy);
+        }
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("maxBuckets must be positive, got " + maxBuckets);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+        gamma = (1.0 + relativeAccuracy) / (1.0 - relativeAccuracy);
+        logGamma = Math.log(gamma);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Add a value. NaN is ignored.
+     * @param value The value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value >= Double.MIN_NORMAL) {
+            positive.add(index(value), 1, maxBuckets);
+        } else if (value <= -Double.MIN_NORMAL) {
+            negative.add(index(-value), 1, maxBuckets);
+        } else {
+            ++zeroCount;
+        }
+        ++count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add everything counted by another sketch to this one.
+     * @param other The other sketch, which must have the same accuracy
+     * @throws IllegalArgumentException If the accuracies differ
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge a sketch of accuracy " + other.relativeAccuracy + " into one of " + relativeAccuracy);
+        }
+        positive.merge(other.positive, maxBuckets);
+        negative.merge(other.negative, maxBuckets);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the smallest value added.
+     * @return The smallest value, exactly, or NaN if nothing has been added
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Get the largest value added.
+     * @return The largest value, exactly, or NaN if nothing has been added
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Estimate a quantile.
+     * @param quantile The quantile, from 0 (the minimum) to 1 (the maximum); 0.5 for the median
+     * @return The estimate, or NaN if nothing has been added
+     * @throws IllegalArgumentException If the quantile is out of range
+     */
+    public double getQuantile(double quantile) {
+        if (!(quantile >= 0.0 && quantile <= 1.0)) {
+            throw new IllegalArgumentException("quantile must be in [0, 1], got " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        var rank = (long)(quantile * (count - 1));
+        var seen = 0L;
+        // From the most negative value up: negative buckets by falling magnitude, then zeros, then positive buckets
+        for (int index = negative.hi; (negative.total > 0) && (index >= negative.lo); --index) {
+            seen += negative.get(index);
+            if (seen > rank) {
+                return clamp(-value(index));
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return clamp(0.0);
+        }
+        for (int index = positive.lo; (positive.total > 0) && (index <= positive.hi); ++index) {
+            seen += positive.get(index);
+            if (seen > rank) {
+                return clamp(value(index));
+            }
+        }
+        return max;
+    }
+
+    private int index(double magnitude) {
+        return (int)Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    /**
+     * The value that represents a bucket, which is within the relative accuracy of everything in the bucket.
+     */
+    private double value(int index) {
+        return 2.0 * Math.pow(gamma, index) / (gamma + 1.0);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * The counts of a range of buckets, in an array that grows as needed.
+     */
+    private static final class Buckets {
+
+        /** The counts, where counts[i] belongs to bucket offset + i */
+        private long[] counts = new long[0];
+
+        private int offset;
+
+        /** The lowest and highest buckets with counts, when total is not 0 */
+        private int lo;
+
+        private int hi;
+
+        private long total;
+
+        private long get(int index) {
+            return counts[index - offset];
+        }
+
+        private void add(int index, long n, int maxBuckets) {
+            if (total == 0) {
+                lo = index;
+                hi = index;
+            } else {
+                var newHi = Math.max(hi, index);
+                var floor = newHi - maxBuckets + 1;
+                if (Math.min(lo, index) < floor) {
+                    // Too wide: everything below the floor goes into the floor bucket
+                    var folded = 0L;
+                    for (int i = lo; i <= Math.min(hi, floor - 1); ++i) {
+                        folded += counts[i - offset];
+                        counts[i - offset] = 0;
+                    }
+                    if (folded > 0) {
+                        lo = floor;
+                        hi = Math.max(hi, floor);
+                        ensure(lo, hi);
+                        counts[floor - offset] += folded;
+                    }
+                    index = Math.max(index, floor);
+                }
+                lo = Math.min(lo, index);
+                hi = Math.max(hi, index);
+            }
+            ensure(lo, hi);
+            counts[index - offset] += n;
+            total += n;
+        }
+
+        private void merge(Buckets other, int maxBuckets) {
+            for (int index = other.lo; (other.total > 0) && (index <= other.hi); ++index) {
+                var n = other.get(index);
+                if (n > 0) {
+                    add(index, n, maxBuckets);
+                }
+            }
+        }
+
+        /**
+         * Make sure the array covers a range of buckets, keeping the counts of buckets lo to hi.
+         */
+        private void ensure(int from, int to) {
+            if ((counts.length > 0) && (from >= offset) && (to < offset + counts.length)) {
+                return;
+            }
+            var needed = to - from + 1;
+            var length = Math.max(Math.max(counts.length * 2, needed), 32);
+            var newOffset = from - (length - needed) / 2;
+            var newCounts = new long[length];
+            if (total > 0) {
+                // Buckets outside lo to hi are all empty, and lo to hi is within from to to
+                var copyFrom = Math.max(lo, offset);
+                var copyTo = Math.min(hi, offset + counts.length - 1);
+                if (copyFrom <= copyTo) {
+                    System.arraycopy(counts, copyFrom - offset, newCounts, copyFrom - newOffset, copyTo - copyFrom + 1);
+                }
+            }
+            counts = newCounts;
+            offset = newOffset;
+        }
+    }
+}
@@ -41,7 +41,10 @@ public final class Query<T, PartitionT, SortT> {
     }
 
     public Query<T, PartitionT, SortT> partitionValue(PartitionT partitionValue) {
-        var asAttributeValue = index.partitionValueToAttributeValue(partitionValue);
+        return encodedPartitionValue(index.partitionValueToAttributeValue(partitionValue));
+    }
+
+    Query<T, PartitionT, SortT> encodedPartitionValue(AttributeValue asAttributeValue) {
         var prevPartition = values.put(":p", asAttributeValue);
         if ((prevPartition != null) && !prevPartition.equals(asAttributeValue)) {
             throw new IllegalArgumentException("All partition values in a query must be equal");
@@ -132,7 +135,40 @@ public final class Query<T, PartitionT, SortT> {
     }
 
     public IterableResult<T> invoke() {
-        builder.expressionAttributeValues(values);
+        prepare(null);
+        return new QueryResult<>(index, builder, values.get(":p"), limit, false);
+    }
+
+    /**
+     * Run the query reading only some attributes, a page at a time, into columns. See {@link ColumnResult}.
+     * @param columns The attributes to read
+     * @return The pages
+     */
+    public ColumnResult invokeColumns(Column<?>... columns) {
+        prepare(columns);
+        return new ColumnResult(new QueryResult<>(index, builder, values.get(":p"), limit, true), columns);
+    }
+
+    /**
+     * Finish the request.
+     * @param columns The attributes to project, or null for all of them
+     */
+    private void prepare(Column<?>[] columns) {
+        if (!values.containsKey(":p")) {
+            throw new IllegalArgumentException("A query must have a partition value");
+        }
+        var names = new HashMap<String, String>();
+        names.put("#p", index.getPartitionKeyAttribute());
+        if (sortIsSet) {
+            names.put("#s", index.getSortKeyAttribute());
+        } else {
+            builder.keyConditionExpression("#p = :p");
+        }
+        if (columns != null) {
+            builder.projectionExpression(Column.project(columns, names));
+        }
+        builder.expressionAttributeNames(names)
+            .expressionAttributeValues(values);
         if (pageSize <= 0) {
             if (limit >= 0) {
                 builder.limit(limit);
@@ -140,6 +176,5 @@ public final class Query<T, PartitionT, SortT> {
         } else {
             builder.limit(pageSize);
         }
-        return new QueryResult<>(index, builder, limit);
     }
 }
@@ -4,6 +4,7 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
 
 import java.util.Collections;
 import java.util.List;
@@ -19,9 +20,17 @@ class QueryResult<T> extends PagedResult<T, QueryResponse> {
 
     private final QueryRequest.Builder queryBuilder;
 
-    QueryResult(DynamoIndex<T, ?, ?> index, QueryRequest.Builder queryBuilder, int limit) {
-        super(index, limit);
+    /** The partition value being queried. Used to feed the hot key sampler */
+    private final AttributeValue partitionValue;
+
+    QueryResult(DynamoIndex<T, ?, ?> index, QueryRequest.Builder queryBuilder, AttributeValue partitionValue, int limit,
+                boolean rawPages) {
+        super(index, limit, rawPages);
         this.queryBuilder = queryBuilder;
+        this.partitionValue = partitionValue;
+        if ((getScope() != null) || (index.getHotKeySampler() != null)) {
+            queryBuilder.returnConsumedCapacity(ReturnConsumedCapacity.INDEXES);
+        }
         init();
     }
 
@@ -31,7 +40,15 @@ class QueryResult<T> extends PagedResult<T, QueryResponse> {
             queryBuilder.exclusiveStartKey(exclusiveStart);
         }
         var request = queryBuilder.build();
-        return getIndex().getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getIndex().getClient().query(request)) : getIndex().getAsyncClient().query(request);
+        return getIndex().getAsyncClient() == null ? fetchStreaming(request, () -> getIndex().getClient().query(request)) : getIndex().getAsyncClient().query(request);
+    }
+
+    @Override
+    void recordPage(QueryResponse response) {
+        var sampler = getIndex().getHotKeySampler();
+        if (sampler != null) {
+            sampler.recordRead(partitionValue, response.consumedCapacity());
+        }
     }
 
     @Override
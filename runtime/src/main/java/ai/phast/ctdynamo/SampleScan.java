@@ -0,0 +1,329 @@
+package ai.phast.ctdynamo;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * A scan of a random sample of the segments of a table or index, for estimates that would otherwise take a full
+ * scan. Dynamo assigns items to segments by the hash of their partition key, so each segment is a random slice of
+ * the table, and the variation between the sampled segments tells how far their totals can be trusted. Sampling 20 of
+ * 2000 segments reads about 1% of the table:
+ * <pre>
+ *     var errors = table.sampleScan(2000, 20).estimateCount(batch -&gt; batch.getError() != null).join();
+ * </pre>
+ *
+ * <p>By default every sampled segment is read to the end, and counts and sums are scaled up by the fraction of
+ * segments read. With {@link #pagesPerSegment(int, int)} only the start of each segment is read, which caps the cost
+ * when segments are big but leaves the size of each segment unknown. Means can still be estimated then, but counts
+ * and sums need the number of items in the table (from DescribeTable, say) to scale up by.
+ *
+ * <p>Distributions (with {@link Aggregations#quantiles}, for example) need no scaling, so {@link #collect(Collector)}
+ * just runs the collector over the sampled items.
+ * @param <T> The type of item
+ */
+public final class SampleScan<T> {
+
+    private final DynamoIndex<T, ?, ?> index;
+
+    private final int totalSegments;
+
+    private final int sampledSegments;
+
+    private int pagesPerSegment = -1;
+
+    private int pageSize = -1;
+
+    private long itemCount = -1;
+
+    private Random random;
+
+    private int parallelism;
+
+    private Executor executor;
+
+    SampleScan(DynamoIndex<T, ?, ?> index, int totalSegments, int sampledSegments) {
+        if ((sampledSegments <= 0) || (sampledSegments > totalSegments)) {
+            throw new IllegalArgumentException("sampledSegments must be from 1 to totalSegments, got " + sampledSegments
+                                                   + " of " + totalSegments);
+        }
+        this.index = index;
+        this.totalSegments = totalSegments;
+        this.sampledSegments = sampledSegments;
+        parallelism = sampledSegments;
+    }
+
+    /**
+     * Read only the first pages of each sampled segment.
+     * @param pages The number of pages to read from each segment
+     * @param pageSize The number of items in each page
+     * @return This
+     */
+    public SampleScan<T> pagesPerSegment(int pages, int pageSize) {
+        if ((pages <= 0) || (pageSize <= 0)) {
+            throw new IllegalArgumentException("pages and pageSize must be positive, got " + pages + " and " + pageSize);
+        }
+        pagesPerSegment = pages;
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Set the number of items in the table or index, which counts and sums are scaled up to when segments are only
+     * partly read.
+     * @param value The number of items
+     * @return This
+     */
+    public SampleScan<T> itemCount(long value) {
+        itemCount = value;
+        return this;
+    }
+
+    /**
+     * Set the random number generator that picks the segments, to make the sample repeatable.
+     * @param value The generator
+     * @return This
+     */
+    public SampleScan<T> random(Random value) {
+        random = value;
+        return this;
+    }
+
+    /**
+     * Set the number of segments read at once. The default is all of them.
+     * @param value The number of threads
+     * @return This
+     */
+    public SampleScan<T> parallelism(int value) {
+        parallelism = value;
+        return this;
+    }
+
+    /**
+     * Set the executor that reads the segments, instead of the shared pool that aggregations use.
+     * @param value The executor
+     * @return This
+     */
+    public SampleScan<T> executor(Executor value) {
+        executor = value;
+        return this;
+    }
+
+    /**
+     * Estimate the number of items in the table or index that match a predicate.
+     * @param predicate The predicate
+     * @return The estimate
+     * @throws IllegalStateException If segments are only partly read and the item count is unknown
+     */
+    public CompletableFuture<Estimate> estimateCount(Predicate<? super T> predicate) {
+        return estimate(item -> predicate.test(item) ? 1.0 : 0.0, true);
+    }
+
+    /**
+     * Estimate the sum of a value over the table or index.
+     * @param value Gets the value of each item
+     * @return The estimate
+     * @throws IllegalStateException If segments are only partly read and the item count is unknown
+     */
+    public CompletableFuture<Estimate> estimateSum(ToDoubleFunction<? super T> value) {
+        return estimate(value, true);
+    }
+
+    /**
+     * Estimate the mean of a value over the items of the table or index. To estimate the fraction of items that match
+     * a predicate, use a value of 1 for those that do and 0 for the rest.
+     * @param value Gets the value of each item
+     * @return The estimate
+     */
+    public CompletableFuture<Estimate> estimateMean(ToDoubleFunction<? super T> value) {
+        return estimate(value, false);
+    }
+
+    /**
+     * Run a collector over the sampled items, without any scaling.
+     * @param collector The collector
+     * @param <A> The type of accumulator
+     * @param <R> The type of result
+     * @return The result of the collector
+     */
+    public <A, R> CompletableFuture<R> collect(Collector<? super T, A, R> collector) {
+        return ParallelAggregation.start(getSources(), parallelism, collector, executor);
+    }
+
+    private CompletableFuture<Estimate> estimate(ToDoubleFunction<? super T> value, boolean total) {
+        if (total && (pagesPerSegment > 0) && (itemCount < 0)) {
+            throw new IllegalStateException("Counts and sums of partly read segments need the item count");
+        }
+        // Each worker reads several segments into one accumulator, so items carry the segment they came from
+        Collector<SegmentItem<T>, SegmentSample[], Estimate> collector = Collector.of(
+            () -> new SegmentSample[sampledSegments],
+            (segments, item) -> {
+                var segment = segments[item.segment];
+                if (segment == null) {
+                    segment = new SegmentSample();
+                    segments[item.segment] = segment;
+                }
+                segment.sum += value.applyAsDouble(item.item);
+                ++segment.count;
+            },
+            (left, right) -> {
+                for (int i = 0; i < left.length; ++i) {
+                    if (left[i] == null) {
+                        left[i] = right[i];
+                    } else if (right[i] != null) {
+                        left[i].sum += right[i].sum;
+                        left[i].count += right[i].count;
+                    }
+                }
+                return left;
+            },
+            segments -> {
+                // Segments with no items still count, as samples of nothing
+                for (int i = 0; i < segments.length; ++i) {
+                    if (segments[i] == null) {
+                        segments[i] = new SegmentSample();
+                    }
+                }
+                return total ? (pagesPerSegment > 0 ? scaleRatio(segments, itemCount) : scaleTotal(segments)) : scaleRatio(segments, 1);
+            });
+        var sources = getSources();
+        var tagged = new ArrayList<Supplier<? extends Iterable<? extends SegmentItem<T>>>>(sources.size());
+        for (int i = 0; i < sources.size(); ++i) {
+            var segment = i;
+            var source = sources.get(i);
+            tagged.add(() -> tag(segment, source.get()));
+        }
+        return ParallelAggregation.start(tagged, parallelism, collector, executor);
+    }
+
+    /**
+     * Pair each item of a segment with the segment. The pair is reused for every item, since the worker that reads the
+     * segment is done with each item before it asks for the next.
+     * @param segment The index of the segment in the sample
+     * @param items The items of the segment
+     * @return The items, paired with the segment
+     */
+    private static <T> Iterable<SegmentItem<T>> tag(int segment, Iterable<? extends T> items) {
+        return () -> {
+            var iterator = items.iterator();
+            var pair = new SegmentItem<T>(segment);
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public SegmentItem<T> next() {
+                    pair.item = iterator.next();
+                    return pair;
+                }
+            };
+        };
+    }
+
+    /**
+     * Estimate a total from whole segments: the mean of the segment totals times the number of segments.
+     */
+    private Estimate scaleTotal(SegmentSample[] segments) {
+        var n = segments.length;
+        var sum = 0.0;
+        var items = 0L;
+        for (var segment : segments) {
+            sum += segment.sum;
+            items += segment.count;
+        }
+        var mean = sum / n;
+        var squares = 0.0;
+        for (var segment : segments) {
+            squares += (segment.sum - mean) * (segment.sum - mean);
+        }
+        var variance = (n > 1) ? squares / (n - 1) : Double.NaN;
+        var correction = 1.0 - (double)n / totalSegments;
+        return new Estimate(totalSegments * mean, totalSegments * Math.sqrt(correction * variance / n), items, n, totalSegments);
+    }
+
+    /**
+     * Estimate a mean per item, as the ratio of the value to the items read, and scale it by a number of items. The
+     * variance is that of a ratio estimator over the segments. If no items were read at all, the estimate is zero.
+     */
+    private Estimate scaleRatio(SegmentSample[] segments, long scale) {
+        var n = segments.length;
+        var sum = 0.0;
+        var items = 0L;
+        for (var segment : segments) {
+            sum += segment.sum;
+            items += segment.count;
+        }
+        if (items == 0) {
+            // Nothing to take a ratio of. An empty sample estimates nothing, so say zero rather than NaN.
+            return new Estimate(0, 0, 0, n, totalSegments);
+        }
+        var ratio = sum / items;
+        var squares = 0.0;
+        for (var segment : segments) {
+            var residual = segment.sum - ratio * segment.count;
+            squares += residual * residual;
+        }
+        var variance = (n > 1) ? squares / (n - 1) : Double.NaN;
+        var meanItems = (double)items / n;
+        var correction = 1.0 - (double)n / totalSegments;
+        var standardError = Math.sqrt(correction * variance / n) / meanItems;
+        return new Estimate(scale * ratio, scale * standardError, items, n, totalSegments);
+    }
+
+    private List<Supplier<? extends Iterable<? extends T>>> getSources() {
+        var segments = new ArrayList<Integer>(totalSegments);
+        for (int i = 0; i < totalSegments; ++i) {
+            segments.add(i);
+        }
+        var generator = (random == null) ? ThreadLocalRandom.current() : random;
+        var sources = new ArrayList<Supplier<? extends Iterable<? extends T>>>(sampledSegments);
+        // A partial Fisher-Yates shuffle, which picks the sample without shuffling all the segments
+        for (int i = 0; i < sampledSegments; ++i) {
+            var pick = i + generator.nextInt(totalSegments - i);
+            var segment = segments.get(pick);
+            segments.set(pick, segments.get(i));
+            sources.add(() -> {
+                var scan = index.scan(segment, totalSegments);
+                if (pagesPerSegment > 0) {
+                    scan.pageSize(pageSize).limit(pagesPerSegment * pageSize);
+                }
+                return scan.invoke();
+            });
+        }
+        return sources;
+    }
+
+    /**
+     * An item, and the index in the sample of the segment it was read from.
+     */
+    private static final class SegmentItem<T> {
+
+        private final int segment;
+
+        private T item;
+
+        private SegmentItem(int segment) {
+            this.segment = segment;
+        }
+    }
+
+    /**
+     * The sum of the value and the number of items read in one segment.
+     */
+    private static final class SegmentSample {
+
+        private double sum;
+
+        private long count;
+    }
+}
@@ -3,6 +3,7 @@ package ai.phast.ctdynamo;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public final class Scan<T> {
@@ -43,6 +44,24 @@ public final class Scan<T> {
     }
 
     public IterableResult<T> invoke() {
+        setLimit();
+        return new ScanResult<>(index, builder, limit, false);
+    }
+
+    /**
+     * Run the scan reading only some attributes, a page at a time, into columns. See {@link ColumnResult}.
+     * @param columns The attributes to read
+     * @return The pages
+     */
+    public ColumnResult invokeColumns(Column<?>... columns) {
+        var names = new HashMap<String, String>();
+        builder.projectionExpression(Column.project(columns, names))
+            .expressionAttributeNames(names);
+        setLimit();
+        return new ColumnResult(new ScanResult<>(index, builder, limit, true), columns);
+    }
+
+    private void setLimit() {
         if (pageSize <= 0) {
             if (limit >= 0) {
                 builder.limit(limit);
@@ -50,6 +69,5 @@ public final class Scan<T> {
         } else {
             builder.limit(pageSize);
         }
-        return new ScanResult<>(index, builder, limit);
     }
 }
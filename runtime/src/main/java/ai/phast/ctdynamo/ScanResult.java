@@ -2,6 +2,7 @@ package ai.phast.ctdynamo;
 
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 
@@ -19,9 +20,12 @@ class ScanResult<T> extends PagedResult<T, ScanResponse> {
 
     private final ScanRequest.Builder scanBuilder;
 
-    ScanResult(DynamoIndex<T, ?, ?> index, ScanRequest.Builder scanBuilder, int limit) {
-        super(index, limit);
+    ScanResult(DynamoIndex<T, ?, ?> index, ScanRequest.Builder scanBuilder, int limit, boolean rawPages) {
+        super(index, limit, rawPages);
         this.scanBuilder = scanBuilder;
+        if (getScope() != null) {
+            scanBuilder.returnConsumedCapacity(ReturnConsumedCapacity.INDEXES);
+        }
         init();
     }
 
@@ -31,7 +35,7 @@ class ScanResult<T> extends PagedResult<T, ScanResponse> {
             scanBuilder.exclusiveStartKey(exclusiveStart);
         }
         var request = scanBuilder.build();
-        return getIndex().getAsyncClient() == null ? CompletableFuture.supplyAsync(() -> getIndex().getClient().scan(request)) : getIndex().getAsyncClient().scan(request);
+        return getIndex().getAsyncClient() == null ? fetchStreaming(request, () -> getIndex().getClient().scan(request)) : getIndex().getAsyncClient().scan(request);
     }
 
     @Override
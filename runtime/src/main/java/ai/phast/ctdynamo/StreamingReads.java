@@ -0,0 +1,218 @@
+package ai.phast.ctdynamo;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.Crc32MismatchException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Decodes the items of query, scan, and batch get responses straight from the JSON that Dynamo sends, instead of
+ * letting the SDK build a map of attribute values for each item and then decoding that. For big pages this roughly
+ * halves the allocation of a read. Install it on the synchronous client used by the tables:
+ * <pre>
+ *     var client = DynamoDbClient.builder()
+ *                      .overrideConfiguration(config -&gt; config.addExecutionInterceptor(new StreamingReads()))
+ *                      .build();
+ * </pre>
+ * <p>Only requests made by tables and indexes through a synchronous client are affected, and only if they find this
+ * interceptor in the configuration of their own client when they are built; everything else the client does goes
+ * through the SDK as usual. The SDK's response objects for those requests have no items, since the items
+ * were taken out of the response before the SDK saw it. Everything else in the response (counts, consumed capacity,
+ * last evaluated keys, unprocessed keys) is still there. The response checksum is checked here instead of by the SDK.
+ */
+public final class StreamingReads implements ExecutionInterceptor {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String CRC32_HEADER = "x-amz-crc32";
+
+    /** The pages waiting for responses. Keyed by identity, since equal requests may be in flight at the same time */
+    private static final Map<SdkRequest, Page<?>> PENDING = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Check whether a client was built with this interceptor, in the same way as
+     * {@link StreamingWrites#isInstalledOn(DynamoDbClient)}.
+     * @param client The client, or null
+     * @return True if responses received by the client may be decoded by this
+     */
+    static boolean isInstalledOn(DynamoDbClient client) {
+        return StreamingWrites.hasInterceptor(client, StreamingReads.class);
+    }
+
+    /**
+     * Ask for the items of a request to be decoded as its response streams in. The page must be closed once the
+     * request completes, whether it succeeds or not.
+     * @param request The request, which must be the exact object that is passed to the client
+     * @param index Decodes the items
+     * @param <T> The type of item
+     * @return The page that will hold the items, or null if this is not installed on the index's client
+     */
+    static <T> Page<T> expect(SdkRequest request, DynamoIndex<T, ?, ?> index) {
+        if (!index.isStreamingReads()) {
+            return null;
+        }
+        var page = new Page<>(request, index);
+        PENDING.put(request, page);
+        return page;
+    }
+
+    @Override
+    public SdkHttpResponse modifyHttpResponse(Context.ModifyHttpResponse context, ExecutionAttributes executionAttributes) {
+        var page = getPage(context);
+        if (page == null) {
+            return context.httpResponse();
+        }
+        // The body the SDK sees will not match the checksum, so we check it ourselves
+        page.crc32 = context.httpResponse().firstMatchingHeader(CRC32_HEADER).orElse(null);
+        return context.httpResponse().toBuilder().removeHeader(CRC32_HEADER).build();
+    }
+
+    @Override
+    public Optional<InputStream> modifyHttpResponseContent(Context.ModifyHttpResponse context, ExecutionAttributes executionAttributes) {
+        var page = getPage(context);
+        if (page == null) {
+            return context.responseBody();
+        }
+        var crc32 = page.crc32 != null ? page.crc32 : context.httpResponse().firstMatchingHeader(CRC32_HEADER).orElse(null);
+        try {
+            return Optional.of(page.read(context.responseBody().get(), crc32));
+        } catch (IOException e) {
+            throw SdkClientException.builder().message("Unable to parse response: " + e.getMessage()).cause(e).build();
+        }
+    }
+
+    private static Page<?> getPage(Context.ModifyHttpResponse context) {
+        var response = context.httpResponse();
+        // Errors are left to the SDK, as are compressed responses
+        if (!response.isSuccessful() || context.responseBody().isEmpty() || response.firstMatchingHeader("Content-Encoding").isPresent()) {
+            return null;
+        }
+        return PENDING.get(context.request());
+    }
+
+    /**
+     * The items of one response.
+     * @param <T> The type of item
+     */
+    static final class Page<T> implements AutoCloseable {
+
+        private final SdkRequest request;
+
+        private final DynamoIndex<T, ?, ?> index;
+
+        /** The decoded items, or null until the response has been read */
+        private volatile List<T> items;
+
+        /** The checksum of the response, if the header has been removed already */
+        private volatile String crc32;
+
+        private Page(SdkRequest request, DynamoIndex<T, ?, ?> index) {
+            this.request = request;
+            this.index = index;
+        }
+
+        /**
+         * Get the items, once the request has completed.
+         * @return The items, or null if the response was not streamed (so the items are in the SDK response)
+         */
+        List<T> getItems() {
+            return items;
+        }
+
+        @Override
+        public void close() {
+            PENDING.remove(request);
+        }
+
+        /**
+         * Decode the items of a response body.
+         * @param body The body
+         * @param crc32 The checksum that the body should have, or null if there is none
+         * @return Everything in the body except the items
+         */
+        private InputStream read(InputStream body, String crc32) throws IOException {
+            var checked = new CheckedInputStream(body, new CRC32());
+            var rest = new ByteArrayOutputStream(256);
+            List<T> result = Collections.emptyList();
+            try (var parser = JSON.createParser(checked); var generator = JSON.createGenerator(rest)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Response is not an object");
+                }
+                generator.writeStartObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    var name = parser.getCurrentName();
+                    parser.nextToken();
+                    if (name.equals("Items")) {
+                        // Query and scan
+                        result = readItems(parser);
+                    } else if (name.equals("Responses")) {
+                        // Batch get, where the items are grouped by table
+                        generator.writeFieldName(name);
+                        generator.writeStartObject();
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            var tableName = parser.getCurrentName();
+                            parser.nextToken();
+                            if (tableName.equals(index.getTableName())) {
+                                result = readItems(parser);
+                            } else {
+                                generator.writeFieldName(tableName);
+                                generator.copyCurrentStructure(parser);
+                            }
+                        }
+                        generator.writeEndObject();
+                    } else {
+                        generator.writeFieldName(name);
+                        generator.copyCurrentStructure(parser);
+                    }
+                }
+                generator.writeEndObject();
+                // Read to the end, so that the checksum covers the whole body
+                if (parser.nextToken() != null) {
+                    throw new JsonParseException(parser, "Extra data after response");
+                }
+            }
+            if ((crc32 != null) && (checked.getChecksum().getValue() != Long.parseLong(crc32))) {
+                throw Crc32MismatchException.builder()
+                          .message("Expected CRC32 " + crc32 + " but computed " + checked.getChecksum().getValue())
+                          .build();
+            }
+            items = result;
+            return new ByteArrayInputStream(rest.toByteArray());
+        }
+
+        private List<T> readItems(JsonParser parser) throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Items are not an array");
+            }
+            var result = new ArrayList<T>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                result.add(index.decodeJson(parser));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Item is not an object");
+            }
+            return result;
+        }
+    }
+}
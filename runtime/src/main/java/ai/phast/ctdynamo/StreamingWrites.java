@@ -0,0 +1,245 @@
+package ai.phast.ctdynamo;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.client.config.SdkClientConfiguration;
+import software.amazon.awssdk.core.client.config.SdkClientOption;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes the bodies of put and batch put requests straight from the items, instead of encoding each item into a map
+ * of attribute values, wrapping those in request objects, and then letting the SDK turn all of that into JSON. The
+ * JSON is written into a buffer that each thread reuses. Install it on the synchronous client used by the tables:
+ * <pre>
+ *     var client = DynamoDbClient.builder()
+ *                      .overrideConfiguration(config -&gt; config.addExecutionInterceptor(new StreamingWrites()))
+ *                      .build();
+ * </pre>
+ * <p>Only puts made by tables through a synchronous client are affected. The request objects the SDK sees for those
+ * carry just the keys of the items, so a table only writes this way if it finds this interceptor in the configuration
+ * of its own client when it is built. Tables whose client was built without it, or that is not one of the SDK's own
+ * clients, write through the SDK as usual.
+ */
+public final class StreamingWrites implements ExecutionInterceptor {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+
+    /** Buffers bigger than this are dropped after use rather than kept for the thread's next request */
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    /** The bodies waiting to be sent. Keyed by identity, since equal requests may be in flight at the same time */
+    private static final Map<SdkRequest, Body> PENDING = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /** A body for each thread to reuse, or null while the thread's body is in use */
+    private static final ThreadLocal<Body> SPARE = new ThreadLocal<>();
+
+    /**
+     * Check whether a client was built with this interceptor. The SDK does not expose the configuration of its clients,
+     * so this reads it from the client the way the SDK's own clients hold it; any other client is taken not to have it.
+     * @param client The client, or null
+     * @return True if requests sent through the client may be written by this
+     */
+    static boolean isInstalledOn(DynamoDbClient client) {
+        return hasInterceptor(client, StreamingWrites.class);
+    }
+
+    /**
+     * Check whether a client was built with an interceptor of some type, as {@link #isInstalledOn(DynamoDbClient)}
+     * does for this one.
+     * @param client The client, or null
+     * @param type The type of interceptor
+     * @return True if the configuration of the client holds an interceptor of the type
+     */
+    static boolean hasInterceptor(DynamoDbClient client, Class<? extends ExecutionInterceptor> type) {
+        if (client == null) {
+            return false;
+        }
+        try {
+            var field = client.getClass().getDeclaredField("clientConfiguration");
+            field.setAccessible(true);
+            var configuration = field.get(client);
+            if (!(configuration instanceof SdkClientConfiguration)) {
+                return false;
+            }
+            var interceptors = ((SdkClientConfiguration) configuration).option(SdkClientOption.EXECUTION_INTERCEPTORS);
+            return (interceptors != null) && interceptors.stream().anyMatch(type::isInstance);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write the body of a put.
+     * @param tableName The table
+     * @param capacity The consumed capacity to return, or null for none
+     * @param table Encodes the item
+     * @param value The item
+     * @param <T> The type of item
+     * @return The body, which must be passed to {@link Body#send(SdkRequest)} and closed once the request completes
+     */
+    static <T> Body putItem(String tableName, ReturnConsumedCapacity capacity, DynamoTable<T, ?, ?> table, T value) {
+        var body = acquire();
+        try (var generator = JSON.createGenerator(body.buffer)) {
+            generator.writeStartObject();
+            generator.writeStringField("TableName", tableName);
+            generator.writeFieldName("Item");
+            table.encodeJson(value, generator);
+            writeCapacity(generator, capacity);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            body.close();
+            throw new UncheckedIOException("Unable to write put request", e);
+        } catch (RuntimeException e) {
+            body.close();
+            throw e;
+        }
+        return body;
+    }
+
+    /**
+     * Write the body of a batch of puts.
+     * @param tableName The table
+     * @param capacity The consumed capacity to return, or null for none
+     * @param table Encodes the items
+     * @param values The items
+     * @param <T> The type of item
+     * @return The body, which must be passed to {@link Body#send(SdkRequest)} and closed once the request completes
+     */
+    static <T> Body putBatch(String tableName, ReturnConsumedCapacity capacity, DynamoTable<T, ?, ?> table, List<T> values) {
+        var body = acquire();
+        try (var generator = JSON.createGenerator(body.buffer)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("RequestItems");
+            generator.writeArrayFieldStart(tableName);
+            for (var value : values) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("PutRequest");
+                generator.writeFieldName("Item");
+                table.encodeJson(value, generator);
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            writeCapacity(generator, capacity);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            body.close();
+            throw new UncheckedIOException("Unable to write batch put request", e);
+        } catch (RuntimeException e) {
+            body.close();
+            throw e;
+        }
+        return body;
+    }
+
+    @Override
+    public SdkHttpRequest modifyHttpRequest(Context.ModifyHttpRequest context, ExecutionAttributes executionAttributes) {
+        var body = PENDING.get(context.request());
+        if (body == null) {
+            return context.httpRequest();
+        }
+        return context.httpRequest().toBuilder()
+                   .putHeader(CONTENT_LENGTH_HEADER, Integer.toString(body.buffer.size()))
+                   .build();
+    }
+
+    @Override
+    public Optional<RequestBody> modifyHttpContent(Context.ModifyHttpRequest context, ExecutionAttributes executionAttributes) {
+        var body = PENDING.get(context.request());
+        if (body == null) {
+            return context.requestBody();
+        }
+        return Optional.of(RequestBody.fromContentProvider(body.buffer::open, body.buffer.size(),
+            context.httpRequest().firstMatchingHeader("Content-Type").orElse("application/x-amz-json-1.0")));
+    }
+
+    private static void writeCapacity(JsonGenerator generator, ReturnConsumedCapacity capacity) throws IOException {
+        if (capacity != null) {
+            generator.writeStringField("ReturnConsumedCapacity", capacity.toString());
+        }
+    }
+
+    private static Body acquire() {
+        var body = SPARE.get();
+        if (body == null) {
+            // Either the first request on this thread, or an item that writes to a table while it is being encoded
+            body = new Body();
+        } else {
+            SPARE.set(null);
+        }
+        return body;
+    }
+
+    /**
+     * The body of one request. Bodies are reused, so nothing may hold on to one after closing it.
+     */
+    static final class Body implements AutoCloseable {
+
+        private final Buffer buffer = new Buffer();
+
+        private SdkRequest request;
+
+        private Body() {
+        }
+
+        /**
+         * Register the request that this is the body of. Call this just before passing the request to the client.
+         * @param request The request, which must be the exact object that is passed to the client
+         */
+        void send(SdkRequest request) {
+            this.request = request;
+            PENDING.put(request, this);
+        }
+
+        @Override
+        public void close() {
+            if (request != null) {
+                PENDING.remove(request);
+                request = null;
+            }
+            if (buffer.capacity() <= MAX_RETAINED_BUFFER) {
+                buffer.reset();
+                SPARE.set(this);
+            }
+        }
+    }
+
+    /**
+     * A byte array output stream that can be read without copying its contents.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer() {
+            super(4096);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+
+        private InputStream open() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ai.phast.ctdynamo;
+
+/**
+ * A bounded pool of strings, for sharing one instance of each value among decoded items. Attributes with few distinct
+ * values (stages, states, error codes) otherwise keep a separate copy of the same text in every item, which adds up in
+ * big caches of decoded items. Generated decoders use one pool per attribute marked
+ * {@link ai.phast.ctdynamo.annotations.DynamoAttribute#intern()}.
+ *
+ * <p>Unlike {@link String#intern()}, the pool holds a fixed number of strings, so values that come and go never fill it
+ * up; a new value just replaces an old one in its slot. Each value can go in one of two slots, so two common values
+ * rarely push each other out. The pool needs no locking: threads may miss each other's strings now and then, which
+ * costs a duplicate string, never a wrong one.
+ */
+public final class StringPool {
+
+    /** The number of strings a pool holds by default */
+    public static final int DEFAULT_SIZE = 1024;
+
+    private final String[] slots;
+
+    private final int mask;
+
+    public StringPool() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Build a pool.
+     * @param size The number of strings to hold, which is rounded up to a power of two
+     */
+    public StringPool(int size) {
+        if ((size <= 0) || (size > (1 << 30))) {
+            throw new IllegalArgumentException("size must be from 1 to 2^30, got " + size);
+        }
+        var capacity = Math.max(2, Integer.highestOneBit(size - 1) << 1);
+        slots = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Get the pooled instance of a string, adding it to the pool if it is not there.
+     * @param value The string, which may be null
+     * @return A string equal to the value
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        var index = getIndex(value.hashCode());
+        var slot = slots[index];
+        if (value.equals(slot)) {
+            return slot;
+        }
+        var other = slots[index ^ 1];
+        if (value.equals(other)) {
+            return other;
+        }
+        slots[(slot == null) || (other != null) ? index : index ^ 1] = value;
+        return value;
+    }
+
+    /**
+     * Get the pooled instance of the string in a range of characters, adding it to the pool if it is not there. When
+     * the string is in the pool already, nothing is allocated.
+     * @param chars The characters
+     * @param offset The first character of the string
+     * @param length The length of the string
+     * @return The string
+     */
+    public String intern(char[] chars, int offset, int length) {
+        var hash = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            hash = 31 * hash + chars[i];
+        }
+        var index = getIndex(hash);
+        var slot = slots[index];
+        if (matches(slot, chars, offset, length)) {
+            return slot;
+        }
+        var other = slots[index ^ 1];
+        if (matches(other, chars, offset, length)) {
+            return other;
+        }
+        var value = new String(chars, offset, length);
+        slots[(slot == null) || (other != null) ? index : index ^ 1] = value;
+        return value;
+    }
+
+    private int getIndex(int hash) {
+        // String hashes of short, similar values differ mostly in the low bits, so spread the high bits down too
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean matches(String slot, char[] chars, int offset, int length) {
+        if ((slot == null) || (slot.length() != length)) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (slot.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,9 @@
 package ai.phast.ctdynamo.annotations;
 
+import ai.phast.ctdynamo.BlobStores;
+import ai.phast.ctdynamo.Compression;
+import ai.phast.ctdynamo.Compressor;
+import ai.phast.ctdynamo.DeflateCompressor;
 import ai.phast.ctdynamo.DynamoCodec;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
@@ -15,4 +19,50 @@ public @interface DynamoAttribute {
     String value() default "";
 
     Class<? extends DynamoCodec<?>> codec() default DefaultCodec.class;
+
+    /**
+     * For byte[] and ByteBuffer attributes, share the bytes between the item and the attribute value instead of
+     * copying them. This saves a copy of the whole payload on every encode and decode, but the item must not change
+     * the array or buffer after encoding it, and must not change arrays it got from decoding.
+     */
+    boolean zeroCopy() default false;
+
+    /**
+     * Compress the attribute into a binary attribute when its encoded form is at least {@link #compressAbove()} bytes.
+     * Large, repetitive attributes (lists of log entries, for example) cost a fraction of the capacity units and network
+     * bytes this way. Compressed attributes cannot be keys, and cannot be read by filters or projections of their
+     * contents. Declare the attribute as {@link ai.phast.ctdynamo.Lazy} to decompress only when it is used.
+     */
+    boolean compress() default false;
+
+    /** With {@link #compress()}, the encoded size in bytes below which attributes are written uncompressed */
+    int compressAbove() default Compression.DEFAULT_MIN_SIZE;
+
+    /** With {@link #compress()}, the compression algorithm */
+    Class<? extends Compressor> compressor() default DeflateCompressor.class;
+
+    /**
+     * Move the attribute to a {@link ai.phast.ctdynamo.BlobStore} when its encoded form (after any compression) is at
+     * least this many bytes, keeping only a pointer in the item. This keeps items under Dynamo's size limit and makes
+     * every read and write of them cheaper. Declare the attribute as {@link ai.phast.ctdynamo.Lazy} so that the blob
+     * is only fetched when the attribute is used. Zero, the default, never offloads.
+     */
+    int offloadAbove() default 0;
+
+    /** With {@link #offloadAbove()}, the name of the store in {@link ai.phast.ctdynamo.BlobStores} */
+    String blobStore() default BlobStores.DEFAULT;
+
+    /**
+     * For String attributes, share one instance of each value among decoded items through a
+     * {@link ai.phast.ctdynamo.StringPool}. This cuts the memory held by big caches of items whose attribute has few
+     * distinct values, at the cost of a hash lookup on each decode.
+     */
+    boolean intern() default false;
+
+    /**
+     * Write the attribute but never read it back, for values that are derived from other attributes (a total, say, or
+     * a key of a secondary index). An attribute that has no setter and is not taken by the item's constructor must be
+     * marked this way, so that one is never dropped on decode by mistake.
+     */
+    boolean writeOnly() default false;
 }
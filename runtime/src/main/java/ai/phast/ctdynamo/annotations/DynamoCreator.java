@@ -0,0 +1,20 @@
+package ai.phast.ctdynamo.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the constructor that decoders build items with. Each parameter must be named after the property of an
+ * attribute (the name the getter is derived from, or the record component) and take its type. Decoders read the
+ * attributes into locals, call this once, and then call the setters of any attributes it does not take. Attributes
+ * that have neither a parameter nor a setter are written but never read back.
+ *
+ * <p>Without this, items are built with their no argument constructor if they have one, and otherwise with the
+ * constructor whose parameters are all named after attributes and that takes the most of them. Records always use
+ * their canonical constructor. Lazy items need a no argument constructor.
+ */
+@Target(ElementType.CONSTRUCTOR) @Retention(RetentionPolicy.SOURCE)
+public @interface DynamoCreator {
+}
@@ -16,4 +16,46 @@ public @interface DynamoItem {
 
     boolean ignoreNulls() default true;
 
+    /**
+     * Whether integer attributes from -128 to 1023 are encoded with shared, cached attribute values. This saves an
+     * allocation for each small number; turn it off only if something depends on attribute value identity.
+     */
+    boolean cacheSmallNumbers() default true;
+
+    /**
+     * Whether sets of strings, numbers, and byte arrays are written as native Dynamo sets (SS, NS, and BS) rather than
+     * lists. Native sets are smaller and support server side ADD and DELETE updates. Turn this off to keep writing
+     * lists for readers that expect them; sets are read from either form regardless.
+     */
+    boolean nativeSets() default true;
+
+    /**
+     * With {@link Output#CODEC}, write lists and sets of this item as one binary attribute in the packed format of
+     * {@link ai.phast.ctdynamo.Packed}, instead of a list of maps that repeats every attribute name in every item. This
+     * makes collection heavy items much smaller and faster to decode, at the cost of Dynamo no longer seeing inside
+     * the collection (for filters or projections, for example). Packed and unpacked collections are both readable.
+     * Packed collections cannot hold null items.
+     */
+    boolean packed() default false;
+
+    /**
+     * Decode items lazily. Instead of an instance of the item class, decoding returns an instance of a generated
+     * subclass that keeps the raw attributes and decodes each one the first time its getter is called, so reads that
+     * look at a few attributes of a big item only pay for those. Lists of nested items come back as a
+     * {@link ai.phast.ctdynamo.LazyList} that decodes each element when it is read. Encoding a lazy item writes
+     * attributes that were never read straight from the raw attributes. Keys are always decoded right away.
+     *
+     * <p>The item class must not be final, and its attribute getters and setters must be neither final nor private.
+     * Anything in the item class that reads its attributes (equals, for example) must do so through the getters.
+     * Reading a lazy item changes it, so one that is shared between threads needs the same synchronization as one that
+     * is shared for writing.
+     */
+    boolean lazy() default false;
+
+    /**
+     * Intern every String attribute other than the keys, as if each had {@link DynamoAttribute#intern()}. Keys are
+     * left out since they are usually unique to each item.
+     */
+    boolean internStrings() default false;
+
 }
@@ -12,4 +12,9 @@ public @interface DynamoSortKey {
     String value() default "";
 
     Class<? extends DynamoCodec<?>> codec() default DefaultCodec.class;
+
+    /**
+     * Write the key but never read it back, for keys derived from other attributes. See {@link DynamoAttribute#writeOnly()}.
+     */
+    boolean writeOnly() default false;
 }
@@ -0,0 +1,32 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import ai.phast.ctdynamo.JsonAttributeValues;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Stores big decimals as Dynamo numbers, which hold up to 38 significant digits. Dynamo drops trailing zeros, so
+ * {@code 1.50} comes back as {@code 1.5}: equal by compareTo, but not by equals. This is the codec used for BigDecimal
+ * attributes that do not name one.
+ */
+public class BigDecimalCodec extends DynamoCodec<BigDecimal> {
+
+    @Override
+    public AttributeValue encode(BigDecimal value) {
+        return AttributeValue.builder().n(value.toPlainString()).build();
+    }
+
+    @Override
+    public void encodeJson(BigDecimal value, JsonGenerator generator) throws IOException {
+        JsonAttributeValues.writeScalar(generator, "N", value.toPlainString());
+    }
+
+    @Override
+    public BigDecimal decode(AttributeValue dynamoValue) {
+        return new BigDecimal(dynamoValue.n());
+    }
+}
@@ -0,0 +1,31 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import ai.phast.ctdynamo.JsonAttributeValues;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Stores big integers as Dynamo numbers, which hold up to 38 digits. This is the codec used for BigInteger attributes
+ * that do not name one.
+ */
+public class BigIntegerCodec extends DynamoCodec<BigInteger> {
+
+    @Override
+    public AttributeValue encode(BigInteger value) {
+        return AttributeValue.builder().n(value.toString()).build();
+    }
+
+    @Override
+    public void encodeJson(BigInteger value, JsonGenerator generator) throws IOException {
+        JsonAttributeValues.writeScalar(generator, "N", value.toString());
+    }
+
+    @Override
+    public BigInteger decode(AttributeValue dynamoValue) {
+        return new BigInteger(dynamoValue.n());
+    }
+}
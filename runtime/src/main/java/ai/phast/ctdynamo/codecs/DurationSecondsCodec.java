@@ -0,0 +1,77 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import ai.phast.ctdynamo.JsonAttributeValues;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Stores durations as numbers of seconds, with up to nine fraction digits, such as {@code 90.25}. Nothing is lost,
+ * whole seconds (the usual case) are plain integers, and the numbers sort in order of length. This is the codec used
+ * for Duration attributes that do not name one.
+ */
+public class DurationSecondsCodec extends DynamoCodec<Duration> {
+
+    private static final int NANOS_PER_SECOND = 1_000_000_000;
+
+    private static final int FRACTION_DIGITS = 9;
+
+    @Override
+    public AttributeValue encode(Duration value) {
+        if (value.getNano() == 0) {
+            return number(value.getSeconds());
+        }
+        return AttributeValue.builder().n(toText(value)).build();
+    }
+
+    @Override
+    public void encodeJson(Duration value, JsonGenerator generator) throws IOException {
+        JsonAttributeValues.writeScalar(generator, "N", value.getNano() == 0 ? Long.toString(value.getSeconds()) : toText(value));
+    }
+
+    @Override
+    public Duration decode(AttributeValue dynamoValue) {
+        var text = dynamoValue.n();
+        var dot = text.indexOf('.');
+        if (dot < 0) {
+            return Duration.ofSeconds(Long.parseLong(text));
+        }
+        // Parsed by hand, since the whole seconds may not fit in a double and BigDecimal is a lot of garbage for this
+        var seconds = Long.parseLong(text, 0, dot, 10);
+        var nanos = 0;
+        var digits = 0;
+        for (int i = dot + 1; (i < text.length()) && (digits < FRACTION_DIGITS); ++i, ++digits) {
+            nanos = nanos * 10 + Character.digit(text.charAt(i), 10);
+        }
+        for (; digits < FRACTION_DIGITS; ++digits) {
+            nanos *= 10;
+        }
+        // A leading minus sign applies to the fraction too, even when the whole seconds are zero
+        return Duration.ofSeconds(seconds, text.charAt(0) == '-' ? -nanos : nanos);
+    }
+
+    private static String toText(Duration value) {
+        var seconds = value.getSeconds();
+        var nanos = value.getNano();
+        var result = new StringBuilder(32);
+        if (seconds < 0) {
+            // Durations count nanoseconds up from the second below, so the magnitude is one second less
+            result.append('-');
+            seconds = -(seconds + 1);
+            nanos = NANOS_PER_SECOND - nanos;
+        }
+        result.append(seconds).append('.');
+        var fraction = Integer.toString(nanos);
+        for (int i = fraction.length(); i < FRACTION_DIGITS; ++i) {
+            result.append('0');
+        }
+        var end = fraction.length();
+        while (fraction.charAt(end - 1) == '0') {
+            --end;
+        }
+        return result.append(fraction, 0, end).toString();
+    }
+}
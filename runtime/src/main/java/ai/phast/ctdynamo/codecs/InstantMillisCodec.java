@@ -0,0 +1,31 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import ai.phast.ctdynamo.JsonAttributeValues;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Stores instants as numbers of milliseconds since the epoch, which sort in time order. Anything finer than a
+ * millisecond is dropped. This is the codec used for Instant attributes that do not name one.
+ */
+public class InstantMillisCodec extends DynamoCodec<Instant> {
+
+    @Override
+    public AttributeValue encode(Instant value) {
+        return number(value.toEpochMilli());
+    }
+
+    @Override
+    public void encodeJson(Instant value, JsonGenerator generator) throws IOException {
+        JsonAttributeValues.writeScalar(generator, "N", Long.toString(value.toEpochMilli()));
+    }
+
+    @Override
+    public Instant decode(AttributeValue dynamoValue) {
+        return Instant.ofEpochMilli(Long.parseLong(dynamoValue.n()));
+    }
+}
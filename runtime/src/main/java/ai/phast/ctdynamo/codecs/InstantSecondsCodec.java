@@ -0,0 +1,31 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import ai.phast.ctdynamo.JsonAttributeValues;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Stores instants as numbers of seconds since the epoch, dropping any fraction of a second. This is the form Dynamo
+ * needs for time to live attributes.
+ */
+public class InstantSecondsCodec extends DynamoCodec<Instant> {
+
+    @Override
+    public AttributeValue encode(Instant value) {
+        return number(value.getEpochSecond());
+    }
+
+    @Override
+    public void encodeJson(Instant value, JsonGenerator generator) throws IOException {
+        JsonAttributeValues.writeScalar(generator, "N", Long.toString(value.getEpochSecond()));
+    }
+
+    @Override
+    public Instant decode(AttributeValue dynamoValue) {
+        return Instant.ofEpochSecond(Long.parseLong(dynamoValue.n()));
+    }
+}
@@ -0,0 +1,31 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import ai.phast.ctdynamo.JsonAttributeValues;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Stores dates as numbers of days since 1970-01-01, which sort in date order. This is the codec used for LocalDate
+ * attributes that do not name one.
+ */
+public class LocalDateEpochDayCodec extends DynamoCodec<LocalDate> {
+
+    @Override
+    public AttributeValue encode(LocalDate value) {
+        return number(value.toEpochDay());
+    }
+
+    @Override
+    public void encodeJson(LocalDate value, JsonGenerator generator) throws IOException {
+        JsonAttributeValues.writeScalar(generator, "N", Long.toString(value.toEpochDay()));
+    }
+
+    @Override
+    public LocalDate decode(AttributeValue dynamoValue) {
+        return LocalDate.ofEpochDay(Long.parseLong(dynamoValue.n()));
+    }
+}
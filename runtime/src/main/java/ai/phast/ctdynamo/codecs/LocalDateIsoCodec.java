@@ -0,0 +1,22 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.LocalDate;
+
+/**
+ * Stores dates as ISO 8601 strings, such as {@code 2021-04-08}, which sort in date order for years 0 through 9999.
+ */
+public class LocalDateIsoCodec extends DynamoCodec<LocalDate> {
+
+    @Override
+    public AttributeValue encode(LocalDate value) {
+        return AttributeValue.builder().s(value.toString()).build();
+    }
+
+    @Override
+    public LocalDate decode(AttributeValue dynamoValue) {
+        return LocalDate.parse(dynamoValue.s());
+    }
+}
@@ -0,0 +1,63 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Stores UUIDs as 16 byte binary values, most significant byte first, instead of 36 character strings. Dynamo compares
+ * binary values as unsigned bytes, so UUIDs that start with a timestamp sort in time order. This is the codec used for
+ * UUID attributes that do not name one.
+ */
+public class UuidBinaryCodec extends DynamoCodec<UUID> {
+
+    private static final int SIZE = 16;
+
+    @Override
+    public AttributeValue encode(UUID value) {
+        return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(toBytes(value))).build();
+    }
+
+    @Override
+    public void encodeJson(UUID value, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName("B");
+        generator.writeBinary(toBytes(value));
+        generator.writeEndObject();
+    }
+
+    @Override
+    public UUID decode(AttributeValue dynamoValue) {
+        var bytes = dynamoValue.b().asByteArrayUnsafe();
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("UUID attributes must be " + SIZE + " bytes, got " + bytes.length);
+        }
+        return new UUID(readLong(bytes, 0), readLong(bytes, 8));
+    }
+
+    private static byte[] toBytes(UUID value) {
+        var result = new byte[SIZE];
+        writeLong(result, 0, value.getMostSignificantBits());
+        writeLong(result, 8, value.getLeastSignificantBits());
+        return result;
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; --i) {
+            bytes[offset + i] = (byte)value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = 0; i < 8; ++i) {
+            result = (result << 8) | (bytes[offset + i] & 0xff);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,22 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.UUID;
+
+/**
+ * Stores UUIDs as their usual 36 character strings, for tables shared with readers that expect them.
+ */
+public class UuidStringCodec extends DynamoCodec<UUID> {
+
+    @Override
+    public AttributeValue encode(UUID value) {
+        return AttributeValue.builder().s(value.toString()).build();
+    }
+
+    @Override
+    public UUID decode(AttributeValue dynamoValue) {
+        return UUID.fromString(dynamoValue.s());
+    }
+}
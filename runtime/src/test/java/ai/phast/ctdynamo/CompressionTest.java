@@ -0,0 +1,128 @@
+package ai.phast.ctdynamo;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionTest {
+
+    private static final Compressor DEFLATE = new DeflateCompressor();
+
+    private static AttributeValue binary(int... bytes) {
+        var result = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; ++i) {
+            result[i] = (byte)bytes[i];
+        }
+        return AttributeValue.builder().b(SdkBytes.fromByteArray(result)).build();
+    }
+
+    private static AttributeValue repetitive(int length) {
+        return AttributeValue.builder().s("abcdefgh".repeat(length / 8)).build();
+    }
+
+    @Test
+    void bigValuesRoundTripCompressed() {
+        var value = AttributeValue.builder().m(Map.of("text", repetitive(8000), "list", AttributeValue.builder()
+            .l(List.of(repetitive(2000), binary(1, 2, 3))).build())).build();
+        var compressed = Compression.compress(value, DEFLATE, Compression.DEFAULT_MIN_SIZE);
+        assertTrue(Compression.isCompressed(compressed));
+        assertTrue(compressed.b().asByteArrayUnsafe().length < 1000);
+        assertEquals(value, Compression.decompress(compressed, DEFLATE));
+    }
+
+    @Test
+    void smallAndIncompressibleValuesAreLeftAlone() {
+        var small = AttributeValue.builder().s("hello").build();
+        assertSame(small, Compression.compress(small, DEFLATE, Compression.DEFAULT_MIN_SIZE));
+        assertSame(small, Compression.decompress(small, DEFLATE));
+        var random = new byte[4096];
+        new Random(1).nextBytes(random);
+        var noise = AttributeValue.builder().b(SdkBytes.fromByteArray(random)).build();
+        assertSame(noise, Compression.compress(noise, DEFLATE, Compression.DEFAULT_MIN_SIZE));
+        var nul = AttributeValue.builder().nul(true).build();
+        assertSame(nul, Compression.compress(nul, DEFLATE, 0));
+    }
+
+    @Test
+    void rawValuesThatLookCompressedAreEscaped() {
+        // Short, and longer than a header, both starting with the magic bytes
+        for (var value : List.of(binary(0xCD, 0x5A), binary(0xCD, 0x5A, 1, 1, 0, 0, 0, 9, 4, 5))) {
+            var stored = Compression.compress(value, DEFLATE, Compression.DEFAULT_MIN_SIZE);
+            assertTrue(Compression.isCompressed(stored));
+            assertEquals(Compression.STORED_ID, stored.b().asByteArrayUnsafe()[3]);
+            assertEquals(value, Compression.decompress(stored, DEFLATE));
+        }
+        // Only the second byte differs from the magic, so nothing needs escaping
+        var other = binary(0xCD, 0x5B, 1, 2, 3, 4, 5, 6, 7);
+        assertSame(other, Compression.compress(other, DEFLATE, Compression.DEFAULT_MIN_SIZE));
+        assertFalse(Compression.isCompressed(other));
+    }
+
+    @Test
+    void incompressibleValuesThatLookCompressedAreEscaped() {
+        var random = new byte[4096];
+        new Random(2).nextBytes(random);
+        random[0] = (byte)0xCD;
+        random[1] = (byte)0x5A;
+        var value = AttributeValue.builder().b(SdkBytes.fromByteArray(random)).build();
+        var stored = Compression.compress(value, DEFLATE, 16);
+        assertEquals(Compression.STORED_ID, stored.b().asByteArrayUnsafe()[3]);
+        assertEquals(value, Compression.decompress(stored, DEFLATE));
+    }
+
+    @Test
+    void corruptHeadersAreRejected() {
+        var compressed = Compression.compress(repetitive(4096), DEFLATE, 0).b().asByteArray();
+        var wrongVersion = compressed.clone();
+        wrongVersion[2] = 9;
+        assertThrows(IllegalArgumentException.class,
+            () -> Compression.decompress(AttributeValue.builder().b(SdkBytes.fromByteArray(wrongVersion)).build(), DEFLATE));
+        var wrongCompressor = compressed.clone();
+        wrongCompressor[3] = 77;
+        assertThrows(IllegalArgumentException.class,
+            () -> Compression.decompress(AttributeValue.builder().b(SdkBytes.fromByteArray(wrongCompressor)).build(), DEFLATE));
+        // A length near 2GB must fail before anything is allocated
+        var huge = compressed.clone();
+        huge[4] = 0x7f;
+        assertThrows(IllegalArgumentException.class,
+            () -> Compression.decompress(AttributeValue.builder().b(SdkBytes.fromByteArray(huge)).build(), DEFLATE));
+        var truncated = Arrays.copyOf(compressed, compressed.length - 4);
+        assertThrows(IllegalArgumentException.class,
+            () -> Compression.decompress(AttributeValue.builder().b(SdkBytes.fromByteArray(truncated)).build(), DEFLATE));
+        var badStored = Compression.compress(binary(0xCD, 0x5A, 1), DEFLATE, 0).b().asByteArray();
+        badStored[7] = 100;
+        assertThrows(IllegalArgumentException.class,
+            () -> Compression.decompress(AttributeValue.builder().b(SdkBytes.fromByteArray(badStored)).build(), DEFLATE));
+    }
+
+    @Test
+    void codecCompressesItsDelegate() {
+        var codec = new CompressingCodec<>(new DynamoCodec<String>() {
+            @Override
+            public AttributeValue encode(String value) {
+                return AttributeValue.builder().s(value).build();
+            }
+
+            @Override
+            public String decode(AttributeValue dynamoValue) {
+                return dynamoValue.s();
+            }
+        });
+        var text = "0123456789".repeat(500);
+        var encoded = codec.encode(text);
+        assertTrue(Compression.isCompressed(encoded));
+        assertEquals(text, codec.decode(encoded));
+        assertEquals("short", codec.decode(codec.encode("short")));
+    }
+}
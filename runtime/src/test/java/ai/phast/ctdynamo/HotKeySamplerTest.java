@@ -0,0 +1,133 @@
+package ai.phast.ctdynamo;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotKeySamplerTest {
+
+    private static AttributeValue key(int n) {
+        return AttributeValue.builder().s("key" + n).build();
+    }
+
+    @Test
+    void countsExactlyWhileKeysFit() {
+        var sampler = new HotKeySampler(100);
+        for (int i = 0; i < 10; ++i) {
+            for (int j = 0; j <= i; ++j) {
+                sampler.recordRead(key(i), 1.0);
+            }
+        }
+        sampler.recordWrite(key(9), 2.0);
+        var top = sampler.getTopKeys(3);
+        assertEquals(3, top.size());
+        assertEquals(key(9), top.get(0).getPartitionKey());
+        assertEquals(11, top.get(0).getCount());
+        assertEquals(10, top.get(0).getReads());
+        assertEquals(1, top.get(0).getWrites());
+        assertEquals(0, top.get(0).getError());
+        assertEquals(key(8), top.get(1).getPartitionKey());
+        assertEquals(key(7), top.get(2).getPartitionKey());
+        assertEquals(56, sampler.getTotalAccesses());
+    }
+
+    @Test
+    void heavyHitterSurvivesManyColdKeys() {
+        var sampler = new HotKeySampler(32);
+        for (int i = 0; i < 10_000; ++i) {
+            sampler.recordRead(key(-1), 1.0);
+            sampler.recordRead(key(i), 1.0);
+        }
+        var top = sampler.getTopKeys(1).get(0);
+        assertEquals(key(-1), top.getPartitionKey());
+        assertTrue(top.getCount() - top.getError() <= 10_000);
+        assertTrue(top.getCount() >= 10_000);
+    }
+
+    @Test
+    void smallSamplerKeepsHeavyHitter() {
+        var sampler = new HotKeySampler(16);
+        for (int i = 0; i < 10_000; ++i) {
+            sampler.recordRead(key(-1), 1.0);
+            for (int j = 0; j < 4; ++j) {
+                sampler.recordRead(key(i * 4 + j), 1.0);
+            }
+        }
+        // A burst of cold keys at the end must not push the hot key out of its stripe
+        for (int i = 0; i < 100; ++i) {
+            sampler.recordRead(key(100_000 + i), 1.0);
+        }
+        var top = sampler.getTopKeys(1).get(0);
+        assertEquals(key(-1), top.getPartitionKey());
+        assertTrue(top.getCount() >= 10_000);
+    }
+
+    @Test
+    void singleKeySamplerStillWorks() {
+        var sampler = new HotKeySampler(1);
+        sampler.recordRead(key(1), 1.0);
+        sampler.recordRead(key(2), 1.0);
+        var top = sampler.getTopKeys(5);
+        assertEquals(1, top.size());
+        assertEquals(key(2), top.get(0).getPartitionKey());
+        assertEquals(2, top.get(0).getCount());
+        assertEquals(1, top.get(0).getError());
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        var sampler = new HotKeySampler(64);
+        var threads = new ArrayList<Thread>();
+        var start = new CountDownLatch(1);
+        for (int t = 0; t < 8; ++t) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                for (int i = 0; i < 10_000; ++i) {
+                    sampler.recordWrite(key(i % 16), 1.0);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, sampler.getTotalAccesses());
+        var top = sampler.getTopKeys(16);
+        assertEquals(16, top.size());
+        for (var hotKey : top) {
+            assertEquals(5_000, hotKey.getCount());
+            assertEquals(5_000, hotKey.getWrites());
+        }
+    }
+
+    @Test
+    void alertsOnceWhenKeyBecomesHot() {
+        var sampler = new HotKeySampler(8, 1.0, 3);
+        var alerts = new AtomicInteger();
+        sampler.addListener(hotKey -> alerts.incrementAndGet());
+        for (int i = 0; i < 10; ++i) {
+            sampler.recordRead(key(1), 1.0);
+        }
+        assertEquals(1, alerts.get());
+    }
+
+    @Test
+    void resetForgetsEverything() {
+        var sampler = new HotKeySampler(8);
+        sampler.recordRead(key(1), 1.0);
+        sampler.reset();
+        assertEquals(0, sampler.getTotalAccesses());
+        assertTrue(sampler.getTopKeys(8).isEmpty());
+    }
+}
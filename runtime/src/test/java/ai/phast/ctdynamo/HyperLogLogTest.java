@@ -0,0 +1,69 @@
+package ai.phast.ctdynamo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HyperLogLogTest {
+
+    @Test
+    void smallCountsAreNearlyExact() {
+        var sketch = new HyperLogLog();
+        assertEquals(0, sketch.estimate());
+        for (int i = 0; i < 100; ++i) {
+            sketch.add("value" + (i % 40));
+        }
+        assertEquals(40, sketch.estimate(), 1);
+    }
+
+    @Test
+    void largeCountsAreWithinTheStandardError() {
+        var sketch = new HyperLogLog();
+        for (int i = 0; i < 200_000; ++i) {
+            sketch.add((long)i);
+        }
+        // 0.8% standard error at the default precision, so 3% is well outside what a correct sketch misses by
+        assertEquals(200_000, sketch.estimate(), 6_000);
+    }
+
+    @Test
+    void mergedSketchesCountTheUnion() {
+        var left = new HyperLogLog(12);
+        var right = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; ++i) {
+            left.add(i);
+            right.add(i + 15_000);
+        }
+        left.merge(right);
+        assertEquals(45_000, left.estimate(), 45_000 * 0.06);
+    }
+
+    @Test
+    void equalValuesOfDifferentTypesCountOnce() {
+        var sketch = new HyperLogLog();
+        sketch.add(7);
+        sketch.add(7L);
+        sketch.add((Object)Short.valueOf((short)7));
+        sketch.add(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        assertEquals(2, sketch.estimate());
+    }
+
+    @Test
+    void collectorCountsDistinctKeys() {
+        var count = IntStream.range(0, 1000).boxed()
+                        .collect(Aggregations.distinctCount(i -> i % 10 == 0 ? null : "k" + (i % 250)));
+        // Keys k0, k10, ... are only ever seen with null, which is not counted
+        assertEquals(225, count, 3);
+    }
+
+    @Test
+    void rejectsBadPrecisionAndMismatchedMerges() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(10).merge(new HyperLogLog(11)));
+    }
+}
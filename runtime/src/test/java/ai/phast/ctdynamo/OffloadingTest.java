@@ -0,0 +1,98 @@
+package ai.phast.ctdynamo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffloadingTest {
+
+    private static final String STORE = "offloading-test";
+
+    @TempDir
+    Path directory;
+
+    private FileBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new FileBlobStore(directory);
+        BlobStores.register(STORE, store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        BlobStores.unregister(STORE);
+    }
+
+    private static AttributeValue binary(int... bytes) {
+        var result = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; ++i) {
+            result[i] = (byte)bytes[i];
+        }
+        return AttributeValue.builder().b(SdkBytes.fromByteArray(result)).build();
+    }
+
+    @Test
+    void bigValuesAreOffloaded() {
+        var value = AttributeValue.builder().s("x".repeat(5000)).build();
+        var pointer = Offloading.offload(value, STORE, 1000);
+        assertTrue(Offloading.isPointer(pointer));
+        assertTrue(pointer.b().asByteArrayUnsafe().length < 100);
+        assertEquals(value, Offloading.fetch(pointer, STORE));
+    }
+
+    @Test
+    void smallValuesStayInline() {
+        var value = AttributeValue.builder().l(List.of(AttributeValue.builder().n("1").build())).build();
+        assertSame(value, Offloading.offload(value, STORE, 1000));
+        assertSame(value, Offloading.fetch(value, STORE));
+        var nul = AttributeValue.builder().nul(true).build();
+        assertSame(nul, Offloading.offload(nul, STORE, 0));
+    }
+
+    @Test
+    void inlineValuesThatLookLikePointersAreEscaped() {
+        // Each of these starts with the pointer magic bytes, and the last has a valid looking version and key
+        for (var value : List.of(binary(0xCD, 0x42), binary(0xCD, 0x42, 0), binary(0xCD, 0x42, 1, '4', '2'))) {
+            var stored = Offloading.offload(value, STORE, 1000);
+            assertFalse(Offloading.isPointer(stored));
+            assertEquals(value, Offloading.fetch(stored, STORE));
+        }
+        var other = binary(0xCD, 0x43, 1, 2);
+        assertSame(other, Offloading.offload(other, STORE, 1000));
+    }
+
+    @Test
+    void equalValuesGetTheirOwnBlobs() {
+        var value = AttributeValue.builder().s("y".repeat(5000)).build();
+        var first = Offloading.offload(value, STORE, 1000);
+        var second = Offloading.offload(value, STORE, 1000);
+        assertNotEquals(Offloading.getKey(first), Offloading.getKey(second));
+        // Deleting the blob of one item must not break the other
+        store.delete(Offloading.getKey(first));
+        assertEquals(value, Offloading.fetch(second, STORE));
+        assertThrows(IllegalStateException.class, () -> Offloading.fetch(first, STORE));
+    }
+
+    @Test
+    void fileStoreRejectsKeysOutsideItsDirectory() {
+        assertThrows(IllegalArgumentException.class, () -> store.get("../../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.get("ABCDEF"));
+        var data = new byte[] { 1, 2, 3 };
+        assertArrayEquals(data, store.get(store.put(data)));
+    }
+}
@@ -0,0 +1,134 @@
+package ai.phast.ctdynamo;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedTest {
+
+    private enum Color { RED, GREEN, BLUE }
+
+    private enum NewColor { BLUE, RED }
+
+    private static AttributeValue[] names(String... names) {
+        return Arrays.stream(names).map(name -> AttributeValue.builder().s(name).build()).toArray(AttributeValue[]::new);
+    }
+
+    @Test
+    void scalarsRoundTrip() {
+        var writer = new PackedWriter(0, 0);
+        var longs = List.of(0L, 1L, -1L, 63L, -64L, 64L, Long.MAX_VALUE, Long.MIN_VALUE);
+        longs.forEach(writer::writeLong);
+        writer.writeFloat(-1.5f);
+        writer.writeDouble(Math.PI);
+        writer.writeDouble(Double.NaN);
+        writer.writeBoolean(true);
+        writer.writeString("héllo 😀");
+        writer.writeString("");
+        writer.writeBytes(new byte[] { 0, -1, 127 });
+        writer.writeValue(AttributeValue.builder().ns("1", "2").build());
+        writer.writeVarint(Integer.MAX_VALUE);
+        var value = writer.toAttributeValue();
+        assertTrue(Packed.isPacked(value));
+        var reader = new PackedReader(value);
+        assertEquals(0, reader.readCount());
+        for (var expected : longs) {
+            assertEquals(expected, reader.readLong());
+        }
+        assertEquals(-1.5f, reader.readFloat());
+        assertEquals(Math.PI, reader.readDouble());
+        assertTrue(Double.isNaN(reader.readDouble()));
+        assertTrue(reader.readBoolean());
+        assertEquals("héllo 😀", reader.readString());
+        assertEquals("", reader.readString());
+        assertArrayEquals(new byte[] { 0, -1, 127 }, reader.readBytes());
+        assertEquals(AttributeValue.builder().ns("1", "2").build(), reader.readValue());
+        assertEquals(Integer.MAX_VALUE, reader.readVarint());
+    }
+
+    @Test
+    void enumDictionariesMatchByName() {
+        var writer = new PackedWriter(0, 1);
+        writer.writeEnumField("color", true, names("RED", "GREEN", "BLUE"));
+        writer.writeEnum(Color.BLUE);
+        writer.writeEnum(Color.RED);
+        writer.writeEnum(Color.GREEN);
+        var reader = new PackedReader(writer.toAttributeValue());
+        assertEquals(1, reader.readCount());
+        assertEquals("color", reader.readString());
+        var type = reader.readVarint();
+        PackedReader.checkType("color", type, Packed.TYPE_ENUM);
+        assertEquals(Packed.NULLABLE, type & Packed.NULLABLE);
+        // The reader's enum has different ordinals and lacks GREEN
+        var dictionary = reader.readEnumDictionary(NewColor.class);
+        assertArrayEquals(new NewColor[] { NewColor.RED, null, NewColor.BLUE }, dictionary);
+        assertEquals(NewColor.BLUE, reader.readEnum(dictionary));
+        assertEquals(NewColor.RED, reader.readEnum(dictionary));
+        assertThrows(IllegalArgumentException.class, () -> reader.readEnum(dictionary));
+        assertThrows(IllegalArgumentException.class, () -> PackedReader.checkType("color", type, Packed.TYPE_STRING));
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() {
+        var writer = new PackedWriter(0, 0);
+        writer.writeEnumField("old", false, names("A", "B"));
+        writer.writeLong(-5);
+        writer.writeFloat(1);
+        writer.writeDouble(2);
+        writer.writeBoolean(false);
+        writer.writeVarint(1);
+        writer.writeString("skip me");
+        writer.writeBytes(new byte[10]);
+        writer.writeValue(AttributeValue.builder().s("v").build());
+        writer.writeString("end");
+        var reader = new PackedReader(writer.toAttributeValue());
+        assertEquals(0, reader.readCount());
+        reader.readString();
+        var type = reader.readVarint();
+        reader.skipFieldSchema(type);
+        for (var skipped : List.of(Packed.TYPE_VARINT, Packed.TYPE_FLOAT, Packed.TYPE_DOUBLE, Packed.TYPE_BOOLEAN, Packed.TYPE_ENUM,
+            Packed.TYPE_STRING, Packed.TYPE_BYTES, Packed.TYPE_VALUE)) {
+            reader.skip(skipped);
+        }
+        assertEquals("end", reader.readString());
+        assertThrows(IllegalArgumentException.class, () -> reader.skip(99));
+    }
+
+    @Test
+    void corruptDataIsRejected() {
+        assertFalse(Packed.isPacked(AttributeValue.builder().s("x").build()));
+        assertThrows(IllegalArgumentException.class, () -> new PackedReader(AttributeValue.builder().s("x").build()));
+        var wrongVersion = new PackedWriter(0, 0).toAttributeValue().b().asByteArray();
+        wrongVersion[2] = 9;
+        assertThrows(IllegalArgumentException.class,
+            () -> new PackedReader(AttributeValue.builder().b(SdkBytes.fromByteArray(wrongVersion)).build()));
+
+        // A count bigger than the data left must fail before anything is allocated for it
+        var writer = new PackedWriter(0, 0);
+        writer.writeVarint(1_000_000);
+        var reader = new PackedReader(writer.toAttributeValue());
+        reader.readCount();
+        assertThrows(IllegalArgumentException.class, reader::readCount);
+
+        writer = new PackedWriter(0, 0);
+        writer.writeString("truncated");
+        var bytes = writer.toAttributeValue().b().asByteArray();
+        var truncated = new PackedReader(AttributeValue.builder().b(SdkBytes.fromByteArray(Arrays.copyOf(bytes, bytes.length - 3))).build());
+        truncated.readCount();
+        assertThrows(IllegalArgumentException.class, truncated::readString);
+
+        var overlong = new byte[] { (byte)0xCD, 0x50, 1, 0, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff, 1 };
+        var malformed = new PackedReader(AttributeValue.builder().b(SdkBytes.fromByteArray(overlong)).build());
+        malformed.readCount();
+        assertThrows(IllegalArgumentException.class, malformed::readVarint);
+    }
+}
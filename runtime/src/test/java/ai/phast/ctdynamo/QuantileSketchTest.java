@@ -0,0 +1,93 @@
+package ai.phast.ctdynamo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    @Test
+    void quantilesAreWithinTheRelativeAccuracy() {
+        var sketch = new QuantileSketch();
+        for (int i = 1; i <= 10_000; ++i) {
+            sketch.add(i);
+        }
+        assertEquals(10_000, sketch.getCount());
+        assertEquals(1.0, sketch.getMin());
+        assertEquals(10_000.0, sketch.getMax());
+        for (var quantile : new double[] { 0, 0.01, 0.25, 0.5, 0.9, 0.99, 1 }) {
+            var exact = 1 + Math.floor(quantile * 9_999);
+            var estimate = sketch.getQuantile(quantile);
+            assertTrue(Math.abs(estimate - exact) <= exact * 0.01 + 1e-9, quantile + ": " + estimate + " vs " + exact);
+        }
+    }
+
+    @Test
+    void negativeAndZeroValuesKeepTheirOrder() {
+        var sketch = new QuantileSketch();
+        for (var value : new double[] { -100, -10, -1, 0, 0, 1, 10, 100, Double.NaN }) {
+            sketch.add(value);
+        }
+        assertEquals(8, sketch.getCount());
+        assertEquals(-100, sketch.getQuantile(0), 1);
+        assertEquals(0, sketch.getQuantile(3.0 / 7));
+        assertEquals(-1, sketch.getQuantile(2.0 / 7), 0.01);
+        assertEquals(10, sketch.getQuantile(6.0 / 7), 0.1);
+    }
+
+    @Test
+    void mergedSketchesMatchOneSketch() {
+        var whole = new QuantileSketch();
+        var left = new QuantileSketch();
+        var right = new QuantileSketch();
+        for (int i = 0; i < 5_000; ++i) {
+            whole.add(i * 0.5);
+            (i % 2 == 0 ? left : right).add(i * 0.5);
+        }
+        left.merge(right);
+        assertEquals(whole.getCount(), left.getCount());
+        for (var quantile : new double[] { 0.1, 0.5, 0.95 }) {
+            assertEquals(whole.getQuantile(quantile), left.getQuantile(quantile));
+        }
+    }
+
+    @Test
+    void emptySketchesHaveNoQuantiles() {
+        var sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        assertTrue(Double.isNaN(sketch.getMin()));
+        assertTrue(Double.isNaN(sketch.getMax()));
+    }
+
+    @Test
+    void bucketLimitOnlyCostsLowQuantiles() {
+        var sketch = new QuantileSketch(0.01, 64);
+        for (int i = 1; i <= 1000; ++i) {
+            sketch.add(i);
+        }
+        // 64 buckets of 1% cover values down to about a quarter of the largest. Everything below shares the lowest bucket.
+        assertEquals(1000, sketch.getQuantile(1), 10);
+        assertEquals(500, sketch.getQuantile(0.5), 5);
+        var low = sketch.getQuantile(0.1);
+        assertTrue(low > 200, Double.toString(low));
+        assertEquals(1.0, sketch.getMin());
+    }
+
+    @Test
+    void collectorSketchesTheValues() {
+        var sketch = IntStream.rangeClosed(1, 101).boxed().collect(Aggregations.quantiles(i -> i));
+        assertEquals(51, sketch.getQuantile(0.5), 51 * 0.01);
+    }
+
+    @Test
+    void rejectsBadParametersAndMismatchedMerges() {
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0.01, 0));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch().getQuantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0.01, 10).merge(new QuantileSketch(0.02, 10)));
+    }
+}
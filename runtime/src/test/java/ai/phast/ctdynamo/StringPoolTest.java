@@ -0,0 +1,92 @@
+package ai.phast.ctdynamo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StringPoolTest {
+
+    @Test
+    void equalStringsShareAnInstance() {
+        var pool = new StringPool();
+        var first = pool.intern(new String("ERROR"));
+        assertSame(first, pool.intern(new String("ERROR")));
+        assertSame(first, pool.intern("xERRORx".toCharArray(), 1, 5));
+        assertNull(pool.intern(null));
+    }
+
+    @Test
+    void charactersAreOnlyCopiedForNewStrings() {
+        var pool = new StringPool(16);
+        var chars = "stage=beta".toCharArray();
+        var first = pool.intern(chars, 6, 4);
+        assertEquals("beta", first);
+        assertSame(first, pool.intern(chars, 6, 4));
+        assertSame(first, pool.intern("beta"));
+        assertEquals("", pool.intern(chars, 0, 0));
+    }
+
+    @Test
+    void fullPoolsStillReturnEqualStrings() {
+        var pool = new StringPool(2);
+        for (int round = 0; round < 3; ++round) {
+            for (int i = 0; i < 100; ++i) {
+                var value = "value" + i;
+                assertEquals(value, pool.intern(new String(value)));
+                assertEquals(value, pool.intern(value.toCharArray(), 0, value.length()));
+            }
+        }
+    }
+
+    @Test
+    void twoCommonValuesDoNotPushEachOtherOut() {
+        var pool = new StringPool(1);
+        var open = pool.intern(new String("open"));
+        var closed = pool.intern(new String("closed"));
+        assertSame(open, pool.intern(new String("open")));
+        assertSame(closed, pool.intern(new String("closed")));
+    }
+
+    @Test
+    void threadsNeverSeeWrongStrings() throws InterruptedException {
+        var pool = new StringPool(8);
+        var start = new CountDownLatch(1);
+        var wrong = new AtomicInteger();
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; ++t) {
+            var thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100_000; ++i) {
+                    var value = "v" + (i % 50);
+                    if (!value.equals(pool.intern(value))) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    void rejectsBadSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new StringPool(0));
+        assertThrows(IllegalArgumentException.class, () -> new StringPool((1 << 30) + 1));
+    }
+}
@@ -0,0 +1,102 @@
+package ai.phast.ctdynamo.codecs;
+
+import ai.phast.ctdynamo.DynamoCodec;
+import ai.phast.ctdynamo.JsonAttributeValues;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodecsTest {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * Check that a value survives both the attribute value and the JSON forms, and that the two forms agree.
+     */
+    private static <T> AttributeValue roundTrip(DynamoCodec<T> codec, T value) throws IOException {
+        var encoded = codec.encode(value);
+        assertEquals(value, codec.decode(encoded));
+        var text = new StringWriter();
+        try (var generator = JSON.createGenerator(text)) {
+            codec.encodeJson(value, generator);
+        }
+        try (var parser = JSON.createParser(text.toString())) {
+            parser.nextToken();
+            assertEquals(encoded, JsonAttributeValues.read(parser));
+        }
+        return encoded;
+    }
+
+    @Test
+    void instants() throws IOException {
+        var instant = Instant.parse("2021-03-04T05:06:07.891Z");
+        assertEquals("1614834367891", roundTrip(new InstantMillisCodec(), instant).n());
+        assertEquals("1614834367", roundTrip(new InstantSecondsCodec(), instant.minusMillis(891)).n());
+        assertEquals("2021-03-04T05:06:07.891Z", roundTrip(new InstantIsoCodec(), instant).s());
+        roundTrip(new InstantMillisCodec(), Instant.ofEpochMilli(-1));
+    }
+
+    @Test
+    void localDates() throws IOException {
+        assertEquals("0", roundTrip(new LocalDateEpochDayCodec(), LocalDate.of(1970, 1, 1)).n());
+        roundTrip(new LocalDateEpochDayCodec(), LocalDate.of(1969, 12, 31));
+        assertEquals("2020-02-29", roundTrip(new LocalDateIsoCodec(), LocalDate.of(2020, 2, 29)).s());
+    }
+
+    @Test
+    void durations() throws IOException {
+        var codec = new DurationSecondsCodec();
+        assertEquals("90", roundTrip(codec, Duration.ofSeconds(90)).n());
+        assertEquals("90.25", roundTrip(codec, Duration.ofMillis(90_250)).n());
+        assertEquals("0.000000001", roundTrip(codec, Duration.ofNanos(1)).n());
+        assertEquals("-0.5", roundTrip(codec, Duration.ofMillis(-500)).n());
+        assertEquals("-1.5", roundTrip(codec, Duration.ofMillis(-1500)).n());
+        assertEquals("-2", roundTrip(codec, Duration.ofSeconds(-2)).n());
+        roundTrip(codec, Duration.ofSeconds(Long.MAX_VALUE, 999_999_999));
+        roundTrip(codec, Duration.ofSeconds(Long.MIN_VALUE));
+        // Numbers written by hand may have more fraction digits than fit; the extras are dropped
+        assertEquals(Duration.ofNanos(1_500_000_000), codec.decode(AttributeValue.builder().n("1.5000000009").build()));
+    }
+
+    @Test
+    void uuids() throws IOException {
+        var low = new UUID(0x0123456789abcdefL, 1);
+        var high = new UUID(0xfedcba9876543210L, 0);
+        var lowBytes = roundTrip(new UuidBinaryCodec(), low).b().asByteArray();
+        var highBytes = roundTrip(new UuidBinaryCodec(), high).b().asByteArray();
+        assertEquals(16, lowBytes.length);
+        // Dynamo compares binary values as unsigned bytes
+        assertTrue(Arrays.compareUnsigned(lowBytes, highBytes) < 0);
+        assertEquals(low.toString(), roundTrip(new UuidStringCodec(), low).s());
+        assertThrows(IllegalArgumentException.class,
+            () -> new UuidBinaryCodec().decode(AttributeValue.builder().b(SdkBytes.fromByteArray(new byte[15])).build()));
+    }
+
+    @Test
+    void bigNumbers() throws IOException {
+        var decimals = new BigDecimalCodec();
+        assertEquals("12345678901234567890.5", roundTrip(decimals, new BigDecimal("12345678901234567890.5")).n());
+        // Very big and very small values are written without exponents
+        assertEquals("1000000000000000000000", decimals.encode(new BigDecimal("1E+21")).n());
+        assertEquals("0.0000001", decimals.encode(new BigDecimal("1E-7")).n());
+        for (var text : List.of("0", "-1", "123456789012345678901234567890")) {
+            roundTrip(new BigIntegerCodec(), new BigInteger(text));
+        }
+    }
+}